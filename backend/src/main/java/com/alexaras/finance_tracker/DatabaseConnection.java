@@ -1,31 +1,90 @@
 package com.alexaras.finance_tracker;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import javax.sql.DataSource;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
-public class DatabaseConnection {
+public class DatabaseConnection implements AutoCloseable {
+
+    public static final String DEFAULT_URL = "jdbc:sqlite:finance_tracker.db";
+    public static final int DEFAULT_POOL_SIZE = 10;
 
-    private final String url;
+    private final HikariDataSource dataSource;
 
     // Default Constructor for Production
     public DatabaseConnection() {
-        this.url = "jdbc:sqlite:finance_tracker.db";
+        this(DEFAULT_URL);
     }
 
     // Custom Constructor for Testing or Alternate Databases
     public DatabaseConnection(String customUrl) {
-        this.url = customUrl;
+        this(customUrl, DEFAULT_POOL_SIZE);
+    }
+
+    public DatabaseConnection(String customUrl, int maximumPoolSize) {
+        this(poolConfig(customUrl, maximumPoolSize));
+    }
+
+    // Full control over the pool, e.g. timeouts or a metrics tracker
+    public DatabaseConnection(HikariConfig config) {
+        this.dataSource = new HikariDataSource(config);
     }
 
-    // Method to Establish Connection
+    // Method to Borrow a Connection; closing it returns it to the pool
     public Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(url);
+        return dataSource.getConnection();
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public PoolStats getPoolStats() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return new PoolStats(pool.getActiveConnections(), pool.getIdleConnections(),
+                pool.getTotalConnections(), pool.getThreadsAwaitingConnection(),
+                dataSource.getMaximumPoolSize());
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+
+    public static HikariConfig poolConfig(String url, int maximumPoolSize) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setPoolName("finance-tracker-jdbc");
+        if (isInMemory(url)) {
+            // Every connection to an in-memory database sees its own empty database, and the data is
+            // gone once that connection closes: keep exactly one connection open for the pool's lifetime
+            config.setMaximumPoolSize(1);
+            config.setMinimumIdle(1);
+            config.setMaxLifetime(0);
+            config.setIdleTimeout(0);
+        } else {
+            config.setMaximumPoolSize(maximumPoolSize);
+        }
+        return config;
+    }
+
+    private static boolean isInMemory(String url) {
+        return url.contains(":memory:") || url.contains("mode=memory");
+    }
+
+    /**
+     * Point-in-time view of the pool, for monitoring.
+     */
+    public record PoolStats(int active, int idle, int total, int threadsAwaitingConnection, int maximumPoolSize) {
     }
 
     public static void main(String[] args) {
-        DatabaseConnection dbConnection = new DatabaseConnection();
-        try (Connection conn = dbConnection.getConnection()) {
+        try (DatabaseConnection dbConnection = new DatabaseConnection();
+             Connection conn = dbConnection.getConnection()) {
             if (conn != null) {
                 System.out.println("Connection to SQLite has been established.");
             }
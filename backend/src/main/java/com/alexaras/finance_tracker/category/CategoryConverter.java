@@ -0,0 +1,35 @@
+package com.alexaras.finance_tracker.category;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Stores a category name as its {@link CategoryDictionary} id. Hibernate converts query parameters
+ * compared with the attribute as well, so filters and groupings on the category run on the int column.
+ * <p>
+ * Queries run through here too, so a name without an id becomes {@link CategoryDictionary#UNKNOWN},
+ * which matches no row, rather than being added: filtering on a made-up category must not grow the
+ * table. New categories are registered before they are written, by
+ * {@link CategoryRegistrationListener} for entities and by the callers of bulk updates.
+ */
+@Converter
+public class CategoryConverter implements AttributeConverter<String, Integer> {
+    private final CategoryDictionary categoryDictionary;
+
+    // Hibernate creates converters through Spring, which injects the dictionary
+    @Autowired
+    public CategoryConverter(CategoryDictionary categoryDictionary) {
+        this.categoryDictionary = categoryDictionary;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String category) {
+        return category == null ? null : categoryDictionary.find(category);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer id) {
+        return id == null ? null : categoryDictionary.nameOf(id);
+    }
+}
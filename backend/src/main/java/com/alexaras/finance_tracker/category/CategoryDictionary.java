@@ -0,0 +1,186 @@
+package com.alexaras.finance_tracker.category;
+
+import com.alexaras.finance_tracker.model.Category;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The {@link Category} table held in memory. Expenses store a category's id rather than its name
+ * (see {@link CategoryConverter}), and this maps between the two without touching the database once
+ * loaded. The table is read on first use, since it only exists once Hibernate has created the schema.
+ * <p>
+ * New categories are inserted on a connection of their own and committed straight away, whatever
+ * transaction the caller is in, so an id is never handed out for a row that is later rolled back. A
+ * category whose expense fails to save simply stays in the table. Writers should
+ * {@link #register} their categories before their own transaction writes anything: SQLite allows one
+ * writer at a time, so the insert would otherwise wait on the caller's lock.
+ */
+@Component
+public class CategoryDictionary implements MeterBinder {
+    /**
+     * The id {@link #find} returns for a name that is not in the dictionary, which no row stores.
+     */
+    public static final int UNKNOWN = CategoryIds.NONE;
+
+    private final DataSource dataSource;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Null until first loaded; replaced wholesale, never modified
+    private volatile CategoryIds ids;
+
+    @Autowired
+    public CategoryDictionary(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * @return the category's id, or {@link #UNKNOWN} if no expense has used it yet
+     */
+    public int find(String name) {
+        return ids().idOf(name);
+    }
+
+    /**
+     * Returns the category's id, adding the category to the table if it is new.
+     */
+    public int register(String name) {
+        int id = find(name);
+        return id != UNKNOWN ? id : insert(name);
+    }
+
+    public String nameOf(int id) {
+        String name = ids().nameOf(id);
+        if (name != null) {
+            return name;
+        }
+        // Only ids read back from the table get here, so the table has a row this copy has not seen
+        writeLock.lock();
+        try {
+            ids = load();
+        } finally {
+            writeLock.unlock();
+        }
+        name = ids.nameOf(id);
+        if (name == null) {
+            throw new IllegalStateException("Unknown category id: " + id);
+        }
+        return name;
+    }
+
+    public int size() {
+        return ids().size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("finance_tracker.categories", this, CategoryDictionary::loadedSize)
+                .description("Distinct expense categories in the category dictionary")
+                .register(registry);
+    }
+
+    private double loadedSize() {
+        CategoryIds current = ids;
+        return current == null ? 0 : current.size();
+    }
+
+    private CategoryIds ids() {
+        CategoryIds current = ids;
+        if (current != null) {
+            return current;
+        }
+        writeLock.lock();
+        try {
+            if (ids == null) {
+                ids = load();
+            }
+            return ids;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private int insert(String name) {
+        writeLock.lock();
+        try {
+            CategoryIds current = ids();
+            int id = current.idOf(name);
+            if (id != UNKNOWN) {
+                return id;
+            }
+            id = insertRow(name);
+            // Another writer on the same table may have taken ids this copy does not know about
+            ids = current.nameOf(id) == null ? current.with(id, name) : load();
+            return id;
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to add category: " + e.getMessage(), e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Returns the row's id, which another writer may have inserted already. The insert reads the next id
+    // itself: SQLite only takes the write lock at a transaction's first write, and a transaction that
+    // read first fails with SQLITE_BUSY_SNAPSHOT once another connection has committed in the meantime
+    private int insertRow(String name) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO categories (id, name) SELECT next_id, ? "
+                                + "FROM (SELECT COALESCE(MAX(id), 0) + 1 AS next_id FROM categories) "
+                                + "WHERE NOT EXISTS (SELECT 1 FROM categories WHERE name = ?)")) {
+                    insert.setString(1, name);
+                    insert.setString(2, name);
+                    insert.executeUpdate();
+                }
+                int id = existingId(connection, name);
+                connection.commit();
+                return id;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private static int existingId(Connection connection, String name) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement("SELECT id FROM categories WHERE name = ?")) {
+            select.setString(1, name);
+            try (ResultSet rs = select.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : UNKNOWN;
+            }
+        }
+    }
+
+    private CategoryIds load() {
+        try (Connection connection = dataSource.getConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, name FROM categories")) {
+            String[] names = new String[16];
+            while (rs.next()) {
+                int id = rs.getInt(1);
+                if (id >= names.length) {
+                    names = Arrays.copyOf(names, Math.max(id + 1, names.length * 2));
+                }
+                names[id] = rs.getString(2);
+            }
+            return CategoryIds.of(names);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to load categories: " + e.getMessage(), e);
+        }
+    }
+}
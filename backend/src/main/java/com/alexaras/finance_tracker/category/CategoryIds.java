@@ -0,0 +1,85 @@
+package com.alexaras.finance_tracker.category;
+
+import java.util.Arrays;
+
+/**
+ * An immutable two-way map between category names and their ids. Ids are small and dense, so names
+ * are looked up in an array indexed by id, and ids are found through an open-addressing table of
+ * ints probed linearly; neither direction boxes the id. Adding a category copies the map, which is
+ * cheap for the few categories there are and lets readers go without locks.
+ */
+final class CategoryIds {
+    // Id 0 is never handed out, so it doubles as the empty slot and the "not found" result
+    static final int NONE = 0;
+    static final CategoryIds EMPTY = new CategoryIds(new String[1], 0);
+
+    private final String[] names;
+    private final int[] slots;
+    private final int size;
+
+    private CategoryIds(String[] names, int size) {
+        this.names = names;
+        this.size = size;
+        // At most half full, so probes stay short
+        this.slots = new int[Math.max(8, Integer.highestOneBit(Math.max(1, size)) << 2)];
+        for (int id = 1; id < names.length; id++) {
+            if (names[id] != null) {
+                int slot = slot(names[id]);
+                while (slots[slot] != NONE) {
+                    slot = (slot + 1) & (slots.length - 1);
+                }
+                slots[slot] = id;
+            }
+        }
+    }
+
+    /**
+     * @param names category names indexed by id, with gaps left null
+     */
+    static CategoryIds of(String[] names) {
+        int size = 0;
+        for (int id = 1; id < names.length; id++) {
+            if (names[id] != null) {
+                size++;
+            }
+        }
+        return new CategoryIds(Arrays.copyOf(names, Math.max(1, names.length)), size);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the id of the category, or {@link #NONE} if it has none
+     */
+    int idOf(String name) {
+        for (int slot = slot(name); ; slot = (slot + 1) & (slots.length - 1)) {
+            int id = slots[slot];
+            if (id == NONE || names[id].equals(name)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * @return the name with this id, or null if there is none
+     */
+    String nameOf(int id) {
+        return id > 0 && id < names.length ? names[id] : null;
+    }
+
+    /**
+     * @return a copy of this map that also holds the category, which must not be in it yet
+     */
+    CategoryIds with(int id, String name) {
+        String[] copy = Arrays.copyOf(names, Math.max(names.length, id + 1));
+        copy[id] = name;
+        return new CategoryIds(copy, size + 1);
+    }
+
+    private int slot(String name) {
+        int hash = name.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (slots.length - 1);
+    }
+}
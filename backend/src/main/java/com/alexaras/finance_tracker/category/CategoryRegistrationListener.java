@@ -0,0 +1,31 @@
+package com.alexaras.finance_tracker.category;
+
+import com.alexaras.finance_tracker.model.Expense;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Adds an expense's category to the {@link CategoryDictionary} before Hibernate writes the expense,
+ * so {@link CategoryConverter} finds an id for it.
+ * <p>
+ * Only a fallback for writers that do not register their categories themselves: by now the write's
+ * transaction holds a pooled connection, and a new category takes a second one. The services register
+ * up front, so here the category is already known and no connection is needed.
+ */
+public class CategoryRegistrationListener {
+    private final CategoryDictionary categoryDictionary;
+
+    @Autowired
+    public CategoryRegistrationListener(CategoryDictionary categoryDictionary) {
+        this.categoryDictionary = categoryDictionary;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void register(Expense expense) {
+        if (expense.getCategory() != null) {
+            categoryDictionary.register(expense.getCategory());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.alexaras.finance_tracker.config;
+
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Callable;
+
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    // Cache names, size and TTL come from the spring.cache.* properties
+    @Bean
+    public CacheManager cacheManager(CacheProperties properties) {
+        CaffeineCacheManager caffeine = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return ExpenseRepository.CACHE_NAME.equals(name)
+                        ? new ExpenseCache(name, cache)
+                        : super.adaptCaffeineCache(name, cache);
+            }
+        };
+        caffeine.setCacheSpecification(properties.getCaffeine().getSpec());
+        caffeine.setCacheNames(properties.getCacheNames());
+        caffeine.setAllowNullValues(false);
+
+        // Defer puts and evictions until the surrounding transaction commits, so a rolled-back
+        // write never leaves its rows in the cache
+        return new TransactionAwareCacheManagerProxy(caffeine);
+    }
+
+    /**
+     * What the expense cache holds for an expense deleted at {@code version}. Lookups treat it as a miss,
+     * and it keeps a reader that loaded the row before the DELETE committed from putting it back.
+     */
+    public record DeletedExpense(long version) {
+    }
+
+    /**
+     * Never replaces a cached expense with an older version of it, and never replaces a
+     * {@link DeletedExpense} with the version it deleted or an older one. A reader that loaded the row
+     * just before an update or delete committed puts it after the write's eviction; the services write the
+     * updated row or the tombstone through to the cache, so that late put finds it and is dropped.
+     * <p>
+     * Expenses are mutable, so the cache stores and hands out copies.
+     */
+    static final class ExpenseCache extends CaffeineCache {
+        ExpenseCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+            super(name, cache, false);
+        }
+
+        @Override
+        protected Object lookup(Object key) {
+            Object value = super.lookup(key);
+            return value instanceof DeletedExpense ? null : copy(value);
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            if (getNativeCache().getIfPresent(key) instanceof DeletedExpense) {
+                // The row is gone, so whatever the loader finds is not cached over the tombstone
+                try {
+                    return valueLoader.call();
+                } catch (Exception e) {
+                    throw new ValueRetrievalException(key, valueLoader, e);
+                }
+            }
+            // The loaded value is cached as it is, so the caller gets a copy of it too
+            return copy(super.get(key, valueLoader));
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            Object stored = copy(value);
+            if (stored instanceof DeletedExpense || stored instanceof Expense expense && expense.getVersion() != null) {
+                getNativeCache().asMap().merge(key, stored, (cached, offered) -> newer(cached, offered));
+            } else {
+                super.put(key, stored);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T copy(T value) {
+            return value instanceof Expense expense ? (T) new Expense(expense) : value;
+        }
+
+        private static Object newer(Object cached, Object offered) {
+            long cachedVersion = version(cached);
+            long offeredVersion = version(offered);
+            // At the same version the tombstone wins: the DELETE removed exactly that version
+            boolean keepCached = cachedVersion > offeredVersion
+                    || cachedVersion == offeredVersion && cached instanceof DeletedExpense;
+            return keepCached ? cached : offered;
+        }
+
+        private static long version(Object value) {
+            if (value instanceof DeletedExpense deleted) {
+                return deleted.version();
+            }
+            Long version = ((Expense) value).getVersion();
+            return version == null ? -1 : version;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.alexaras.finance_tracker.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Binary response formats, chosen through the Accept header: {@code application/cbor},
+ * {@code application/x-jackson-smile} and, for expense lists, {@link ExpenseColumnsHttpMessageConverter}.
+ * JSON stays first, so clients that accept anything still get JSON.
+ */
+@Configuration
+public class ContentNegotiationConfig implements WebMvcConfigurer {
+    private final ObjectMapper objectMapper;
+
+    public ContentNegotiationConfig(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Spring adds CBOR and Smile converters with a plain mapper when the libraries are present;
+        // replace them with copies of the application's mapper so dates and modules match the JSON
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+                || converter instanceof MappingJackson2SmileHttpMessageConverter);
+        ObjectMapper cborMapper = objectMapper.copyWith(new CBORFactory());
+        converters.add(new MappingJackson2CborHttpMessageConverter(cborMapper));
+        converters.add(new MappingJackson2SmileHttpMessageConverter(objectMapper.copyWith(new SmileFactory())));
+        converters.add(new ExpenseColumnsHttpMessageConverter(cborMapper));
+    }
+}
@@ -0,0 +1,69 @@
+package com.alexaras.finance_tracker.config;
+
+import com.alexaras.finance_tracker.dto.ExpenseColumns;
+import com.alexaras.finance_tracker.model.Expense;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Writes {@code List<Expense>} responses as {@link ExpenseColumns} encoded in CBOR, for clients that
+ * send {@code Accept: application/vnd.finance-tracker.expense-columns+cbor}. Write-only.
+ */
+public class ExpenseColumnsHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<Expense>> {
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.finance-tracker.expense-columns+cbor";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    private final ObjectMapper cborMapper;
+
+    public ExpenseColumnsHttpMessageConverter(ObjectMapper cborMapper) {
+        super(MEDIA_TYPE);
+        this.cborMapper = cborMapper;
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        if (!canWrite(mediaType) || !List.class.isAssignableFrom(clazz)) {
+            return false;
+        }
+        // Without the generic type (e.g. when listing producible types) only the raw class is known
+        return type == null || ResolvableType.forType(type).asCollection().resolveGeneric(0) == Expense.class;
+    }
+
+    @Override
+    protected void writeInternal(List<Expense> expenses, @Nullable Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        ExpenseColumns columns;
+        try {
+            columns = ExpenseColumns.from(expenses);
+        } catch (ArithmeticException e) {
+            throw new HttpMessageNotWritableException("Amounts do not fit the columnar format: " + e.getMessage(), e);
+        }
+        cborMapper.writeValue(outputMessage.getBody(), columns);
+    }
+
+    @Override
+    public List<Expense> read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Expense columns can only be written", inputMessage);
+    }
+
+    @Override
+    protected List<Expense> readInternal(Class<? extends List<Expense>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Expense columns can only be written", inputMessage);
+    }
+}
@@ -0,0 +1,76 @@
+package com.alexaras.finance_tracker.config;
+
+import com.alexaras.finance_tracker.category.CategoryDictionary;
+import com.alexaras.finance_tracker.dao.UserDAO;
+import com.alexaras.finance_tracker.reactive.ReactiveExpenseHandler;
+import com.alexaras.finance_tracker.reactive.ReactiveExpenseRepository;
+import com.alexaras.finance_tracker.reactive.ReactiveExpenseService;
+import com.alexaras.finance_tracker.reactive.ReactiveHttpServer;
+import com.alexaras.finance_tracker.storage.StorageBackend;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+
+/**
+ * Non-blocking variant of the expense API for clients that hold many slow connections open. It runs
+ * on a separate port and reads the same H2 database through R2DBC, so it needs one of the H2 storage
+ * backends; the blocking API is unchanged.
+ * <p>
+ * The R2DBC connection factory is deliberately not a bean: Spring Boot backs off its JDBC
+ * {@code DataSource}, and with it JPA, as soon as a {@code ConnectionFactory} bean exists.
+ */
+@Configuration
+@ConditionalOnWebApplication
+@ConditionalOnProperty(name = "finance-tracker.reactive.enabled", havingValue = "true")
+public class ReactiveConfig {
+    @Bean
+    public ReactiveExpenseRepository reactiveExpenseRepository(StorageBackend storageBackend,
+                                                               CategoryDictionary categoryDictionary) {
+        String url = storageBackend.r2dbcH2Url().orElseThrow(() -> new IllegalStateException(
+                "The reactive API needs an H2 storage backend, not " + storageBackend.name()
+                        + "; set finance-tracker.reactive.enabled=false to run without it"));
+        // Embedded H2 in the same JVM: this opens the database JPA is using
+        H2ConnectionFactory connectionFactory = new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+                .url(url)
+                .build());
+        return new ReactiveExpenseRepository(DatabaseClient.create(connectionFactory), categoryDictionary);
+    }
+
+    @Bean
+    public ReactiveExpenseService reactiveExpenseService(ReactiveExpenseRepository reactiveExpenseRepository,
+                                                         UserDAO userDAO,
+                                                         ApplicationEventPublisher eventPublisher,
+                                                         CacheManager cacheManager) {
+        return new ReactiveExpenseService(reactiveExpenseRepository, userDAO, eventPublisher, cacheManager);
+    }
+
+    @Bean
+    public ReactiveHttpServer reactiveHttpServer(ReactiveExpenseService reactiveExpenseService,
+                                                 ObjectMapper objectMapper,
+                                                 @Value("${finance-tracker.reactive.port:8081}") int port,
+                                                 @Value("${finance-tracker.reactive.event-loop-threads:4}") int eventLoopThreads,
+                                                 @Value("${finance-tracker.expenses.default-page-size:100}") int defaultPageSize,
+                                                 @Value("${finance-tracker.expenses.max-page-size:1000}") int maxPageSize) {
+        ReactiveExpenseHandler handler = new ReactiveExpenseHandler(reactiveExpenseService, defaultPageSize, maxPageSize);
+        // Serialize exactly like the blocking API
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        return new ReactiveHttpServer(RouterFunctions.toHttpHandler(handler.routes(), strategies), port, eventLoopThreads);
+    }
+}
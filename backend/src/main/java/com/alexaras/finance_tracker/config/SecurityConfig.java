@@ -26,7 +26,9 @@ public class SecurityConfig {
                                         "/h2-console/**",
                                         "/swagger-ui/**",
                                         "/v3/api-docs/**",
-                                        "/api/**"
+                                        "/api/**",
+                                        "/actuator/health",
+                                        "/actuator/prometheus"
                                 ).permitAll()
                                 .anyRequest().authenticated()
                 )
@@ -0,0 +1,83 @@
+package com.alexaras.finance_tracker.config;
+
+import com.alexaras.finance_tracker.DatabaseConnection;
+import com.alexaras.finance_tracker.storage.H2StorageBackend;
+import com.alexaras.finance_tracker.storage.SqliteStorageBackend;
+import com.alexaras.finance_tracker.storage.StorageBackend;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Picks the {@link StorageBackend} named by {@code finance-tracker.storage.backend} and builds the one
+ * pool that JPA and the user DAO share. Spring Boot's own {@code DataSource} backs off once this one
+ * exists, so the {@code spring.datasource.*} properties no longer apply.
+ */
+@Configuration
+public class StorageConfig {
+
+    @Bean
+    public StorageBackend storageBackend(@Value("${finance-tracker.storage.backend:sqlite}") String name,
+                                         @Value("${finance-tracker.storage.location:}") String location,
+                                         @Value("${finance-tracker.storage.h2.cache-size-kb:65536}") int h2CacheSizeKb,
+                                         @Value("${finance-tracker.storage.sqlite.journal-mode:WAL}") String journalMode,
+                                         @Value("${finance-tracker.storage.sqlite.synchronous:NORMAL}") String synchronous,
+                                         @Value("${finance-tracker.storage.sqlite.cache-size-kb:65536}") int sqliteCacheSizeKb,
+                                         @Value("${finance-tracker.storage.sqlite.mmap-size:268435456}") long mmapSize,
+                                         @Value("${finance-tracker.storage.sqlite.busy-timeout:PT5S}") Duration busyTimeout) {
+        return switch (name) {
+            case "h2" -> new H2StorageBackend(false, orDefault(location, "financetracker"), h2CacheSizeKb);
+            case "h2-file" -> new H2StorageBackend(true, orDefault(location, "data/finance-tracker"), h2CacheSizeKb);
+            // The file users were kept in before expenses moved alongside them
+            case "sqlite" -> new SqliteStorageBackend(orDefault(location, "finance_tracker.db"), journalMode,
+                    synchronous, sqliteCacheSizeKb, mmapSize, busyTimeout);
+            default -> throw new IllegalArgumentException(
+                    "Unknown finance-tracker.storage.backend '" + name + "'; expected h2, h2-file or sqlite");
+        };
+    }
+
+    @Bean
+    public DatabaseConnection storage(StorageBackend storageBackend,
+                                      @Value("${finance-tracker.storage.pool-size:10}") int poolSize,
+                                      MeterRegistry registry) {
+        HikariConfig config = storageBackend.poolConfig(poolSize);
+        config.setPoolName("finance-tracker");
+        // Publishes hikaricp.connections.acquire, the time spent waiting for a connection, apart from query time
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        return new DatabaseConnection(config);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DatabaseConnection storage) {
+        return storage.getDataSource();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer storageDialect(StorageBackend storageBackend,
+                                                        @Value("${spring.jpa.hibernate.ddl-auto:}") String ddlAuto) {
+        return properties -> {
+            storageBackend.hibernateDialect().ifPresent(dialect -> properties.put(AvailableSettings.DIALECT, dialect));
+            storageBackend.hibernateMappingFile()
+                    .ifPresent(file -> properties.put(AvailableSettings.ORM_XML_FILES, List.of(file)));
+            // An explicit spring.jpa.hibernate.ddl-auto still wins
+            if (ddlAuto.isEmpty()) {
+                properties.put(AvailableSettings.HBM2DDL_AUTO, storageBackend.schemaAction());
+            }
+        };
+    }
+
+    private static String orDefault(String location, String defaultLocation) {
+        return location.isBlank() ? defaultLocation : location;
+    }
+}
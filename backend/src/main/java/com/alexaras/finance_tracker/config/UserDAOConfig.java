@@ -0,0 +1,45 @@
+package com.alexaras.finance_tracker.config;
+
+import com.alexaras.finance_tracker.DatabaseConnection;
+import com.alexaras.finance_tracker.dao.UserDAO;
+import com.alexaras.finance_tracker.dao.impl.CachingUserDAO;
+import com.alexaras.finance_tracker.dao.impl.JournalingUserDAO;
+import com.alexaras.finance_tracker.dao.impl.MeteredUserDAO;
+import com.alexaras.finance_tracker.dao.impl.UserDAOImpl;
+import com.alexaras.finance_tracker.service.ExpenseJournalService;
+import com.alexaras.finance_tracker.storage.StorageBackend;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Users are read and written with plain JDBC rather than JPA, on the pool {@link StorageConfig} builds.
+ * This creates their table and wires the DAO stack: a cache in front of a metered DAO, so the DAO
+ * timers measure real database calls. With the expense journal on, writes that reach the database are
+ * journaled as well.
+ */
+@Configuration
+public class UserDAOConfig {
+
+    @Bean
+    public CachingUserDAO userDAO(DatabaseConnection storage, StorageBackend storageBackend, MeterRegistry registry,
+                                  ExpenseJournalService expenseJournal,
+                                  @Value("${finance-tracker.users.cache.maximum-size:10000}") long maximumSize,
+                                  @Value("${finance-tracker.users.cache.time-to-live:PT10M}") Duration timeToLive) throws SQLException {
+        try (Connection connection = storage.getConnection(); Statement stmt = connection.createStatement()) {
+            stmt.execute(storageBackend.usersTableDdl());
+        }
+        UserDAOImpl jdbc = new UserDAOImpl(storage.getDataSource());
+        UserDAO dao = new MeteredUserDAO(jdbc, registry);
+        if (expenseJournal.isEnabled()) {
+            dao = new JournalingUserDAO(dao, expenseJournal);
+        }
+        return new CachingUserDAO(dao, maximumSize, timeToLive);
+    }
+}
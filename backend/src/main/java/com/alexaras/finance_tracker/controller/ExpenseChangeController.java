@@ -0,0 +1,165 @@
+package com.alexaras.finance_tracker.controller;
+
+import com.alexaras.finance_tracker.dto.ExpenseChange;
+import com.alexaras.finance_tracker.service.ExpenseChangeFeed;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RestController
+@RequestMapping("/api/v1/expenses/changes")
+@Tag(name = "Expense changes", description = "Server-sent events for committed expense changes")
+public class ExpenseChangeController {
+    private static final Logger log = LoggerFactory.getLogger(ExpenseChangeController.class);
+    private static final int BATCH_SIZE = 256;
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    private final ExpenseChangeFeed changeFeed;
+    private final Semaphore subscribers;
+    private final Duration keepAlive;
+    private final Duration timeout;
+    // Each subscriber's sends block on its own connection, so one slow client cannot hold up the others
+    private final ThreadFactory pumps = Thread.ofVirtual().name("expense-changes-", 0).factory();
+    private final Set<SseEmitter> open = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public ExpenseChangeController(ExpenseChangeFeed changeFeed,
+                                   @Value("${finance-tracker.expenses.changes.max-subscribers:1000}") int maxSubscribers,
+                                   @Value("${finance-tracker.expenses.changes.keep-alive:PT15S}") Duration keepAlive,
+                                   @Value("${finance-tracker.expenses.changes.timeout:PT30M}") Duration timeout) {
+        this.changeFeed = changeFeed;
+        this.subscribers = new Semaphore(maxSubscribers);
+        this.keepAlive = keepAlive;
+        this.timeout = timeout;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Follow expense changes",
+            description = "Streams a 'change' event for every committed add, update and delete, with the expense before "
+                    + "and after the change. Without a starting point the stream begins with the next change. To resume, "
+                    + "send the last event id as Last-Event-ID (EventSource does this when it reconnects) or as 'after'. "
+                    + "A 'resync' event means changes were missed: reload the expenses, then follow on from the resync "
+                    + "event's id. The server closes the stream after a resync and after the timeout")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Streaming changes"),
+        @ApiResponse(responseCode = "503", description = "Too many subscribers; retry after the Retry-After delay")
+    })
+    public ResponseEntity<SseEmitter> followChanges(
+            @Parameter(description = "Id of the last event received, set by EventSource on reconnect")
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @Parameter(description = "Id of the last event received, for clients that cannot set headers")
+            @RequestParam(required = false) String after) {
+        if (!subscribers.tryAcquire()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .build();
+        }
+        String resumeFrom = lastEventId != null ? lastEventId : after;
+        long cursor = resumeFrom == null ? changeFeed.head() : changeFeed.parseEventId(resumeFrom);
+
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        AtomicBoolean closed = new AtomicBoolean();
+        open.add(emitter);
+        emitter.onCompletion(() -> close(emitter, closed));
+        emitter.onTimeout(() -> close(emitter, closed));
+        emitter.onError(error -> close(emitter, closed));
+        pumps.newThread(() -> {
+            try {
+                pump(emitter, cursor, closed);
+            } finally {
+                subscribers.release();
+            }
+        }).start();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                // Stops buffering proxies such as nginx from holding events back
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
+    /**
+     * Ends every open stream as shutdown begins. Graceful shutdown waits for requests in progress,
+     * and a stream never finishes by itself; clients reconnect and are told to resync.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void closeStreams() {
+        open.forEach(SseEmitter::complete);
+    }
+
+    private void close(SseEmitter emitter, AtomicBoolean closed) {
+        closed.set(true);
+        open.remove(emitter);
+    }
+
+    private void pump(SseEmitter emitter, long cursor, AtomicBoolean closed) {
+        try {
+            // Sent at once, so the client sees the stream open before the first change
+            emitter.send(SseEmitter.event().comment("connected"));
+            if (cursor < 0) {
+                resync(emitter, changeFeed.head());
+                return;
+            }
+            while (!closed.get()) {
+                ExpenseChangeFeed.Batch batch = changeFeed.read(cursor, BATCH_SIZE, keepAlive);
+                if (batch.resync()) {
+                    resync(emitter, batch.head());
+                    return;
+                }
+                if (batch.changes().isEmpty()) {
+                    // Keeps idle connections open through proxies and notices clients that have gone away
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                    continue;
+                }
+                for (ExpenseChange change : batch.changes()) {
+                    emitter.send(SseEmitter.event()
+                            .name("change")
+                            .id(changeFeed.eventId(change.offset()))
+                            .data(change, MediaType.APPLICATION_JSON));
+                    cursor = change.offset();
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the emitter timed out; it resumes with Last-Event-ID
+            log.debug("Change stream closed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        }
+    }
+
+    // Ends the stream; the client reloads and reconnects with this event's id as Last-Event-ID
+    private void resync(SseEmitter emitter, long head) throws IOException {
+        emitter.send(SseEmitter.event()
+                .name("resync")
+                .id(changeFeed.eventId(head))
+                .data(Map.of("offset", head), MediaType.APPLICATION_JSON));
+        emitter.complete();
+    }
+}
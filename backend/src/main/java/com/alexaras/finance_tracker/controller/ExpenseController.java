@@ -1,7 +1,17 @@
 package com.alexaras.finance_tracker.controller;
 
+import com.alexaras.finance_tracker.dto.ExpenseFilter;
+import com.alexaras.finance_tracker.dto.ExpenseFilterPage;
+import com.alexaras.finance_tracker.dto.ExpensePage;
+import com.alexaras.finance_tracker.dto.ExpenseSearchResult;
+import com.alexaras.finance_tracker.dto.ExpenseSort;
 import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.service.ExpenseSearchIndex;
 import com.alexaras.finance_tracker.service.ExpenseService;
+import com.alexaras.finance_tracker.service.ExpenseStillQueuedException;
+import com.alexaras.finance_tracker.service.ExpenseVersionConflictException;
+import com.alexaras.finance_tracker.service.ExpenseVersions;
+import com.alexaras.finance_tracker.service.WriteBehindQueueFullException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -9,46 +19,189 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/expenses")
 @Tag(name = "Expense", description = "Expense management APIs")
 public class ExpenseController {
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    // The flusher empties a full queue within a few batches, so a short back-off is enough
+    private static final String WRITE_BEHIND_RETRY_AFTER_SECONDS = "1";
+
     private final ExpenseService expenseService;
+    private final ExpenseVersions expenseVersions;
+    private final ExpenseSearchIndex expenseSearchIndex;
+    private final ObjectMapper objectMapper;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
     @Autowired
-    public ExpenseController(ExpenseService expenseService) {
+    public ExpenseController(ExpenseService expenseService,
+                             ExpenseVersions expenseVersions,
+                             ExpenseSearchIndex expenseSearchIndex,
+                             ObjectMapper objectMapper,
+                             @Value("${finance-tracker.expenses.default-page-size:100}") int defaultPageSize,
+                             @Value("${finance-tracker.expenses.max-page-size:1000}") int maxPageSize) {
         this.expenseService = expenseService;
+        this.expenseVersions = expenseVersions;
+        this.expenseSearchIndex = expenseSearchIndex;
+        this.objectMapper = objectMapper;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     @GetMapping
-    @Operation(summary = "Get all expenses", description = "Retrieves a list of all expenses")
-    @ApiResponse(responseCode = "200", description = "Successfully retrieved the list of expenses")
-    public List<Expense> getExpenses() {
+    @Operation(summary = "Get all expenses",
+            description = "Retrieves a list of all expenses. Send the returned ETag in If-None-Match to get 304 Not Modified when nothing has changed")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the list of expenses"),
+        @ApiResponse(responseCode = "304", description = "No expense has changed since the ETag was issued")
+    })
+    public List<Expense> getExpenses(WebRequest request) {
+        // Answered from the version alone, before touching the repository
+        if (request.checkNotModified(expenseVersions.dataETag())) {
+            return null;
+        }
         return expenseService.getAllExpenses();
     }
 
+    @GetMapping("/{id}")
+    @Operation(summary = "Get an expense", description = "Retrieves a single expense by ID")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the expense"),
+        @ApiResponse(responseCode = "404", description = "Expense not found")
+    })
+    public Expense getExpense(
+            @Parameter(description = "ID of the expense to retrieve") @PathVariable Long id) {
+        return expenseService.getExpense(id);
+    }
+
+    @GetMapping("/page")
+    @Operation(summary = "Get a page of expenses",
+            description = "Retrieves expenses ordered by ID using keyset pagination. Pass the returned nextCursor as 'after' to get the next page")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the page of expenses"),
+        @ApiResponse(responseCode = "304", description = "No expense has changed since the ETag was issued")
+    })
+    public ExpensePage getExpensePage(
+            @Parameter(description = "Return expenses with an ID greater than this cursor") @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of expenses to return") @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        if (request.checkNotModified(expenseVersions.dataETag())) {
+            return null;
+        }
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        return expenseService.getExpensePage(after, pageSize);
+    }
+
+    @GetMapping("/filter")
+    @Operation(summary = "Filter expenses",
+            description = "Retrieves expenses matching any combination of categories, amount range and date range, "
+                    + "in the requested order using keyset pagination. Pass the returned nextCursor as 'after', "
+                    + "with the same filter and order, to get the next page")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the page of expenses"),
+        @ApiResponse(responseCode = "304", description = "No expense has changed since the ETag was issued"),
+        @ApiResponse(responseCode = "400", description = "The cursor does not belong to the requested order")
+    })
+    public ExpenseFilterPage filterExpenses(
+            @Parameter(description = "Only include these categories; repeat the parameter for several")
+            @RequestParam(name = "category", required = false) List<String> categories,
+            @Parameter(description = "Smallest amount to include (inclusive)") @RequestParam(required = false) BigDecimal minAmount,
+            @Parameter(description = "Largest amount to include (inclusive)") @RequestParam(required = false) BigDecimal maxAmount,
+            @Parameter(description = "First day to include (inclusive)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day to include (inclusive)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Order by SPENT_AT, AMOUNT or ID; ties are broken by ID")
+            @RequestParam(defaultValue = "SPENT_AT") ExpenseSort sort,
+            @Parameter(description = "ASC or DESC") @RequestParam(defaultValue = "DESC") Sort.Direction direction,
+            @Parameter(description = "Cursor returned as nextCursor by the previous page") @RequestParam(required = false) String after,
+            @Parameter(description = "Maximum number of expenses to return") @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        if (request.checkNotModified(expenseVersions.dataETag())) {
+            return null;
+        }
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        ExpenseFilter filter = new ExpenseFilter(categories, minAmount, maxAmount, from, to, sort, direction);
+        return expenseService.filterExpenses(filter, after, pageSize);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search expenses",
+            description = "Finds expenses whose category or description contains every word of the query, best match first. "
+                    + "Words of two or more letters also match longer words they start with, ranked below exact matches")
+    @ApiResponse(responseCode = "200", description = "Successfully searched the expenses")
+    public List<ExpenseSearchResult> searchExpenses(
+            @Parameter(description = "Words to search for") @RequestParam("q") String query,
+            @Parameter(description = "Maximum number of results to return") @RequestParam(required = false) Integer limit) {
+        int resultLimit = limit == null ? DEFAULT_SEARCH_LIMIT : Math.max(1, Math.min(limit, maxPageSize));
+        return expenseSearchIndex.search(query, resultLimit);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all expenses",
+            description = "Streams every expense as newline-delimited JSON without buffering the full result in memory")
+    @ApiResponse(responseCode = "200", description = "Successfully streamed the expenses")
+    public ResponseEntity<StreamingResponseBody> streamExpenses() {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                expenseService.streamExpenses(expense -> {
+                    try {
+                        objectMapper.writeValue(generator, expense);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     @PostMapping
-    @Operation(summary = "Add a new expense", description = "Creates a new expense entry")
+    @Operation(summary = "Add a new expense",
+            description = "Creates a new expense entry. In write-behind mode the expense may be returned before it is saved, "
+                    + "with a negative provisional ID that GET /{id} resolves")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Expense successfully created",
                 content = @Content(schema = @Schema(implementation = Expense.class))),
-        @ApiResponse(responseCode = "400", description = "Invalid expense data supplied")
+        @ApiResponse(responseCode = "400", description = "Invalid expense data supplied"),
+        @ApiResponse(responseCode = "429", description = "The write-behind queue is full; retry after the Retry-After delay")
     })
     public Expense addExpense(@RequestBody Expense expense) {
         return expenseService.addExpense(expense);
     }
 
     @PutMapping("/{id}")
-    @Operation(summary = "Update an expense", description = "Updates an existing expense by ID")
+    @Operation(summary = "Update an expense", description = "Updates an existing expense by ID. If the body carries the "
+            + "version last read, the update only applies if the expense has not changed since")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Expense successfully updated"),
         @ApiResponse(responseCode = "404", description = "Expense not found"),
-        @ApiResponse(responseCode = "400", description = "Invalid expense data supplied")
+        @ApiResponse(responseCode = "400", description = "Invalid expense data supplied"),
+        @ApiResponse(responseCode = "409", description = "The expense has changed since the version in the body"),
+        @ApiResponse(responseCode = "425", description = "The expense is still queued for writing; retry after the Retry-After delay")
     })
     public Expense updateExpense(
             @Parameter(description = "ID of the expense to update") @PathVariable Long id, 
@@ -60,10 +213,35 @@ public class ExpenseController {
     @Operation(summary = "Delete an expense", description = "Deletes an expense by ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "204", description = "Expense successfully deleted"),
-        @ApiResponse(responseCode = "404", description = "Expense not found")
+        @ApiResponse(responseCode = "404", description = "Expense not found"),
+        @ApiResponse(responseCode = "425", description = "The expense is still queued for writing; retry after the Retry-After delay")
     })
     public void deleteExpense(
             @Parameter(description = "ID of the expense to delete") @PathVariable Long id) {
         expenseService.deleteExpense(id);
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler(WriteBehindQueueFullException.class)
+    public ResponseEntity<String> writeBehindQueueFull(WriteBehindQueueFullException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, WRITE_BEHIND_RETRY_AFTER_SECONDS)
+                .body(e.getMessage());
+    }
+
+    @ExceptionHandler(ExpenseVersionConflictException.class)
+    public ResponseEntity<String> versionConflict(ExpenseVersionConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    @ExceptionHandler(ExpenseStillQueuedException.class)
+    public ResponseEntity<String> stillQueued(ExpenseStillQueuedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_EARLY)
+                .header(HttpHeaders.RETRY_AFTER, WRITE_BEHIND_RETRY_AFTER_SECONDS)
+                .body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> invalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
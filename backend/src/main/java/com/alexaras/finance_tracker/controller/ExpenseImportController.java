@@ -0,0 +1,74 @@
+package com.alexaras.finance_tracker.controller;
+
+import com.alexaras.finance_tracker.dto.ImportReport;
+import com.alexaras.finance_tracker.importer.CsvExpenseRowReader;
+import com.alexaras.finance_tracker.importer.ExpenseRowReader;
+import com.alexaras.finance_tracker.importer.JsonExpenseRowReader;
+import com.alexaras.finance_tracker.service.ExpenseImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/v1/expenses/import")
+@Tag(name = "Expense import", description = "Bulk expense import APIs")
+public class ExpenseImportController {
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final ExpenseImportService expenseImportService;
+    private final ObjectMapper objectMapper;
+    private final int defaultBatchSize;
+    private final int defaultChunkSize;
+
+    @Autowired
+    public ExpenseImportController(ExpenseImportService expenseImportService,
+                                   ObjectMapper objectMapper,
+                                   @Value("${finance-tracker.import.batch-size:500}") int defaultBatchSize,
+                                   @Value("${finance-tracker.import.chunk-size:5000}") int defaultChunkSize) {
+        this.expenseImportService = expenseImportService;
+        this.objectMapper = objectMapper;
+        this.defaultBatchSize = defaultBatchSize;
+        this.defaultChunkSize = defaultChunkSize;
+    }
+
+    @PostMapping(consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Import expenses in bulk",
+            description = "Streams a CSV file, a JSON array or newline-delimited JSON into the database in batched, chunked transactions")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Import finished; the report lists any rejected rows"),
+        @ApiResponse(responseCode = "415", description = "Unsupported content type")
+    })
+    public ImportReport importExpenses(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @Parameter(description = "Rows per JDBC batch") @RequestParam(required = false) Integer batchSize,
+            @Parameter(description = "Rows per committed transaction") @RequestParam(required = false) Integer chunkSize,
+            InputStream body) throws IOException {
+        int batch = Math.max(1, batchSize == null ? defaultBatchSize : batchSize);
+        int chunk = Math.max(batch, chunkSize == null ? defaultChunkSize : chunkSize);
+        try (ExpenseRowReader reader = openReader(MediaType.parseMediaType(contentType), body)) {
+            return expenseImportService.importExpenses(reader, batch, chunk);
+        }
+    }
+
+    private ExpenseRowReader openReader(MediaType contentType, InputStream body) throws IOException {
+        if (contentType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE))) {
+            return new CsvExpenseRowReader(body);
+        }
+        return new JsonExpenseRowReader(objectMapper, body);
+    }
+}
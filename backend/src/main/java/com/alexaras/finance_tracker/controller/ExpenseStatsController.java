@@ -0,0 +1,99 @@
+package com.alexaras.finance_tracker.controller;
+
+import com.alexaras.finance_tracker.dto.BucketStats;
+import com.alexaras.finance_tracker.dto.CategoryStats;
+import com.alexaras.finance_tracker.dto.CategoryTotal;
+import com.alexaras.finance_tracker.dto.TimeBucket;
+import com.alexaras.finance_tracker.service.CategoryTotalsCache;
+import com.alexaras.finance_tracker.service.ExpenseService;
+import com.alexaras.finance_tracker.service.ExpenseVersions;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/expenses/stats")
+@Tag(name = "Expense statistics", description = "Aggregated expense APIs computed by the database")
+public class ExpenseStatsController {
+    private final ExpenseService expenseService;
+    private final CategoryTotalsCache categoryTotalsCache;
+    private final ExpenseVersions expenseVersions;
+
+    @Autowired
+    public ExpenseStatsController(ExpenseService expenseService, CategoryTotalsCache categoryTotalsCache,
+                                  ExpenseVersions expenseVersions) {
+        this.expenseService = expenseService;
+        this.categoryTotalsCache = categoryTotalsCache;
+        this.expenseVersions = expenseVersions;
+    }
+
+    @GetMapping("/totals")
+    @Operation(summary = "Get running totals per category",
+            description = "Returns the count and total for every category from memory, without querying the database")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the category totals"),
+        @ApiResponse(responseCode = "304", description = "No expense has changed since the ETag was issued")
+    })
+    public List<CategoryTotal> getCategoryTotals(WebRequest request) {
+        if (request.checkNotModified(expenseVersions.dataETag())) {
+            return null;
+        }
+        return categoryTotalsCache.getTotals();
+    }
+
+    @GetMapping("/categories")
+    @Operation(summary = "Get totals per category",
+            description = "Returns the sum, count, min, max and average amount for each category")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the category statistics"),
+        @ApiResponse(responseCode = "304", description = "No expense has changed since the ETag was issued")
+    })
+    public List<CategoryStats> getCategoryStats(
+            @Parameter(description = "First day to include (inclusive)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day to include (inclusive)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request) {
+        if (request.checkNotModified(expenseVersions.dataETag())) {
+            return null;
+        }
+        return expenseService.getCategoryStats(from, to);
+    }
+
+    @GetMapping("/timeline")
+    @Operation(summary = "Get totals per time bucket",
+            description = "Returns the sum, count, min, max and average amount per day, week or month")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the timeline"),
+        @ApiResponse(responseCode = "304", description = "No expense in scope has changed since the ETag was issued")
+    })
+    public List<BucketStats> getTimeline(
+            @Parameter(description = "Bucket size: DAY, WEEK or MONTH")
+            @RequestParam(defaultValue = "MONTH") TimeBucket bucket,
+            @Parameter(description = "Only include this category")
+            @RequestParam(required = false) String category,
+            @Parameter(description = "First day to include (inclusive)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day to include (inclusive)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request) {
+        // A single category's timeline only changes when that category does
+        String etag = category == null ? expenseVersions.dataETag() : expenseVersions.categoryETag(category);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return expenseService.getTimeline(bucket, category, from, to);
+    }
+}
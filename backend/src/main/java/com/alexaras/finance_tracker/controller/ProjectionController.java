@@ -0,0 +1,112 @@
+package com.alexaras.finance_tracker.controller;
+
+import com.alexaras.finance_tracker.dto.UserProjection;
+import com.alexaras.finance_tracker.model.Budget;
+import com.alexaras.finance_tracker.model.RecurringExpense;
+import com.alexaras.finance_tracker.service.ProjectionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/users/{userId}")
+@Tag(name = "Projections", description = "Recurring expenses, monthly budgets and spending projections per user")
+public class ProjectionController {
+    private static final int DEFAULT_MONTHS = 3;
+
+    private final ProjectionService projectionService;
+    private final int maxMonths;
+
+    @Autowired
+    public ProjectionController(ProjectionService projectionService,
+                                @Value("${finance-tracker.projections.max-months:24}") int maxMonths) {
+        this.projectionService = projectionService;
+        this.maxMonths = maxMonths;
+    }
+
+    @GetMapping("/recurring-expenses")
+    @Operation(summary = "Get recurring expenses", description = "Retrieves the user's recurring expenses")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved the recurring expenses")
+    public List<RecurringExpense> getRecurringExpenses(
+            @Parameter(description = "ID of the user") @PathVariable int userId) {
+        return projectionService.getRecurringExpenses(userId);
+    }
+
+    @PostMapping("/recurring-expenses")
+    @Operation(summary = "Add a recurring expense",
+            description = "Adds an expense that repeats WEEKLY, MONTHLY, QUARTERLY or YEARLY from its startDate "
+                    + "(today if omitted) until its optional endDate")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Recurring expense successfully created"),
+        @ApiResponse(responseCode = "400", description = "Invalid recurring expense data supplied")
+    })
+    public RecurringExpense addRecurringExpense(
+            @Parameter(description = "ID of the user") @PathVariable int userId,
+            @RequestBody RecurringExpense recurringExpense) {
+        return projectionService.addRecurringExpense(userId, recurringExpense);
+    }
+
+    @DeleteMapping("/recurring-expenses/{id}")
+    @Operation(summary = "Delete a recurring expense", description = "Deletes one of the user's recurring expenses")
+    @ApiResponse(responseCode = "200", description = "Recurring expense successfully deleted")
+    public void deleteRecurringExpense(
+            @Parameter(description = "ID of the user") @PathVariable int userId,
+            @Parameter(description = "ID of the recurring expense") @PathVariable Long id) {
+        projectionService.deleteRecurringExpense(userId, id);
+    }
+
+    @GetMapping("/budgets")
+    @Operation(summary = "Get budgets", description = "Retrieves the user's monthly budgets, one per category")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved the budgets")
+    public List<Budget> getBudgets(@Parameter(description = "ID of the user") @PathVariable int userId) {
+        return projectionService.getBudgets(userId);
+    }
+
+    @PutMapping("/budgets/{category}")
+    @Operation(summary = "Set a budget", description = "Sets the user's monthly budget for a category")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Budget successfully set"),
+        @ApiResponse(responseCode = "400", description = "Invalid monthly limit supplied")
+    })
+    public Budget setBudget(
+            @Parameter(description = "ID of the user") @PathVariable int userId,
+            @Parameter(description = "Category the budget applies to") @PathVariable String category,
+            @RequestBody Budget budget) {
+        return projectionService.setBudget(userId, category, budget.getMonthlyLimit());
+    }
+
+    @DeleteMapping("/budgets/{category}")
+    @Operation(summary = "Delete a budget", description = "Deletes the user's budget for a category")
+    @ApiResponse(responseCode = "200", description = "Budget successfully deleted")
+    public void deleteBudget(
+            @Parameter(description = "ID of the user") @PathVariable int userId,
+            @Parameter(description = "Category the budget applies to") @PathVariable String category) {
+        projectionService.deleteBudget(userId, category);
+    }
+
+    @GetMapping("/projections")
+    @Operation(summary = "Project spending",
+            description = "Projects spending per month and category from the current month on: what has been spent, "
+                    + "plus recurring expenses still due, against the budget")
+    @ApiResponse(responseCode = "200", description = "Successfully projected the user's spending")
+    public UserProjection getProjection(
+            @Parameter(description = "ID of the user") @PathVariable int userId,
+            @Parameter(description = "Number of months to project, including the current one")
+            @RequestParam(required = false) Integer months) {
+        int projectedMonths = months == null ? DEFAULT_MONTHS : Math.max(1, Math.min(months, maxMonths));
+        return projectionService.getProjection(userId, projectedMonths);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> invalidDefinition(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
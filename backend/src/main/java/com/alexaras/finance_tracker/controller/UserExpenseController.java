@@ -0,0 +1,209 @@
+package com.alexaras.finance_tracker.controller;
+
+import com.alexaras.finance_tracker.dto.BucketStats;
+import com.alexaras.finance_tracker.dto.CategoryStats;
+import com.alexaras.finance_tracker.dto.CategoryTotal;
+import com.alexaras.finance_tracker.dto.ExpensePage;
+import com.alexaras.finance_tracker.dto.TimeBucket;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.service.ExpenseService;
+import com.alexaras.finance_tracker.service.ExpenseStillQueuedException;
+import com.alexaras.finance_tracker.service.ExpenseVersionConflictException;
+import com.alexaras.finance_tracker.service.ExpenseVersions;
+import com.alexaras.finance_tracker.service.UserCategoryTotalsCache;
+import com.alexaras.finance_tracker.service.WriteBehindQueueFullException;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/users/{userId}/expenses")
+@Tag(name = "User expenses", description = "Expense APIs limited to the expenses one user owns")
+public class UserExpenseController {
+    private final ExpenseService expenseService;
+    private final ExpenseVersions expenseVersions;
+    private final UserCategoryTotalsCache userCategoryTotalsCache;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    @Autowired
+    public UserExpenseController(ExpenseService expenseService,
+                                 ExpenseVersions expenseVersions,
+                                 UserCategoryTotalsCache userCategoryTotalsCache,
+                                 @Value("${finance-tracker.expenses.default-page-size:100}") int defaultPageSize,
+                                 @Value("${finance-tracker.expenses.max-page-size:1000}") int maxPageSize) {
+        this.expenseService = expenseService;
+        this.expenseVersions = expenseVersions;
+        this.userCategoryTotalsCache = userCategoryTotalsCache;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @GetMapping
+    @Operation(summary = "Get a page of the user's expenses",
+            description = "Retrieves the user's expenses ordered by ID using keyset pagination. Pass the returned nextCursor "
+                    + "as 'after' to get the next page. The ETag only changes when one of the user's expenses does")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the page of expenses"),
+        @ApiResponse(responseCode = "304", description = "None of the user's expenses has changed since the ETag was issued")
+    })
+    public ExpensePage getExpensePage(
+            @Parameter(description = "ID of the user") @PathVariable int userId,
+            @Parameter(description = "Return expenses with an ID greater than this cursor") @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of expenses to return") @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        if (request.checkNotModified(expenseVersions.userETag(userId))) {
+            return null;
+        }
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        return expenseService.getUserExpensePage(userId, after, pageSize);
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get one of the user's expenses", description = "Retrieves a single expense the user owns by ID")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the expense"),
+        @ApiResponse(responseCode = "404", description = "The user has no expense with this ID")
+    })
+    public Expense getExpense(
+            @Parameter(description = "ID of the user") @PathVariable int userId,
+            @Parameter(description = "ID of the expense to retrieve") @PathVariable Long id) {
+        return expenseService.getUserExpense(userId, id);
+    }
+
+    @PostMapping
+    @Operation(summary = "Add an expense for the user", description = "Creates a new expense owned by the user")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Expense successfully created"),
+        @ApiResponse(responseCode = "400", description = "Invalid expense data supplied"),
+        @ApiResponse(responseCode = "429", description = "The write-behind queue is full; retry after the Retry-After delay")
+    })
+    public Expense addExpense(
+            @Parameter(description = "ID of the user") @PathVariable int userId,
+            @RequestBody Expense expense) {
+        return expenseService.addUserExpense(userId, expense);
+    }
+
+    @PutMapping("/{id}")
+    @Operation(summary = "Update one of the user's expenses", description = "Updates an expense the user owns by ID. "
+            + "If the body carries the version last read, the update only applies if the expense has not changed since")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Expense successfully updated"),
+        @ApiResponse(responseCode = "404", description = "The user has no expense with this ID"),
+        @ApiResponse(responseCode = "400", description = "Invalid expense data supplied"),
+        @ApiResponse(responseCode = "409", description = "The expense has changed since the version in the body"),
+        @ApiResponse(responseCode = "425", description = "The expense is still queued for writing; retry after the Retry-After delay")
+    })
+    public Expense updateExpense(
+            @Parameter(description = "ID of the user") @PathVariable int userId,
+            @Parameter(description = "ID of the expense to update") @PathVariable Long id,
+            @RequestBody Expense updatedExpense) {
+        return expenseService.updateUserExpense(userId, id, updatedExpense);
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Delete one of the user's expenses", description = "Deletes an expense the user owns by ID")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Expense successfully deleted"),
+        @ApiResponse(responseCode = "404", description = "The user has no expense with this ID"),
+        @ApiResponse(responseCode = "425", description = "The expense is still queued for writing; retry after the Retry-After delay")
+    })
+    public void deleteExpense(
+            @Parameter(description = "ID of the user") @PathVariable int userId,
+            @Parameter(description = "ID of the expense to delete") @PathVariable Long id) {
+        expenseService.deleteUserExpense(userId, id);
+    }
+
+    @GetMapping("/stats/totals")
+    @Operation(summary = "Get the user's running totals per category",
+            description = "Returns the count and total of the user's expenses for every category, cached per user")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the category totals"),
+        @ApiResponse(responseCode = "304", description = "None of the user's expenses has changed since the ETag was issued")
+    })
+    public List<CategoryTotal> getCategoryTotals(
+            @Parameter(description = "ID of the user") @PathVariable int userId,
+            WebRequest request) {
+        if (request.checkNotModified(expenseVersions.userETag(userId))) {
+            return null;
+        }
+        return userCategoryTotalsCache.getTotals(userId);
+    }
+
+    @GetMapping("/stats/categories")
+    @Operation(summary = "Get the user's totals per category",
+            description = "Returns the sum, count, min, max and average amount of the user's expenses for each category")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the category statistics"),
+        @ApiResponse(responseCode = "304", description = "None of the user's expenses has changed since the ETag was issued")
+    })
+    public List<CategoryStats> getCategoryStats(
+            @Parameter(description = "ID of the user") @PathVariable int userId,
+            @Parameter(description = "First day to include (inclusive)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day to include (inclusive)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request) {
+        if (request.checkNotModified(expenseVersions.userETag(userId))) {
+            return null;
+        }
+        return expenseService.getUserCategoryStats(userId, from, to);
+    }
+
+    @GetMapping("/stats/timeline")
+    @Operation(summary = "Get the user's totals per time bucket",
+            description = "Returns the sum, count, min, max and average amount of the user's expenses per day, week or month")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the timeline"),
+        @ApiResponse(responseCode = "304", description = "None of the user's expenses has changed since the ETag was issued")
+    })
+    public List<BucketStats> getTimeline(
+            @Parameter(description = "ID of the user") @PathVariable int userId,
+            @Parameter(description = "Bucket size: DAY, WEEK or MONTH")
+            @RequestParam(defaultValue = "MONTH") TimeBucket bucket,
+            @Parameter(description = "Only include this category")
+            @RequestParam(required = false) String category,
+            @Parameter(description = "First day to include (inclusive)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day to include (inclusive)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request) {
+        if (request.checkNotModified(expenseVersions.userETag(userId))) {
+            return null;
+        }
+        return expenseService.getUserTimeline(userId, bucket, category, from, to);
+    }
+
+    @ExceptionHandler(WriteBehindQueueFullException.class)
+    public ResponseEntity<String> writeBehindQueueFull(WriteBehindQueueFullException e) {
+        // The same back-off as ExpenseController gives
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+
+    @ExceptionHandler(ExpenseVersionConflictException.class)
+    public ResponseEntity<String> versionConflict(ExpenseVersionConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    @ExceptionHandler(ExpenseStillQueuedException.class)
+    public ResponseEntity<String> stillQueued(ExpenseStillQueuedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_EARLY)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+}
@@ -1,12 +1,45 @@
 package com.alexaras.finance_tracker.dao;
 
 import com.alexaras.finance_tracker.model.User;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface UserDAO {
     User findById(int id);
     List<User> findAll();
+
+    /**
+     * Walks every user without loading the table into memory. The stream holds a database connection
+     * until it is exhausted or closed, so use it in a try-with-resources block.
+     *
+     * @param fetchSize rows the driver should fetch per round trip
+     */
+    Stream<User> streamAll(int fetchSize);
+
+    /**
+     * Inserts the user and sets its generated ID.
+     */
     void createUser(User user);
     void updateUser(User user);
     void deleteUser(int id);
+
+    // Bulk variants: each call runs in a single transaction and either fully succeeds or changes nothing
+
+    /**
+     * Inserts all users and sets their generated IDs.
+     *
+     * @return the same users, in the same order, with their IDs filled in
+     */
+    List<User> createUsers(Collection<User> users);
+
+    /**
+     * @return the users that exist, in the order their IDs were first given; unknown IDs are skipped
+     */
+    List<User> findByIds(Collection<Integer> ids);
+
+    /**
+     * @return the number of users deleted
+     */
+    int deleteUsers(Collection<Integer> ids);
 }
@@ -0,0 +1,163 @@
+package com.alexaras.finance_tracker.dao.impl;
+
+import com.alexaras.finance_tracker.dao.UserDAO;
+import com.alexaras.finance_tracker.model.User;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Read-through cache in front of another {@link UserDAO}. Lookups by ID are served from a bounded
+ * Caffeine cache whose entries expire a fixed time after loading; updates and deletes made through
+ * this DAO invalidate the affected IDs. Writes made to the database by other means are only picked
+ * up once the entry expires.
+ * <p>
+ * Users are mutable, so the cache stores and hands out copies.
+ * <p>
+ * Misses are loaded on their own virtual thread and the caller waits on the result. A synchronous
+ * Caffeine load runs inside the map's lock, which would pin a virtual caller to its carrier thread
+ * for the whole JDBC round trip. {@link #close()} waits for loads in flight and stops the loader;
+ * lookups that miss after that fail.
+ */
+public class CachingUserDAO implements UserDAO, MeterBinder, AutoCloseable {
+    public static final String CACHE_NAME = "users";
+
+    private final UserDAO delegate;
+    private final ExecutorService loader;
+    private final AsyncCache<Integer, User> cache;
+
+    public CachingUserDAO(UserDAO delegate, long maximumSize, Duration timeToLive) {
+        this(delegate, maximumSize, timeToLive, Ticker.systemTicker());
+    }
+
+    CachingUserDAO(UserDAO delegate, long maximumSize, Duration timeToLive, Ticker ticker) {
+        this.delegate = delegate;
+        this.loader = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("user-cache-load-", 0).factory());
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .ticker(ticker)
+                .recordStats()
+                .executor(loader)
+                .buildAsync();
+    }
+
+    @Override
+    public User findById(int id) {
+        // Missing users are not cached, so a user created later is found straight away
+        return copy(join(cache.get(id, (key, executor) -> CompletableFuture.supplyAsync(() -> delegate.findById(key), executor))));
+    }
+
+    @Override
+    public List<User> findByIds(Collection<Integer> ids) {
+        Map<Integer, User> found = join(cache.getAll(ids, (missing, executor) -> CompletableFuture.supplyAsync(() -> {
+            List<User> loaded = delegate.findByIds(List.copyOf(missing));
+            return loaded.stream().collect(Collectors.toMap(User::getId, user -> user));
+        }, executor)));
+        return ids.stream().distinct().filter(found::containsKey).map(id -> copy(found.get(id))).toList();
+    }
+
+    @Override
+    public List<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<User> streamAll(int fetchSize) {
+        return delegate.streamAll(fetchSize);
+    }
+
+    @Override
+    public void createUser(User user) {
+        delegate.createUser(user);
+    }
+
+    @Override
+    public List<User> createUsers(Collection<User> users) {
+        return delegate.createUsers(users);
+    }
+
+    @Override
+    public void updateUser(User user) {
+        try {
+            delegate.updateUser(user);
+        } finally {
+            cache.synchronous().invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public void deleteUser(int id) {
+        try {
+            delegate.deleteUser(id);
+        } finally {
+            cache.synchronous().invalidate(id);
+        }
+    }
+
+    @Override
+    public int deleteUsers(Collection<Integer> ids) {
+        try {
+            return delegate.deleteUsers(ids);
+        } finally {
+            cache.synchronous().invalidateAll(ids);
+        }
+    }
+
+    /**
+     * Hit, miss, load and eviction counts since the cache was created.
+     */
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    // Publishes the same cache.* meters as the Spring-managed caches, under cache=users. Spring tags each
+    // of those with its manager's bean name and the cache name too, and Prometheus rejects a meter whose
+    // tag keys differ from the others of the same name, so this cache carries the same keys
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache.synchronous(), CACHE_NAME,
+                Tags.of("cache.manager", "userDAO", "name", CACHE_NAME));
+    }
+
+    public long estimatedSize() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    @Override
+    public void close() {
+        loader.close();
+    }
+
+    // Rethrows what the DAO threw, rather than the CompletionException wrapping it
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static User copy(User user) {
+        return user == null ? null : new User(user.getId(), user.getName(), user.getEmail());
+    }
+}
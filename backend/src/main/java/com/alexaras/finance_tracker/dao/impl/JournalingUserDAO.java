@@ -0,0 +1,77 @@
+package com.alexaras.finance_tracker.dao.impl;
+
+import com.alexaras.finance_tracker.dao.UserDAO;
+import com.alexaras.finance_tracker.model.User;
+import com.alexaras.finance_tracker.service.ExpenseJournalService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Records the writes made through another {@link UserDAO} in the expense journal once they have
+ * succeeded, so the users that expenses point at are restored along with them. Reads pass straight
+ * through.
+ */
+public class JournalingUserDAO implements UserDAO {
+    private final UserDAO delegate;
+    private final ExpenseJournalService journal;
+
+    public JournalingUserDAO(UserDAO delegate, ExpenseJournalService journal) {
+        this.delegate = delegate;
+        this.journal = journal;
+    }
+
+    @Override
+    public User findById(int id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<User> streamAll(int fetchSize) {
+        return delegate.streamAll(fetchSize);
+    }
+
+    @Override
+    public void createUser(User user) {
+        delegate.createUser(user);
+        journal.userCreated(user);
+    }
+
+    @Override
+    public void updateUser(User user) {
+        delegate.updateUser(user);
+        journal.userUpdated(user);
+    }
+
+    @Override
+    public void deleteUser(int id) {
+        delegate.deleteUser(id);
+        journal.userDeleted(id);
+    }
+
+    @Override
+    public List<User> createUsers(Collection<User> users) {
+        List<User> created = delegate.createUsers(users);
+        created.forEach(journal::userCreated);
+        return created;
+    }
+
+    @Override
+    public List<User> findByIds(Collection<Integer> ids) {
+        return delegate.findByIds(ids);
+    }
+
+    @Override
+    public int deleteUsers(Collection<Integer> ids) {
+        int deleted = delegate.deleteUsers(ids);
+        // Ids that matched no row are journaled too, which replay ignores
+        ids.stream().distinct().forEach(journal::userDeleted);
+        return deleted;
+    }
+}
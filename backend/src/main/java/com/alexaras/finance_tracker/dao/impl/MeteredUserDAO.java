@@ -0,0 +1,130 @@
+package com.alexaras.finance_tracker.dao.impl;
+
+import com.alexaras.finance_tracker.dao.UserDAO;
+import com.alexaras.finance_tracker.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Records a latency timer per method and counts the rows read and written by another {@link UserDAO}.
+ * <p>
+ * Timers are named {@value #TIMER} and tagged with the method and, for failed calls, the exception
+ * type, matching what {@code @Timed} produces for services. Row counts go to {@value #ROWS}, tagged
+ * {@code operation=read} or {@code operation=written}.
+ */
+public class MeteredUserDAO implements UserDAO {
+    public static final String TIMER = "finance_tracker.dao";
+    public static final String ROWS = "finance_tracker.dao.rows";
+    private static final String DAO_TAG = "user";
+
+    private final UserDAO delegate;
+    private final MeterRegistry registry;
+    private final Counter rowsRead;
+    private final Counter rowsWritten;
+
+    public MeteredUserDAO(UserDAO delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.rowsRead = Counter.builder(ROWS)
+                .description("Rows read by the DAO")
+                .tags("dao", DAO_TAG, "operation", "read")
+                .register(registry);
+        this.rowsWritten = Counter.builder(ROWS)
+                .description("Rows inserted, updated or deleted by the DAO")
+                .tags("dao", DAO_TAG, "operation", "written")
+                .register(registry);
+    }
+
+    @Override
+    public User findById(int id) {
+        User user = timed("findById", () -> delegate.findById(id));
+        if (user != null) {
+            rowsRead.increment();
+        }
+        return user;
+    }
+
+    @Override
+    public List<User> findAll() {
+        List<User> users = timed("findAll", delegate::findAll);
+        rowsRead.increment(users.size());
+        return users;
+    }
+
+    // Only opening the cursor is timed; rows are counted as the caller consumes them
+    @Override
+    public Stream<User> streamAll(int fetchSize) {
+        return timed("streamAll", () -> delegate.streamAll(fetchSize)).peek(user -> rowsRead.increment());
+    }
+
+    @Override
+    public void createUser(User user) {
+        timed("createUser", () -> {
+            delegate.createUser(user);
+            return null;
+        });
+        rowsWritten.increment();
+    }
+
+    @Override
+    public void updateUser(User user) {
+        timed("updateUser", () -> {
+            delegate.updateUser(user);
+            return null;
+        });
+        rowsWritten.increment();
+    }
+
+    @Override
+    public void deleteUser(int id) {
+        timed("deleteUser", () -> {
+            delegate.deleteUser(id);
+            return null;
+        });
+        rowsWritten.increment();
+    }
+
+    @Override
+    public List<User> createUsers(Collection<User> users) {
+        List<User> created = timed("createUsers", () -> delegate.createUsers(users));
+        rowsWritten.increment(created.size());
+        return created;
+    }
+
+    @Override
+    public List<User> findByIds(Collection<Integer> ids) {
+        List<User> users = timed("findByIds", () -> delegate.findByIds(ids));
+        rowsRead.increment(users.size());
+        return users;
+    }
+
+    @Override
+    public int deleteUsers(Collection<Integer> ids) {
+        int deleted = timed("deleteUsers", () -> delegate.deleteUsers(ids));
+        rowsWritten.increment(deleted);
+        return deleted;
+    }
+
+    private <T> T timed(String method, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(registry);
+        String exception = "none";
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(TIMER)
+                    .description("Time spent in DAO methods")
+                    .tags("dao", DAO_TAG, "method", method, "exception", exception)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+}
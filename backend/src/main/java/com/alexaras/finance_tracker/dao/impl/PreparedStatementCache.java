@@ -0,0 +1,179 @@
+package com.alexaras.finance_tracker.dao.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps prepared statements open per physical connection so repeated queries skip the parse/plan step.
+ * sqlite-jdbc has no statement cache of its own, and H2's only spares the parse within one session.
+ * <p>
+ * Pools hand out a fresh proxy on every borrow and close any statement created through it when the
+ * connection is returned, so statements are prepared on the unwrapped physical connection instead.
+ * A statement is checked out for the length of one call and handed back afterwards: callers sharing a
+ * connection, as with {@code UserDAOImpl(Connection)}, never share a statement, and a caller asking for
+ * SQL that is already checked out gets a statement of its own.
+ * <p>
+ * Closing a connection closes its statements, so the statements of a connection the pool has retired are
+ * dropped once it is found closed. That is checked whenever a connection is seen for the first time,
+ * which is when the pool has opened one, usually to replace a connection it retired.
+ */
+class PreparedStatementCache implements AutoCloseable {
+    // Idle statements kept per SQL string and connection; more callers than that at once close theirs
+    private static final int IDLE_PER_STATEMENT = 4;
+
+    private final Map<Connection, ConnectionStatements> connections = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Runs the callback with a statement for {@code sql} on the connection's physical connection. The
+     * callback must close any result set it opens. A statement whose callback failed is closed rather
+     * than kept, since its state is unknown.
+     */
+    <T> T execute(Connection connection, String sql, boolean returnKeys, StatementCallback<T> callback)
+            throws SQLException {
+        Connection physical = connection.unwrap(Connection.class);
+        ConnectionStatements statements = statementsFor(physical);
+        String key = returnKeys ? "keys:" + sql : sql;
+
+        PreparedStatement statement = statements.take(key);
+        if (statement != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            statement = returnKeys
+                    ? physical.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                    : physical.prepareStatement(sql);
+        }
+        T result;
+        try {
+            result = callback.apply(statement);
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(statement, e);
+            throw e;
+        }
+        statements.giveBack(key, statement);
+        return result;
+    }
+
+    long hitCount() {
+        return hits.sum();
+    }
+
+    long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return how many physical connections currently have statements kept for them
+     */
+    int connectionCount() {
+        return connections.size();
+    }
+
+    @Override
+    public void close() {
+        connections.values().forEach(ConnectionStatements::closeAll);
+        connections.clear();
+    }
+
+    private ConnectionStatements statementsFor(Connection physical) {
+        ConnectionStatements statements = connections.get(physical);
+        if (statements != null) {
+            return statements;
+        }
+        connections.keySet().removeIf(PreparedStatementCache::isClosed);
+        return connections.computeIfAbsent(physical, c -> new ConnectionStatements());
+    }
+
+    private static boolean isClosed(Connection connection) {
+        try {
+            return connection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement, Exception failure) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    @FunctionalInterface
+    interface StatementCallback<T> {
+        T apply(PreparedStatement statement) throws SQLException;
+    }
+
+    /**
+     * The idle statements of one physical connection. Locked, since a shared connection is used by several
+     * threads at once; a lock rather than synchronized, so a virtual thread waiting here can unmount.
+     */
+    private static final class ConnectionStatements {
+        private final Map<String, Deque<PreparedStatement>> idle = new HashMap<>();
+        private final ReentrantLock lock = new ReentrantLock();
+
+        PreparedStatement take(String key) {
+            lock.lock();
+            try {
+                Deque<PreparedStatement> statements = idle.get(key);
+                return statements == null ? null : statements.pollFirst();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void giveBack(String key, PreparedStatement statement) throws SQLException {
+            try {
+                // The next caller binds its own parameters; a batch left over from a failure must not run again
+                statement.clearParameters();
+                statement.clearBatch();
+            } catch (SQLException | RuntimeException e) {
+                closeQuietly(statement, e);
+                throw e;
+            }
+            lock.lock();
+            try {
+                Deque<PreparedStatement> statements = idle.computeIfAbsent(key, k -> new ArrayDeque<>());
+                if (statements.size() < IDLE_PER_STATEMENT) {
+                    statements.addFirst(statement);
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            statement.close();
+        }
+
+        void closeAll() {
+            List<PreparedStatement> statements = new ArrayList<>();
+            lock.lock();
+            try {
+                idle.values().forEach(statements::addAll);
+                idle.clear();
+            } finally {
+                lock.unlock();
+            }
+            for (PreparedStatement statement : statements) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    // The connection may already be gone, which closed the statement anyway
+                }
+            }
+        }
+    }
+}
@@ -1,63 +1,127 @@
 package com.alexaras.finance_tracker.dao.impl;
 
+import com.alexaras.finance_tracker.DatabaseConnection;
 import com.alexaras.finance_tracker.dao.UserDAO;
+import com.alexaras.finance_tracker.dao.impl.PreparedStatementCache.StatementCallback;
 import com.alexaras.finance_tracker.model.User;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class UserDAOImpl implements UserDAO {
-    private final String url;
+public class UserDAOImpl implements UserDAO, AutoCloseable {
+    // Rows per executeBatch call and IDs per IN list; stays well below SQLite's bound-parameter limit
+    static final int BATCH_SIZE = 500;
+    // Explicit projection read by column index, in the order mapUser expects
+    private static final String USER_COLUMNS = "id, name, email";
+
+    private final DataSource dataSource;
     private final Connection sharedConnection;
+    // Only set when this DAO created the pool itself and so has to close it
+    private final DatabaseConnection ownedPool;
+    private final PreparedStatementCache statementCache = new PreparedStatementCache();
 
     public UserDAOImpl(Connection sharedConnection) {
-        this.url = null;
+        this.dataSource = null;
         this.sharedConnection = sharedConnection;
+        this.ownedPool = null;
+    }
+
+    public UserDAOImpl(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.sharedConnection = null;
+        this.ownedPool = null;
     }
 
     public UserDAOImpl(String url) {
-        this.url = url;
+        this(new DatabaseConnection(url));
+    }
+
+    private UserDAOImpl(DatabaseConnection ownedPool) {
+        this.dataSource = ownedPool.getDataSource();
         this.sharedConnection = null;
+        this.ownedPool = ownedPool;
     }
 
     @Override
     public User findById(int id) {
-        String query = "SELECT * FROM users WHERE id = ?";
-        try (PreparedStatement pstmt = getConnection().prepareStatement(query)) {
-            pstmt.setInt(1, id);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return new User(rs.getInt("id"), rs.getString("name"), rs.getString("email"));
-            }
+        String query = "SELECT " + USER_COLUMNS + " FROM users WHERE id = ?";
+        try {
+            return execute(query, pstmt -> {
+                pstmt.setInt(1, id);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return mapUser(rs);
+                    }
+                    return null;
+                }
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Failed to find user by ID: " + e.getMessage(), e);
         }
-        return null;
     }
 
     @Override
     public List<User> findAll() {
-        String query = "SELECT * FROM users";
-        List<User> users = new ArrayList<>();
-        try (PreparedStatement pstmt = getConnection().prepareStatement(query);
-             ResultSet rs = pstmt.executeQuery()) {
-            while (rs.next()) {
-                users.add(new User(rs.getInt("id"), rs.getString("name"), rs.getString("email")));
-            }
+        String query = "SELECT " + USER_COLUMNS + " FROM users";
+        try {
+            return execute(query, pstmt -> {
+                List<User> users = new ArrayList<>();
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        users.add(mapUser(rs));
+                    }
+                }
+                return users;
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Failed to retrieve all users: " + e.getMessage(), e);
         }
-        return users;
+    }
+
+    @Override
+    public Stream<User> streamAll(int fetchSize) {
+        String query = "SELECT " + USER_COLUMNS + " FROM users ORDER BY id";
+        try {
+            // The result set stays open while the caller iterates, so the cursor owns its statement
+            UserCursor cursor = new UserCursor(getConnection());
+            try {
+                cursor.open(query, fetchSize);
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    cursor.close();
+                } catch (RuntimeException closeFailure) {
+                    e.addSuppressed(closeFailure);
+                }
+                throw e;
+            }
+            return StreamSupport.stream(cursor, false).onClose(cursor::close);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to stream users: " + e.getMessage(), e);
+        }
     }
 
     @Override
     public void createUser(User user) {
         String query = "INSERT INTO users (name, email) VALUES (?, ?)";
-        try (PreparedStatement pstmt = getConnection().prepareStatement(query)) {
-            pstmt.setString(1, user.getName());
-            pstmt.setString(2, user.getEmail());
-            pstmt.executeUpdate();
+        try {
+            withConnection(connection -> statementCache.execute(connection, query, true, pstmt -> {
+                pstmt.setString(1, user.getName());
+                pstmt.setString(2, user.getEmail());
+                pstmt.executeUpdate();
+                assignGeneratedKeys(pstmt, List.of(user));
+                return null;
+            }));
         } catch (SQLException e) {
             throw new RuntimeException("Failed to create user: " + e.getMessage(), e);
         }
@@ -66,11 +130,13 @@ public class UserDAOImpl implements UserDAO {
     @Override
     public void updateUser(User user) {
         String query = "UPDATE users SET name = ?, email = ? WHERE id = ?";
-        try (PreparedStatement pstmt = getConnection().prepareStatement(query)) {
-            pstmt.setString(1, user.getName());
-            pstmt.setString(2, user.getEmail());
-            pstmt.setInt(3, user.getId());
-            pstmt.executeUpdate();
+        try {
+            execute(query, pstmt -> {
+                pstmt.setString(1, user.getName());
+                pstmt.setString(2, user.getEmail());
+                pstmt.setInt(3, user.getId());
+                return pstmt.executeUpdate();
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Failed to update user: " + e.getMessage(), e);
         }
@@ -79,24 +145,282 @@ public class UserDAOImpl implements UserDAO {
     @Override
     public void deleteUser(int id) {
         String query = "DELETE FROM users WHERE id = ?";
-        try (PreparedStatement pstmt = getConnection().prepareStatement(query)) {
-            pstmt.setInt(1, id);
-            pstmt.executeUpdate();
+        try {
+            execute(query, pstmt -> {
+                pstmt.setInt(1, id);
+                return pstmt.executeUpdate();
+            });
         } catch (SQLException e) {
             throw new RuntimeException("Failed to delete user: " + e.getMessage(), e);
         }
     }
 
+    @Override
+    public List<User> createUsers(Collection<User> users) {
+        String query = "INSERT INTO users (name, email) VALUES (?, ?)";
+        List<User> pending = List.copyOf(users);
+        try {
+            inTransaction(connection -> statementCache.execute(connection, query, true, pstmt -> {
+                for (int from = 0; from < pending.size(); from += BATCH_SIZE) {
+                    List<User> batch = pending.subList(from, Math.min(from + BATCH_SIZE, pending.size()));
+                    for (User user : batch) {
+                        pstmt.setString(1, user.getName());
+                        pstmt.setString(2, user.getEmail());
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                    assignGeneratedKeys(pstmt, batch);
+                }
+                return null;
+            }));
+            return pending;
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to create users: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<User> findByIds(Collection<Integer> ids) {
+        List<Integer> distinct = List.copyOf(new LinkedHashSet<>(ids));
+        try {
+            Map<Integer, User> found = inTransaction(connection -> {
+                Map<Integer, User> users = new HashMap<>();
+                for (int from = 0; from < distinct.size(); from += BATCH_SIZE) {
+                    List<Integer> chunk = distinct.subList(from, Math.min(from + BATCH_SIZE, distinct.size()));
+                    executeInList(connection, "SELECT " + USER_COLUMNS + " FROM users WHERE id IN ", chunk, pstmt -> {
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            while (rs.next()) {
+                                User user = mapUser(rs);
+                                users.put(user.getId(), user);
+                            }
+                        }
+                        return null;
+                    });
+                }
+                return users;
+            });
+            return distinct.stream().filter(found::containsKey).map(found::get).toList();
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to find users by IDs: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int deleteUsers(Collection<Integer> ids) {
+        List<Integer> distinct = List.copyOf(new LinkedHashSet<>(ids));
+        try {
+            return inTransaction(connection -> {
+                int deleted = 0;
+                for (int from = 0; from < distinct.size(); from += BATCH_SIZE) {
+                    List<Integer> chunk = distinct.subList(from, Math.min(from + BATCH_SIZE, distinct.size()));
+                    deleted += executeInList(connection, "DELETE FROM users WHERE id IN ", chunk, PreparedStatement::executeUpdate);
+                }
+                return deleted;
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to delete users: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        statementCache.close();
+        if (ownedPool != null) {
+            ownedPool.close();
+        }
+    }
+
+    long statementCacheHits() {
+        return statementCache.hitCount();
+    }
+
+    int statementCacheConnections() {
+        return statementCache.connectionCount();
+    }
+
+    private static User mapUser(ResultSet rs) throws SQLException {
+        return new User(rs.getInt(1), rs.getString(2), rs.getString(3));
+    }
+
+    // Runs the callback with a statement checked out of the cache for the connection it runs on, and hands
+    // both back afterwards; no other caller can use the statement until then
+    private <T> T execute(String sql, StatementCallback<T> callback) throws SQLException {
+        return withConnection(connection -> statementCache.execute(connection, sql, false, callback));
+    }
+
+    private <T> T withConnection(ConnectionCallback<T> callback) throws SQLException {
+        Connection connection = getConnection();
+        try {
+            return callback.apply(connection);
+        } finally {
+            release(connection);
+        }
+    }
+
+    private <T> T inTransaction(ConnectionCallback<T> callback) throws SQLException {
+        return withConnection(connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                T result = callback.apply(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    /**
+     * Runs the callback with {@code prefix (?, ?, ...)} bound to the given IDs. The placeholder count is
+     * rounded up to a power of two, padding with the last ID, so only a handful of distinct statements
+     * are ever prepared and cached.
+     */
+    private <T> T executeInList(Connection connection, String prefix, List<Integer> ids,
+                                StatementCallback<T> callback) throws SQLException {
+        int placeholders = Integer.highestOneBit(ids.size());
+        if (placeholders < ids.size()) {
+            placeholders <<= 1;
+        }
+        StringBuilder sql = new StringBuilder(prefix).append('(');
+        for (int i = 0; i < placeholders; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        int count = placeholders;
+        return statementCache.execute(connection, sql.append(')').toString(), false, pstmt -> {
+            for (int i = 0; i < count; i++) {
+                pstmt.setInt(i + 1, ids.get(Math.min(i, ids.size() - 1)));
+            }
+            return callback.apply(pstmt);
+        });
+    }
+
+    /**
+     * Copies generated IDs onto the batch. Drivers that report a key per row (H2) are used as-is.
+     * The SQLite driver only reports the last rowid of a batch, but inside one transaction SQLite
+     * hands out consecutive rowids, so the rest are derived from it.
+     */
+    private static void assignGeneratedKeys(PreparedStatement pstmt, List<User> batch) throws SQLException {
+        List<Integer> keys = new ArrayList<>(batch.size());
+        try (ResultSet rs = pstmt.getGeneratedKeys()) {
+            while (rs.next()) {
+                keys.add(rs.getInt(1));
+            }
+        }
+        if (keys.size() == batch.size()) {
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).setId(keys.get(i));
+            }
+        } else if (keys.size() == 1) {
+            int first = keys.get(0) - batch.size() + 1;
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).setId(first + i);
+            }
+        } else {
+            throw new SQLException("Driver returned " + keys.size() + " generated keys for " + batch.size() + " rows");
+        }
+    }
+
     private Connection getConnection() throws SQLException {
         if (sharedConnection != null) {
             if (sharedConnection.isClosed()) {
                 throw new SQLException("Shared connection is closed.");
             }
             return sharedConnection;
-        } else if (url != null) {
-            return DriverManager.getConnection(url);
+        } else if (dataSource != null) {
+            return dataSource.getConnection();
         } else {
             throw new SQLException("No connection source available.");
         }
     }
+
+    private void release(Connection connection) throws SQLException {
+        // The shared connection belongs to the caller; pooled connections go back to the pool
+        if (connection != sharedConnection) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Forward-only cursor behind {@link #streamAll(int)}. It releases its result set, statement and
+     * connection as soon as the last row has been read, and again (idempotently) when the stream is closed.
+     */
+    private final class UserCursor extends Spliterators.AbstractSpliterator<User> implements AutoCloseable {
+        private final Connection connection;
+        private PreparedStatement statement;
+        private ResultSet resultSet;
+        private boolean closed;
+
+        UserCursor(Connection connection) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT);
+            this.connection = connection;
+        }
+
+        void open(String query, int fetchSize) throws SQLException {
+            statement = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            resultSet = statement.executeQuery();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super User> action) {
+            if (closed) {
+                return false;
+            }
+            try {
+                if (!resultSet.next()) {
+                    close();
+                    return false;
+                }
+                action.accept(mapUser(resultSet));
+                return true;
+            } catch (SQLException e) {
+                close();
+                throw new RuntimeException("Failed to stream users: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            // Closed in reverse order of opening: result set, statement, then the pooled connection. Each
+            // is closed even if an earlier one failed; later failures are added to the first
+            SQLException failure = null;
+            failure = closeInto(resultSet, failure);
+            failure = closeInto(statement, failure);
+            if (connection != sharedConnection) {
+                failure = closeInto(connection, failure);
+            }
+            if (failure != null) {
+                throw new RuntimeException("Failed to close user stream: " + failure.getMessage(), failure);
+            }
+        }
+
+        private static SQLException closeInto(AutoCloseable resource, SQLException failure) {
+            if (resource == null) {
+                return failure;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                SQLException closeFailure = e instanceof SQLException sql ? sql : new SQLException(e);
+                if (failure == null) {
+                    return closeFailure;
+                }
+                failure.addSuppressed(closeFailure);
+            }
+            return failure;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionCallback<T> {
+        T apply(Connection connection) throws SQLException;
+    }
 }
@@ -0,0 +1,30 @@
+package com.alexaras.finance_tracker.dto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Aggregated amounts for one time bucket. {@code bucketStart} is the first day the bucket covers.
+ */
+public record BucketStats(LocalDate bucketStart, long count, BigDecimal total,
+                          BigDecimal min, BigDecimal max, BigDecimal average) {
+
+    // Used by the JPQL constructor expression for daily rows
+    public BucketStats(LocalDate bucketStart, Long count, BigDecimal total, BigDecimal min, BigDecimal max) {
+        this(bucketStart, count, total, min, max,
+                total.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_EVEN));
+    }
+
+    /**
+     * Combines two buckets into one starting at {@code start}.
+     */
+    public BucketStats merge(BucketStats other, LocalDate start) {
+        return new BucketStats(start, Long.valueOf(count + other.count), total.add(other.total),
+                min.min(other.min), max.max(other.max));
+    }
+
+    public BucketStats withBucketStart(LocalDate start) {
+        return new BucketStats(start, count, total, min, max, average);
+    }
+}
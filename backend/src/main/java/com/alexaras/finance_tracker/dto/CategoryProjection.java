@@ -0,0 +1,21 @@
+package com.alexaras.finance_tracker.dto;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+/**
+ * Expected spending on one category in one month.
+ *
+ * @param budget    the monthly budget, or null if the category has none
+ * @param actual    what has been spent in the month so far
+ * @param recurring recurring expenses still due in the month
+ * @param projected {@code actual + recurring}
+ * @param remaining {@code budget - projected}, negative when over budget, or null without a budget
+ */
+public record CategoryProjection(YearMonth month, String category, BigDecimal budget, BigDecimal actual,
+                                 BigDecimal recurring, BigDecimal projected, BigDecimal remaining) {
+
+    public boolean isOverBudget() {
+        return remaining != null && remaining.signum() < 0;
+    }
+}
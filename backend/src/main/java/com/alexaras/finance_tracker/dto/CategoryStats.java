@@ -0,0 +1,17 @@
+package com.alexaras.finance_tracker.dto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Aggregated amounts for a single expense category.
+ */
+public record CategoryStats(String category, long count, BigDecimal total,
+                            BigDecimal min, BigDecimal max, BigDecimal average) {
+
+    // Used by the JPQL constructor expression; the average is derived so it stays exact to the cent
+    public CategoryStats(String category, Long count, BigDecimal total, BigDecimal min, BigDecimal max) {
+        this(category, count, total, min, max,
+                total.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_EVEN));
+    }
+}
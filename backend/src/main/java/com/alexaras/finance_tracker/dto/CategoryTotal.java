@@ -0,0 +1,9 @@
+package com.alexaras.finance_tracker.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Running count and total for a category, served from memory.
+ */
+public record CategoryTotal(String category, long count, BigDecimal total) {
+}
@@ -0,0 +1,11 @@
+package com.alexaras.finance_tracker.dto;
+
+import com.alexaras.finance_tracker.event.ExpenseChangedEvent;
+import com.alexaras.finance_tracker.model.Expense;
+
+/**
+ * One committed change in the expense change feed. {@code offset} numbers the changes since the
+ * application started. {@code before} is absent for creations and {@code after} for deletions.
+ */
+public record ExpenseChange(long offset, ExpenseChangedEvent.Type type, Long expenseId, Expense before, Expense after) {
+}
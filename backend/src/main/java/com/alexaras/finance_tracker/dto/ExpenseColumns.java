@@ -0,0 +1,74 @@
+package com.alexaras.finance_tracker.dto;
+
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.model.MinorUnits;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A list of expenses stored column by column, for compact bulk transfer. Amounts are exact integers
+ * in units of {@code 10^-amountScale} (cents when the scale is 2), categories are indexes into a
+ * dictionary of the distinct names, and {@code spentAt} is the local date-time counted in
+ * microseconds from 1970-01-01T00:00 (no time zone is implied). {@code version} carries each
+ * expense's version, for clients that update it afterwards.
+ */
+public record ExpenseColumns(int count, int amountScale, long[] id, long[] version, long[] amount,
+                             List<String> categories, int[] category, String[] description, long[] spentAt) {
+    // Prices with more decimal places than this widen the scale for the whole list
+    private static final int MINIMUM_AMOUNT_SCALE = MinorUnits.SCALE;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    /**
+     * @throws ArithmeticException if an amount does not fit in a long at the list's scale
+     */
+    public static ExpenseColumns from(List<Expense> expenses) {
+        int count = expenses.size();
+        int scale = MINIMUM_AMOUNT_SCALE;
+        for (Expense expense : expenses) {
+            scale = Math.max(scale, expense.getAmount().stripTrailingZeros().scale());
+        }
+
+        long[] id = new long[count];
+        long[] version = new long[count];
+        long[] amount = new long[count];
+        List<String> categories = new ArrayList<>();
+        Map<String, Integer> categoryIndexes = new HashMap<>();
+        int[] category = new int[count];
+        String[] description = new String[count];
+        long[] spentAt = new long[count];
+        for (int i = 0; i < count; i++) {
+            Expense expense = expenses.get(i);
+            id[i] = Objects.requireNonNull(expense.getId(), "Only saved expenses can be encoded as columns");
+            version[i] = Objects.requireNonNull(expense.getVersion(), "Only saved expenses can be encoded as columns");
+            amount[i] = MinorUnits.of(expense.getAmount(), scale);
+            category[i] = categoryIndexes.computeIfAbsent(expense.getCategory(), name -> {
+                categories.add(name);
+                return categories.size() - 1;
+            });
+            description[i] = expense.getDescription();
+            spentAt[i] = ChronoUnit.MICROS.between(EPOCH, Objects.requireNonNull(expense.getSpentAt(), "spentAt"));
+        }
+        return new ExpenseColumns(count, scale, id, version, amount, categories, category, description, spentAt);
+    }
+
+    public List<Expense> toExpenses() {
+        List<Expense> expenses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Expense expense = new Expense(
+                    MinorUnits.toAmount(amount[i], amountScale),
+                    categories.get(category[i]),
+                    description[i],
+                    EPOCH.plus(spentAt[i], ChronoUnit.MICROS));
+            expense.setId(id[i]);
+            expense.setVersion(version[i]);
+            expenses.add(expense);
+        }
+        return expenses;
+    }
+}
@@ -0,0 +1,21 @@
+package com.alexaras.finance_tracker.dto;
+
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Criteria for a filtered expense listing. Null or empty criteria do not restrict the result; amount
+ * and date bounds are inclusive.
+ */
+public record ExpenseFilter(List<String> categories, BigDecimal minAmount, BigDecimal maxAmount,
+                            LocalDate from, LocalDate to, ExpenseSort sort, Sort.Direction direction) {
+
+    public ExpenseFilter {
+        categories = categories == null ? List.of() : List.copyOf(categories);
+        sort = sort == null ? ExpenseSort.SPENT_AT : sort;
+        direction = direction == null ? Sort.Direction.DESC : direction;
+    }
+}
@@ -0,0 +1,12 @@
+package com.alexaras.finance_tracker.dto;
+
+import com.alexaras.finance_tracker.model.Expense;
+
+import java.util.List;
+
+/**
+ * One page of a filtered expense listing. Pass {@code nextCursor} back as {@code after}, with the
+ * same filter and order, to fetch the following page; it is {@code null} once the end is reached.
+ */
+public record ExpenseFilterPage(List<Expense> items, String nextCursor, boolean hasMore) {
+}
@@ -0,0 +1,12 @@
+package com.alexaras.finance_tracker.dto;
+
+import com.alexaras.finance_tracker.model.Expense;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated expense listing. Pass {@code nextCursor} back as
+ * {@code after} to fetch the following page; it is {@code null} once the end is reached.
+ */
+public record ExpensePage(List<Expense> items, Long nextCursor, boolean hasMore) {
+}
@@ -0,0 +1,10 @@
+package com.alexaras.finance_tracker.dto;
+
+import com.alexaras.finance_tracker.model.Expense;
+
+/**
+ * An expense matching a search, with its relevance score. Scores only rank the results of one query
+ * against each other.
+ */
+public record ExpenseSearchResult(Expense expense, double score) {
+}
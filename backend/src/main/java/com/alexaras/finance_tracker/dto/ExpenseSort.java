@@ -0,0 +1,63 @@
+package com.alexaras.finance_tracker.dto;
+
+import com.alexaras.finance_tracker.model.Expense;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Orders for filtered expense listings. Every order breaks ties by id, so each row has a unique
+ * position that a keyset cursor can point at.
+ */
+public enum ExpenseSort {
+    SPENT_AT("spentAt") {
+        @Override
+        public Comparable<?> valueOf(Expense expense) {
+            return expense.getSpentAt();
+        }
+
+        @Override
+        public Comparable<?> parseValue(String text) {
+            return LocalDateTime.parse(text);
+        }
+    },
+    AMOUNT("amount") {
+        @Override
+        public Comparable<?> valueOf(Expense expense) {
+            return expense.getAmount();
+        }
+
+        @Override
+        public Comparable<?> parseValue(String text) {
+            return new BigDecimal(text);
+        }
+    },
+    ID("id") {
+        @Override
+        public Comparable<?> valueOf(Expense expense) {
+            return expense.getId();
+        }
+
+        @Override
+        public Comparable<?> parseValue(String text) {
+            return Long.valueOf(text);
+        }
+    };
+
+    private final String attribute;
+
+    ExpenseSort(String attribute) {
+        this.attribute = attribute;
+    }
+
+    /**
+     * @return the {@link Expense} attribute sorted on
+     */
+    public String attribute() {
+        return attribute;
+    }
+
+    public abstract Comparable<?> valueOf(Expense expense);
+
+    public abstract Comparable<?> parseValue(String text);
+}
@@ -0,0 +1,15 @@
+package com.alexaras.finance_tracker.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. {@code errors} is capped; {@code errorsTruncated} tells whether more rows
+ * failed than are listed.
+ */
+public record ImportReport(long rowsRead, long rowsImported, long rowsFailed,
+                           List<RowError> errors, boolean errorsTruncated,
+                           long elapsedMillis, double rowsPerSecond) {
+
+    public record RowError(long row, String message) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.alexaras.finance_tracker.dto;
+
+/**
+ * Outcome of projecting every user with recurring expenses or budgets.
+ */
+public record ProjectionBatchReport(int users, int categories, int usersOverBudget, long elapsedMillis) {
+}
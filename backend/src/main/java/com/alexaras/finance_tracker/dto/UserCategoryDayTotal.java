@@ -0,0 +1,10 @@
+package com.alexaras.finance_tracker.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * What one user spent on one category on one day.
+ */
+public record UserCategoryDayTotal(Integer userId, String category, LocalDate day, BigDecimal total) {
+}
@@ -0,0 +1,16 @@
+package com.alexaras.finance_tracker.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A user's projected spending, per month and category, from the current month on.
+ *
+ * @param asOf the day the projection was made; recurring expenses before it are no longer due
+ */
+public record UserProjection(int userId, LocalDate asOf, int months, List<CategoryProjection> categories) {
+
+    public boolean isOverBudget() {
+        return categories.stream().anyMatch(CategoryProjection::isOverBudget);
+    }
+}
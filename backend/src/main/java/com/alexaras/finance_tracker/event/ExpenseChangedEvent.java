@@ -0,0 +1,33 @@
+package com.alexaras.finance_tracker.event;
+
+import com.alexaras.finance_tracker.model.Expense;
+
+/**
+ * Published by {@link com.alexaras.finance_tracker.service.ExpenseService} after an expense has been
+ * written. {@code before} is absent for creations and {@code after} is absent for deletions. Both are
+ * detached copies, so listeners may keep them without seeing later changes.
+ */
+public record ExpenseChangedEvent(Type type, Expense before, Expense after) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static ExpenseChangedEvent created(Expense after) {
+        return new ExpenseChangedEvent(Type.CREATED, null, new Expense(after));
+    }
+
+    public static ExpenseChangedEvent updated(Expense before, Expense after) {
+        return new ExpenseChangedEvent(Type.UPDATED, new Expense(before), new Expense(after));
+    }
+
+    public static ExpenseChangedEvent deleted(Expense before) {
+        return new ExpenseChangedEvent(Type.DELETED, new Expense(before), null);
+    }
+
+    public Long expenseId() {
+        return after != null ? after.getId() : before.getId();
+    }
+}
@@ -0,0 +1,120 @@
+package com.alexaras.finance_tracker.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads RFC 4180 style CSV. The first record is a header naming the columns; {@code amount} and
+ * {@code category} are required, {@code description} and {@code spentAt} are optional and columns
+ * may appear in any order. Quoted fields may contain commas, doubled quotes and line breaks.
+ */
+public class CsvExpenseRowReader implements ExpenseRowReader {
+    private final BufferedReader reader;
+    private Map<String, Integer> columns;
+    private long row;
+
+    public CsvExpenseRowReader(InputStream input) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public ParsedRow next() throws IOException {
+        if (columns == null) {
+            columns = readHeader();
+        }
+        List<String> fields;
+        do {
+            fields = readRecord();
+            if (fields == null) {
+                return null;
+            }
+        } while (fields.size() == 1 && fields.get(0).isBlank());
+
+        row++;
+        try {
+            return ParsedRow.valid(row, ExpenseFields.toExpense(
+                    field(fields, "amount"), field(fields, "category"),
+                    field(fields, "description"), field(fields, "spentat")));
+        } catch (IllegalArgumentException e) {
+            return ParsedRow.invalid(row, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Map<String, Integer> readHeader() throws IOException {
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new IOException("CSV input is empty; expected a header row");
+        }
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim().toLowerCase(Locale.ROOT).replace("_", "");
+            // Tolerate a UTF-8 byte order mark on the first column
+            indexes.put(name.startsWith("\uFEFF") ? name.substring(1) : name, i);
+        }
+        if (!indexes.containsKey("amount") || !indexes.containsKey("category")) {
+            throw new IOException("CSV header must contain 'amount' and 'category' columns");
+        }
+        return indexes;
+    }
+
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        return index == null || index >= fields.size() ? null : fields.get(index);
+    }
+
+    private List<String> readRecord() throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (!quoted) {
+                break;
+            }
+            // A quoted field continues on the next line
+            line = reader.readLine();
+            if (line == null) {
+                throw new IOException("Unterminated quoted field at end of CSV input");
+            }
+            field.append('\n');
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,53 @@
+package com.alexaras.finance_tracker.importer;
+
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.model.MinorUnits;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Converts raw field values from any import format into an {@link Expense}.
+ */
+final class ExpenseFields {
+
+    private ExpenseFields() {
+    }
+
+    static Expense toExpense(String amount, String category, String description, String spentAt) {
+        if (amount == null || amount.isBlank()) {
+            throw new IllegalArgumentException("amount is required");
+        }
+        if (category == null || category.isBlank()) {
+            throw new IllegalArgumentException("category is required");
+        }
+        Expense expense = new Expense(parseAmount(amount), category.trim(),
+                description == null || description.isBlank() ? null : description);
+        if (spentAt != null && !spentAt.isBlank()) {
+            expense.setSpentAt(parseSpentAt(spentAt.trim()));
+        }
+        return expense;
+    }
+
+    // Parsed straight to cents; amounts the column would have to round are rejected rather than changed
+    private static BigDecimal parseAmount(String amount) {
+        try {
+            return MinorUnits.toAmount(MinorUnits.parse(amount.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("amount is not a number: " + amount);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("amount is not a whole number of cents: " + amount);
+        }
+    }
+
+    // Accepts either a plain date or a local date-time
+    private static LocalDateTime parseSpentAt(String spentAt) {
+        try {
+            return spentAt.length() <= 10 ? LocalDate.parse(spentAt).atStartOfDay() : LocalDateTime.parse(spentAt);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("spentAt is not an ISO date or date-time: " + spentAt);
+        }
+    }
+}
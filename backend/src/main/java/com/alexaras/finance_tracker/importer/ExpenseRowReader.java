@@ -0,0 +1,16 @@
+package com.alexaras.finance_tracker.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads expenses one row at a time from an import stream, so the whole file is never held in memory.
+ */
+public interface ExpenseRowReader extends Closeable {
+
+    /**
+     * @return the next row, or {@code null} once the input is exhausted
+     * @throws IOException if the input cannot be read any further
+     */
+    ParsedRow next() throws IOException;
+}
@@ -0,0 +1,66 @@
+package com.alexaras.finance_tracker.importer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.JsonNodeFeature;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads expenses from either a top-level JSON array or newline-delimited JSON objects, using Jackson's
+ * streaming parser so only one object is materialised at a time.
+ */
+public class JsonExpenseRowReader implements ExpenseRowReader {
+    private final JsonParser parser;
+    private Boolean insideArray;
+    private long row;
+
+    public JsonExpenseRowReader(ObjectMapper objectMapper, InputStream input) throws IOException {
+        // Keep amounts exactly as written: no double conversion and no stripped trailing zeros
+        ObjectMapper exactMapper = objectMapper.copy()
+                .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                .configure(JsonNodeFeature.STRIP_TRAILING_BIGDECIMAL_ZEROES, false);
+        this.parser = exactMapper.getFactory().createParser(input);
+    }
+
+    @Override
+    public ParsedRow next() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (insideArray == null) {
+            insideArray = token == JsonToken.START_ARRAY;
+            if (insideArray) {
+                token = parser.nextToken();
+            }
+        }
+        if (token == null || token == JsonToken.END_ARRAY) {
+            return null;
+        }
+
+        row++;
+        JsonNode node = parser.readValueAsTree();
+        if (node == null || !node.isObject()) {
+            return ParsedRow.invalid(row, "expected a JSON object");
+        }
+        try {
+            return ParsedRow.valid(row, ExpenseFields.toExpense(
+                    text(node, "amount"), text(node, "category"),
+                    text(node, "description"), text(node, "spentAt")));
+        } catch (IllegalArgumentException e) {
+            return ParsedRow.invalid(row, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+}
@@ -0,0 +1,21 @@
+package com.alexaras.finance_tracker.importer;
+
+import com.alexaras.finance_tracker.model.Expense;
+
+/**
+ * One row read from an import file: either an expense ready to insert, or the reason it was rejected.
+ */
+public record ParsedRow(long row, Expense expense, String error) {
+
+    public static ParsedRow valid(long row, Expense expense) {
+        return new ParsedRow(row, expense, null);
+    }
+
+    public static ParsedRow invalid(long row, String error) {
+        return new ParsedRow(row, null, error);
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+}
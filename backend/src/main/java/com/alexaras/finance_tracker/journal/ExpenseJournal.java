@@ -0,0 +1,780 @@
+package com.alexaras.finance_tracker.journal;
+
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.model.MinorUnits;
+import com.alexaras.finance_tracker.model.User;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only log of expense writes in memory-mapped files, from which the expenses can be
+ * rebuilt after a restart.
+ * <p>
+ * Every write appends one fixed-width 64-byte record: the expense id, version, amount in cents
+ * ({@link MinorUnits}), category id, spent-at time, owner and the offset of its description. Strings
+ * are kept apart, length-prefixed in a second file, so records stay fixed-width; a category name is
+ * written once, with a record giving it a small id, and every later record refers to it by that id.
+ * Each record carries a CRC-32C of itself and of its string. A record torn by a crash fails its
+ * check, and replay stops there.
+ * <p>
+ * Writes land in the page cache, so they survive the process dying but not the machine. With
+ * {@code sync} every append is also forced to disk before it returns, at the cost of a flush each.
+ * <p>
+ * The log only grows. {@link #snapshot()} compacts it into a new generation holding the latest
+ * record of each expense still present, followed by whatever was appended meanwhile, and then
+ * deletes the old one. A generation only counts once its header is marked ready, so a snapshot
+ * interrupted by a crash leaves the previous generation in charge.
+ * <p>
+ * A delete recorded since the previous snapshot is carried into the new generation too, so an update
+ * that lost the race with it and is recorded after it, even in the middle of the snapshot, still
+ * replays as deleted. The snapshot after that drops it.
+ * <p>
+ * Replay keeps the highest version of each expense, and a delete hides versions up to its own. So
+ * two writers that record their changes out of commit order still replay to the committed state.
+ * <p>
+ * The users who own the expenses are journaled too, since the database loses them just the same. A
+ * user record holds the id, with the name and email as its string, separated by a NUL. Users carry no
+ * version, so their records replay in the order they were appended: an update only applies to a user
+ * still present, and a delete removes the user.
+ */
+public final class ExpenseJournal implements Closeable {
+    static final int RECORD_SIZE = 64;
+
+    private static final long MAGIC = 0x4654_4A52_4E4C_0001L;
+    private static final int FORMAT = 1;
+    private static final int READY = 1;
+    // Header fields, in the first record slot of the log
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_FORMAT = 8;
+    private static final int HEADER_STATE = 12;
+    private static final int HEADER_GENERATION = 16;
+    // Where the records this generation's snapshot copied end, and those appended since begin
+    private static final int HEADER_COPIED_END = 24;
+
+    private static final int PUT = 1;
+    private static final int DELETE = 2;
+    private static final int CATEGORY = 3;
+    private static final int USER = 4;
+    private static final int USER_UPDATE = 5;
+    private static final int USER_DELETE = 6;
+    // Record fields
+    private static final int TYPE = 0;
+    private static final int CATEGORY_ID = 4;
+    private static final int ID = 8;
+    private static final int VERSION = 16;
+    private static final int CENTS = 24;
+    private static final int SPENT_SECONDS = 32;
+    private static final int SPENT_NANOS = 40;
+    private static final int USER_ID = 44;
+    private static final int STRING_OFFSET = 48;
+    private static final int STRING_CHECKSUM = 56;
+    private static final int CHECKSUM = 60;
+
+    private static final long NO_STRING = -1;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final int NO_USER = Integer.MIN_VALUE;
+    private static final byte[] EMPTY_RECORD = new byte[RECORD_SIZE];
+    private static final Pattern LOG_FILE = Pattern.compile("expenses-(\\d+)\\.journal");
+
+    private final Path directory;
+    private final int initialRecords;
+    private final boolean sync;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Held for a whole snapshot, so two cannot run at once
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    // Appends assemble their record here while holding the lock
+    private final ByteBuffer scratch = ByteBuffer.allocate(RECORD_SIZE);
+    private final Map<String, Integer> categoryIds = new HashMap<>();
+    private final List<String> categories = new ArrayList<>();
+    private Generation current;
+    private long appendedSinceSnapshot;
+    private boolean closed;
+
+    private ExpenseJournal(Path directory, int initialRecords, boolean sync, Generation current) {
+        this.directory = directory;
+        this.initialRecords = initialRecords;
+        this.sync = sync;
+        this.current = current;
+    }
+
+    /**
+     * Opens the journal in {@code directory}, creating it if there is none, and finds where its valid
+     * records end. Generations other than the newest ready one are left from interrupted or completed
+     * snapshots, and are deleted.
+     *
+     * @param initialRecords records the log has room for before it first has to grow
+     * @param sync           whether each append is forced to disk before it returns
+     */
+    public static ExpenseJournal open(Path directory, int initialRecords, boolean sync) throws IOException {
+        Files.createDirectories(directory);
+        TreeMap<Long, Path> logs = new TreeMap<>(Comparator.reverseOrder());
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = LOG_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    logs.put(Long.parseLong(matcher.group(1)), file);
+                }
+            });
+        }
+        Generation chosen = null;
+        for (long number : logs.keySet()) {
+            if (chosen == null) {
+                Generation candidate = Generation.open(directory, number, initialRecords);
+                if (candidate.isReady()) {
+                    chosen = candidate;
+                    continue;
+                }
+                candidate.close();
+            }
+            Generation.delete(directory, number);
+        }
+        if (chosen == null) {
+            chosen = Generation.create(directory, logs.isEmpty() ? 1 : logs.firstKey() + 1, initialRecords);
+            chosen.markReady();
+        }
+
+        ExpenseJournal journal = new ExpenseJournal(directory, initialRecords, sync, chosen);
+        try {
+            journal.scan();
+        } catch (RuntimeException e) {
+            chosen.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    /**
+     * Records a created or updated expense as it was committed.
+     */
+    public void put(Expense expense) {
+        lock.lock();
+        try {
+            ensureOpen();
+            int categoryId = categoryId(expense.getCategory());
+            long stringOffset = NO_STRING;
+            int stringChecksum = 0;
+            if (expense.getDescription() != null) {
+                byte[] description = expense.getDescription().getBytes(StandardCharsets.UTF_8);
+                stringOffset = current.appendString(description);
+                stringChecksum = checksum(description);
+            }
+            LocalDateTime spentAt = expense.getSpentAt();
+            clearScratch();
+            scratch.putInt(TYPE, PUT)
+                    .putInt(CATEGORY_ID, categoryId)
+                    .putLong(ID, expense.getId())
+                    .putLong(VERSION, versionOf(expense))
+                    .putLong(CENTS, MinorUnits.of(expense.getAmount().setScale(MinorUnits.SCALE, RoundingMode.HALF_UP)))
+                    .putLong(SPENT_SECONDS, spentAt == null ? NO_TIME : spentAt.toEpochSecond(ZoneOffset.UTC))
+                    .putInt(SPENT_NANOS, spentAt == null ? 0 : spentAt.getNano())
+                    .putInt(USER_ID, expense.getUserId() == null ? NO_USER : expense.getUserId())
+                    .putLong(STRING_OFFSET, stringOffset)
+                    .putInt(STRING_CHECKSUM, stringChecksum);
+            append();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to journal expense " + expense.getId(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records that an expense was deleted at {@code version}.
+     */
+    public void delete(long id, long version) {
+        lock.lock();
+        try {
+            ensureOpen();
+            clearScratch();
+            scratch.putInt(TYPE, DELETE)
+                    .putLong(ID, id)
+                    .putLong(VERSION, version)
+                    .putLong(STRING_OFFSET, NO_STRING);
+            append();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to journal the deletion of expense " + id, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a created user, whose id the database has already assigned.
+     */
+    public void putUser(User user) {
+        appendUser(USER, user);
+    }
+
+    /**
+     * Records an update to a user. Like the {@code UPDATE} it follows, it changes nothing if the user
+     * is gone.
+     */
+    public void updateUser(User user) {
+        appendUser(USER_UPDATE, user);
+    }
+
+    /**
+     * Records that a user was deleted.
+     */
+    public void deleteUser(int id) {
+        lock.lock();
+        try {
+            ensureOpen();
+            clearScratch();
+            scratch.putInt(TYPE, USER_DELETE)
+                    .putLong(ID, id)
+                    .putLong(STRING_OFFSET, NO_STRING);
+            append();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to journal the deletion of user " + id, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Passes every user the journal holds to {@code consumer}, in id order. Appends made meanwhile are
+     * not included.
+     */
+    public void replayUsers(Consumer<User> consumer) {
+        ByteBuffer log;
+        ByteBuffer strings;
+        int end;
+        lock.lock();
+        try {
+            ensureOpen();
+            log = current.log.buffer().duplicate();
+            strings = current.strings.buffer().duplicate();
+            end = current.logEnd;
+        } finally {
+            lock.unlock();
+        }
+        for (int position : liveUserSlots(log, end)) {
+            consumer.accept(decodeUser(log, strings, position));
+        }
+    }
+
+    /**
+     * Passes the latest version of every expense the journal holds to {@code consumer}, in id order.
+     * Appends made meanwhile are not included.
+     */
+    public void replay(Consumer<Expense> consumer) {
+        Generation generation;
+        ByteBuffer log;
+        ByteBuffer strings;
+        int end;
+        List<String> names;
+        lock.lock();
+        try {
+            ensureOpen();
+            generation = current;
+            log = generation.log.buffer().duplicate();
+            strings = generation.strings.buffer().duplicate();
+            end = generation.logEnd;
+            names = List.copyOf(categories);
+        } finally {
+            lock.unlock();
+        }
+        for (Slot slot : liveSlots(log, end)) {
+            consumer.accept(decode(log, strings, slot.position(), names));
+        }
+    }
+
+    /**
+     * Compacts the log into a new generation. Appends carry on while the bulk is copied and only wait
+     * for the records they added meanwhile to be carried over.
+     */
+    public void snapshot() {
+        snapshot(() -> {
+        });
+    }
+
+    // Runs afterCopy once the bulk is copied and before the appends made meanwhile are carried over
+    void snapshot(Runnable afterCopy) {
+        snapshotLock.lock();
+        try {
+            Generation old;
+            ByteBuffer oldLog;
+            ByteBuffer oldStrings;
+            int end;
+            lock.lock();
+            try {
+                ensureOpen();
+                old = current;
+                oldLog = old.log.buffer().duplicate();
+                oldStrings = old.strings.buffer().duplicate();
+                end = old.logEnd;
+            } finally {
+                lock.unlock();
+            }
+
+            List<Integer> users = liveUserSlots(oldLog, end);
+            // Deletes copied by the previous snapshot have been through one carried-over window already
+            int recentFrom = old.copiedEnd();
+            List<Slot> kept = latestSlots(oldLog, end).stream()
+                    .filter(slot -> slot.live() || slot.position() >= recentFrom)
+                    .toList();
+            Generation fresh = Generation.create(directory, old.number + 1,
+                    Math.max(initialRecords, categories() + users.size() + kept.size() + 1));
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            try {
+                // Category names first, so every record after them can be read
+                for (int position = RECORD_SIZE; position < end; position += RECORD_SIZE) {
+                    if (oldLog.getInt(position + TYPE) == CATEGORY) {
+                        copy(oldLog, oldStrings, position, fresh, record);
+                    }
+                }
+                // An update that outlived its user's creation stands in for it
+                for (int position : users) {
+                    copy(oldLog, oldStrings, position, USER, fresh, record);
+                }
+                for (Slot slot : kept) {
+                    copy(oldLog, oldStrings, slot.position(), fresh, record);
+                }
+                fresh.log.buffer().putInt(HEADER_COPIED_END, fresh.logEnd);
+                afterCopy.run();
+            } catch (IOException | RuntimeException e) {
+                fresh.discard();
+                throw e;
+            }
+
+            long carried;
+            lock.lock();
+            try {
+                // The records appended while the bulk was copied, against the current mappings
+                ByteBuffer log = old.log.buffer();
+                ByteBuffer strings = old.strings.buffer();
+                for (int position = end; position < old.logEnd; position += RECORD_SIZE) {
+                    copy(log, strings, position, fresh, record);
+                }
+                carried = (old.logEnd - end) / RECORD_SIZE;
+                fresh.log.force();
+                fresh.strings.force();
+                fresh.markReady();
+                current = fresh;
+                appendedSinceSnapshot = carried;
+            } catch (IOException | RuntimeException e) {
+                fresh.discard();
+                throw e;
+            } finally {
+                lock.unlock();
+            }
+            old.close();
+            Generation.delete(directory, old.number);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to snapshot the expense journal in " + directory, e);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * @return records appended since the last snapshot, or since the journal was opened
+     */
+    public long appendedSinceSnapshot() {
+        lock.lock();
+        try {
+            return appendedSinceSnapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the records in the current generation, including category names, users and superseded versions
+     */
+    public long records() {
+        lock.lock();
+        try {
+            return (current.logEnd - RECORD_SIZE) / RECORD_SIZE;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces everything appended so far to disk and closes the files.
+     */
+    @Override
+    public void close() throws IOException {
+        snapshotLock.lock();
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            current.log.force();
+            current.strings.force();
+            current.close();
+        } finally {
+            lock.unlock();
+            snapshotLock.unlock();
+        }
+    }
+
+    // Finds the end of the valid records, learning the category names on the way
+    private void scan() {
+        ByteBuffer log = current.log.buffer();
+        ByteBuffer strings = current.strings.buffer();
+        int position = RECORD_SIZE;
+        int stringsEnd = 0;
+        while (position + RECORD_SIZE <= log.capacity() && log.getInt(position + TYPE) != 0
+                && isValid(log, strings, position)) {
+            long stringOffset = log.getLong(position + STRING_OFFSET);
+            if (stringOffset != NO_STRING) {
+                stringsEnd = Math.max(stringsEnd, (int) stringOffset + Integer.BYTES + strings.getInt((int) stringOffset));
+            }
+            if (log.getInt(position + TYPE) == CATEGORY) {
+                int id = log.getInt(position + CATEGORY_ID);
+                String name = readString(strings, stringOffset);
+                while (categories.size() <= id) {
+                    categories.add(null);
+                }
+                categories.set(id, name);
+                categoryIds.put(name, id);
+            }
+            position += RECORD_SIZE;
+        }
+        current.logEnd = position;
+        current.stringsEnd = stringsEnd;
+        // A crash can persist later pages of the log but not earlier ones. Clear whatever lies past the
+        // end, or a record written there now could be followed by a stale one that still checks out
+        for (int slot = position; slot + RECORD_SIZE <= log.capacity(); slot += RECORD_SIZE) {
+            if (!isEmpty(log, slot)) {
+                log.put(slot, EMPTY_RECORD);
+            }
+        }
+    }
+
+    private int categoryId(String category) throws IOException {
+        Integer id = categoryIds.get(category);
+        if (id != null) {
+            return id;
+        }
+        byte[] name = category.getBytes(StandardCharsets.UTF_8);
+        int newId = categories.size();
+        long stringOffset = current.appendString(name);
+        clearScratch();
+        scratch.putInt(TYPE, CATEGORY)
+                .putInt(CATEGORY_ID, newId)
+                .putLong(STRING_OFFSET, stringOffset)
+                .putInt(STRING_CHECKSUM, checksum(name));
+        append();
+        categories.add(category);
+        categoryIds.put(category, newId);
+        return newId;
+    }
+
+    private void appendUser(int type, User user) {
+        lock.lock();
+        try {
+            ensureOpen();
+            byte[] fields = (user.getName() + '\0' + user.getEmail()).getBytes(StandardCharsets.UTF_8);
+            long stringOffset = current.appendString(fields);
+            clearScratch();
+            scratch.putInt(TYPE, type)
+                    .putLong(ID, user.getId())
+                    .putLong(STRING_OFFSET, stringOffset)
+                    .putInt(STRING_CHECKSUM, checksum(fields));
+            append();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to journal user " + user.getId(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int categories() {
+        lock.lock();
+        try {
+            return categories.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Appends the record in scratch; the caller holds the lock
+    private void append() throws IOException {
+        int position = current.appendRecord(scratch);
+        if (sync) {
+            long stringOffset = scratch.getLong(STRING_OFFSET);
+            if (stringOffset != NO_STRING) {
+                ByteBuffer strings = current.strings.buffer();
+                current.strings.force((int) stringOffset, Integer.BYTES + strings.getInt((int) stringOffset));
+            }
+            current.log.force(position, RECORD_SIZE);
+        }
+        appendedSinceSnapshot++;
+    }
+
+    private void clearScratch() {
+        scratch.put(0, EMPTY_RECORD);
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("The expense journal in " + directory + " is closed");
+        }
+    }
+
+    private record Slot(int position, long version, boolean live) {
+    }
+
+    // The record holding the latest version of each expense still present, in id order
+    private static List<Slot> liveSlots(ByteBuffer log, int end) {
+        return latestSlots(log, end).stream().filter(Slot::live).toList();
+    }
+
+    // The latest record of each expense, a delete for one that is gone, in id order
+    private static List<Slot> latestSlots(ByteBuffer log, int end) {
+        TreeMap<Long, Slot> latest = new TreeMap<>();
+        for (int position = RECORD_SIZE; position < end; position += RECORD_SIZE) {
+            int type = log.getInt(position + TYPE);
+            if (type != PUT && type != DELETE) {
+                continue;
+            }
+            long id = log.getLong(position + ID);
+            long version = log.getLong(position + VERSION);
+            Slot seen = latest.get(id);
+            if (type == PUT && (seen == null || version > seen.version())) {
+                latest.put(id, new Slot(position, version, true));
+            } else if (type == DELETE && (seen == null || version >= seen.version())) {
+                latest.put(id, new Slot(position, version, false));
+            }
+        }
+        return List.copyOf(latest.values());
+    }
+
+    // The position of the latest record of each user still present, in id order
+    private static List<Integer> liveUserSlots(ByteBuffer log, int end) {
+        TreeMap<Long, Integer> latest = new TreeMap<>();
+        for (int position = RECORD_SIZE; position < end; position += RECORD_SIZE) {
+            int type = log.getInt(position + TYPE);
+            long id = log.getLong(position + ID);
+            if (type == USER || (type == USER_UPDATE && latest.containsKey(id))) {
+                latest.put(id, position);
+            } else if (type == USER_DELETE) {
+                latest.remove(id);
+            }
+        }
+        return List.copyOf(latest.values());
+    }
+
+    private static User decodeUser(ByteBuffer log, ByteBuffer strings, int position) {
+        String fields = readString(strings, log.getLong(position + STRING_OFFSET));
+        // Emails hold no NUL, so the last one ends the name
+        int separator = fields.lastIndexOf('\0');
+        return new User((int) log.getLong(position + ID), fields.substring(0, separator), fields.substring(separator + 1));
+    }
+
+    private static Expense decode(ByteBuffer log, ByteBuffer strings, int position, List<String> categories) {
+        long seconds = log.getLong(position + SPENT_SECONDS);
+        LocalDateTime spentAt = seconds == NO_TIME ? null
+                : LocalDateTime.ofEpochSecond(seconds, log.getInt(position + SPENT_NANOS), ZoneOffset.UTC);
+        Expense expense = new Expense(MinorUnits.toAmount(log.getLong(position + CENTS)),
+                categories.get(log.getInt(position + CATEGORY_ID)),
+                readString(strings, log.getLong(position + STRING_OFFSET)),
+                spentAt);
+        expense.setId(log.getLong(position + ID));
+        expense.setVersion(log.getLong(position + VERSION));
+        int userId = log.getInt(position + USER_ID);
+        expense.setUserId(userId == NO_USER ? null : userId);
+        return expense;
+    }
+
+    // Copies a record into another generation, moving its string along with it
+    private static void copy(ByteBuffer log, ByteBuffer strings, int position, Generation to, ByteBuffer record)
+            throws IOException {
+        copy(log, strings, position, log.getInt(position + TYPE), to, record);
+    }
+
+    private static void copy(ByteBuffer log, ByteBuffer strings, int position, int type, Generation to,
+                             ByteBuffer record) throws IOException {
+        record.clear();
+        record.put(0, log, position, RECORD_SIZE);
+        record.putInt(TYPE, type);
+        long stringOffset = record.getLong(STRING_OFFSET);
+        if (stringOffset != NO_STRING) {
+            byte[] string = new byte[strings.getInt((int) stringOffset)];
+            strings.get((int) stringOffset + Integer.BYTES, string);
+            record.putLong(STRING_OFFSET, to.appendString(string));
+        }
+        to.appendRecord(record);
+    }
+
+    private static boolean isValid(ByteBuffer log, ByteBuffer strings, int position) {
+        int type = log.getInt(position + TYPE);
+        if (type < PUT || type > USER_DELETE || checksum(log, position, CHECKSUM) != log.getInt(position + CHECKSUM)) {
+            return false;
+        }
+        long stringOffset = log.getLong(position + STRING_OFFSET);
+        if (stringOffset == NO_STRING) {
+            return type == PUT || type == DELETE || type == USER_DELETE;
+        }
+        if (stringOffset < 0 || stringOffset + Integer.BYTES > strings.capacity()) {
+            return false;
+        }
+        int length = strings.getInt((int) stringOffset);
+        if (length < 0 || stringOffset + Integer.BYTES + length > strings.capacity()) {
+            return false;
+        }
+        return checksum(strings, (int) stringOffset + Integer.BYTES, length) == log.getInt(position + STRING_CHECKSUM);
+    }
+
+    private static boolean isEmpty(ByteBuffer log, int position) {
+        for (int offset = 0; offset < RECORD_SIZE; offset += Long.BYTES) {
+            if (log.getLong(position + offset) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String readString(ByteBuffer strings, long offset) {
+        if (offset == NO_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[strings.getInt((int) offset)];
+        strings.get((int) offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long versionOf(Expense expense) {
+        return expense.getVersion() == null ? 0 : expense.getVersion();
+    }
+
+    private static int checksum(byte[] bytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * One generation of the journal: the log of records and the strings they point into.
+     */
+    private static final class Generation implements Closeable {
+        final long number;
+        final MappedFile log;
+        final MappedFile strings;
+        // Byte offsets of the first free record slot and the first free string byte
+        int logEnd = RECORD_SIZE;
+        int stringsEnd;
+
+        private Generation(long number, MappedFile log, MappedFile strings) {
+            this.number = number;
+            this.log = log;
+            this.strings = strings;
+        }
+
+        static Generation open(Path directory, long number, int initialRecords) throws IOException {
+            MappedFile log = MappedFile.open(logPath(directory, number), RECORD_SIZE * (initialRecords + 1));
+            try {
+                // Room for the descriptions of the initial records, at a guess of 32 bytes each
+                return new Generation(number, log, MappedFile.open(stringsPath(directory, number), 32 * initialRecords));
+            } catch (IOException | RuntimeException e) {
+                log.close();
+                throw e;
+            }
+        }
+
+        static Generation create(Path directory, long number, int initialRecords) throws IOException {
+            delete(directory, number);
+            Generation generation = open(directory, number, initialRecords);
+            generation.log.buffer()
+                    .putLong(HEADER_MAGIC, MAGIC)
+                    .putInt(HEADER_FORMAT, FORMAT)
+                    .putLong(HEADER_GENERATION, number);
+            return generation;
+        }
+
+        static void delete(Path directory, long number) throws IOException {
+            Files.deleteIfExists(logPath(directory, number));
+            Files.deleteIfExists(stringsPath(directory, number));
+        }
+
+        boolean isReady() {
+            ByteBuffer header = log.buffer();
+            return header.getLong(HEADER_MAGIC) == MAGIC && header.getInt(HEADER_FORMAT) == FORMAT
+                    && header.getInt(HEADER_STATE) == READY;
+        }
+
+        // The first generation was not made by a snapshot, and everything in it counts as appended since
+        int copiedEnd() {
+            return Math.max(RECORD_SIZE, log.buffer().getInt(HEADER_COPIED_END));
+        }
+
+        void markReady() {
+            log.buffer().putInt(HEADER_STATE, READY);
+            log.force(0, RECORD_SIZE);
+        }
+
+        long appendString(byte[] bytes) throws IOException {
+            int offset = stringsEnd;
+            strings.ensureCapacity((long) offset + Integer.BYTES + bytes.length);
+            strings.buffer().putInt(offset, bytes.length).put(offset + Integer.BYTES, bytes);
+            stringsEnd = offset + Integer.BYTES + bytes.length;
+            return offset;
+        }
+
+        // Seals the record with its checksum and appends it, returning where it went
+        int appendRecord(ByteBuffer record) throws IOException {
+            record.putInt(CHECKSUM, checksum(record, 0, CHECKSUM));
+            int position = logEnd;
+            log.ensureCapacity((long) position + RECORD_SIZE);
+            log.buffer().put(position, record, 0, RECORD_SIZE);
+            logEnd = position + RECORD_SIZE;
+            return position;
+        }
+
+        // Drops a generation that never became ready
+        void discard() throws IOException {
+            close();
+            delete(log.path().getParent(), number);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                log.close();
+            } finally {
+                strings.close();
+            }
+        }
+    }
+
+    private static Path logPath(Path directory, long number) {
+        return directory.resolve(String.format("expenses-%016d.journal", number));
+    }
+
+    private static Path stringsPath(Path directory, long number) {
+        return directory.resolve(String.format("expenses-%016d.strings", number));
+    }
+}
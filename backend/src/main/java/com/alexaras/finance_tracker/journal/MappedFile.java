@@ -0,0 +1,83 @@
+package com.alexaras.finance_tracker.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file mapped into memory in one piece, remapped at twice the size whenever a write would run
+ * past the end. Growing extends the file with zeros, so unwritten space always reads as zero.
+ */
+final class MappedFile implements Closeable {
+    // One mapping is addressed with an int
+    private static final long MAX_SIZE = Integer.MAX_VALUE;
+
+    private final Path path;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    private MappedFile(Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Maps an existing file, or creates one, at its current size or {@code minimumSize}, whichever is larger.
+     */
+    static MappedFile open(Path path, int minimumSize) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = Math.max(channel.size(), minimumSize);
+            return new MappedFile(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * The current mapping. A later {@link #ensureCapacity} replaces it, but one already handed out stays
+     * valid for the bytes it covers.
+     */
+    MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    void ensureCapacity(long end) throws IOException {
+        if (end <= buffer.capacity()) {
+            return;
+        }
+        if (end > MAX_SIZE) {
+            throw new IOException(path + " cannot grow past " + MAX_SIZE + " bytes");
+        }
+        long size = Math.min(MAX_SIZE, Math.max(end, 2L * buffer.capacity()));
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    void force(int index, int length) {
+        buffer.force(index, length);
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The mapping itself is released once it is garbage collected
+        channel.close();
+    }
+}
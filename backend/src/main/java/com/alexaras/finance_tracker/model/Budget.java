@@ -0,0 +1,68 @@
+package com.alexaras.finance_tracker.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+/**
+ * The most a user means to spend on one category in a month.
+ */
+@Entity
+@Table(name = "budgets", uniqueConstraints = @UniqueConstraint(name = "uk_budgets_user_category",
+        columnNames = {"user_id", "category"}))
+public class Budget {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // A user of the users store, which lives in a separate database, so there is no foreign key
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    @Column(nullable = false)
+    private String category;
+
+    @Column(name = "monthly_limit", nullable = false)
+    private BigDecimal monthlyLimit;
+
+    public Budget() {}
+
+    public Budget(Integer userId, String category, BigDecimal monthlyLimit) {
+        this.userId = userId;
+        this.category = category;
+        this.monthlyLimit = monthlyLimit;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public BigDecimal getMonthlyLimit() {
+        return monthlyLimit;
+    }
+
+    public void setMonthlyLimit(BigDecimal monthlyLimit) {
+        this.monthlyLimit = monthlyLimit;
+    }
+}
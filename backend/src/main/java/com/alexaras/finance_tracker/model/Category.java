@@ -0,0 +1,42 @@
+package com.alexaras.finance_tracker.model;
+
+import jakarta.persistence.*;
+
+/**
+ * A category name and the small id that expenses store in its place. Rows are only ever added, by
+ * {@link com.alexaras.finance_tracker.category.CategoryDictionary}, which assigns the ids itself so
+ * they stay dense.
+ */
+@Entity
+@Table(name = "categories")
+public class Category {
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false, unique = true)
+    private String name;
+
+    public Category() {}
+
+    public Category(Integer id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
@@ -1,25 +1,60 @@
 package com.alexaras.finance_tracker.model;
 
+import com.alexaras.finance_tracker.category.CategoryConverter;
+import com.alexaras.finance_tracker.category.CategoryRegistrationListener;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "expenses")
+@EntityListeners(CategoryRegistrationListener.class)
+// One index per filter shape of ExpenseSpecifications: the leading columns serve the WHERE clause and
+// the trailing id matches the tie-break of every sort, so a single-category page reads in index order
+@Table(name = "expenses", indexes = {
+        @Index(name = "idx_expenses_category_spent_at", columnList = "category_id, spent_at, id"),
+        @Index(name = "idx_expenses_category_amount", columnList = "category_id, amount, id"),
+        @Index(name = "idx_expenses_spent_at", columnList = "spent_at, id"),
+        @Index(name = "idx_expenses_amount", columnList = "amount, id"),
+        // Per-user listings and aggregates only read the owner's slice of the table
+        @Index(name = "idx_expenses_user_id", columnList = "user_id, id"),
+        @Index(name = "idx_expenses_user_category_spent_at", columnList = "user_id, category_id, spent_at, id")
+})
 public class Expense {
+    // Shared with code that allocates ids outside Hibernate, which must follow the same pooled scheme
+    public static final String SEQUENCE_NAME = "expenses_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
 
+    // A pooled sequence (unlike IDENTITY) lets Hibernate batch inserts and hands out ids 50 at a time.
+    // SQLite has no sequences and uses IDENTITY instead, see SqliteStorageBackend
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expense_seq")
+    @SequenceGenerator(name = "expense_seq", sequenceName = SEQUENCE_NAME, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
     private BigDecimal amount;
 
-    @Column(nullable = false)
+    // Stored as the small id the category has in the categories table, see CategoryDictionary
+    @Convert(converter = CategoryConverter.class)
+    @Column(name = "category_id", nullable = false)
     private String category;
 
     @Column(nullable = true) // Optional description
     private String description;
 
+    @Column(name = "spent_at", nullable = false) // Defaults to the time of insertion
+    private LocalDateTime spentAt;
+
+    // The owning user from UserDAO; users live in another database, so there is no foreign key.
+    // Expenses created through the global API may have no owner
+    @Column(name = "user_id", nullable = true)
+    private Integer userId;
+
+    // Bumped by every update, which only applies to the version it read (see ExpenseRepository.updateIfVersion)
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     // Constructors, Getters, and Setters
     public Expense() {}
 
@@ -29,6 +64,26 @@ public class Expense {
         this.description = description;
     }
 
+    public Expense(BigDecimal amount, String category, String description, LocalDateTime spentAt) {
+        this(amount, category, description);
+        this.spentAt = spentAt;
+    }
+
+    // Copy constructor used to take detached snapshots of an expense
+    public Expense(Expense other) {
+        this(other.amount, other.category, other.description, other.spentAt);
+        this.id = other.id;
+        this.userId = other.userId;
+        this.version = other.version;
+    }
+
+    @PrePersist
+    void defaultSpentAt() {
+        if (spentAt == null) {
+            spentAt = LocalDateTime.now();
+        }
+    }
+
     public Long getId() {
         return id;
     }
@@ -61,6 +116,30 @@ public class Expense {
         this.description = description;
     }
 
+    public LocalDateTime getSpentAt() {
+        return spentAt;
+    }
+
+    public void setSpentAt(LocalDateTime spentAt) {
+        this.spentAt = spentAt;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Expense{" +
@@ -68,6 +147,9 @@ public class Expense {
                 ", amount=" + amount +
                 ", category='" + category + '\'' +
                 ", description='" + description + '\'' +
+                ", spentAt=" + spentAt +
+                ", userId=" + userId +
+                ", version=" + version +
                 '}';
     }
 
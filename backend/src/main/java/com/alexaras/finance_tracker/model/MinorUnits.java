@@ -0,0 +1,129 @@
+package com.alexaras.finance_tracker.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Fixed-point money arithmetic on {@code long}s. An amount is held as a count of minor units of
+ * {@code 10^-scale} (cents at {@link #SCALE}), so hot paths can sum and compare amounts without
+ * allocating a {@link BigDecimal} per value. Conversion to and from {@code BigDecimal} is exact, and
+ * every operation throws {@link ArithmeticException} rather than overflow or silently round.
+ */
+public final class MinorUnits {
+    // Matches the scale of the expenses.amount column
+    public static final int SCALE = 2;
+
+    // 10^n for every scale a long can hold
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private MinorUnits() {
+    }
+
+    /**
+     * @throws ArithmeticException if the amount has more decimal places than the scale or does not
+     *                             fit in a long at that scale
+     */
+    public static long of(BigDecimal amount, int scale) {
+        return amount.setScale(scale).unscaledValue().longValueExact();
+    }
+
+    public static long of(BigDecimal amount) {
+        return of(amount, SCALE);
+    }
+
+    public static BigDecimal toAmount(long units, int scale) {
+        return BigDecimal.valueOf(units, scale);
+    }
+
+    public static BigDecimal toAmount(long units) {
+        return toAmount(units, SCALE);
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long sum(long[] units) {
+        long sum = 0;
+        for (long value : units) {
+            sum = Math.addExact(sum, value);
+        }
+        return sum;
+    }
+
+    /**
+     * Re-expresses an amount at a larger scale, e.g. cents as tenths of a cent.
+     *
+     * @throws ArithmeticException if the result does not fit in a long
+     */
+    public static long rescale(long units, int fromScale, int toScale) {
+        if (toScale < fromScale) {
+            throw new ArithmeticException("Rescaling from " + fromScale + " to " + toScale + " would lose digits");
+        }
+        return Math.multiplyExact(units, powerOfTen(toScale - fromScale));
+    }
+
+    /**
+     * Parses a plain decimal such as {@code -12.5} or {@code +3} straight into minor units, without
+     * going through {@code BigDecimal}. Anything else a {@code BigDecimal} accepts, such as an
+     * exponent, is parsed the slow way.
+     *
+     * @throws NumberFormatException if the text is not a number
+     * @throws ArithmeticException   if the amount has more decimal places than the scale or does not
+     *                               fit in a long at that scale
+     */
+    public static long parse(CharSequence text, int scale) {
+        int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            i++;
+        }
+        long units = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                return of(new BigDecimal(text.toString()), scale);
+            }
+            if (decimals >= 0 && ++decimals > scale) {
+                // Trailing zeros past the scale are harmless; anything else would have to be rounded
+                if (c != '0') {
+                    throw new ArithmeticException("Amount has more than " + scale + " decimal places: " + text);
+                }
+                continue;
+            }
+            // Accumulate negatively: the negative range of a long is one larger than the positive
+            units = Math.subtractExact(Math.multiplyExact(units, 10), c - '0');
+            digits++;
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Not a number: " + text);
+        }
+        units = Math.multiplyExact(units, powerOfTen(scale - Math.min(Math.max(decimals, 0), scale)));
+        return negative ? units : Math.negateExact(units);
+    }
+
+    public static long parse(CharSequence text) {
+        return parse(text, SCALE);
+    }
+
+    private static long powerOfTen(int exponent) {
+        if (exponent >= POWERS_OF_TEN.length) {
+            throw new ArithmeticException("10^" + exponent + " does not fit in a long");
+        }
+        return POWERS_OF_TEN[exponent];
+    }
+}
@@ -0,0 +1,47 @@
+package com.alexaras.finance_tracker.model;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * How often a {@link RecurringExpense} repeats. Monthly schedules keep the day of month of their
+ * first occurrence, moved back to the last day of shorter months, as {@link LocalDate#plusMonths} does.
+ */
+public enum Recurrence {
+    WEEKLY(0),
+    MONTHLY(1),
+    QUARTERLY(3),
+    YEARLY(12);
+
+    private final int months;
+
+    Recurrence(int months) {
+        this.months = months;
+    }
+
+    /**
+     * @return how many occurrences of a schedule whose first occurrence is {@code start} fall between
+     * {@code from} and {@code to}, both inclusive
+     */
+    public int occurrences(LocalDate start, LocalDate from, LocalDate to) {
+        LocalDate first = from.isBefore(start) ? start : from;
+        if (to.isBefore(first)) {
+            return 0;
+        }
+        if (this == WEEKLY) {
+            // Round the offset from the start up to a whole week to land on the first occurrence
+            LocalDate next = start.plusWeeks((ChronoUnit.DAYS.between(start, first) + 6) / 7);
+            return next.isAfter(to) ? 0 : (int) (ChronoUnit.DAYS.between(next, to) / 7 + 1);
+        }
+        // Occurrence k falls on start.plusMonths(k * months); skip straight to the month of "first"
+        long k = ChronoUnit.MONTHS.between(YearMonth.from(start), YearMonth.from(first)) / months;
+        int count = 0;
+        for (LocalDate date = start.plusMonths(k * months); !date.isAfter(to); date = start.plusMonths(++k * months)) {
+            if (!date.isBefore(first)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
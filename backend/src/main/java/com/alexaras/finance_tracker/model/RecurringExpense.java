@@ -0,0 +1,126 @@
+package com.alexaras.finance_tracker.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * An expense a user expects to repeat, such as rent or a subscription, used to project spending.
+ */
+@Entity
+@Table(name = "recurring_expenses", indexes = @Index(name = "idx_recurring_expenses_user", columnList = "user_id"))
+public class RecurringExpense {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // A user of the users store, which lives in a separate database, so there is no foreign key
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private String category;
+
+    @Column(nullable = true)
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Recurrence recurrence;
+
+    // The first occurrence; later ones follow the recurrence from here
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    // The last day an occurrence may fall on, or null if it repeats indefinitely
+    @Column(name = "end_date", nullable = true)
+    private LocalDate endDate;
+
+    public RecurringExpense() {}
+
+    public RecurringExpense(BigDecimal amount, String category, String description,
+                            Recurrence recurrence, LocalDate startDate) {
+        this.amount = amount;
+        this.category = category;
+        this.description = description;
+        this.recurrence = recurrence;
+        this.startDate = startDate;
+    }
+
+    /**
+     * @return how many times this expense falls due between {@code from} and {@code to}, both inclusive
+     */
+    public int occurrences(LocalDate from, LocalDate to) {
+        LocalDate last = endDate != null && endDate.isBefore(to) ? endDate : to;
+        return recurrence.occurrences(startDate, from, last);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    public void setRecurrence(Recurrence recurrence) {
+        this.recurrence = recurrence;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+}
@@ -0,0 +1,155 @@
+package com.alexaras.finance_tracker.projection;
+
+import com.alexaras.finance_tracker.dto.CategoryProjection;
+import com.alexaras.finance_tracker.dto.UserProjection;
+import com.alexaras.finance_tracker.model.Budget;
+import com.alexaras.finance_tracker.model.MinorUnits;
+import com.alexaras.finance_tracker.model.RecurringExpense;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Projects spending per user, month and category from recurring expenses, budgets and what has
+ * already been spent. Projections only read their inputs, so many users can be projected at once:
+ * {@link #projectAll} splits the users into ranges on a fork-join pool of its own, leaving the common
+ * pool to the rest of the application.
+ * <p>
+ * All arithmetic is in cents ({@link MinorUnits}); amounts that are not whole cents are rejected
+ * before they are stored.
+ */
+public class ProjectionEngine {
+    // Projecting one user takes microseconds; smaller ranges would cost more in task overhead than they save
+    static final int USERS_PER_TASK = 256;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * What one user has defined. Neither list may change while the user is being projected.
+     */
+    public record Plan(int userId, List<RecurringExpense> recurring, List<Budget> budgets) {
+
+        public SortedSet<String> categories() {
+            SortedSet<String> categories = new TreeSet<>();
+            recurring.forEach(expense -> categories.add(expense.getCategory()));
+            budgets.forEach(budget -> categories.add(budget.getCategory()));
+            return categories;
+        }
+    }
+
+    /**
+     * Spending a user has already recorded in a category, in cents, for each projected month in order.
+     */
+    @FunctionalInterface
+    public interface Actuals {
+        long[] monthly(int userId, String category);
+    }
+
+    public ProjectionEngine(int parallelism) {
+        // Fork-join workers are daemon threads that retire when idle, so the pool needs no shutdown
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Projects every plan, in parallel.
+     *
+     * @return the projections in the order of {@code plans}
+     */
+    public List<UserProjection> projectAll(List<Plan> plans, LocalDate asOf, int months, Actuals actuals) {
+        UserProjection[] projections = new UserProjection[plans.size()];
+        pool.invoke(new ProjectRange(plans, asOf, months, actuals, projections, 0, plans.size()));
+        return Arrays.asList(projections);
+    }
+
+    /**
+     * Projects one user for {@code months} months, starting with the month of {@code asOf}. Recurring
+     * expenses count from {@code asOf} on: earlier ones in the month are part of the actual spending.
+     */
+    public static UserProjection project(Plan plan, LocalDate asOf, int months, Actuals actuals) {
+        SortedSet<String> categories = plan.categories();
+        Map<String, Long> budgets = new HashMap<>();
+        for (Budget budget : plan.budgets()) {
+            budgets.put(budget.getCategory(), MinorUnits.of(budget.getMonthlyLimit()));
+        }
+        Map<String, List<RecurringExpense>> recurringByCategory = new HashMap<>();
+        for (RecurringExpense expense : plan.recurring()) {
+            recurringByCategory.computeIfAbsent(expense.getCategory(), category -> new ArrayList<>()).add(expense);
+        }
+
+        List<CategoryProjection> lines = new ArrayList<>(months * categories.size());
+        YearMonth first = YearMonth.from(asOf);
+        for (int m = 0; m < months; m++) {
+            YearMonth month = first.plusMonths(m);
+            LocalDate from = m == 0 ? asOf : month.atDay(1);
+            LocalDate to = month.atEndOfMonth();
+            for (String category : categories) {
+                long recurring = 0;
+                for (RecurringExpense expense : recurringByCategory.getOrDefault(category, List.of())) {
+                    long due = Math.multiplyExact(MinorUnits.of(expense.getAmount()), expense.occurrences(from, to));
+                    recurring = MinorUnits.add(recurring, due);
+                }
+                long actual = actuals.monthly(plan.userId(), category)[m];
+                long projected = MinorUnits.add(actual, recurring);
+                Long budget = budgets.get(category);
+                lines.add(new CategoryProjection(month, category,
+                        budget == null ? null : MinorUnits.toAmount(budget),
+                        MinorUnits.toAmount(actual),
+                        MinorUnits.toAmount(recurring),
+                        MinorUnits.toAmount(projected),
+                        budget == null ? null : MinorUnits.toAmount(Math.subtractExact(budget, projected))));
+            }
+        }
+        return new UserProjection(plan.userId(), asOf, months, lines);
+    }
+
+    private static final class ProjectRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // Tasks only ever run in this pool and are never serialized
+        private final transient List<Plan> plans;
+        private final LocalDate asOf;
+        private final int months;
+        private final transient Actuals actuals;
+        private final transient UserProjection[] projections;
+        private final int from;
+        private final int to;
+
+        ProjectRange(List<Plan> plans, LocalDate asOf, int months, Actuals actuals,
+                     UserProjection[] projections, int from, int to) {
+            this.plans = plans;
+            this.asOf = asOf;
+            this.months = months;
+            this.actuals = actuals;
+            this.projections = projections;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= USERS_PER_TASK) {
+                // Each task writes its own slots of the array; invoke() publishes them to the caller
+                for (int i = from; i < to; i++) {
+                    projections[i] = project(plans.get(i), asOf, months, actuals);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ProjectRange(plans, asOf, months, actuals, projections, from, middle),
+                    new ProjectRange(plans, asOf, months, actuals, projections, middle, to));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.alexaras.finance_tracker.reactive;
+
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.service.ExpenseVersionConflictException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * The expense endpoints of {@link com.alexaras.finance_tracker.controller.ExpenseController} as
+ * WebFlux functional routes under {@value #BASE_PATH}. Lists are written as the rows arrive: as
+ * newline-delimited JSON when the client accepts it, otherwise as a JSON array.
+ */
+public class ReactiveExpenseHandler {
+    public static final String BASE_PATH = "/api/v1/reactive/expenses";
+
+    private final ReactiveExpenseService expenseService;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public ReactiveExpenseHandler(ReactiveExpenseService expenseService, int defaultPageSize, int maxPageSize) {
+        this.expenseService = expenseService;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    public RouterFunction<ServerResponse> routes() {
+        return route()
+                .path(BASE_PATH, builder -> builder
+                        .GET("", this::getExpenses)
+                        .GET("/page", this::getExpensePage)
+                        .GET("/{id}", this::getExpense)
+                        .POST("", this::addExpense)
+                        .PUT("/{id}", this::updateExpense)
+                        .DELETE("/{id}", this::deleteExpense))
+                .build();
+    }
+
+    Mono<ServerResponse> getExpenses(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(listMediaType(request))
+                .body(expenseService.getAllExpenses(), Expense.class);
+    }
+
+    // Same keyset pagination as the blocking API; the next cursor is the id of the last item
+    Mono<ServerResponse> getExpensePage(ServerRequest request) {
+        Long after = request.queryParam("after").map(Long::valueOf).orElse(null);
+        int pageSize = request.queryParam("limit")
+                .map(limit -> Math.max(1, Math.min(Integer.parseInt(limit), maxPageSize)))
+                .orElse(defaultPageSize);
+        return ServerResponse.ok()
+                .contentType(listMediaType(request))
+                .body(expenseService.getExpensePage(after, pageSize), Expense.class);
+    }
+
+    Mono<ServerResponse> getExpense(ServerRequest request) {
+        return expenseService.getExpense(id(request))
+                .flatMap(expense -> ServerResponse.ok().bodyValue(expense))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    Mono<ServerResponse> addExpense(ServerRequest request) {
+        return request.bodyToMono(Expense.class)
+                .flatMap(expenseService::addExpense)
+                .flatMap(saved -> ServerResponse.ok().bodyValue(saved));
+    }
+
+    Mono<ServerResponse> updateExpense(ServerRequest request) {
+        long id = id(request);
+        return request.bodyToMono(Expense.class)
+                .flatMap(changes -> expenseService.updateExpense(id, changes))
+                .flatMap(saved -> ServerResponse.ok().bodyValue(saved))
+                .onErrorResume(ExpenseVersionConflictException.class,
+                        e -> ServerResponse.status(HttpStatus.CONFLICT).bodyValue(e.getMessage()))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    Mono<ServerResponse> deleteExpense(ServerRequest request) {
+        return expenseService.deleteExpense(id(request))
+                .flatMap(deleted -> ServerResponse.noContent().build())
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+
+    private static long id(ServerRequest request) {
+        return Long.parseLong(request.pathVariable("id"));
+    }
+
+    private static MediaType listMediaType(ServerRequest request) {
+        return request.headers().accept().stream().anyMatch(MediaType.APPLICATION_NDJSON::isCompatibleWith)
+                && !request.headers().accept().contains(MediaType.ALL)
+                ? MediaType.APPLICATION_NDJSON
+                : MediaType.APPLICATION_JSON;
+    }
+}
@@ -0,0 +1,197 @@
+package com.alexaras.finance_tracker.reactive;
+
+import com.alexaras.finance_tracker.category.CategoryDictionary;
+import com.alexaras.finance_tracker.model.Expense;
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Non-blocking access to the {@code expenses} table that JPA maps, through R2DBC. Rows are read as
+ * the subscriber requests them, so a slow consumer slows the query down instead of buffering rows.
+ * <p>
+ * New ids come from the same sequence Hibernate uses and follow its pooled scheme: each sequence
+ * value is the top of a block of {@link Expense#ID_ALLOCATION_SIZE} ids owned by whoever fetched it,
+ * so ids handed out here never collide with the ones Hibernate hands out.
+ * <p>
+ * Categories are stored as their {@link CategoryDictionary} ids, as the entity's converter stores them.
+ */
+public class ReactiveExpenseRepository {
+    private static final String COLUMNS = "id, amount, category_id, description, spent_at, user_id, version";
+
+    private final DatabaseClient databaseClient;
+    private final CategoryDictionary categoryDictionary;
+    private final AtomicReference<IdBlock> ids = new AtomicReference<>(IdBlock.EMPTY);
+
+    public ReactiveExpenseRepository(DatabaseClient databaseClient, CategoryDictionary categoryDictionary) {
+        this.databaseClient = databaseClient;
+        this.categoryDictionary = categoryDictionary;
+    }
+
+    public Flux<Expense> findAll() {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM expenses ORDER BY id")
+                .map(this::mapExpense)
+                .all();
+    }
+
+    public Flux<Expense> findPage(Long after, int limit) {
+        DatabaseClient.GenericExecuteSpec spec = after == null
+                ? databaseClient.sql("SELECT " + COLUMNS + " FROM expenses ORDER BY id LIMIT :limit")
+                : databaseClient.sql("SELECT " + COLUMNS + " FROM expenses WHERE id > :after ORDER BY id LIMIT :limit")
+                        .bind("after", after);
+        return spec.bind("limit", limit)
+                .map(this::mapExpense)
+                .all();
+    }
+
+    public Mono<Expense> findById(long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM expenses WHERE id = :id")
+                .bind("id", id)
+                .map(this::mapExpense)
+                .one();
+    }
+
+    /**
+     * Inserts a copy of the expense with a newly allocated id, defaulting {@code spentAt} to now as
+     * the entity does. Updates leave the owner alone, as {@code ExpenseService} does.
+     */
+    public Mono<Expense> insert(Expense expense) {
+        return Mono.zip(nextId(), categoryId(expense.getCategory())).flatMap(idAndCategory -> {
+            long id = idAndCategory.getT1();
+            Expense saved = new Expense(expense);
+            saved.setId(id);
+            saved.setVersion(0L);
+            if (saved.getSpentAt() == null) {
+                saved.setSpentAt(LocalDateTime.now());
+            }
+            DatabaseClient.GenericExecuteSpec spec = bindValues(databaseClient.sql(
+                    "INSERT INTO expenses (id, amount, category_id, description, spent_at, user_id, version) "
+                            + "VALUES (:id, :amount, :categoryId, :description, :spentAt, :userId, 0)"),
+                    saved, idAndCategory.getT2());
+            spec = saved.getUserId() == null
+                    ? spec.bindNull("userId", Integer.class)
+                    : spec.bind("userId", saved.getUserId());
+            return spec.fetch()
+                    .rowsUpdated()
+                    .thenReturn(saved);
+        });
+    }
+
+    /**
+     * Overwrites the row if it is still at the expense's version, as
+     * {@link com.alexaras.finance_tracker.repository.ExpenseRepository#updateIfVersion} does.
+     *
+     * @return the expense as stored, with its new version, or empty if the row is gone or has moved on
+     */
+    public Mono<Expense> update(Expense expense) {
+        return categoryId(expense.getCategory())
+                .flatMap(categoryId -> bindValues(databaseClient.sql(
+                                "UPDATE expenses SET amount = :amount, category_id = :categoryId, description = :description, "
+                                        + "spent_at = :spentAt, version = version + 1 WHERE id = :id AND version = :version"),
+                        expense, categoryId)
+                        .bind("version", expense.getVersion())
+                        .fetch()
+                        .rowsUpdated())
+                .filter(updated -> updated > 0)
+                .map(updated -> {
+                    Expense saved = new Expense(expense);
+                    saved.setVersion(expense.getVersion() + 1);
+                    return saved;
+                });
+    }
+
+    /**
+     * Deletes the row if it is still at {@code version}, as
+     * {@link com.alexaras.finance_tracker.repository.ExpenseRepository#deleteIfVersion} does.
+     *
+     * @return the rows deleted: 0 if the row is gone or has moved on
+     */
+    public Mono<Long> deleteIfVersion(long id, long version) {
+        return databaseClient.sql("DELETE FROM expenses WHERE id = :id AND version = :version")
+                .bind("id", id)
+                .bind("version", version)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindValues(DatabaseClient.GenericExecuteSpec spec, Expense expense,
+                                                               int categoryId) {
+        spec = spec.bind("id", expense.getId())
+                .bind("amount", expense.getAmount())
+                .bind("categoryId", categoryId)
+                .bind("spentAt", expense.getSpentAt());
+        return expense.getDescription() == null
+                ? spec.bindNull("description", String.class)
+                : spec.bind("description", expense.getDescription());
+    }
+
+    // A new category is added to the table over JDBC, which blocks, so that runs off the event loop
+    private Mono<Integer> categoryId(String category) {
+        if (category == null) {
+            return Mono.error(new IllegalArgumentException("category is required"));
+        }
+        int id = categoryDictionary.find(category);
+        return id != CategoryDictionary.UNKNOWN
+                ? Mono.just(id)
+                : Mono.fromCallable(() -> categoryDictionary.register(category)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // Takes the next id from the current block, fetching a new block when it runs out. Two callers
+    // that both find the block empty each fetch one; the ids in the block that loses are skipped.
+    private Mono<Long> nextId() {
+        return Mono.defer(() -> {
+            while (true) {
+                IdBlock block = ids.get();
+                if (block.isEmpty()) {
+                    break;
+                }
+                if (ids.compareAndSet(block, block.advance())) {
+                    return Mono.just(block.next());
+                }
+            }
+            return databaseClient.sql("SELECT NEXT VALUE FOR " + Expense.SEQUENCE_NAME)
+                    .map(row -> row.get(0, Long.class))
+                    .one()
+                    .map(hi -> {
+                        IdBlock block = IdBlock.endingAt(hi);
+                        ids.set(block.advance());
+                        return block.next();
+                    });
+        });
+    }
+
+    private Expense mapExpense(Readable row) {
+        Expense expense = new Expense(
+                row.get("amount", BigDecimal.class),
+                categoryDictionary.nameOf(row.get("category_id", Integer.class)),
+                row.get("description", String.class),
+                row.get("spent_at", LocalDateTime.class));
+        expense.setId(row.get("id", Long.class));
+        expense.setUserId(row.get("user_id", Integer.class));
+        expense.setVersion(row.get("version", Long.class));
+        return expense;
+    }
+
+    private record IdBlock(long next, long hi) {
+        static final IdBlock EMPTY = new IdBlock(1, 0);
+
+        // The sequence starts at 1, so the first block fetched holds just that id
+        static IdBlock endingAt(long hi) {
+            return new IdBlock(Math.max(1, hi - Expense.ID_ALLOCATION_SIZE + 1), hi);
+        }
+
+        boolean isEmpty() {
+            return next > hi;
+        }
+
+        IdBlock advance() {
+            return new IdBlock(next + 1, hi);
+        }
+    }
+}
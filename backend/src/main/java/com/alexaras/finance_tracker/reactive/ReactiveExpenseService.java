@@ -0,0 +1,122 @@
+package com.alexaras.finance_tracker.reactive;
+
+import com.alexaras.finance_tracker.config.CacheConfig;
+import com.alexaras.finance_tracker.dao.UserDAO;
+import com.alexaras.finance_tracker.event.ExpenseChangedEvent;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.service.ExpenseVersionConflictException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking counterpart of {@link com.alexaras.finance_tracker.service.ExpenseService}. Writes
+ * publish the same {@link ExpenseChangedEvent}s and update the same cache entries, so listeners and
+ * the blocking API see changes made here.
+ */
+public class ReactiveExpenseService {
+    private final ReactiveExpenseRepository repository;
+    private final UserDAO userDAO;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache expenseCache;
+
+    public ReactiveExpenseService(ReactiveExpenseRepository repository, UserDAO userDAO,
+                                  ApplicationEventPublisher eventPublisher, CacheManager cacheManager) {
+        this.repository = repository;
+        this.userDAO = userDAO;
+        this.eventPublisher = eventPublisher;
+        this.expenseCache = cacheManager.getCache(ExpenseRepository.CACHE_NAME);
+    }
+
+    public Flux<Expense> getAllExpenses() {
+        return repository.findAll();
+    }
+
+    public Flux<Expense> getExpensePage(Long after, int limit) {
+        return repository.findPage(after, limit);
+    }
+
+    /**
+     * @return the expense, or empty if there is none with this id
+     */
+    public Mono<Expense> getExpense(long id) {
+        return repository.findById(id);
+    }
+
+    public Mono<Expense> addExpense(Expense expense) {
+        Mono<Void> ownerCheck = expense.getUserId() == null ? Mono.empty() : requireUser(expense.getUserId());
+        return ownerCheck.then(Mono.defer(() -> repository.insert(expense)))
+                .doOnNext(saved -> eventPublisher.publishEvent(ExpenseChangedEvent.created(saved)));
+    }
+
+    /**
+     * Updates the expense as {@code ExpenseService} does: only the version in {@code updatedExpense}
+     * if it has one, otherwise whichever is current, retrying when another write gets in between. A
+     * version that does not match is read again once before it is reported as a conflict.
+     *
+     * @return the updated expense, or empty if there is none with this id
+     */
+    public Mono<Expense> updateExpense(long id, Expense updatedExpense) {
+        return updateExpense(id, updatedExpense, false);
+    }
+
+    private Mono<Expense> updateExpense(long id, Expense updatedExpense, boolean reread) {
+        return repository.findById(id).flatMap(found -> {
+            Long expectedVersion = updatedExpense.getVersion();
+            if (expectedVersion != null && !expectedVersion.equals(found.getVersion())) {
+                // Read once more, as ExpenseService does, so both APIs report the same conflicts
+                return reread
+                        ? Mono.error(new ExpenseVersionConflictException(id, expectedVersion, found.getVersion()))
+                        : updateExpense(id, updatedExpense, true);
+            }
+            Expense expense = new Expense(found);
+            expense.setAmount(updatedExpense.getAmount());
+            expense.setCategory(updatedExpense.getCategory());
+            expense.setDescription(updatedExpense.getDescription());
+            if (updatedExpense.getSpentAt() != null) {
+                expense.setSpentAt(updatedExpense.getSpentAt());
+            }
+            return repository.update(expense)
+                    .doOnNext(saved -> {
+                        // As ExpenseService does, so a late put of the old row cannot replace it
+                        if (expenseCache != null) {
+                            expenseCache.put(id, new Expense(saved));
+                        }
+                        eventPublisher.publishEvent(ExpenseChangedEvent.updated(found, saved));
+                    })
+                    // Another write got in first: read it and try again
+                    .switchIfEmpty(Mono.defer(() -> updateExpense(id, updatedExpense, true)));
+        });
+    }
+
+    /**
+     * @return the deleted expense, or empty if there is none with this id
+     */
+    public Mono<Expense> deleteExpense(long id) {
+        return repository.findById(id).flatMap(existing -> repository.deleteIfVersion(id, existing.getVersion())
+                .filter(deleted -> deleted > 0)
+                .map(deleted -> {
+                    // As ExpenseService does, so a late put of the deleted row cannot bring it back
+                    if (expenseCache != null) {
+                        expenseCache.put(id, new CacheConfig.DeletedExpense(existing.getVersion()));
+                    }
+                    eventPublisher.publishEvent(ExpenseChangedEvent.deleted(existing));
+                    return existing;
+                })
+                // Another write got in first: read it and try again
+                .switchIfEmpty(Mono.defer(() -> deleteExpense(id))));
+    }
+
+    // The user DAO is blocking JDBC, so it runs off the event loop
+    private Mono<Void> requireUser(int userId) {
+        return Mono.fromCallable(() -> userDAO.findById(userId) != null)
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(exists -> exists
+                        ? Mono.<Void>empty()
+                        : Mono.error(new RuntimeException("User not found with id: " + userId)));
+    }
+}
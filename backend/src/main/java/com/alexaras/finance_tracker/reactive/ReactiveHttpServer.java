@@ -0,0 +1,70 @@
+package com.alexaras.finance_tracker.reactive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Serves the reactive API on its own Reactor Netty server, next to the servlet container that runs
+ * the rest of the application. All connections share a small, fixed set of event-loop threads, so an
+ * idle or slow client costs a socket and some buffers rather than a thread.
+ */
+public class ReactiveHttpServer implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(ReactiveHttpServer.class);
+
+    private final HttpHandler httpHandler;
+    private final int port;
+    private final int eventLoopThreads;
+    private volatile LoopResources loops;
+    private volatile DisposableServer server;
+
+    public ReactiveHttpServer(HttpHandler httpHandler, int port, int eventLoopThreads) {
+        this.httpHandler = httpHandler;
+        this.port = port;
+        this.eventLoopThreads = eventLoopThreads;
+    }
+
+    @Override
+    public void start() {
+        loops = LoopResources.create("reactive-http", eventLoopThreads, true);
+        server = HttpServer.create()
+                .port(port)
+                .runOn(loops)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        log.info("Reactive API listening on port {} with {} event-loop threads", server.port(), eventLoopThreads);
+    }
+
+    @Override
+    public void stop() {
+        if (server != null) {
+            server.disposeNow();
+            server = null;
+        }
+        if (loops != null) {
+            loops.disposeLater().block();
+            loops = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    /**
+     * @return the port the server is bound to, which differs from the configured one when that is 0
+     */
+    public int getPort() {
+        DisposableServer running = server;
+        if (running == null) {
+            throw new IllegalStateException("Reactive server is not running");
+        }
+        return running.port();
+    }
+}
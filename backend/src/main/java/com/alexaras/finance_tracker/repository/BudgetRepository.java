@@ -0,0 +1,14 @@
+package com.alexaras.finance_tracker.repository;
+
+import com.alexaras.finance_tracker.model.Budget;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface BudgetRepository extends JpaRepository<Budget, Long> {
+
+    List<Budget> findByUserIdOrderByCategory(Integer userId);
+
+    Optional<Budget> findByUserIdAndCategory(Integer userId, String category);
+}
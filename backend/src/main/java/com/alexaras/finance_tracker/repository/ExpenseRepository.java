@@ -1,9 +1,174 @@
 package com.alexaras.finance_tracker.repository;
 
+import com.alexaras.finance_tracker.dto.BucketStats;
+import com.alexaras.finance_tracker.dto.CategoryStats;
+import com.alexaras.finance_tracker.dto.UserCategoryDayTotal;
 import com.alexaras.finance_tracker.model.Expense;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Filtered listings pass an ExpenseSpecifications specification to findBy
+public interface ExpenseRepository extends JpaRepository<Expense, Long>, JpaSpecificationExecutor<Expense> {
+    String CACHE_NAME = "expenses";
+
+    // Read-through cache for single lookups; every write path below evicts what it touches
+    @Override
+    @Cacheable(cacheNames = CACHE_NAME, unless = "#result == null")
+    Optional<Expense> findById(Long id);
+
+    // Evicted before the write so a failed save cannot leave a stale entry behind
+    @Override
+    @CacheEvict(cacheNames = CACHE_NAME, key = "#p0.id", condition = "#p0.id != null", beforeInvocation = true)
+    <S extends Expense> S save(S entity);
+
+    @Override
+    @CacheEvict(cacheNames = CACHE_NAME, allEntries = true, beforeInvocation = true)
+    <S extends Expense> List<S> saveAll(Iterable<S> entities);
+
+    @Override
+    @CacheEvict(cacheNames = CACHE_NAME, key = "#p0")
+    void deleteById(Long id);
+
+    @Override
+    @CacheEvict(cacheNames = CACHE_NAME, key = "#p0.id", condition = "#p0.id != null")
+    void delete(Expense entity);
+
+    @Override
+    @CacheEvict(cacheNames = CACHE_NAME, allEntries = true)
+    void deleteAllById(Iterable<? extends Long> ids);
+
+    @Override
+    @CacheEvict(cacheNames = CACHE_NAME, allEntries = true)
+    void deleteAll();
+
+    @Override
+    @CacheEvict(cacheNames = CACHE_NAME, allEntries = true)
+    void deleteAllInBatch();
+
+    // Bypasses the cache, whose copy may be older than the row; used to retry a write that lost a race
+    @Query("select e from Expense e where e.id = :id")
+    Optional<Expense> findCurrentById(@Param("id") Long id);
+
+    /**
+     * Overwrites the expense in one statement, provided it is still at {@code version}, and bumps the
+     * version. The owner is left alone.
+     *
+     * @return 1 if the row was updated, 0 if it is gone or was changed since that version was read
+     */
+    @Transactional
+    @Modifying
+    @CacheEvict(cacheNames = CACHE_NAME, key = "#p0")
+    @Query("update Expense e set e.amount = :amount, e.category = :category, e.description = :description, " +
+            "e.spentAt = :spentAt, e.version = e.version + 1 " +
+            "where e.id = :id and e.version = :version")
+    int updateIfVersion(@Param("id") Long id,
+                        @Param("version") Long version,
+                        @Param("amount") BigDecimal amount,
+                        @Param("category") String category,
+                        @Param("description") String description,
+                        @Param("spentAt") LocalDateTime spentAt);
+
+    /**
+     * Deletes the expense in one statement, provided it is still at {@code version}.
+     *
+     * @return 1 if the row was deleted, 0 if it is gone or was changed since that version was read
+     */
+    @Transactional
+    @Modifying
+    @CacheEvict(cacheNames = CACHE_NAME, key = "#p0")
+    @Query("delete from Expense e where e.id = :id and e.version = :version")
+    int deleteIfVersion(@Param("id") Long id, @Param("version") Long version);
 
-public interface ExpenseRepository extends JpaRepository<Expense, Long> {
     List<Expense> findByCategory(String category);
+
+    // Keyset pagination: seeks past the last id of the previous page instead of using OFFSET
+    List<Expense> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Must be consumed inside a transaction and closed by the caller
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select e from Expense e order by e.id")
+    Stream<Expense> streamAllOrderById();
+
+    // Aggregates are computed by the database; null bounds leave that side of the range open. Categories
+    // are grouped by their id, whose order is not the names', so callers sort per-category results by name
+    @Query("select new com.alexaras.finance_tracker.dto.CategoryStats(" +
+            "e.category, count(e), sum(e.amount), min(e.amount), max(e.amount)) " +
+            "from Expense e " +
+            "where (:from is null or e.spentAt >= :from) and (:to is null or e.spentAt < :to) " +
+            "group by e.category")
+    List<CategoryStats> aggregateByCategory(@Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+
+    @Query("select new com.alexaras.finance_tracker.dto.BucketStats(" +
+            "cast(e.spentAt as LocalDate), count(e), sum(e.amount), min(e.amount), max(e.amount)) " +
+            "from Expense e " +
+            "where (:category is null or e.category = :category) " +
+            "and (:from is null or e.spentAt >= :from) and (:to is null or e.spentAt < :to) " +
+            "group by cast(e.spentAt as LocalDate) order by cast(e.spentAt as LocalDate)")
+    List<BucketStats> aggregateByDay(@Param("category") String category,
+                                     @Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to);
+
+    // Per-user variants: each leads with the owner, so it reads that user's slice of a user_id index
+    // rather than everyone's rows
+
+    List<Expense> findByUserIdAndIdGreaterThanOrderByIdAsc(Integer userId, Long id, Limit limit);
+
+    @Query("select new com.alexaras.finance_tracker.dto.CategoryStats(" +
+            "e.category, count(e), sum(e.amount), min(e.amount), max(e.amount)) " +
+            "from Expense e " +
+            "where e.userId = :userId " +
+            "and (:from is null or e.spentAt >= :from) and (:to is null or e.spentAt < :to) " +
+            "group by e.category")
+    List<CategoryStats> aggregateByCategoryForUser(@Param("userId") Integer userId,
+                                                   @Param("from") LocalDateTime from,
+                                                   @Param("to") LocalDateTime to);
+
+    @Query("select new com.alexaras.finance_tracker.dto.BucketStats(" +
+            "cast(e.spentAt as LocalDate), count(e), sum(e.amount), min(e.amount), max(e.amount)) " +
+            "from Expense e " +
+            "where e.userId = :userId and (:category is null or e.category = :category) " +
+            "and (:from is null or e.spentAt >= :from) and (:to is null or e.spentAt < :to) " +
+            "group by cast(e.spentAt as LocalDate) order by cast(e.spentAt as LocalDate)")
+    List<BucketStats> aggregateByDayForUser(@Param("userId") Integer userId,
+                                            @Param("category") String category,
+                                            @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+
+    @Query("select new com.alexaras.finance_tracker.dto.UserCategoryDayTotal(" +
+            "e.userId, e.category, cast(e.spentAt as LocalDate), sum(e.amount)) " +
+            "from Expense e " +
+            "where e.userId = :userId and e.spentAt >= :from and e.spentAt < :to " +
+            "group by e.userId, e.category, cast(e.spentAt as LocalDate)")
+    List<UserCategoryDayTotal> aggregateByCategoryAndDayForUser(@Param("userId") Integer userId,
+                                                                @Param("from") LocalDateTime from,
+                                                                @Param("to") LocalDateTime to);
+
+    // Every owner at once, for batch jobs that would otherwise run the query above once per user
+    @Query("select new com.alexaras.finance_tracker.dto.UserCategoryDayTotal(" +
+            "e.userId, e.category, cast(e.spentAt as LocalDate), sum(e.amount)) " +
+            "from Expense e " +
+            "where e.userId is not null and e.spentAt >= :from and e.spentAt < :to " +
+            "group by e.userId, e.category, cast(e.spentAt as LocalDate)")
+    List<UserCategoryDayTotal> aggregateByUserCategoryAndDay(@Param("from") LocalDateTime from,
+                                                             @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,84 @@
+package com.alexaras.finance_tracker.repository;
+
+import com.alexaras.finance_tracker.dto.ExpenseFilter;
+import com.alexaras.finance_tracker.dto.ExpenseSort;
+import com.alexaras.finance_tracker.model.Expense;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the {@code WHERE} clause of filtered expense queries. Only the criteria that are set become
+ * predicates, so each combination produces the SQL that the matching index on {@link Expense} serves.
+ */
+public final class ExpenseSpecifications {
+
+    private ExpenseSpecifications() {
+    }
+
+    public static Specification<Expense> matching(ExpenseFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (!filter.categories().isEmpty()) {
+                predicates.add(filter.categories().size() == 1
+                        ? cb.equal(root.get("category"), filter.categories().get(0))
+                        : root.get("category").in(filter.categories()));
+            }
+            if (filter.minAmount() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("amount"), filter.minAmount()));
+            }
+            if (filter.maxAmount() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("amount"), filter.maxAmount()));
+            }
+            if (filter.from() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("spentAt"), filter.from().atStartOfDay()));
+            }
+            if (filter.to() != null) {
+                LocalDate dayAfter = filter.to().plusDays(1);
+                predicates.add(cb.lessThan(root.get("spentAt"), dayAfter.atStartOfDay()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Rows strictly after the given position in the order. Written as a range on the sort column plus
+     * a tie-break, rather than a plain {@code OR}, so the database can still seek the index.
+     */
+    public static Specification<Expense> after(ExpenseSort sort, Sort.Direction direction,
+                                               Comparable<?> value, long id) {
+        return (root, query, cb) -> {
+            Expression<Long> idPath = root.get("id");
+            if (sort == ExpenseSort.ID) {
+                return direction.isAscending() ? cb.greaterThan(idPath, id) : cb.lessThan(idPath, id);
+            }
+            return keyset(cb, root.get(sort.attribute()), value, idPath, id, direction);
+        };
+    }
+
+    public static Sort order(ExpenseSort sort, Sort.Direction direction) {
+        Sort byId = Sort.by(direction, "id");
+        return sort == ExpenseSort.ID ? byId : Sort.by(direction, sort.attribute()).and(byId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <C extends Comparable<? super C>> Predicate keyset(CriteriaBuilder cb, Expression<?> sortPath,
+                                                                     Comparable<?> value, Expression<Long> idPath,
+                                                                     long id, Sort.Direction direction) {
+        // The sort determines the attribute and the type of the cursor value together
+        Expression<C> path = (Expression<C>) sortPath;
+        C bound = (C) value;
+        if (direction.isAscending()) {
+            return cb.and(cb.greaterThanOrEqualTo(path, bound),
+                    cb.or(cb.greaterThan(path, bound), cb.greaterThan(idPath, id)));
+        }
+        return cb.and(cb.lessThanOrEqualTo(path, bound),
+                cb.or(cb.lessThan(path, bound), cb.lessThan(idPath, id)));
+    }
+}
@@ -0,0 +1,14 @@
+package com.alexaras.finance_tracker.repository;
+
+import com.alexaras.finance_tracker.model.RecurringExpense;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface RecurringExpenseRepository extends JpaRepository<RecurringExpense, Long> {
+
+    List<RecurringExpense> findByUserIdOrderById(Integer userId);
+
+    Optional<RecurringExpense> findByIdAndUserId(Long id, Integer userId);
+}
@@ -0,0 +1,66 @@
+package com.alexaras.finance_tracker.search;
+
+/**
+ * Running score per document while a query is evaluated, as an open-addressing hash from document
+ * id to score. Lets a term whose prefix matches many tokens visit each of their postings once.
+ */
+final class DocumentScores {
+    // Expense ids are always positive, so 0 marks a free slot
+    private static final long FREE = 0;
+
+    private long[] ids;
+    private double[] scores;
+    private int size;
+
+    interface Visitor {
+        void visit(long id, double score);
+    }
+
+    DocumentScores(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 2) * 2 - 1) << 1;
+        ids = new long[capacity];
+        scores = new double[capacity];
+    }
+
+    void add(long id, double score) {
+        int mask = ids.length - 1;
+        int slot = Postings.slot(id, mask);
+        for (; ids[slot] != FREE; slot = (slot + 1) & mask) {
+            if (ids[slot] == id) {
+                scores[slot] += score;
+                return;
+            }
+        }
+        ids[slot] = id;
+        scores[slot] = score;
+        if (++size * 3 > ids.length * 2) {
+            resize();
+        }
+    }
+
+    void forEach(Visitor visitor) {
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (ids[slot] != FREE) {
+                visitor.visit(ids[slot], scores[slot]);
+            }
+        }
+    }
+
+    private void resize() {
+        long[] oldIds = ids;
+        double[] oldScores = scores;
+        ids = new long[oldIds.length * 2];
+        scores = new double[oldIds.length * 2];
+        int mask = ids.length - 1;
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] != FREE) {
+                int slot = Postings.slot(oldIds[i], mask);
+                while (ids[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                ids[slot] = oldIds[i];
+                scores[slot] = oldScores[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.alexaras.finance_tracker.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Token to document index over expense categories and descriptions. Tokens are kept sorted, so a
+ * query term also matches every token it is a prefix of.
+ * <p>
+ * A document matches when it contains every query term. Each term scores its inverse document
+ * frequency times the document's weight for the token: the number of times the token occurs in the
+ * description, plus {@link #CATEGORY_WEIGHT} if it is part of the category. Tokens that only start
+ * with the term count for {@link #PREFIX_FACTOR} of that. Equal scores put the newest expense first.
+ * <p>
+ * Queries only visit the postings of the rarest term and probe the others, so their cost follows
+ * the most selective term rather than the size of the index.
+ */
+public class InvertedIndex {
+    static final int CATEGORY_WEIGHT = 2;
+    static final double PREFIX_FACTOR = 0.5;
+    // Shorter terms only match whole tokens; a one-letter prefix would expand to most of the index
+    static final int MIN_PREFIX_LENGTH = 2;
+    static final int MAX_EXPANSIONS = 50;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Comparator<Hit> BEST_FIRST = Comparator.comparingDouble(Hit::score)
+            .thenComparingLong(Hit::id)
+            .reversed();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> tokens = new TreeMap<>();
+    private long documents;
+
+    public record Hit(long id, double score) {
+    }
+
+    public void add(long id, String category, String description) {
+        Map<String, Integer> weights = weigh(category, description);
+        lock.writeLock().lock();
+        try {
+            boolean added = false;
+            for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+                added |= tokens.computeIfAbsent(entry.getKey(), token -> new Postings()).put(id, entry.getValue());
+            }
+            if (added) {
+                documents++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a document, given the category and description it was indexed with.
+     */
+    public void remove(long id, String category, String description) {
+        Map<String, Integer> weights = weigh(category, description);
+        lock.writeLock().lock();
+        try {
+            boolean removed = false;
+            for (String token : weights.keySet()) {
+                Postings postings = tokens.get(token);
+                if (postings != null && postings.remove(id)) {
+                    removed = true;
+                    if (postings.size() == 0) {
+                        tokens.remove(token);
+                    }
+                }
+            }
+            if (removed) {
+                documents--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long documentCount() {
+        lock.readLock().lock();
+        try {
+            return documents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int tokenCount() {
+        lock.readLock().lock();
+        try {
+            return tokens.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return at most {@code limit} matching documents, best first
+     */
+    public List<Hit> search(String query, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(tokenize(query));
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<Term> terms = new ArrayList<>(queryTerms.size());
+            for (String text : queryTerms) {
+                Term term = expand(text);
+                if (term.isEmpty()) {
+                    return List.of();
+                }
+                terms.add(term);
+            }
+            terms.sort(Comparator.comparingLong(Term::documents));
+            return collect(terms, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        // Fold case and accents so "Café" and "cafe" are the same token
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static Map<String, Integer> weigh(String category, String description) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String token : tokenize(description)) {
+            weights.merge(token, 1, Integer::sum);
+        }
+        for (String token : new LinkedHashSet<>(tokenize(category))) {
+            weights.merge(token, CATEGORY_WEIGHT, Integer::sum);
+        }
+        return weights;
+    }
+
+    private Term expand(String text) {
+        List<Postings> postings = new ArrayList<>();
+        List<Double> factors = new ArrayList<>();
+        Postings exact = tokens.get(text);
+        if (exact != null) {
+            postings.add(exact);
+            factors.add(idf(exact));
+        }
+        if (text.length() >= MIN_PREFIX_LENGTH) {
+            // Every token starting with the text sorts between it and the text followed by the largest char
+            for (Postings longer : tokens.subMap(text, false, text + Character.MAX_VALUE, false).values()) {
+                if (postings.size() == MAX_EXPANSIONS) {
+                    break;
+                }
+                postings.add(longer);
+                factors.add(idf(longer) * PREFIX_FACTOR);
+            }
+        }
+        double[] factorArray = new double[factors.size()];
+        for (int i = 0; i < factorArray.length; i++) {
+            factorArray[i] = factors.get(i);
+        }
+        return new Term(postings.toArray(new Postings[0]), factorArray);
+    }
+
+    private double idf(Postings postings) {
+        return Math.log(1 + (double) Math.max(documents, 1) / postings.size());
+    }
+
+    private static List<Hit> collect(List<Term> terms, int limit) {
+        Term rarest = terms.get(0);
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, BEST_FIRST.reversed());
+        DocumentScores.Visitor candidates = (id, score) -> {
+            for (int t = 1; t < terms.size(); t++) {
+                double termScore = terms.get(t).score(id);
+                if (termScore == 0) {
+                    return;
+                }
+                score += termScore;
+            }
+            if (best.size() < limit) {
+                best.add(new Hit(id, score));
+                return;
+            }
+            // Only documents that beat the current worst hit are allocated a Hit
+            Hit worst = best.peek();
+            if (score > worst.score() || (score == worst.score() && id > worst.id())) {
+                best.poll();
+                best.add(new Hit(id, score));
+            }
+        };
+        if (rarest.postings.length == 1) {
+            double factor = rarest.factors[0];
+            rarest.postings[0].forEach((id, weight) -> candidates.visit(id, factor * weight));
+        } else {
+            // A document can sit under several tokens the term expands to; sum those first
+            DocumentScores scores = new DocumentScores((int) Math.min(rarest.documents(), Integer.MAX_VALUE / 4));
+            for (int i = 0; i < rarest.postings.length; i++) {
+                double factor = rarest.factors[i];
+                rarest.postings[i].forEach((id, weight) -> scores.add(id, factor * weight));
+            }
+            scores.forEach(candidates);
+        }
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(BEST_FIRST);
+        return hits;
+    }
+
+    // A query term with the postings of every token it matches and the score factor for each
+    private record Term(Postings[] postings, double[] factors) {
+
+        boolean isEmpty() {
+            return postings.length == 0;
+        }
+
+        long documents() {
+            long documents = 0;
+            for (Postings list : postings) {
+                documents += list.size();
+            }
+            return documents;
+        }
+
+        double score(long id) {
+            double score = 0;
+            for (int i = 0; i < postings.length; i++) {
+                score += factors[i] * postings[i].get(id);
+            }
+            return score;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.alexaras.finance_tracker.search;
+
+/**
+ * The documents that contain one token, as an open-addressing hash from document id to weight.
+ * Keeping ids and weights in primitive arrays costs about 20 bytes per entry, against roughly 60 for
+ * a {@code HashMap<Long, Integer>}, which matters once there are millions of expenses.
+ * <p>
+ * Not thread-safe; {@link InvertedIndex} guards every instance with its lock.
+ */
+final class Postings {
+    // Expense ids are always positive, so 0 marks a free slot
+    private static final long FREE = 0;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] weights = new int[INITIAL_CAPACITY];
+    private int size;
+
+    interface Visitor {
+        void visit(long id, int weight);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the weight of the document, or 0 if it does not contain the token
+     */
+    int get(long id) {
+        int mask = ids.length - 1;
+        for (int slot = slot(id, mask); ids[slot] != FREE; slot = (slot + 1) & mask) {
+            if (ids[slot] == id) {
+                return weights[slot];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return {@code true} if the document was not already present
+     */
+    boolean put(long id, int weight) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Only saved expenses can be indexed, got id " + id);
+        }
+        int mask = ids.length - 1;
+        int slot = slot(id, mask);
+        for (; ids[slot] != FREE; slot = (slot + 1) & mask) {
+            if (ids[slot] == id) {
+                weights[slot] = weight;
+                return false;
+            }
+        }
+        ids[slot] = id;
+        weights[slot] = weight;
+        // Keep the load factor at or below 2/3 so probe chains stay short
+        if (++size * 3 > ids.length * 2) {
+            resize(ids.length * 2);
+        }
+        return true;
+    }
+
+    boolean remove(long id) {
+        int mask = ids.length - 1;
+        int gap = slot(id, mask);
+        while (ids[gap] != id) {
+            if (ids[gap] == FREE) {
+                return false;
+            }
+            gap = (gap + 1) & mask;
+        }
+        // Shift later entries of the probe chain back into the gap, so lookups never stop early
+        for (int slot = (gap + 1) & mask; ids[slot] != FREE; slot = (slot + 1) & mask) {
+            int home = slot(ids[slot], mask);
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                ids[gap] = ids[slot];
+                weights[gap] = weights[slot];
+                gap = slot;
+            }
+        }
+        ids[gap] = FREE;
+        weights[gap] = 0;
+        size--;
+        return true;
+    }
+
+    void forEach(Visitor visitor) {
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (ids[slot] != FREE) {
+                visitor.visit(ids[slot], weights[slot]);
+            }
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] oldIds = ids;
+        int[] oldWeights = weights;
+        ids = new long[capacity];
+        weights = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] != FREE) {
+                int slot = slot(oldIds[i], mask);
+                while (ids[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                ids[slot] = oldIds[i];
+                weights[slot] = oldWeights[i];
+            }
+        }
+    }
+
+    // Ids are mostly sequential; spread them with a multiplicative hash before masking
+    static int slot(long id, int mask) {
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
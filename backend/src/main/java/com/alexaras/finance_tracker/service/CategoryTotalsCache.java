@@ -0,0 +1,161 @@
+package com.alexaras.finance_tracker.service;
+
+import com.alexaras.finance_tracker.dto.CategoryStats;
+import com.alexaras.finance_tracker.dto.CategoryTotal;
+import com.alexaras.finance_tracker.event.ExpenseChangedEvent;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.model.MinorUnits;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory per-category count and total, loaded once from the database and then kept up to date
+ * from {@link ExpenseChangedEvent}s. Amounts are held as long cents ({@link MinorUnits}) in
+ * {@link LongAdder}s, so writers never contend on a lock and readers never touch the database.
+ * A write is only counted once it has committed, so a rolled-back write leaves the totals alone.
+ * <p>
+ * Writes that race with a rebuild can be missed, so the totals are periodically compared with the
+ * database and rebuilt if they have drifted.
+ */
+@Component
+public class CategoryTotalsCache {
+    private static final Logger log = LoggerFactory.getLogger(CategoryTotalsCache.class);
+
+    private final ExpenseRepository expenseRepository;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile ConcurrentHashMap<String, Accumulator> totals = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CategoryTotalsCache(ExpenseRepository expenseRepository) {
+        this.expenseRepository = expenseRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    // Before ExpenseVersions bumps the version, so an ETag never runs ahead of these totals
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        if (event.before() != null) {
+            apply(event.before(), -1);
+        }
+        if (event.after() != null) {
+            apply(event.after(), 1);
+        }
+    }
+
+    public List<CategoryTotal> getTotals() {
+        return totals.entrySet().stream()
+                .map(entry -> entry.getValue().toTotal(entry.getKey()))
+                .filter(total -> total.count() > 0)
+                .sorted(Comparator.comparing(CategoryTotal::category))
+                .toList();
+    }
+
+    public CategoryTotal getTotal(String category) {
+        Accumulator accumulator = totals.get(category);
+        return accumulator == null ? new CategoryTotal(category, 0, MinorUnits.toAmount(0))
+                : accumulator.toTotal(category);
+    }
+
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            ConcurrentHashMap<String, Accumulator> fresh = new ConcurrentHashMap<>();
+            for (CategoryStats stats : expenseRepository.aggregateByCategory(null, null)) {
+                Accumulator accumulator = new Accumulator();
+                accumulator.add(stats.count(), toCents(stats.total()));
+                fresh.put(stats.category(), accumulator);
+            }
+            totals = fresh;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Compares the in-memory totals with the database and rebuilds them if they differ. A mismatch is
+     * checked twice before rebuilding, since a write in flight between the two reads also looks like drift.
+     *
+     * @return {@code true} if the totals were consistent
+     */
+    @Scheduled(initialDelayString = "${finance-tracker.aggregates.verify-interval:PT5M}",
+            fixedDelayString = "${finance-tracker.aggregates.verify-interval:PT5M}")
+    public boolean verify() {
+        if (matchesDatabase() || matchesDatabase()) {
+            return true;
+        }
+        log.warn("In-memory category totals drifted from the database; rebuilding");
+        rebuild();
+        return false;
+    }
+
+    private boolean matchesDatabase() {
+        Map<String, CategoryTotal> memory = new HashMap<>();
+        for (CategoryTotal total : getTotals()) {
+            memory.put(total.category(), total);
+        }
+        List<CategoryStats> database = expenseRepository.aggregateByCategory(null, null);
+        if (database.size() != memory.size()) {
+            return false;
+        }
+        for (CategoryStats stats : database) {
+            CategoryTotal total = memory.get(stats.category());
+            if (total == null || total.count() != stats.count()
+                    || toCents(total.total()) != toCents(stats.total())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void apply(Expense expense, int sign) {
+        if (expense.getCategory() == null || expense.getAmount() == null) {
+            return;
+        }
+        totals.computeIfAbsent(expense.getCategory(), category -> new Accumulator())
+                .add(sign, sign * toCents(expense.getAmount()));
+    }
+
+    // Amounts reaching the cache may carry more decimals than the column keeps; round them as it does
+    private static long toCents(BigDecimal amount) {
+        return MinorUnits.of(amount.setScale(MinorUnits.SCALE, RoundingMode.HALF_UP));
+    }
+
+    private static final class Accumulator {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder cents = new LongAdder();
+
+        void add(long countDelta, long centsDelta) {
+            count.add(countDelta);
+            cents.add(centsDelta);
+        }
+
+        CategoryTotal toTotal(String category) {
+            return new CategoryTotal(category, count.sum(), MinorUnits.toAmount(cents.sum()));
+        }
+    }
+}
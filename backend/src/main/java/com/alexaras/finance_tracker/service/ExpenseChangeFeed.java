@@ -0,0 +1,119 @@
+package com.alexaras.finance_tracker.service;
+
+import com.alexaras.finance_tracker.dto.ExpenseChange;
+import com.alexaras.finance_tracker.event.ExpenseChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The last few thousand committed expense changes, in a fixed-size ring buffer, for clients that
+ * follow changes instead of polling the full list.
+ * <p>
+ * Changes are numbered from 1 in commit order. A reader keeps the offset of the last change it has
+ * seen and asks for the ones after it. Once the buffer has wrapped past that offset the reader is
+ * told to resync: reload the data and continue from the current offset. Memory is bounded by the
+ * buffer, however many readers there are and however slow they are.
+ * <p>
+ * Event ids include the time the application started, as {@link ExpenseVersions} ETags do, so an id
+ * from an earlier run is recognised and also answered with a resync.
+ */
+@Component
+public class ExpenseChangeFeed {
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final ExpenseChange[] ring;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    // Offset of the newest change; 0 until the first one
+    private long head;
+
+    /**
+     * Changes after an offset, or a resync if some of them are no longer in the buffer.
+     */
+    public record Batch(List<ExpenseChange> changes, boolean resync, long head) {
+    }
+
+    @Autowired
+    public ExpenseChangeFeed(@Value("${finance-tracker.expenses.changes.buffer-size:4096}") int capacity) {
+        this.ring = new ExpenseChange[capacity];
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        lock.lock();
+        try {
+            head++;
+            ring[slot(head)] = new ExpenseChange(head, event.type(), event.expenseId(), event.before(), event.after());
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long head() {
+        lock.lock();
+        try {
+            return head;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code max} changes after {@code after}, waiting up to {@code wait} for one if
+     * there are none yet. An empty batch means none arrived in time.
+     */
+    public Batch read(long after, int max, Duration wait) throws InterruptedException {
+        long nanos = wait.toNanos();
+        lock.lock();
+        try {
+            while (after == head && nanos > 0) {
+                nanos = appended.awaitNanos(nanos);
+            }
+            // Behind the oldest change still held, or ahead of the newest: either way the reader is lost
+            if (after < head - ring.length || after > head) {
+                return new Batch(List.of(), true, head);
+            }
+            int count = (int) Math.min(head - after, max);
+            List<ExpenseChange> changes = new ArrayList<>(count);
+            for (long offset = after + 1; offset <= after + count; offset++) {
+                changes.add(ring[slot(offset)]);
+            }
+            return new Batch(changes, false, head);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String eventId(long offset) {
+        return epoch + "-" + offset;
+    }
+
+    /**
+     * @return the offset in an event id from this run, or -1 if it is from another run or malformed
+     */
+    public long parseEventId(String eventId) {
+        int separator = eventId.lastIndexOf('-');
+        if (separator < 0 || !eventId.substring(0, separator).equals(epoch)) {
+            return -1;
+        }
+        try {
+            long offset = Long.parseLong(eventId.substring(separator + 1));
+            return offset < 0 ? -1 : offset;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private int slot(long offset) {
+        return (int) (offset % ring.length);
+    }
+}
@@ -0,0 +1,148 @@
+package com.alexaras.finance_tracker.service;
+
+import com.alexaras.finance_tracker.category.CategoryDictionary;
+import com.alexaras.finance_tracker.dto.ImportReport;
+import com.alexaras.finance_tracker.event.ExpenseChangedEvent;
+import com.alexaras.finance_tracker.importer.ExpenseRowReader;
+import com.alexaras.finance_tracker.importer.ParsedRow;
+import com.alexaras.finance_tracker.model.Expense;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts large numbers of expenses read from a stream. Rows are grouped into chunks that each commit
+ * in their own transaction, and every chunk is written with JDBC batches of the requested size. If a
+ * chunk fails, its rows are retried one by one so the report can name the rows that were rejected.
+ * <p>
+ * Categories are registered a chunk at a time, just before the chunk is written. A category only the
+ * database rejected a row for stays in the table, as {@link CategoryDictionary} describes.
+ */
+@Service
+@Timed(value = "finance_tracker.service", histogram = true)
+public class ExpenseImportService {
+    private static final Logger log = LoggerFactory.getLogger(ExpenseImportService.class);
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CategoryDictionary categoryDictionary;
+
+    @Autowired
+    public ExpenseImportService(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                ApplicationEventPublisher eventPublisher, CategoryDictionary categoryDictionary) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Each chunk must commit independently even if the caller is already in a transaction
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+        this.categoryDictionary = categoryDictionary;
+    }
+
+    public ImportReport importExpenses(ExpenseRowReader reader, int batchSize, int chunkSize) throws IOException {
+        long started = System.nanoTime();
+        Progress progress = new Progress();
+        List<ParsedRow> chunk = new ArrayList<>(chunkSize);
+
+        ParsedRow row;
+        while ((row = reader.next()) != null) {
+            progress.rowsRead++;
+            if (!row.isValid()) {
+                progress.fail(row.row(), row.error());
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                writeChunk(chunk, batchSize, progress);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, batchSize, progress);
+        }
+
+        long elapsedNanos = Math.max(System.nanoTime() - started, 1);
+        double rowsPerSecond = progress.rowsImported * 1_000_000_000.0 / elapsedNanos;
+        log.info("Imported {} of {} expense rows in {} ms ({} rows/s)",
+                progress.rowsImported, progress.rowsRead, elapsedNanos / 1_000_000, Math.round(rowsPerSecond));
+        return new ImportReport(progress.rowsRead, progress.rowsImported, progress.rowsFailed,
+                progress.errors, progress.rowsFailed > progress.errors.size(),
+                elapsedNanos / 1_000_000, rowsPerSecond);
+    }
+
+    private void writeChunk(List<ParsedRow> chunk, int batchSize, Progress progress) {
+        List<Expense> expenses = chunk.stream().map(ParsedRow::expense).toList();
+        // Just before this chunk's write, so rows that failed to parse never add a category. Not from the
+        // entity listener, which would run after the chunk's first batch has been flushed and, on SQLite,
+        // wait for the chunk's own write lock
+        expenses.stream().map(Expense::getCategory).distinct().forEach(categoryDictionary::register);
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(expenses, batchSize));
+            progress.rowsImported += expenses.size();
+            expenses.forEach(expense -> eventPublisher.publishEvent(ExpenseChangedEvent.created(expense)));
+        } catch (RuntimeException chunkFailure) {
+            log.debug("Import chunk failed, retrying its rows individually", chunkFailure);
+            for (ParsedRow row : chunk) {
+                // The failed transaction may have assigned an id that was never committed
+                Expense expense = new Expense(row.expense());
+                expense.setId(null);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(List.of(expense), 1));
+                    progress.rowsImported++;
+                    eventPublisher.publishEvent(ExpenseChangedEvent.created(expense));
+                } catch (RuntimeException rowFailure) {
+                    progress.fail(row.row(), rootMessage(rowFailure));
+                }
+            }
+        }
+    }
+
+    private void persist(List<Expense> expenses, int batchSize) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+        for (int i = 0; i < expenses.size(); i++) {
+            entityManager.persist(expenses.get(i));
+            // Flush and clear per batch so the persistence context never grows past one batch
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static String rootMessage(Throwable failure) {
+        Throwable root = failure;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    private static final class Progress {
+        long rowsRead;
+        long rowsImported;
+        long rowsFailed;
+        final List<ImportReport.RowError> errors = new ArrayList<>();
+
+        void fail(long row, String message) {
+            rowsFailed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportReport.RowError(row, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.alexaras.finance_tracker.service;
+
+import com.alexaras.finance_tracker.category.CategoryDictionary;
+import com.alexaras.finance_tracker.event.ExpenseChangedEvent;
+import com.alexaras.finance_tracker.journal.ExpenseJournal;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.model.User;
+import com.alexaras.finance_tracker.storage.StorageBackend;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Optional durability for the in-memory H2 backend without a disk commit per write. Committed
+ * expense changes are appended to an {@link ExpenseJournal}, and on startup the journal is replayed
+ * into the empty database before the caches load from it. {@link ExpenseService} and the repository
+ * run on the database as before.
+ * <p>
+ * Users are journaled as well, through the {@code UserDAO} stack, since expenses point at them by id
+ * and the in-memory users table is lost with everything else.
+ * <p>
+ * Recovery inserts rows with plain JDBC, users first, keeping their ids and versions, and then moves
+ * the id generators past them. An expense whose owner is not in the journal, because the user was
+ * deleted or the journal predates user records, is restored without an owner, so a new user given
+ * that id cannot take it over. The journal is compacted by a snapshot once enough records have been
+ * appended since the last one.
+ * <p>
+ * The journal only starts for the {@code h2} storage backend: the file backends are durable already,
+ * and replaying into one would duplicate its rows. Its phase puts it below the write-behind queue,
+ * so it opens before the queue can flush and closes only once the queue has drained.
+ */
+@Component
+public class ExpenseJournalService implements SmartLifecycle, MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(ExpenseJournalService.class);
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 8192;
+    private static final int RESTORE_BATCH_SIZE = 1000;
+    private static final String INSERT_USER = "INSERT INTO users (id, name, email) VALUES (?, ?, ?)";
+    private static final String INSERT = "INSERT INTO expenses (id, amount, category_id, description, spent_at, user_id, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final DataSource dataSource;
+    private final StorageBackend storageBackend;
+    private final CategoryDictionary categoryDictionary;
+    private final boolean enabled;
+    private final Path directory;
+    private final boolean sync;
+    private final int initialRecords;
+    private final long snapshotAfter;
+    private volatile ExpenseJournal journal;
+
+    @Autowired
+    public ExpenseJournalService(DataSource dataSource, StorageBackend storageBackend,
+                                 CategoryDictionary categoryDictionary,
+                                 @Value("${finance-tracker.expenses.journal.enabled:false}") boolean enabled,
+                                 @Value("${finance-tracker.expenses.journal.directory:data/journal}") Path directory,
+                                 @Value("${finance-tracker.expenses.journal.sync:false}") boolean sync,
+                                 @Value("${finance-tracker.expenses.journal.initial-records:65536}") int initialRecords,
+                                 @Value("${finance-tracker.expenses.journal.snapshot-after:100000}") long snapshotAfter) {
+        this.dataSource = dataSource;
+        this.storageBackend = storageBackend;
+        this.categoryDictionary = categoryDictionary;
+        this.enabled = enabled;
+        this.directory = directory;
+        this.sync = sync;
+        this.initialRecords = initialRecords;
+        this.snapshotAfter = snapshotAfter;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        ExpenseJournal current = journal;
+        if (current == null) {
+            return;
+        }
+        if (event.type() == ExpenseChangedEvent.Type.DELETED) {
+            Long version = event.before().getVersion();
+            current.delete(event.expenseId(), version == null ? 0 : version);
+        } else {
+            current.put(event.after());
+        }
+    }
+
+    /**
+     * Records a user the {@code UserDAO} created; does nothing while the journal is not running.
+     */
+    public void userCreated(User user) {
+        ExpenseJournal current = journal;
+        if (current != null) {
+            current.putUser(user);
+        }
+    }
+
+    public void userUpdated(User user) {
+        ExpenseJournal current = journal;
+        if (current != null) {
+            current.updateUser(user);
+        }
+    }
+
+    public void userDeleted(int id) {
+        ExpenseJournal current = journal;
+        if (current != null) {
+            current.deleteUser(id);
+        }
+    }
+
+    /**
+     * Compacts the journal once {@code snapshot-after} records have been appended since the last
+     * snapshot. Appends carry on while it runs.
+     */
+    @Scheduled(initialDelayString = "${finance-tracker.expenses.journal.snapshot-check-interval:PT1M}",
+            fixedDelayString = "${finance-tracker.expenses.journal.snapshot-check-interval:PT1M}")
+    public void snapshotIfDue() {
+        ExpenseJournal current = journal;
+        if (current == null || current.appendedSinceSnapshot() < snapshotAfter) {
+            return;
+        }
+        long started = System.nanoTime();
+        current.snapshot();
+        log.info("Snapshot of the expense journal took {} ms, leaving {} records",
+                (System.nanoTime() - started) / 1_000_000, current.records());
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return enabled;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    @Override
+    public void start() {
+        if (!"h2".equals(storageBackend.name())) {
+            throw new IllegalStateException("The expense journal restores into the in-memory h2 storage backend, not "
+                    + storageBackend.name() + "; set finance-tracker.expenses.journal.enabled=false");
+        }
+        long started = System.nanoTime();
+        ExpenseJournal opened;
+        try {
+            opened = ExpenseJournal.open(directory, initialRecords, sync);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open the expense journal in " + directory, e);
+        }
+        try {
+            Restored restored = restore(opened);
+            log.info("Restored {} users and {} expenses from the journal in {} in {} ms", restored.users(),
+                    restored.expenses(), directory.toAbsolutePath(), (System.nanoTime() - started) / 1_000_000);
+            if (restored.ownerless() > 0) {
+                log.warn("Restored {} expenses without their owner, as the journal holds no such user",
+                        restored.ownerless());
+            }
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(opened);
+            throw new IllegalStateException("Failed to restore expenses from the journal in " + directory, e);
+        }
+        journal = opened;
+    }
+
+    @Override
+    public void stop() {
+        ExpenseJournal current = journal;
+        journal = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                log.warn("Failed to close the expense journal in {}", directory, e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return journal != null;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("finance_tracker.journal.records", this, service -> records(service.journal))
+                .description("Records in the current journal generation, superseded versions included")
+                .register(registry);
+    }
+
+    private record Restored(long users, long expenses, long ownerless) {
+    }
+
+    private Restored restore(ExpenseJournal opened) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                if (hasRows(connection, "expenses") || hasRows(connection, "users")) {
+                    throw new IllegalStateException("The database is not empty, so the journal cannot be replayed into it");
+                }
+                Set<Integer> users = restoreUsers(opened, connection);
+                long[] restored = new long[3]; // count, highest id and expenses left without an owner
+                try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                    opened.replay(expense -> {
+                        try {
+                            if (expense.getUserId() != null && !users.contains(expense.getUserId())) {
+                                expense.setUserId(null);
+                                restored[2]++;
+                            }
+                            bind(insert, expense);
+                            insert.addBatch();
+                            if (++restored[0] % RESTORE_BATCH_SIZE == 0) {
+                                insert.executeBatch();
+                            }
+                            restored[1] = Math.max(restored[1], expense.getId());
+                        } catch (SQLException e) {
+                            throw new IllegalStateException("Failed to restore expense " + expense.getId(), e);
+                        }
+                    });
+                    insert.executeBatch();
+                }
+                if (restored[0] > 0) {
+                    // Ids are handed out in pooled blocks ending at the sequence value, so the next block must start past the highest
+                    try (Statement stmt = connection.createStatement()) {
+                        stmt.execute("ALTER SEQUENCE " + Expense.SEQUENCE_NAME + " RESTART WITH "
+                                + (restored[1] + Expense.ID_ALLOCATION_SIZE));
+                    }
+                }
+                connection.commit();
+                return new Restored(users.size(), restored[0], restored[2]);
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    // Returns the ids restored; the caller commits
+    private static Set<Integer> restoreUsers(ExpenseJournal opened, Connection connection) throws SQLException {
+        Set<Integer> restored = new HashSet<>();
+        int[] highest = new int[1];
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_USER)) {
+            opened.replayUsers(user -> {
+                try {
+                    insert.setInt(1, user.getId());
+                    insert.setString(2, user.getName());
+                    insert.setString(3, user.getEmail());
+                    insert.addBatch();
+                    restored.add(user.getId());
+                    if (restored.size() % RESTORE_BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                    }
+                    highest[0] = Math.max(highest[0], user.getId());
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Failed to restore user " + user.getId(), e);
+                }
+            });
+            insert.executeBatch();
+        }
+        if (!restored.isEmpty()) {
+            // Inserting explicit ids leaves the identity column where it was, so new users would reuse them
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("ALTER TABLE users ALTER COLUMN id RESTART WITH " + (highest[0] + 1));
+            }
+        }
+        return restored;
+    }
+
+    private static boolean hasRows(Connection connection, String table) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT 1 FROM " + table + " LIMIT 1")) {
+            return rs.next();
+        }
+    }
+
+    private void bind(PreparedStatement insert, Expense expense) throws SQLException {
+        insert.setLong(1, expense.getId());
+        insert.setBigDecimal(2, expense.getAmount());
+        // The journal keeps names, so a restored database builds its dictionary afresh
+        insert.setInt(3, categoryDictionary.register(expense.getCategory()));
+        insert.setString(4, expense.getDescription());
+        insert.setTimestamp(5, expense.getSpentAt() == null ? null : Timestamp.valueOf(expense.getSpentAt()));
+        if (expense.getUserId() == null) {
+            insert.setNull(6, Types.INTEGER);
+        } else {
+            insert.setInt(6, expense.getUserId());
+        }
+        insert.setLong(7, expense.getVersion());
+    }
+
+    private static double records(ExpenseJournal journal) {
+        return journal == null ? 0 : journal.records();
+    }
+
+    private void closeQuietly(ExpenseJournal opened) {
+        try {
+            opened.close();
+        } catch (IOException e) {
+            log.warn("Failed to close the expense journal in {}", directory, e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.alexaras.finance_tracker.service;
+
+import com.alexaras.finance_tracker.dto.ExpenseSearchResult;
+import com.alexaras.finance_tracker.event.ExpenseChangedEvent;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.search.InvertedIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text and prefix search over expense categories and descriptions, answered from an
+ * {@link InvertedIndex} held in memory. The index is built from the database once the application
+ * is ready and then kept up to date from committed {@link ExpenseChangedEvent}s.
+ * <p>
+ * A rebuild reads the table while writes continue. Changes committed during the rebuild are applied
+ * to the live index and also replayed onto the new one before it replaces the old, so none are lost.
+ */
+@Component
+public class ExpenseSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(ExpenseSearchIndex.class);
+
+    private final ExpenseService expenseService;
+    private final ExpenseRepository expenseRepository;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Serializes changes with the start and end of a rebuild
+    private final ReentrantLock updateLock = new ReentrantLock();
+    private volatile InvertedIndex index = new InvertedIndex();
+    // Changes seen while a rebuild is reading the table; null when no rebuild is running
+    private List<ExpenseChangedEvent> pending;
+
+    @Autowired
+    public ExpenseSearchIndex(ExpenseService expenseService, ExpenseRepository expenseRepository) {
+        this.expenseService = expenseService;
+        this.expenseRepository = expenseRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        updateLock.lock();
+        try {
+            apply(index, event);
+            if (pending != null) {
+                pending.add(event);
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long started = System.nanoTime();
+            updateLock.lock();
+            try {
+                pending = new ArrayList<>();
+            } finally {
+                updateLock.unlock();
+            }
+            InvertedIndex fresh = new InvertedIndex();
+            try {
+                expenseService.streamExpenses(expense ->
+                        fresh.add(expense.getId(), expense.getCategory(), expense.getDescription()));
+            } finally {
+                updateLock.lock();
+                try {
+                    // Replaying is harmless for rows the scan already saw in their final state
+                    pending.forEach(event -> apply(fresh, event));
+                    pending = null;
+                    index = fresh;
+                } finally {
+                    updateLock.unlock();
+                }
+            }
+            log.info("Indexed {} expenses ({} tokens) for search in {} ms",
+                    fresh.documentCount(), fresh.tokenCount(), (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * @return at most {@code limit} expenses containing every word of the query, best match first.
+     * Each word also matches longer words it is the start of.
+     */
+    public List<ExpenseSearchResult> search(String query, int limit) {
+        List<InvertedIndex.Hit> hits = index.search(query, limit);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Expense> expenses = expenseRepository.findAllById(hits.stream().map(InvertedIndex.Hit::id).toList())
+                .stream()
+                .collect(Collectors.toMap(Expense::getId, Function.identity()));
+        List<ExpenseSearchResult> results = new ArrayList<>(hits.size());
+        for (InvertedIndex.Hit hit : hits) {
+            // An expense deleted since the index was read is left out
+            Expense expense = expenses.get(hit.id());
+            if (expense != null) {
+                results.add(new ExpenseSearchResult(expense, hit.score()));
+            }
+        }
+        return results;
+    }
+
+    private static void apply(InvertedIndex index, ExpenseChangedEvent event) {
+        if (event.before() != null) {
+            index.remove(event.before().getId(), event.before().getCategory(), event.before().getDescription());
+        }
+        if (event.after() != null) {
+            index.add(event.after().getId(), event.after().getCategory(), event.after().getDescription());
+        }
+    }
+}
@@ -1,45 +1,352 @@
 package com.alexaras.finance_tracker.service;
 
+import com.alexaras.finance_tracker.category.CategoryDictionary;
+import com.alexaras.finance_tracker.config.CacheConfig;
+import com.alexaras.finance_tracker.dao.UserDAO;
+import com.alexaras.finance_tracker.dto.BucketStats;
+import com.alexaras.finance_tracker.dto.CategoryStats;
+import com.alexaras.finance_tracker.dto.ExpenseFilter;
+import com.alexaras.finance_tracker.dto.ExpenseFilterPage;
+import com.alexaras.finance_tracker.dto.ExpensePage;
+import com.alexaras.finance_tracker.dto.ExpenseSort;
+import com.alexaras.finance_tracker.dto.TimeBucket;
+import com.alexaras.finance_tracker.event.ExpenseChangedEvent;
 import com.alexaras.finance_tracker.model.Expense;
 import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.repository.ExpenseSpecifications;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "finance_tracker.service", histogram = true)
 public class ExpenseService {
     private final ExpenseRepository expenseRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExpenseWriteBehindQueue writeBehindQueue;
+    private final UserDAO userDAO;
+    private final CategoryDictionary categoryDictionary;
+    private final Cache expenseCache;
 
     @Autowired
-    public ExpenseService(ExpenseRepository expenseRepository) {
+    public ExpenseService(ExpenseRepository expenseRepository, EntityManager entityManager,
+                          ApplicationEventPublisher eventPublisher, ExpenseWriteBehindQueue writeBehindQueue,
+                          UserDAO userDAO, CategoryDictionary categoryDictionary, CacheManager cacheManager) {
         this.expenseRepository = expenseRepository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.writeBehindQueue = writeBehindQueue;
+        this.userDAO = userDAO;
+        this.categoryDictionary = categoryDictionary;
+        this.expenseCache = cacheManager.getCache(ExpenseRepository.CACHE_NAME);
     }
 
     public List<Expense> getAllExpenses() {
         return expenseRepository.findAll();
     }
 
+    public Expense getExpense(Long id) {
+        // Negative ids are provisional ones handed out by the write-behind queue. The flusher records
+        // the saved id before it drops the queued expense, so flushed, queued, flushed never misses both
+        if (id < 0) {
+            Long flushedId = writeBehindQueue.getFlushedId(id);
+            if (flushedId == null) {
+                Expense queued = writeBehindQueue.getQueued(id);
+                if (queued != null) {
+                    return queued;
+                }
+                flushedId = writeBehindQueue.getFlushedId(id);
+            }
+            if (flushedId != null) {
+                return getExpense(flushedId);
+            }
+        }
+        return expenseRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Expense not found with id: " + id));
+    }
+
+    /**
+     * Looks an expense up as {@link #getExpense} does, but only among the user's own; another user's
+     * expense is reported as not found rather than as forbidden, so ids do not leak across users.
+     */
+    public Expense getUserExpense(int userId, Long id) {
+        Expense expense = getExpense(id);
+        if (!Objects.equals(expense.getUserId(), userId)) {
+            throw new RuntimeException("Expense not found with id: " + id);
+        }
+        return expense;
+    }
+
+    public ExpensePage getExpensePage(Long after, int limit) {
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        long cursor = after == null ? 0L : after;
+        return toPage(expenseRepository.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(limit + 1)), limit);
+    }
+
+    /**
+     * Keyset pagination over one user's expenses, read through the {@code (user_id, id)} index.
+     */
+    public ExpensePage getUserExpensePage(int userId, Long after, int limit) {
+        long cursor = after == null ? 0L : after;
+        return toPage(expenseRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(userId, cursor, Limit.of(limit + 1)),
+                limit);
+    }
+
+    /**
+     * @param after the {@code nextCursor} of the previous page, or null for the first page
+     */
+    public ExpenseFilterPage filterExpenses(ExpenseFilter filter, String after, int limit) {
+        Specification<Expense> specification = ExpenseSpecifications.matching(filter);
+        if (after != null) {
+            specification = specification.and(afterCursor(filter, after));
+        }
+        Sort order = ExpenseSpecifications.order(filter.sort(), filter.direction());
+        // As with getExpensePage, one extra row tells whether another page exists
+        List<Expense> rows = expenseRepository.findBy(specification,
+                query -> query.sortBy(order).limit(limit + 1).all());
+        boolean hasMore = rows.size() > limit;
+        List<Expense> items = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? cursorOf(filter.sort(), items.get(items.size() - 1)) : null;
+        return new ExpenseFilterPage(items, nextCursor, hasMore);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamExpenses(Consumer<Expense> consumer) {
+        try (Stream<Expense> expenses = expenseRepository.streamAllOrderById()) {
+            expenses.forEach(expense -> {
+                consumer.accept(expense);
+                // Detach each row once written so the persistence context stays empty
+                entityManager.detach(expense);
+            });
+        }
+    }
+
+    public List<CategoryStats> getCategoryStats(LocalDate from, LocalDate to) {
+        return byCategory(expenseRepository.aggregateByCategory(startOf(from), endOf(to)));
+    }
+
+    public List<CategoryStats> getUserCategoryStats(int userId, LocalDate from, LocalDate to) {
+        return byCategory(expenseRepository.aggregateByCategoryForUser(userId, startOf(from), endOf(to)));
+    }
+
+    public List<BucketStats> getTimeline(TimeBucket bucket, String category, LocalDate from, LocalDate to) {
+        return rollUp(bucket, expenseRepository.aggregateByDay(category, startOf(from), endOf(to)));
+    }
+
+    public List<BucketStats> getUserTimeline(int userId, TimeBucket bucket, String category,
+                                             LocalDate from, LocalDate to) {
+        return rollUp(bucket, expenseRepository.aggregateByDayForUser(userId, category, startOf(from), endOf(to)));
+    }
+
+    /**
+     * With write-behind enabled, the expense is queued and saved by {@link ExpenseWriteBehindQueue},
+     * which also publishes the event; the result may then carry a provisional negative id.
+     */
     public Expense addExpense(Expense expense) {
-        return expenseRepository.save(expense);
+        if (expense.getUserId() != null) {
+            requireUser(expense.getUserId());
+        }
+        // A new expense takes its id and version from the database, whatever the client sent
+        expense.setId(null);
+        expense.setVersion(null);
+        // Before the save, or the entity listener would add the category on a second pooled connection
+        // while the save holds the first; this also covers the write-behind queue's later flush
+        if (expense.getCategory() != null) {
+            categoryDictionary.register(expense.getCategory());
+        }
+        if (writeBehindQueue.isEnabled()) {
+            return writeBehindQueue.submit(expense);
+        }
+        Expense saved = expenseRepository.save(expense);
+        eventPublisher.publishEvent(ExpenseChangedEvent.created(saved));
+        return saved;
     }
 
+    /**
+     * Overwrites the expense with a single conditional UPDATE. If {@code updatedExpense} carries a
+     * version, only that version is overwritten and a newer one is reported as an
+     * {@link ExpenseVersionConflictException}; without one, whatever version is current is overwritten.
+     * Either way the event carries exactly the row that was replaced, so concurrent updates are never
+     * lost from the listeners' totals.
+     */
     public Expense updateExpense(Long id, Expense updatedExpense) {
-        System.out.println("Calling findById with id: " + id);
-        return expenseRepository.findById(id).map(expense -> {
-            System.out.println("Found Expense: " + expense);
-            expense.setAmount(updatedExpense.getAmount());
-            expense.setCategory(updatedExpense.getCategory());
-            expense.setDescription(updatedExpense.getDescription());
-            System.out.println("Updated Expense: " + expense);
-            return expenseRepository.save(expense);
-        }).orElseThrow(() -> new RuntimeException("Expense not found with id: " + id));
+        Long savedId = savedId(id);
+        Long expectedVersion = updatedExpense.getVersion();
+        // The first read may come from the cache, so a hit costs the UPDATE alone. Retries read the row
+        // itself, since a stale cached copy would fail the same way again
+        Optional<Expense> current = expenseRepository.findById(savedId);
+        // The bulk UPDATE skips the entity listener that registers new categories
+        if (updatedExpense.getCategory() != null) {
+            categoryDictionary.register(updatedExpense.getCategory());
+        }
+        for (boolean retry = false; ; retry = true) {
+            // Change a copy: found is the row as it was before the update, which the event reports
+            Expense found = current.orElseThrow(() -> new RuntimeException("Expense not found with id: " + id));
+            if (expectedVersion == null || expectedVersion.equals(found.getVersion())) {
+                Expense expense = new Expense(found);
+                expense.setAmount(updatedExpense.getAmount());
+                expense.setCategory(updatedExpense.getCategory());
+                expense.setDescription(updatedExpense.getDescription());
+                if (updatedExpense.getSpentAt() != null) {
+                    expense.setSpentAt(updatedExpense.getSpentAt());
+                }
+                if (expenseRepository.updateIfVersion(savedId, found.getVersion(), expense.getAmount(),
+                        expense.getCategory(), expense.getDescription(), expense.getSpentAt()) == 1) {
+                    expense.setVersion(found.getVersion() + 1);
+                    // Written through rather than only evicted: a reader that loaded the old row before the
+                    // commit may put it back after the eviction, and the cache keeps the newer version
+                    if (expenseCache != null) {
+                        expenseCache.put(savedId, new Expense(expense));
+                    }
+                    eventPublisher.publishEvent(ExpenseChangedEvent.updated(new Expense(found), expense));
+                    return expense;
+                }
+            } else if (retry) {
+                throw new ExpenseVersionConflictException(savedId, expectedVersion, found.getVersion());
+            }
+            current = expenseRepository.findCurrentById(savedId);
+        }
     }
 
+    public Expense addUserExpense(int userId, Expense expense) {
+        expense.setUserId(userId);
+        return addExpense(expense);
+    }
+
+    /**
+     * Updates one of the user's expenses; the owner itself never changes.
+     */
+    public Expense updateUserExpense(int userId, Long id, Expense updatedExpense) {
+        getUserExpense(userId, id);
+        return updateExpense(id, updatedExpense);
+    }
+
+    public void deleteUserExpense(int userId, Long id) {
+        getUserExpense(userId, id);
+        deleteExpense(id);
+    }
+
+    /**
+     * Deletes the expense with a single conditional DELETE on the version that was read, so the event
+     * carries exactly the row that was removed. Of two concurrent deletes only one removes the row and
+     * publishes; the other finds the expense gone.
+     */
     public void deleteExpense(Long id) {
-        if (!expenseRepository.existsById(id)) {
-            throw new RuntimeException("Expense not found with id: " + id);
+        Long savedId = savedId(id);
+        // Load rather than existsById: listeners need the deleted amount and category. As in
+        // updateExpense, the first read may come from the cache and retries read the row itself
+        Optional<Expense> current = expenseRepository.findById(savedId);
+        while (true) {
+            Expense found = current.orElseThrow(() -> new RuntimeException("Expense not found with id: " + id));
+            if (expenseRepository.deleteIfVersion(savedId, found.getVersion()) == 1) {
+                // A tombstone rather than only the eviction, for the same reason updateExpense writes through
+                if (expenseCache != null) {
+                    expenseCache.put(savedId, new CacheConfig.DeletedExpense(found.getVersion()));
+                }
+                eventPublisher.publishEvent(ExpenseChangedEvent.deleted(new Expense(found)));
+                return;
+            }
+            current = expenseRepository.findCurrentById(savedId);
+        }
+    }
+
+    /**
+     * Resolves a provisional id from the write-behind queue to the id its expense was saved under, as
+     * {@link #getExpense} does. Writes need the row itself, so an expense still queued is refused.
+     */
+    private Long savedId(Long id) {
+        if (id >= 0) {
+            return id;
+        }
+        Long flushedId = writeBehindQueue.getFlushedId(id);
+        if (flushedId == null) {
+            if (writeBehindQueue.getQueued(id) != null) {
+                throw new ExpenseStillQueuedException(id);
+            }
+            // It may have been flushed between the two lookups
+            flushedId = writeBehindQueue.getFlushedId(id);
+        }
+        return flushedId == null ? id : flushedId;
+    }
+
+    private static List<CategoryStats> byCategory(List<CategoryStats> stats) {
+        return stats.stream()
+                .sorted(Comparator.comparing(CategoryStats::category))
+                .toList();
+    }
+
+    private static List<BucketStats> rollUp(TimeBucket bucket, List<BucketStats> days) {
+        if (bucket == TimeBucket.DAY) {
+            return days;
         }
-        expenseRepository.deleteById(id);
+        // The database groups by day; rolling days up into weeks or months is cheap and stays portable
+        List<BucketStats> buckets = new ArrayList<>();
+        for (BucketStats day : days) {
+            LocalDate start = bucket.bucketStart(day.bucketStart());
+            int last = buckets.size() - 1;
+            if (last >= 0 && buckets.get(last).bucketStart().equals(start)) {
+                buckets.set(last, buckets.get(last).merge(day, start));
+            } else {
+                buckets.add(day.withBucketStart(start));
+            }
+        }
+        return buckets;
+    }
+
+    private static ExpensePage toPage(List<Expense> rows, int limit) {
+        boolean hasMore = rows.size() > limit;
+        List<Expense> items = hasMore ? rows.subList(0, limit) : rows;
+        Long nextCursor = hasMore ? items.get(items.size() - 1).getId() : null;
+        return new ExpensePage(items, nextCursor, hasMore);
+    }
+
+    private void requireUser(int userId) {
+        if (userDAO.findById(userId) == null) {
+            throw new RuntimeException("User not found with id: " + userId);
+        }
+    }
+
+    // A cursor is the sort value and id of the last row of a page, joined by '_'
+    private static String cursorOf(ExpenseSort sort, Expense last) {
+        return sort.valueOf(last) + "_" + last.getId();
+    }
+
+    private static Specification<Expense> afterCursor(ExpenseFilter filter, String cursor) {
+        int separator = cursor.lastIndexOf('_');
+        try {
+            Comparable<?> value = filter.sort().parseValue(cursor.substring(0, separator));
+            long id = Long.parseLong(cursor.substring(separator + 1));
+            return ExpenseSpecifications.after(filter.sort(), filter.direction(), value, id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor for sort " + filter.sort() + ": " + cursor, e);
+        }
+    }
+
+    private static LocalDateTime startOf(LocalDate from) {
+        return from == null ? null : from.atStartOfDay();
+    }
+
+    // The upper bound is inclusive of the whole "to" day
+    private static LocalDateTime endOf(LocalDate to) {
+        return to == null ? null : to.plusDays(1).atStartOfDay();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,14 @@
+package com.alexaras.finance_tracker.service;
+
+/**
+ * Thrown when an expense is changed by its provisional id while the write-behind queue still holds it.
+ * The queued copy is written as it was accepted, so there is no row to change yet; the API answers
+ * 425 Too Early, and the change can be retried once the expense has been saved.
+ */
+public class ExpenseStillQueuedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public ExpenseStillQueuedException(long provisionalId) {
+        super("Expense " + provisionalId + " is still queued for writing; retry once it has been saved");
+    }
+}
@@ -0,0 +1,21 @@
+package com.alexaras.finance_tracker.service;
+
+/**
+ * Thrown when an update names a version of an expense that has since been changed. The client should
+ * read the expense again and reapply its change; the API answers 409 Conflict.
+ */
+public class ExpenseVersionConflictException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long currentVersion;
+
+    public ExpenseVersionConflictException(long id, long expectedVersion, long currentVersion) {
+        super("Expense " + id + " is at version " + currentVersion + ", not " + expectedVersion
+                + "; reload it and retry");
+        this.currentVersion = currentVersion;
+    }
+
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
@@ -0,0 +1,93 @@
+package com.alexaras.finance_tracker.service;
+
+import com.alexaras.finance_tracker.event.ExpenseChangedEvent;
+import com.alexaras.finance_tracker.model.Expense;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version numbers for the expense data, for answering conditional GETs without reading it. The data
+ * version goes up on every add, update and delete; each category also remembers the data version of
+ * the last write that touched it, so views of one category stay valid while others change. Owners
+ * are tracked the same way, so one user's views stay valid while other users write.
+ * <p>
+ * Versions are bumped once the write has committed, and after the in-memory totals have taken it in:
+ * their listeners run first, and this one last. A reader that takes the version before reading the
+ * data can at worst label newer data with an older version, which only costs one extra refetch. The
+ * other way round, a new version on old totals would be revalidated as current until the next write.
+ * ETags include the time the application started, so versions from an earlier run never match.
+ */
+@Component
+public class ExpenseVersions {
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong dataVersion = new AtomicLong();
+    private final Map<String, Long> categoryVersions = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> userVersions = new ConcurrentHashMap<>();
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        long version = dataVersion.incrementAndGet();
+        bump(event.before(), version);
+        bump(event.after(), version);
+    }
+
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    /**
+     * @return the data version of the last write to this category, or 0 if none since startup
+     */
+    public long getCategoryVersion(String category) {
+        return categoryVersions.getOrDefault(category, 0L);
+    }
+
+    /**
+     * @return the data version of the last write to an expense this user owns, or 0 if none since startup
+     */
+    public long getUserVersion(int userId) {
+        return userVersions.getOrDefault(userId, 0L);
+    }
+
+    /**
+     * Weak ETag for anything derived from the whole data set. Weak, because the same version may be
+     * sent as JSON, CBOR or gzipped, which are equivalent but not byte-identical.
+     */
+    public String dataETag() {
+        return "W/\"" + epoch + "-" + getDataVersion() + "\"";
+    }
+
+    /**
+     * Weak ETag for views limited to one category.
+     */
+    public String categoryETag(String category) {
+        return "W/\"" + epoch + "-c" + getCategoryVersion(category) + "\"";
+    }
+
+    /**
+     * Weak ETag for views limited to one user's expenses.
+     */
+    public String userETag(int userId) {
+        return "W/\"" + epoch + "-u" + getUserVersion(userId) + "\"";
+    }
+
+    private void bump(Expense expense, long version) {
+        if (expense == null) {
+            return;
+        }
+        if (expense.getCategory() != null) {
+            categoryVersions.merge(expense.getCategory(), version, Math::max);
+        }
+        if (expense.getUserId() != null) {
+            userVersions.merge(expense.getUserId(), version, Math::max);
+        }
+    }
+}
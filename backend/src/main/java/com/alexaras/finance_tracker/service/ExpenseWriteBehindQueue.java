@@ -0,0 +1,337 @@
+package com.alexaras.finance_tracker.service;
+
+import com.alexaras.finance_tracker.event.ExpenseChangedEvent;
+import com.alexaras.finance_tracker.model.Expense;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional write-behind path for new expenses. Accepted expenses wait in a bounded queue, and a single
+ * flusher thread inserts whatever has accumulated in one transaction, so under load many requests
+ * share a commit instead of paying for one each.
+ * <p>
+ * Every accepted expense gets a negative provisional id at once. With {@link Durability#ACCEPTED} the
+ * caller gets that id back before anything is written; {@link ExpenseService#getExpense} resolves it
+ * while the expense is queued and for a while after it is flushed. With {@link Durability#COMMITTED}
+ * the caller waits for the batch to commit and gets the real id. Events are only published for
+ * committed expenses, so listeners never see a provisional id.
+ * <p>
+ * A full queue rejects new expenses with {@link WriteBehindQueueFullException} rather than blocking.
+ * On shutdown the queue stops accepting and is drained before the database goes away; its phase puts
+ * that after the web server has stopped taking requests.
+ */
+@Component
+public class ExpenseWriteBehindQueue implements SmartLifecycle, MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(ExpenseWriteBehindQueue.class);
+    // Below the web server's lifecycle phases: started before it, stopped after it
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+    private static final long POLL_MILLIS = 100;
+    private static final int FLUSHED_IDS_TO_KEEP = 100_000;
+    private static final Duration FLUSHED_IDS_TTL = Duration.ofMinutes(10);
+
+    public enum Durability {
+        /** Answer once the expense is queued; expenses still queued are lost if the process dies. */
+        ACCEPTED,
+        /** Answer once the batch holding the expense has committed (group commit). */
+        COMMITTED
+    }
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final Durability durability;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final BlockingQueue<Pending> queue;
+    private final Map<Long, Pending> queuedById = new ConcurrentHashMap<>();
+    private final Cache<Long, Long> flushedIds = Caffeine.newBuilder()
+            .maximumSize(FLUSHED_IDS_TO_KEEP)
+            .expireAfterWrite(FLUSHED_IDS_TTL)
+            .build();
+    private final AtomicLong provisionalIds = new AtomicLong();
+    // Submitters hold the read lock while offering, so closing cannot strand an expense in the queue
+    private final ReentrantReadWriteLock acceptLock = new ReentrantReadWriteLock();
+    private volatile boolean accepting;
+    private volatile Thread flusher;
+    private Counter flushedCounter;
+    private Counter failedCounter;
+
+    private record Pending(Expense expense, CompletableFuture<Expense> saved) {
+    }
+
+    @Autowired
+    public ExpenseWriteBehindQueue(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${finance-tracker.expenses.write-behind.enabled:false}") boolean enabled,
+                                   @Value("${finance-tracker.expenses.write-behind.durability:COMMITTED}") Durability durability,
+                                   @Value("${finance-tracker.expenses.write-behind.queue-capacity:10000}") int queueCapacity,
+                                   @Value("${finance-tracker.expenses.write-behind.batch-size:500}") int batchSize) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // A batch must commit on its own, whatever the flusher thread was doing before
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.durability = durability;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Queues a new expense. Depending on the durability setting, returns a copy carrying its provisional
+     * id or waits for the saved expense.
+     *
+     * @throws WriteBehindQueueFullException if the queue is at capacity
+     */
+    public Expense submit(Expense expense) {
+        Expense accepted = new Expense(expense);
+        accepted.setId(provisionalIds.decrementAndGet());
+        // The expense was spent when it was accepted, not when the flusher gets to it
+        if (accepted.getSpentAt() == null) {
+            accepted.setSpentAt(LocalDateTime.now());
+        }
+        Pending pending = new Pending(accepted, new CompletableFuture<>());
+
+        acceptLock.readLock().lock();
+        try {
+            if (!accepting) {
+                throw new IllegalStateException("The write-behind queue is not accepting expenses");
+            }
+            queuedById.put(accepted.getId(), pending);
+            if (!queue.offer(pending)) {
+                queuedById.remove(accepted.getId());
+                throw new WriteBehindQueueFullException(queueCapacity);
+            }
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+
+        if (durability == Durability.ACCEPTED) {
+            return new Expense(accepted);
+        }
+        return join(pending.saved());
+    }
+
+    /**
+     * @return a copy of the expense with this provisional id if it has not been flushed yet, else null
+     */
+    public Expense getQueued(long provisionalId) {
+        Pending pending = queuedById.get(provisionalId);
+        return pending == null ? null : new Expense(pending.expense());
+    }
+
+    /**
+     * @return the id an expense with this provisional id was saved under, or null if it is still
+     * queued, failed or was flushed too long ago to remember
+     */
+    public Long getFlushedId(long provisionalId) {
+        return flushedIds.getIfPresent(provisionalId);
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return enabled;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    @Override
+    public void start() {
+        accepting = true;
+        flusher = Thread.ofPlatform().name("expense-write-behind").daemon(true).start(this::flushUntilClosed);
+        log.info("Write-behind expense queue started with durability {}, capacity {} and batch size {}",
+                durability, queueCapacity, batchSize);
+    }
+
+    /**
+     * Stops accepting expenses and returns once every queued expense has been written or has failed.
+     */
+    @Override
+    public void stop() {
+        acceptLock.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+        Thread thread = flusher;
+        if (thread == null) {
+            return;
+        }
+        log.info("Draining {} queued expenses", queue.size());
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flusher = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return flusher != null;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("finance_tracker.write_behind.queue.size", queue, BlockingQueue::size)
+                .description("Expenses accepted but not yet written")
+                .register(registry);
+        flushedCounter = Counter.builder("finance_tracker.write_behind.flushed")
+                .description("Queued expenses written to the database")
+                .register(registry);
+        failedCounter = Counter.builder("finance_tracker.write_behind.failed")
+                .description("Queued expenses the database rejected")
+                .register(registry);
+    }
+
+    private void flushUntilClosed() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (true) {
+            Pending first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // Only stop() ends the loop; a queued expense must not be left behind
+                continue;
+            }
+            if (first == null) {
+                if (!accepting && queue.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            // No waiting for a full batch: whatever queued up during the last commit goes in the next one
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        List<Expense> expenses = batch.stream().map(ExpenseWriteBehindQueue::unsaved).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(expenses));
+        } catch (RuntimeException batchFailure) {
+            // As in ExpenseImportService: retry one by one so one bad expense does not sink the others
+            log.debug("Write-behind batch failed, retrying its expenses individually", batchFailure);
+            for (Pending pending : batch) {
+                Expense expense = unsaved(pending);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(List.of(expense)));
+                } catch (RuntimeException failure) {
+                    failed(pending, failure);
+                    continue;
+                }
+                flushed(pending, expense);
+            }
+            return;
+        }
+        // Only once committed, and outside the try: nothing after the commit may send the batch round again
+        for (int i = 0; i < batch.size(); i++) {
+            flushed(batch.get(i), expenses.get(i));
+        }
+    }
+
+    private void persist(List<Expense> expenses) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+        expenses.forEach(entityManager::persist);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void flushed(Pending pending, Expense saved) {
+        long provisionalId = pending.expense().getId();
+        flushedIds.put(provisionalId, saved.getId());
+        queuedById.remove(provisionalId);
+        if (flushedCounter != null) {
+            flushedCounter.increment();
+        }
+        try {
+            eventPublisher.publishEvent(ExpenseChangedEvent.created(saved));
+        } catch (RuntimeException e) {
+            // The row is committed whatever a listener does, so the caller still gets it
+            log.error("A listener failed on queued expense {} after it was written", saved.getId(), e);
+        }
+        pending.saved().complete(saved);
+    }
+
+    private void failed(Pending pending, RuntimeException failure) {
+        queuedById.remove(pending.expense().getId());
+        if (failedCounter != null) {
+            failedCounter.increment();
+        }
+        if (durability == Durability.ACCEPTED) {
+            // Nobody is waiting for the result, so the log is the only record of the lost expense
+            log.error("Dropped queued expense {} after the database rejected it", pending.expense(), failure);
+        }
+        pending.saved().completeExceptionally(failure);
+    }
+
+    // A fresh entity without the provisional id, so a failed attempt cannot leak an id into a retry
+    private static Expense unsaved(Pending pending) {
+        Expense expense = new Expense(pending.expense());
+        expense.setId(null);
+        return expense;
+    }
+
+    // Rethrows what the flusher failed with, rather than the CompletionException wrapping it
+    private static Expense join(CompletableFuture<Expense> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.alexaras.finance_tracker.service;
+
+import com.alexaras.finance_tracker.dao.UserDAO;
+import com.alexaras.finance_tracker.dto.ProjectionBatchReport;
+import com.alexaras.finance_tracker.dto.UserCategoryDayTotal;
+import com.alexaras.finance_tracker.dto.UserProjection;
+import com.alexaras.finance_tracker.model.Budget;
+import com.alexaras.finance_tracker.model.MinorUnits;
+import com.alexaras.finance_tracker.model.RecurringExpense;
+import com.alexaras.finance_tracker.projection.ProjectionEngine;
+import com.alexaras.finance_tracker.repository.BudgetRepository;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.repository.RecurringExpenseRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Recurring expenses, budgets and the spending projections made from them.
+ * <p>
+ * Actual spending is what the user has recorded in their own expenses; expenses without an owner
+ * count for nobody. A projection reads it in one query over the user's slice of the {@code user_id}
+ * index, and the nightly batch reads every user's in a single grouped query.
+ * <p>
+ * Projections are memoized. Each one is stamped with the version of its user's definitions and the
+ * {@link ExpenseVersions} version of the user's expenses, and is only recomputed once one of those
+ * moves on; other users' writes leave it valid.
+ */
+@Service
+@Timed(value = "finance_tracker.service", histogram = true)
+public class ProjectionService {
+    private static final Logger log = LoggerFactory.getLogger(ProjectionService.class);
+
+    private final RecurringExpenseRepository recurringExpenseRepository;
+    private final BudgetRepository budgetRepository;
+    private final ExpenseRepository expenseRepository;
+    private final ExpenseVersions expenseVersions;
+    private final UserDAO userDAO;
+    private final ProjectionEngine engine;
+    private final int batchMonths;
+    private final Map<Integer, Long> definitionVersions = new ConcurrentHashMap<>();
+    private final Cache<ProjectionKey, Memo> projections;
+
+    private record ProjectionKey(int userId, LocalDate asOf, int months) {
+    }
+
+    private record Memo(UserProjection projection, long definitionVersion, long expenseVersion) {
+    }
+
+    @Autowired
+    public ProjectionService(RecurringExpenseRepository recurringExpenseRepository,
+                             BudgetRepository budgetRepository,
+                             ExpenseRepository expenseRepository,
+                             ExpenseVersions expenseVersions,
+                             UserDAO userDAO,
+                             @Value("${finance-tracker.projections.parallelism:0}") int parallelism,
+                             @Value("${finance-tracker.projections.batch-months:3}") int batchMonths,
+                             @Value("${finance-tracker.projections.cache.maximum-size:100000}") long maximumSize) {
+        this.recurringExpenseRepository = recurringExpenseRepository;
+        this.budgetRepository = budgetRepository;
+        this.expenseRepository = expenseRepository;
+        this.expenseVersions = expenseVersions;
+        this.userDAO = userDAO;
+        this.engine = new ProjectionEngine(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.batchMonths = batchMonths;
+        this.projections = Caffeine.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    public List<RecurringExpense> getRecurringExpenses(int userId) {
+        return recurringExpenseRepository.findByUserIdOrderById(userId);
+    }
+
+    public RecurringExpense addRecurringExpense(int userId, RecurringExpense recurringExpense) {
+        requireUser(userId);
+        if (recurringExpense.getCategory() == null || recurringExpense.getCategory().isBlank()) {
+            throw new IllegalArgumentException("category is required");
+        }
+        if (recurringExpense.getRecurrence() == null) {
+            throw new IllegalArgumentException("recurrence is required");
+        }
+        requireCents("amount", recurringExpense.getAmount());
+        if (recurringExpense.getStartDate() == null) {
+            recurringExpense.setStartDate(LocalDate.now());
+        }
+        if (recurringExpense.getEndDate() != null && recurringExpense.getEndDate().isBefore(recurringExpense.getStartDate())) {
+            throw new IllegalArgumentException("endDate is before startDate");
+        }
+        recurringExpense.setId(null);
+        recurringExpense.setUserId(userId);
+        RecurringExpense saved = recurringExpenseRepository.save(recurringExpense);
+        definitionsChanged(userId);
+        return saved;
+    }
+
+    public void deleteRecurringExpense(int userId, Long id) {
+        RecurringExpense existing = recurringExpenseRepository.findByIdAndUserId(id, userId)
+                .orElseThrow(() -> new RuntimeException("Recurring expense not found with id: " + id));
+        recurringExpenseRepository.delete(existing);
+        definitionsChanged(userId);
+    }
+
+    public List<Budget> getBudgets(int userId) {
+        return budgetRepository.findByUserIdOrderByCategory(userId);
+    }
+
+    /**
+     * Creates the user's budget for the category, or replaces its limit.
+     */
+    public Budget setBudget(int userId, String category, BigDecimal monthlyLimit) {
+        requireUser(userId);
+        requireCents("monthlyLimit", monthlyLimit);
+        Budget budget = budgetRepository.findByUserIdAndCategory(userId, category)
+                .orElseGet(() -> new Budget(userId, category, monthlyLimit));
+        budget.setMonthlyLimit(monthlyLimit);
+        Budget saved = budgetRepository.save(budget);
+        definitionsChanged(userId);
+        return saved;
+    }
+
+    public void deleteBudget(int userId, String category) {
+        Budget existing = budgetRepository.findByUserIdAndCategory(userId, category)
+                .orElseThrow(() -> new RuntimeException("Budget not found for category: " + category));
+        budgetRepository.delete(existing);
+        definitionsChanged(userId);
+    }
+
+    /**
+     * Projects the user's spending for {@code months} months from the current one, reusing the last
+     * projection if nothing it depends on has changed.
+     */
+    public UserProjection getProjection(int userId, int months) {
+        ProjectionKey key = new ProjectionKey(userId, LocalDate.now(), months);
+        Memo memo = projections.getIfPresent(key);
+        if (memo != null && isCurrent(key.userId(), memo)) {
+            return memo.projection();
+        }
+        // Versions are read before the data, so a concurrent write can only make the memo stale early
+        long definitionVersion = definitionVersion(userId);
+        long expenseVersion = expenseVersions.getUserVersion(userId);
+        ProjectionEngine.Plan plan = new ProjectionEngine.Plan(userId,
+                recurringExpenseRepository.findByUserIdOrderById(userId),
+                budgetRepository.findByUserIdOrderByCategory(userId));
+        YearMonth first = YearMonth.from(key.asOf());
+        List<UserCategoryDayTotal> days = expenseRepository.aggregateByCategoryAndDayForUser(userId,
+                startOf(first), startOf(first.plusMonths(months)));
+        UserProjection projection = ProjectionEngine.project(plan, key.asOf(), months, actuals(days, first, months));
+        projections.put(key, new Memo(projection, definitionVersion, expenseVersion));
+        return projection;
+    }
+
+    /**
+     * Projects every user that has recurring expenses or budgets, in parallel, and keeps the results
+     * for {@link #getProjection}. Meant for a nightly run: definitions are read in two queries and
+     * actual spending in one, however many users there are.
+     */
+    @Scheduled(cron = "${finance-tracker.projections.nightly-cron:0 30 2 * * *}")
+    public ProjectionBatchReport projectAllUsers() {
+        long started = System.nanoTime();
+        LocalDate asOf = LocalDate.now();
+        Map<Integer, Long> versions = Map.copyOf(definitionVersions);
+        Map<Integer, List<RecurringExpense>> recurring = recurringExpenseRepository.findAll().stream()
+                .collect(Collectors.groupingBy(RecurringExpense::getUserId));
+        Map<Integer, List<Budget>> budgets = budgetRepository.findAll().stream()
+                .collect(Collectors.groupingBy(Budget::getUserId));
+
+        Set<Integer> userIds = new TreeSet<>(recurring.keySet());
+        userIds.addAll(budgets.keySet());
+        List<ProjectionEngine.Plan> plans = new ArrayList<>(userIds.size());
+        Set<String> categories = new TreeSet<>();
+        for (int userId : userIds) {
+            ProjectionEngine.Plan plan = new ProjectionEngine.Plan(userId,
+                    recurring.getOrDefault(userId, List.of()), budgets.getOrDefault(userId, List.of()));
+            plans.add(plan);
+            categories.addAll(plan.categories());
+        }
+
+        Map<Integer, Long> expenseVersionsByUser = new HashMap<>();
+        for (int userId : userIds) {
+            expenseVersionsByUser.put(userId, expenseVersions.getUserVersion(userId));
+        }
+        YearMonth first = YearMonth.from(asOf);
+        List<UserCategoryDayTotal> days = expenseRepository.aggregateByUserCategoryAndDay(
+                startOf(first), startOf(first.plusMonths(batchMonths)));
+        List<UserProjection> results = engine.projectAll(plans, asOf, batchMonths, actuals(days, first, batchMonths));
+
+        int overBudget = 0;
+        for (UserProjection projection : results) {
+            int userId = projection.userId();
+            projections.put(new ProjectionKey(userId, asOf, batchMonths),
+                    new Memo(projection, versions.getOrDefault(userId, 0L), expenseVersionsByUser.get(userId)));
+            if (projection.isOverBudget()) {
+                overBudget++;
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Projected {} users over {} categories in {} ms on {} threads; {} over budget",
+                plans.size(), categories.size(), elapsedMillis, engine.getParallelism(), overBudget);
+        return new ProjectionBatchReport(plans.size(), categories.size(), overBudget, elapsedMillis);
+    }
+
+    private boolean isCurrent(int userId, Memo memo) {
+        return memo.definitionVersion() == definitionVersion(userId)
+                && memo.expenseVersion() == expenseVersions.getUserVersion(userId);
+    }
+
+    /**
+     * Sums daily totals into cents per user, category and month, for {@code months} months from
+     * {@code first}. Users and categories without expenses spent nothing.
+     */
+    private static ProjectionEngine.Actuals actuals(List<UserCategoryDayTotal> days, YearMonth first, int months) {
+        Map<Integer, Map<String, long[]>> monthly = new HashMap<>();
+        for (UserCategoryDayTotal day : days) {
+            long[] totals = monthly.computeIfAbsent(day.userId(), userId -> new HashMap<>())
+                    .computeIfAbsent(day.category(), category -> new long[months]);
+            int m = (int) ChronoUnit.MONTHS.between(first, YearMonth.from(day.day()));
+            // Totals are rounded as the column stores them, as in CategoryTotalsCache
+            totals[m] = MinorUnits.add(totals[m],
+                    MinorUnits.of(day.total().setScale(MinorUnits.SCALE, RoundingMode.HALF_UP)));
+        }
+        long[] none = new long[months];
+        return (userId, category) -> monthly.getOrDefault(userId, Map.of()).getOrDefault(category, none);
+    }
+
+    private static LocalDateTime startOf(YearMonth month) {
+        return month.atDay(1).atStartOfDay();
+    }
+
+    private long definitionVersion(int userId) {
+        return definitionVersions.getOrDefault(userId, 0L);
+    }
+
+    private void definitionsChanged(int userId) {
+        definitionVersions.merge(userId, 1L, Long::sum);
+    }
+
+    private void requireUser(int userId) {
+        if (userDAO.findById(userId) == null) {
+            throw new RuntimeException("User not found with id: " + userId);
+        }
+    }
+
+    private static void requireCents(String field, BigDecimal amount) {
+        if (amount == null || amount.signum() < 0) {
+            throw new IllegalArgumentException(field + " is required and may not be negative");
+        }
+        try {
+            MinorUnits.of(amount);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(field + " is not a whole number of cents: " + amount);
+        }
+    }
+}
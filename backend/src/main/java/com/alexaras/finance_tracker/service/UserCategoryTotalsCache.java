@@ -0,0 +1,73 @@
+package com.alexaras.finance_tracker.service;
+
+import com.alexaras.finance_tracker.dto.CategoryTotal;
+import com.alexaras.finance_tracker.event.ExpenseChangedEvent;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Per-category count and total of each user's own expenses. Unlike {@link CategoryTotalsCache},
+ * which holds every category in memory, users are loaded on first use with a query over their slice
+ * of the {@code user_id} index and evicted when unused, so memory and load cost follow the active
+ * users rather than the whole table.
+ * <p>
+ * A committed write drops the owner's entry and the next read loads it again. Caffeine serializes
+ * the drop with a load in progress for the same user, so a load that read the data before the write
+ * cannot outlive it.
+ */
+@Component
+public class UserCategoryTotalsCache {
+    private final ExpenseRepository expenseRepository;
+    private final Cache<Integer, List<CategoryTotal>> totals;
+
+    @Autowired
+    public UserCategoryTotalsCache(ExpenseRepository expenseRepository,
+                                   @Value("${finance-tracker.users.expense-totals.maximum-size:10000}") long maximumSize) {
+        this.expenseRepository = expenseRepository;
+        this.totals = Caffeine.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    // Before ExpenseVersions bumps the version, so an ETag never runs ahead of these totals
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onExpenseChanged(ExpenseChangedEvent event) {
+        invalidate(event.before());
+        invalidate(event.after());
+    }
+
+    /**
+     * @return the user's totals by category, sorted by category
+     */
+    public List<CategoryTotal> getTotals(int userId) {
+        return totals.get(userId, this::load);
+    }
+
+    public void invalidateAll() {
+        totals.invalidateAll();
+    }
+
+    private List<CategoryTotal> load(int userId) {
+        return expenseRepository.aggregateByCategoryForUser(userId, null, null).stream()
+                .map(stats -> new CategoryTotal(stats.category(), stats.count(), stats.total()))
+                .sorted(Comparator.comparing(CategoryTotal::category))
+                .toList();
+    }
+
+    private void invalidate(Expense expense) {
+        if (expense != null && expense.getUserId() != null) {
+            totals.invalidate(expense.getUserId());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.alexaras.finance_tracker.service;
+
+/**
+ * Thrown when the write-behind queue has no room for another expense. Callers should back off and
+ * retry; the API answers 429 Too Many Requests.
+ * <p>
+ * Under overload this is thrown for most requests, so it skips the stack trace, which would only
+ * ever point at {@link ExpenseWriteBehindQueue#submit}.
+ */
+public class WriteBehindQueueFullException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public WriteBehindQueueFullException(int capacity) {
+        super("The write-behind queue is full (" + capacity + " expenses); retry later", null, false, false);
+    }
+}
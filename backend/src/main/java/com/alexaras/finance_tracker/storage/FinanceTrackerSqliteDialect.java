@@ -0,0 +1,60 @@
+package com.alexaras.finance_tracker.storage;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.community.dialect.SQLiteDialect;
+import org.hibernate.community.dialect.identity.SQLiteIdentityColumnSupport;
+import org.hibernate.dialect.identity.IdentityColumnSupport;
+import org.hibernate.mapping.Table;
+import org.hibernate.query.sqm.CastType;
+import org.hibernate.tool.schema.internal.StandardTableExporter;
+import org.hibernate.tool.schema.spi.Exporter;
+
+/**
+ * SQLite has no date type, so the stock dialect's {@code cast(x as date)} gives the column numeric
+ * affinity and turns {@code 2024-05-01 12:00:00} into {@code 2024}. The daily totals cast timestamps
+ * to dates, which here truncates the text to midnight with SQLite's {@code date()} function. The time
+ * is put back because the driver only parses dates in its full timestamp format.
+ * <p>
+ * Identity columns are declared {@code INTEGER PRIMARY KEY AUTOINCREMENT}. The stock dialect leaves out
+ * AUTOINCREMENT, and without it a new row takes the id of the newest row if that was deleted, so an
+ * expense id could come back as a different expense. SQLite only accepts AUTOINCREMENT on the column
+ * itself, so the separate primary key clause is dropped for those tables.
+ */
+public class FinanceTrackerSqliteDialect extends SQLiteDialect {
+    private static final String IDENTITY_COLUMN = "integer primary key autoincrement";
+
+    private final Exporter<Table> tableExporter = new StandardTableExporter(this) {
+        @Override
+        public String[] getSqlCreateStrings(Table table, Metadata metadata, SqlStringGenerationContext context) {
+            String[] sql = super.getSqlCreateStrings(table, metadata, context);
+            if (table.hasPrimaryKey() && sql[0].contains(IDENTITY_COLUMN)) {
+                sql[0] = sql[0].replace(", " + table.getPrimaryKey().sqlConstraintString(dialect), "");
+            }
+            return sql;
+        }
+    };
+
+    @Override
+    public String castPattern(CastType from, CastType to) {
+        if (to == CastType.DATE) {
+            return "(date(?1)||' 00:00:00.000')";
+        }
+        return super.castPattern(from, to);
+    }
+
+    @Override
+    public IdentityColumnSupport getIdentityColumnSupport() {
+        return new SQLiteIdentityColumnSupport() {
+            @Override
+            public String getIdentityColumnString(int type) {
+                return IDENTITY_COLUMN;
+            }
+        };
+    }
+
+    @Override
+    public Exporter<Table> getTableExporter() {
+        return tableExporter;
+    }
+}
@@ -0,0 +1,78 @@
+package com.alexaras.finance_tracker.storage;
+
+import com.alexaras.finance_tracker.DatabaseConnection;
+import com.zaxxer.hikari.HikariConfig;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * H2 in memory ({@code h2}) or in a file ({@code h2-file}, which adds {@code .mv.db} to the path).
+ */
+public class H2StorageBackend implements StorageBackend {
+    private static final String USERS_TABLE_DDL = "CREATE TABLE IF NOT EXISTS users "
+            + "(id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255) NOT NULL, email VARCHAR(255) UNIQUE NOT NULL)";
+
+    private final boolean file;
+    private final String location;
+    private final int cacheSizeKb;
+
+    /**
+     * @param cacheSizeKb page cache of a file database; an in-memory one holds everything anyway
+     */
+    public H2StorageBackend(boolean file, String location, int cacheSizeKb) {
+        this.file = file;
+        // H2 refuses file paths that are only implicitly relative to the working directory
+        this.location = file ? Path.of(location).toAbsolutePath().toString() : location;
+        this.cacheSizeKb = cacheSizeKb;
+    }
+
+    @Override
+    public String name() {
+        return file ? "h2-file" : "h2";
+    }
+
+    @Override
+    public String jdbcUrl() {
+        return "jdbc:h2:" + database();
+    }
+
+    @Override
+    public HikariConfig poolConfig(int poolSize) {
+        return DatabaseConnection.poolConfig(jdbcUrl(), poolSize);
+    }
+
+    @Override
+    public Optional<String> hibernateDialect() {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<String> hibernateMappingFile() {
+        return Optional.empty();
+    }
+
+    @Override
+    public String schemaAction() {
+        return file ? "update" : "create-drop";
+    }
+
+    @Override
+    public String usersTableDdl() {
+        return USERS_TABLE_DDL;
+    }
+
+    @Override
+    public Optional<String> r2dbcH2Url() {
+        // Within one JVM H2 hands both drivers the same open database, in memory or on disk
+        return Optional.of(database());
+    }
+
+    private String database() {
+        // Spring closes the pool on shutdown; H2's own shutdown hook would close the database under it.
+        // In memory, the database also has to outlive the moment the pool has no connection open
+        return file
+                ? "file:" + location + ";CACHE_SIZE=" + cacheSizeKb + ";DB_CLOSE_ON_EXIT=FALSE"
+                : "mem:" + location + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+    }
+}
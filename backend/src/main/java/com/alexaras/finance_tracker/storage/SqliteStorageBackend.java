@@ -0,0 +1,110 @@
+package com.alexaras.finance_tracker.storage;
+
+import com.alexaras.finance_tracker.DatabaseConnection;
+import com.zaxxer.hikari.HikariConfig;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * SQLite in a file ({@code sqlite}). The settings are passed to the driver, which applies them as
+ * pragmas on every connection it opens.
+ * <p>
+ * SQLite takes one writer at a time; a writer waits for the busy timeout before giving up with
+ * SQLITE_BUSY. Transactions stay DEFERRED, taking the write lock at their first write.
+ * <p>
+ * Expense ids are the rowid, assigned as each row is inserted. SQLite has no sequences, and Hibernate
+ * would allocate pooled ids from a table on a second connection in the middle of a transaction: once the
+ * transaction had written, that connection waited for the transaction's own write lock, and with every
+ * pooled connection held by a writer it waited for a connection that never came back. Inserts are no
+ * longer sent as JDBC batches, which costs little with the database in the same process.
+ * <p>
+ * The driver does its work in native code. A virtual thread calling it is not pinned in the JFR sense,
+ * but it cannot unmount either, so its carrier stays busy until the call returns, a busy-timeout wait
+ * included. With {@code spring.threads.virtual.enabled} the pool bounds how many carriers that can take;
+ * with a pool as large as the number of cores, every carrier can end up waiting in the driver.
+ */
+public class SqliteStorageBackend implements StorageBackend {
+    // Expense ids from the rowid rather than the pooled sequence, see the class comment
+    private static final String MAPPING_FILE = "com/alexaras/finance_tracker/storage/sqlite-orm.xml";
+    private static final String USERS_TABLE_DDL = "CREATE TABLE IF NOT EXISTS users "
+            + "(id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT NOT NULL, email TEXT UNIQUE NOT NULL)";
+
+    private final String location;
+    private final String journalMode;
+    private final String synchronous;
+    private final int cacheSizeKb;
+    private final long mmapSize;
+    private final Duration busyTimeout;
+
+    /**
+     * @param journalMode  WAL lets readers run alongside the writer
+     * @param synchronous  NORMAL (with WAL) only syncs at checkpoints, and loses no commits if the
+     *                     process dies, only the last ones if the machine does
+     * @param cacheSizeKb  page cache per connection
+     * @param mmapSize     bytes of the file read through memory mapping rather than read calls
+     * @param busyTimeout  how long a writer waits for the write lock
+     */
+    public SqliteStorageBackend(String location, String journalMode, String synchronous, int cacheSizeKb,
+                                long mmapSize, Duration busyTimeout) {
+        if (location.contains(":memory:") || location.contains("mode=memory")) {
+            // Each connection would get its own empty database, and the pool has several
+            throw new IllegalArgumentException("The sqlite backend needs a file; use the h2 backend for an in-memory store");
+        }
+        this.location = location;
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.cacheSizeKb = cacheSizeKb;
+        this.mmapSize = mmapSize;
+        this.busyTimeout = busyTimeout;
+    }
+
+    @Override
+    public String name() {
+        return "sqlite";
+    }
+
+    @Override
+    public String jdbcUrl() {
+        return "jdbc:sqlite:" + location;
+    }
+
+    @Override
+    public HikariConfig poolConfig(int poolSize) {
+        HikariConfig config = DatabaseConnection.poolConfig(jdbcUrl(), poolSize);
+        config.addDataSourceProperty("journal_mode", journalMode);
+        config.addDataSourceProperty("synchronous", synchronous);
+        // Negative sizes are in KiB rather than pages
+        config.addDataSourceProperty("cache_size", Integer.toString(-cacheSizeKb));
+        config.addDataSourceProperty("mmap_size", Long.toString(mmapSize));
+        config.addDataSourceProperty("busy_timeout", Long.toString(busyTimeout.toMillis()));
+        // Text sorts and compares like the timestamps it holds, and date() can read it for daily totals
+        config.addDataSourceProperty("date_class", "TEXT");
+        return config;
+    }
+
+    @Override
+    public Optional<String> hibernateDialect() {
+        return Optional.of(FinanceTrackerSqliteDialect.class.getName());
+    }
+
+    @Override
+    public Optional<String> hibernateMappingFile() {
+        return Optional.of(MAPPING_FILE);
+    }
+
+    @Override
+    public String schemaAction() {
+        return "update";
+    }
+
+    @Override
+    public String usersTableDdl() {
+        return USERS_TABLE_DDL;
+    }
+
+    @Override
+    public Optional<String> r2dbcH2Url() {
+        return Optional.empty();
+    }
+}
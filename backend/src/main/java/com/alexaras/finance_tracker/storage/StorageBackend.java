@@ -0,0 +1,54 @@
+package com.alexaras.finance_tracker.storage;
+
+import com.zaxxer.hikari.HikariConfig;
+
+import java.util.Optional;
+
+/**
+ * A database the application keeps its users and expenses in, chosen with
+ * {@code finance-tracker.storage.backend}, at {@code finance-tracker.storage.location}: a database
+ * name for in-memory backends, a file path otherwise. Both stores share the one pool the backend configures:
+ * {@code UserDAO} runs plain JDBC on it and {@code ExpenseService} runs JPA on it.
+ * <p>
+ * A backend knows how to reach its database, how to tune each connection, which Hibernate dialect
+ * and schema action suit it, and how to create the {@code users} table, which JPA does not manage.
+ */
+public interface StorageBackend {
+
+    /**
+     * @return the value of {@code finance-tracker.storage.backend} that selects this backend
+     */
+    String name();
+
+    String jdbcUrl();
+
+    /**
+     * @return a pool for the database with this backend's tuning applied to every connection
+     */
+    HikariConfig poolConfig(int poolSize);
+
+    /**
+     * @return the Hibernate dialect, or empty when Hibernate detects the right one by itself
+     */
+    Optional<String> hibernateDialect();
+
+    /**
+     * @return an {@code orm.xml} on the classpath that overrides the entity annotations for this
+     *         database, or empty when the annotations suit it as they are
+     */
+    Optional<String> hibernateMappingFile();
+
+    /**
+     * @return the {@code hibernate.hbm2ddl.auto} action: in-memory databases start empty, files keep
+     *         their rows and only gain new tables and columns
+     */
+    String schemaAction();
+
+    String usersTableDdl();
+
+    /**
+     * @return the R2DBC H2 URL (without the {@code r2dbc:h2:} prefix) of the same database, or empty
+     *         if the reactive API cannot reach it
+     */
+    Optional<String> r2dbcH2Url();
+}
@@ -2,7 +2,11 @@ package com.alexaras.finance_tracker;
 
 import org.junit.jupiter.api.*;
 
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
 import java.sql.Connection;
+import java.sql.Statement;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -15,6 +19,11 @@ class DatabaseConnectionTest {
         databaseConnection = new DatabaseConnection("jdbc:sqlite::memory:");
     }
 
+    @AfterEach
+    void tearDown() {
+        databaseConnection.close();
+    }
+
     @Test
     void testConnectionEstablished() {
         try (Connection conn = databaseConnection.getConnection()) {
@@ -28,9 +37,8 @@ class DatabaseConnectionTest {
     @Test
     void testInvalidConnection() {
         // Attempting to connect to a non-existent database path
-        DatabaseConnection invalidDatabaseConnection = new DatabaseConnection("jdbc:sqlite:invalid.db");
-
-        try (Connection conn = invalidDatabaseConnection.getConnection()) {
+        try (DatabaseConnection invalidDatabaseConnection = new DatabaseConnection("jdbc:sqlite:invalid.db");
+             Connection conn = invalidDatabaseConnection.getConnection()) {
             // Assert that the connection is not null and is open
             assertNotNull(conn);
             assertFalse(conn.isClosed());
@@ -41,4 +49,35 @@ class DatabaseConnectionTest {
             fail("Unexpected exception during invalid connection test: " + e.getMessage());
         }
     }
+
+    @Test
+    void testInMemoryDatabaseSurvivesConnectionReturn() throws Exception {
+        // Arrange: Create a table through one borrowed connection and hand it back
+        try (Connection conn = databaseConnection.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE notes (text TEXT)");
+        }
+
+        // Act & Assert: The next borrow sees the same database
+        try (Connection conn = databaseConnection.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO notes VALUES ('kept')");
+        }
+        assertEquals(1, databaseConnection.getPoolStats().total());
+    }
+
+    @Test
+    void testPoolIsBoundedAndReportsStats(@TempDir Path tempDir) throws Exception {
+        try (DatabaseConnection pool = new DatabaseConnection("jdbc:sqlite:" + tempDir.resolve("pool.db"), 2)) {
+            // Act: Hold both connections
+            try (Connection first = pool.getConnection(); Connection second = pool.getConnection()) {
+                DatabaseConnection.PoolStats busy = pool.getPoolStats();
+
+                // Assert
+                assertEquals(2, busy.active());
+                assertEquals(2, busy.maximumPoolSize());
+                assertNotSame(first.unwrap(Connection.class), second.unwrap(Connection.class));
+            }
+            assertEquals(0, pool.getPoolStats().active());
+            assertTrue(pool.getPoolStats().total() <= 2);
+        }
+    }
 }
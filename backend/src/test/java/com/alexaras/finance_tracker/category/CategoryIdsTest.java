@@ -0,0 +1,63 @@
+package com.alexaras.finance_tracker.category;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategoryIdsTest {
+
+    @Test
+    void testLooksUpBothWays() {
+        // Arrange
+        CategoryIds ids = CategoryIds.EMPTY.with(1, "Food").with(2, "Transport");
+
+        // Act & Assert
+        assertEquals(2, ids.size());
+        assertEquals(1, ids.idOf("Food"));
+        assertEquals(2, ids.idOf("Transport"));
+        assertEquals("Transport", ids.nameOf(2));
+        assertEquals(CategoryIds.NONE, ids.idOf("Housing"));
+        assertNull(ids.nameOf(3));
+        assertNull(ids.nameOf(CategoryIds.NONE));
+        assertNull(ids.nameOf(-1));
+    }
+
+    @Test
+    void testAddingLeavesTheOriginalUnchanged() {
+        // Arrange
+        CategoryIds food = CategoryIds.EMPTY.with(1, "Food");
+
+        // Act
+        CategoryIds both = food.with(2, "Transport");
+
+        // Assert
+        assertEquals(CategoryIds.NONE, food.idOf("Transport"));
+        assertEquals(2, both.idOf("Transport"));
+    }
+
+    @Test
+    void testManyCategoriesWithCollidingHashesAndGaps() {
+        // Arrange: "Aa" and "BB" share a hash code, as do all their concatenations
+        String[] names = new String[1001];
+        String[] blocks = {"Aa", "BB"};
+        for (int id = 2; id < names.length; id += 2) {
+            StringBuilder name = new StringBuilder();
+            for (int bit = 0; bit < 9; bit++) {
+                name.append(blocks[(id >> bit) & 1]);
+            }
+            names[id] = name.append(id).toString();
+        }
+
+        // Act
+        CategoryIds ids = CategoryIds.of(names).with(1001, "Last");
+
+        // Assert
+        assertEquals(501, ids.size());
+        for (int id = 2; id < names.length; id += 2) {
+            assertEquals(id, ids.idOf(names[id]));
+            assertEquals(names[id], ids.nameOf(id));
+            assertNull(ids.nameOf(id - 1));
+        }
+        assertEquals(1001, ids.idOf("Last"));
+    }
+}
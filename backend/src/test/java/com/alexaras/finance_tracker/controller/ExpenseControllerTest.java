@@ -1,23 +1,42 @@
 package com.alexaras.finance_tracker.controller;
 
+import com.alexaras.finance_tracker.dto.ExpenseFilter;
+import com.alexaras.finance_tracker.dto.ExpenseFilterPage;
+import com.alexaras.finance_tracker.dto.ExpensePage;
+import com.alexaras.finance_tracker.dto.ExpenseSearchResult;
+import com.alexaras.finance_tracker.dto.ExpenseSort;
+import com.alexaras.finance_tracker.event.ExpenseChangedEvent;
 import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.service.ExpenseSearchIndex;
 import com.alexaras.finance_tracker.service.ExpenseService;
+import com.alexaras.finance_tracker.service.ExpenseStillQueuedException;
+import com.alexaras.finance_tracker.service.ExpenseVersionConflictException;
+import com.alexaras.finance_tracker.service.ExpenseVersions;
+import com.alexaras.finance_tracker.service.WriteBehindQueueFullException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ExpenseController.class)
+@Import(ExpenseVersions.class)
 public class ExpenseControllerTest {
 
     @Autowired
@@ -26,6 +45,12 @@ public class ExpenseControllerTest {
     @MockBean
     private ExpenseService expenseService;
 
+    @MockBean
+    private ExpenseSearchIndex expenseSearchIndex;
+
+    @Autowired
+    private ExpenseVersions expenseVersions;
+
     @Test
     @WithMockUser(username = "testuser", roles = {"USER"})
     void getExpenses() throws Exception {
@@ -53,6 +78,79 @@ public class ExpenseControllerTest {
         verify(expenseService, times(1)).getAllExpenses();
     }
 
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void getExpense() throws Exception {
+        // Arrange
+        Expense expense = new Expense(BigDecimal.valueOf(50), "Food", "Groceries");
+        expense.setId(7L);
+        when(expenseService.getExpense(7L)).thenReturn(expense);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/expenses/7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(7))
+                .andExpect(jsonPath("$.category").value("Food"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void getExpensePage() throws Exception {
+        // Arrange: Mock a page that has more rows after it
+        Expense expense = new Expense(BigDecimal.valueOf(50), "Food", "Groceries");
+        expense.setId(11L);
+        when(expenseService.getExpensePage(10L, 1)).thenReturn(new ExpensePage(List.of(expense), 11L, true));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/expenses/page").param("after", "10").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(11))
+                .andExpect(jsonPath("$.nextCursor").value(11))
+                .andExpect(jsonPath("$.hasMore").value(true));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void getExpensePageClampsLimit() throws Exception {
+        when(expenseService.getExpensePage(null, 1000)).thenReturn(new ExpensePage(List.of(), null, false));
+
+        mockMvc.perform(get("/api/v1/expenses/page").param("limit", "50000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasMore").value(false));
+
+        verify(expenseService, times(1)).getExpensePage(null, 1000);
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    @SuppressWarnings("unchecked")
+    void streamExpenses() throws Exception {
+        // Arrange: Feed two expenses to whatever consumer the controller supplies
+        Expense expense1 = new Expense(BigDecimal.valueOf(50), "Food", "Groceries");
+        expense1.setId(1L);
+        Expense expense2 = new Expense(BigDecimal.valueOf(100), "Transport", "Bus ticket");
+        expense2.setId(2L);
+        doAnswer(invocation -> {
+            Consumer<Expense> consumer = invocation.getArgument(0);
+            consumer.accept(expense1);
+            consumer.accept(expense2);
+            return null;
+        }).when(expenseService).streamExpenses(any(Consumer.class));
+
+        // Act: The body is written asynchronously, so dispatch the async result
+        MvcResult result = mockMvc.perform(get("/api/v1/expenses/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert: One JSON document per line
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(
+                        "{\"id\":1,\"amount\":50,\"category\":\"Food\",\"description\":\"Groceries\",\"spentAt\":null,\"userId\":null,\"version\":null}\n" +
+                        "{\"id\":2,\"amount\":100,\"category\":\"Transport\",\"description\":\"Bus ticket\",\"spentAt\":null,\"userId\":null,\"version\":null}\n"));
+    }
+
     @Test
     @WithMockUser(username = "testuser", roles = {"ADMIN"})
     void addExpense() throws Exception {
@@ -83,6 +181,37 @@ public class ExpenseControllerTest {
         verify(expenseService, times(1)).addExpense(any(Expense.class));
     }
 
+    @Test
+    @WithMockUser(username = "testuser", roles = {"ADMIN"})
+    void addExpenseAnswers429WhenTheWriteBehindQueueIsFull() throws Exception {
+        // Arrange
+        when(expenseService.addExpense(any(Expense.class))).thenThrow(new WriteBehindQueueFullException(10));
+
+        // Act & Assert: the client is told to back off rather than getting a server error
+        mockMvc.perform(post("/api/v1/expenses")
+                        .contentType("application/json")
+                        .content("{\"amount\": 5, \"category\": \"Food\"}")
+                        .with(csrf()))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"ADMIN"})
+    void updateExpenseAnswers409WhenTheVersionIsStale() throws Exception {
+        // Arrange
+        when(expenseService.updateExpense(eq(1L), any(Expense.class)))
+                .thenThrow(new ExpenseVersionConflictException(1L, 2L, 3L));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/v1/expenses/1")
+                        .contentType("application/json")
+                        .content("{\"amount\": 5, \"category\": \"Food\", \"version\": 2}")
+                        .with(csrf()))
+                .andExpect(status().isConflict());
+        verify(expenseService, times(1)).updateExpense(eq(1L), argThat(changes -> changes.getVersion() == 2L));
+    }
+
     @Test
     @WithMockUser(username = "testuser", roles = {"ADMIN"})
     void deleteExpense() throws Exception {
@@ -94,4 +223,104 @@ public class ExpenseControllerTest {
         verify(expenseService, times(1)).deleteExpense(1L);
     }
 
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void getExpensesAnswersIfNoneMatchWithoutTheService() throws Exception {
+        // Arrange
+        when(expenseService.getAllExpenses()).thenReturn(List.of());
+        String etag = mockMvc.perform(get("/api/v1/expenses"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Act & Assert: unchanged data is answered from the version
+        mockMvc.perform(get("/api/v1/expenses").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(expenseService, times(1)).getAllExpenses();
+
+        // Act & Assert: any write makes the ETag stale
+        Expense expense = new Expense(BigDecimal.valueOf(50), "Food", "Groceries");
+        expense.setId(1L);
+        expenseVersions.onExpenseChanged(ExpenseChangedEvent.created(expense));
+        mockMvc.perform(get("/api/v1/expenses").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+        verify(expenseService, times(2)).getAllExpenses();
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void searchExpenses() throws Exception {
+        // Arrange
+        Expense expense = new Expense(BigDecimal.valueOf(4), "Food", "Morning coffee");
+        expense.setId(7L);
+        when(expenseSearchIndex.search("coff", 20)).thenReturn(List.of(new ExpenseSearchResult(expense, 1.5)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/expenses/search").param("q", "coff"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].expense.id").value(7))
+                .andExpect(jsonPath("$[0].expense.description").value("Morning coffee"))
+                .andExpect(jsonPath("$[0].score").value(1.5));
+
+        // The limit is capped at the maximum page size
+        mockMvc.perform(get("/api/v1/expenses/search").param("q", "coff").param("limit", "5000"))
+                .andExpect(status().isOk());
+        verify(expenseSearchIndex).search("coff", 1000);
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void filterExpenses() throws Exception {
+        // Arrange
+        Expense expense = new Expense(BigDecimal.valueOf(12), "Food", "Lunch");
+        expense.setId(3L);
+        ExpenseFilter filter = new ExpenseFilter(List.of("Food", "Rent"), new BigDecimal("10"), null,
+                LocalDate.of(2024, 5, 1), null, ExpenseSort.AMOUNT, Sort.Direction.ASC);
+        when(expenseService.filterExpenses(filter, "9.50_2", 50))
+                .thenReturn(new ExpenseFilterPage(List.of(expense), "12_3", true));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/expenses/filter")
+                        .param("category", "Food", "Rent")
+                        .param("minAmount", "10")
+                        .param("from", "2024-05-01")
+                        .param("sort", "AMOUNT")
+                        .param("direction", "ASC")
+                        .param("after", "9.50_2")
+                        .param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(3))
+                .andExpect(jsonPath("$.nextCursor").value("12_3"))
+                .andExpect(jsonPath("$.hasMore").value(true));
+        verify(expenseService).filterExpenses(filter, "9.50_2", 50);
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void filterExpensesWithAMalformedCursorIsABadRequest() throws Exception {
+        // Arrange
+        when(expenseService.filterExpenses(any(), eq("not-a-cursor"), anyInt()))
+                .thenThrow(new IllegalArgumentException("Invalid cursor for sort AMOUNT: not-a-cursor"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/expenses/filter")
+                        .param("sort", "AMOUNT")
+                        .param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid cursor for sort AMOUNT: not-a-cursor"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void deleteQueuedExpenseIsTooEarly() throws Exception {
+        // Arrange
+        doThrow(new ExpenseStillQueuedException(-1L)).when(expenseService).deleteExpense(-1L);
+
+        // Act & Assert
+        mockMvc.perform(delete("/api/v1/expenses/-1").with(csrf()))
+                .andExpect(status().isTooEarly())
+                .andExpect(header().string("Retry-After", "1"));
+    }
 }
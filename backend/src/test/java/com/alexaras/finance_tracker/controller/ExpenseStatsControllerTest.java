@@ -0,0 +1,122 @@
+package com.alexaras.finance_tracker.controller;
+
+import com.alexaras.finance_tracker.dto.BucketStats;
+import com.alexaras.finance_tracker.dto.CategoryStats;
+import com.alexaras.finance_tracker.dto.CategoryTotal;
+import com.alexaras.finance_tracker.dto.TimeBucket;
+import com.alexaras.finance_tracker.event.ExpenseChangedEvent;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.service.CategoryTotalsCache;
+import com.alexaras.finance_tracker.service.ExpenseService;
+import com.alexaras.finance_tracker.service.ExpenseVersions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ExpenseStatsController.class)
+@Import(ExpenseVersions.class)
+public class ExpenseStatsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ExpenseService expenseService;
+
+    @Autowired
+    private ExpenseVersions expenseVersions;
+
+    @MockBean
+    private CategoryTotalsCache categoryTotalsCache;
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void getCategoryTotalsIsServedFromMemory() throws Exception {
+        // Arrange
+        when(categoryTotalsCache.getTotals())
+                .thenReturn(List.of(new CategoryTotal("Food", 3, new BigDecimal("42.50"))));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/expenses/stats/totals"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].category").value("Food"))
+                .andExpect(jsonPath("$[0].count").value(3))
+                .andExpect(jsonPath("$[0].total").value(42.5));
+
+        verifyNoInteractions(expenseService);
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void getCategoryStats() throws Exception {
+        // Arrange: Mock the aggregated result
+        when(expenseService.getCategoryStats(LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31)))
+                .thenReturn(List.of(new CategoryStats("Food", 2L, BigDecimal.valueOf(75),
+                        BigDecimal.valueOf(25), BigDecimal.valueOf(50))));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/expenses/stats/categories")
+                        .param("from", "2024-05-01")
+                        .param("to", "2024-05-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].category").value("Food"))
+                .andExpect(jsonPath("$[0].count").value(2))
+                .andExpect(jsonPath("$[0].total").value(75))
+                .andExpect(jsonPath("$[0].min").value(25))
+                .andExpect(jsonPath("$[0].max").value(50))
+                .andExpect(jsonPath("$[0].average").value(37.5));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void getTimelineDefaultsToMonthlyBuckets() throws Exception {
+        // Arrange
+        when(expenseService.getTimeline(TimeBucket.MONTH, "Food", null, null))
+                .thenReturn(List.of(new BucketStats(LocalDate.of(2024, 5, 1), 1L, BigDecimal.TEN,
+                        BigDecimal.TEN, BigDecimal.TEN)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/expenses/stats/timeline").param("category", "Food"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].bucketStart").value("2024-05-01"))
+                .andExpect(jsonPath("$[0].total").value(10));
+
+        verify(expenseService, times(1)).getTimeline(TimeBucket.MONTH, "Food", null, null);
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void categoryTimelineIgnoresWritesToOtherCategories() throws Exception {
+        // Arrange
+        when(expenseService.getTimeline(TimeBucket.MONTH, "Food", null, null)).thenReturn(List.of());
+        String foodETag = mockMvc.perform(get("/api/v1/expenses/stats/timeline").param("category", "Food"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        String totalsETag = mockMvc.perform(get("/api/v1/expenses/stats/totals"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Act: a write to another category
+        Expense taxi = new Expense(BigDecimal.TEN, "Transport", "Taxi");
+        taxi.setId(1L);
+        expenseVersions.onExpenseChanged(ExpenseChangedEvent.created(taxi));
+
+        // Assert: the Food view is still current, the overall totals are not
+        mockMvc.perform(get("/api/v1/expenses/stats/timeline").param("category", "Food").header("If-None-Match", foodETag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/v1/expenses/stats/totals").header("If-None-Match", totalsETag))
+                .andExpect(status().isOk());
+        verify(expenseService, times(1)).getTimeline(TimeBucket.MONTH, "Food", null, null);
+    }
+}
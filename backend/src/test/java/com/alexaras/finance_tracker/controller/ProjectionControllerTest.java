@@ -0,0 +1,65 @@
+package com.alexaras.finance_tracker.controller;
+
+import com.alexaras.finance_tracker.dto.UserProjection;
+import com.alexaras.finance_tracker.model.RecurringExpense;
+import com.alexaras.finance_tracker.service.ProjectionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ProjectionController.class)
+public class ProjectionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ProjectionService projectionService;
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void getProjectionLimitsTheNumberOfMonths() throws Exception {
+        // Arrange
+        when(projectionService.getProjection(eq(1), anyInt()))
+                .thenAnswer(invocation -> new UserProjection(1, LocalDate.now(), invocation.getArgument(1), List.of()));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/users/1/projections"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.months").value(3));
+        mockMvc.perform(get("/api/v1/users/1/projections").param("months", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.months").value(24));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"USER"})
+    void invalidRecurringExpenseIsABadRequest() throws Exception {
+        // Arrange
+        when(projectionService.addRecurringExpense(eq(1), any(RecurringExpense.class)))
+                .thenThrow(new IllegalArgumentException("recurrence is required"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/users/1/recurring-expenses")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 10.00, \"category\": \"Food\"}")
+                        .with(csrf()))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("recurrence is required"));
+    }
+}
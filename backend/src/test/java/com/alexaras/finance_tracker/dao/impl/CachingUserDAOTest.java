@@ -0,0 +1,183 @@
+package com.alexaras.finance_tracker.dao.impl;
+
+import com.alexaras.finance_tracker.DatabaseConnection;
+import com.alexaras.finance_tracker.dao.UserDAO;
+import com.alexaras.finance_tracker.model.User;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CachingUserDAOTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private DatabaseConnection database;
+    private UserDAOImpl userDAO;
+    private CachingUserDAO cachingDAO;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        database = new DatabaseConnection("jdbc:sqlite::memory:");
+        try (Connection connection = database.getConnection(); Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE users (id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT NOT NULL, email TEXT UNIQUE NOT NULL)");
+        }
+        userDAO = new UserDAOImpl(database.getDataSource());
+        cachingDAO = new CachingUserDAO(userDAO, 100, Duration.ofMinutes(10), nanos::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cachingDAO.close();
+        database.close();
+    }
+
+    @Test
+    void repeatedLookupsHitTheCache() {
+        // Arrange
+        User user = new User(0, "Alice", "alice@example.com");
+        cachingDAO.createUsers(List.of(user));
+
+        // Act
+        User first = cachingDAO.findById(user.getId());
+        User second = cachingDAO.findById(user.getId());
+
+        // Assert
+        assertEquals("Alice", second.getName());
+        assertNotSame(first, second, "Callers should get their own copy");
+        assertEquals(1, cachingDAO.stats().missCount());
+        assertEquals(1, cachingDAO.stats().hitCount());
+    }
+
+    @Test
+    void changingACopyDoesNotChangeTheCachedUser() {
+        User user = new User(0, "Alice", "alice@example.com");
+        cachingDAO.createUsers(List.of(user));
+
+        cachingDAO.findById(user.getId()).setName("Mallory");
+
+        assertEquals("Alice", cachingDAO.findById(user.getId()).getName());
+    }
+
+    @Test
+    void updatesAndDeletesInvalidateTheEntry() {
+        // Arrange
+        User user = new User(0, "Alice", "alice@example.com");
+        cachingDAO.createUsers(List.of(user));
+        cachingDAO.findById(user.getId());
+
+        // Act & Assert
+        cachingDAO.updateUser(new User(user.getId(), "Alicia", "alice@example.com"));
+        assertEquals("Alicia", cachingDAO.findById(user.getId()).getName());
+
+        cachingDAO.deleteUser(user.getId());
+        assertNull(cachingDAO.findById(user.getId()));
+    }
+
+    @Test
+    void missingUsersAreNotCached() {
+        assertNull(cachingDAO.findById(42));
+
+        User user = new User(0, "Bob", "bob@example.com");
+        cachingDAO.createUsers(List.of(user));
+
+        assertEquals("Bob", cachingDAO.findById(user.getId()).getName());
+    }
+
+    @Test
+    void entriesExpireAfterTheTimeToLive() {
+        // Arrange: change the row behind the cache's back
+        User user = new User(0, "Alice", "alice@example.com");
+        cachingDAO.createUsers(List.of(user));
+        cachingDAO.findById(user.getId());
+        userDAO.updateUser(new User(user.getId(), "Alicia", "alice@example.com"));
+
+        // Act & Assert: the stale value is served until it expires
+        assertEquals("Alice", cachingDAO.findById(user.getId()).getName());
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(11));
+        assertEquals("Alicia", cachingDAO.findById(user.getId()).getName());
+    }
+
+    @Test
+    void findByIdsLoadsOnlyTheMissingUsers() {
+        // Arrange
+        User alice = new User(0, "Alice", "alice@example.com");
+        User bob = new User(0, "Bob", "bob@example.com");
+        cachingDAO.createUsers(List.of(alice, bob));
+        cachingDAO.findById(alice.getId());
+
+        // Act
+        List<User> users = cachingDAO.findByIds(List.of(bob.getId(), 999, alice.getId()));
+
+        // Assert: order follows the request and unknown IDs are skipped
+        assertEquals(List.of("Bob", "Alice"), users.stream().map(User::getName).toList());
+        assertEquals(1, cachingDAO.stats().hitCount());
+        assertEquals(3, cachingDAO.stats().missCount());
+    }
+
+    @Test
+    void closeWaitsForLoadsInFlightAndStopsTheLoader() throws Exception {
+        // Arrange: a load that is still running when the DAO is closed
+        CountDownLatch loading = new CountDownLatch(1);
+        UserDAO slowDAO = mock(UserDAO.class);
+        when(slowDAO.findById(anyInt())).thenAnswer(invocation -> {
+            loading.countDown();
+            Thread.sleep(100);
+            return new User(invocation.getArgument(0), "Alice", "alice@example.com");
+        });
+        CachingUserDAO dao = new CachingUserDAO(slowDAO, 100, Duration.ofMinutes(10));
+        CompletableFuture<User> inFlight = CompletableFuture.supplyAsync(() -> dao.findById(1));
+        assertTrue(loading.await(1, TimeUnit.SECONDS));
+
+        // Act
+        dao.close();
+
+        // Assert
+        assertEquals("Alice", inFlight.get(1, TimeUnit.SECONDS).getName());
+        assertThrows(RejectedExecutionException.class, () -> dao.findById(2));
+    }
+
+    @Test
+    void cacheMissesDoNotPinVirtualThreads(@TempDir Path tempDir) throws Exception {
+        // Arrange: a slow database, so the loading thread has to park
+        UserDAO slowDAO = mock(UserDAO.class);
+        when(slowDAO.findById(anyInt())).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            return new User(invocation.getArgument(0), "Alice", "alice@example.com");
+        });
+        try (CachingUserDAO dao = new CachingUserDAO(slowDAO, 100, Duration.ofMinutes(10));
+             Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+            recording.start();
+
+            // Act
+            Thread.ofVirtual().start(() -> dao.findById(1)).join();
+
+            // Assert
+            recording.stop();
+            Path file = tempDir.resolve("pinned.jfr");
+            recording.dump(file);
+            assertEquals(List.of(), RecordingFile.readAllEvents(file),
+                    "Loading a user parked the virtual thread while pinned to its carrier");
+            assertEquals("Alice", dao.findById(1).getName());
+        }
+    }
+}
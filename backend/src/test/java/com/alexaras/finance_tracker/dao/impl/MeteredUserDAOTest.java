@@ -0,0 +1,96 @@
+package com.alexaras.finance_tracker.dao.impl;
+
+import com.alexaras.finance_tracker.DatabaseConnection;
+import com.alexaras.finance_tracker.model.User;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeteredUserDAOTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private DatabaseConnection database;
+    private MeteredUserDAO meteredDAO;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        database = new DatabaseConnection("jdbc:sqlite::memory:");
+        try (Connection connection = database.getConnection(); Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE users (id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT NOT NULL, email TEXT UNIQUE NOT NULL)");
+        }
+        meteredDAO = new MeteredUserDAO(new UserDAOImpl(database.getDataSource()), registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    void timesEachMethodAndCountsRows() {
+        // Act
+        List<User> created = meteredDAO.createUsers(List.of(
+                new User(0, "Alice", "alice@example.com"),
+                new User(0, "Bob", "bob@example.com")));
+        meteredDAO.findById(created.get(0).getId());
+        meteredDAO.findAll();
+
+        // Assert
+        assertEquals(1, timer("createUsers").count());
+        assertEquals(1, timer("findById").count());
+        assertEquals(1, timer("findAll").count());
+        assertEquals(2, rows("written"));
+        assertEquals(3, rows("read"));
+    }
+
+    @Test
+    void streamedRowsAreCountedAsTheyAreConsumed() {
+        // Arrange
+        meteredDAO.createUsers(List.of(
+                new User(0, "Alice", "alice@example.com"),
+                new User(0, "Bob", "bob@example.com")));
+
+        // Act
+        try (Stream<User> users = meteredDAO.streamAll(10)) {
+            assertEquals(1, users.limit(1).count());
+        }
+
+        // Assert
+        assertEquals(1, rows("read"));
+    }
+
+    @Test
+    void failuresAreTaggedWithTheException() {
+        // Arrange: a duplicate email violates the unique constraint
+        meteredDAO.createUsers(List.of(new User(0, "Alice", "alice@example.com")));
+
+        // Act
+        assertThrows(RuntimeException.class, () ->
+                meteredDAO.createUsers(List.of(new User(0, "Alice", "alice@example.com"))));
+
+        // Assert
+        Timer failed = registry.get(MeteredUserDAO.TIMER)
+                .tags("method", "createUsers", "exception", "RuntimeException")
+                .timer();
+        assertEquals(1, failed.count());
+        assertEquals(1, rows("written"));
+    }
+
+    private Timer timer(String method) {
+        return registry.get(MeteredUserDAO.TIMER).tags("method", method, "exception", "none").timer();
+    }
+
+    private double rows(String operation) {
+        return registry.get(MeteredUserDAO.ROWS).tag("operation", operation).counter().count();
+    }
+}
@@ -0,0 +1,134 @@
+package com.alexaras.finance_tracker.dao.impl;
+
+import com.alexaras.finance_tracker.DatabaseConnection;
+import com.alexaras.finance_tracker.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the streaming cursor against both drivers the DAO is used with.
+ */
+class UserDAOImplStreamingTest {
+
+    private static final int USER_COUNT = 1200;
+
+    @TempDir
+    Path tempDir;
+
+    private DatabaseConnection pool;
+    private UserDAOImpl userDAO;
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"sqlite", "h2"})
+    void streamAllVisitsEveryUserInIdOrder(String database) throws Exception {
+        setUp(database);
+
+        try (Stream<User> users = userDAO.streamAll(100)) {
+            List<Integer> ids = users.map(User::getId).toList();
+
+            assertEquals(USER_COUNT, ids.size());
+            assertEquals(IntStream.rangeClosed(1, USER_COUNT).boxed().toList(), ids);
+        }
+        assertEquals(0, pool.getPoolStats().active(), "The connection should be back in the pool.");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"sqlite", "h2"})
+    void closingAPartlyReadStreamReleasesTheConnection(String database) throws Exception {
+        setUp(database);
+
+        try (Stream<User> users = userDAO.streamAll(10)) {
+            assertEquals(5, users.limit(5).count());
+            assertEquals(1, pool.getPoolStats().active(), "The cursor holds its connection while open.");
+        }
+        assertEquals(0, pool.getPoolStats().active());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"sqlite", "h2"})
+    void exhaustingTheCursorReleasesTheConnectionWithoutClose(String database) throws Exception {
+        setUp(database);
+
+        Iterator<User> users = userDAO.streamAll(500).iterator();
+        int count = 0;
+        while (users.hasNext()) {
+            users.next();
+            count++;
+        }
+
+        assertEquals(USER_COUNT, count);
+        assertEquals(0, pool.getPoolStats().active());
+    }
+
+    @Test
+    void closeReleasesEverythingAndKeepsTheFirstFailure() throws Exception {
+        // Arrange: the result set and the statement both fail to close
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        SQLException resultSetFailure = new SQLException("result set");
+        SQLException statementFailure = new SQLException("statement");
+        doThrow(resultSetFailure).when(resultSet).close();
+        doThrow(statementFailure).when(statement).close();
+        Stream<User> users = new UserDAOImpl(dataSource).streamAll(10);
+
+        // Act
+        RuntimeException e = assertThrows(RuntimeException.class, users::close);
+
+        // Assert
+        assertSame(resultSetFailure, e.getCause());
+        assertArrayEquals(new Throwable[]{statementFailure}, resultSetFailure.getSuppressed());
+        verify(connection).close();
+    }
+
+    private void setUp(String database) throws Exception {
+        String url;
+        String ddl;
+        if (database.equals("sqlite")) {
+            url = "jdbc:sqlite:" + tempDir.resolve("stream.db");
+            ddl = "CREATE TABLE users (id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT NOT NULL, email TEXT UNIQUE NOT NULL)";
+        } else {
+            url = "jdbc:h2:mem:stream_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+            ddl = "CREATE TABLE users (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255) NOT NULL, email VARCHAR(255) UNIQUE NOT NULL)";
+        }
+        pool = new DatabaseConnection(url, 2);
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute(ddl);
+        }
+        userDAO = new UserDAOImpl(pool.getDataSource());
+        userDAO.createUsers(IntStream.rangeClosed(1, USER_COUNT)
+                .mapToObj(i -> new User(0, "User " + i, "user" + i + "@example.com"))
+                .toList());
+    }
+}
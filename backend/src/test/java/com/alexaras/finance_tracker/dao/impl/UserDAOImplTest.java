@@ -1,12 +1,21 @@
 package com.alexaras.finance_tracker.dao.impl;
 
+import com.alexaras.finance_tracker.DatabaseConnection;
 import com.alexaras.finance_tracker.model.User;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteDataSource;
 
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -47,6 +56,11 @@ class UserDAOImplTest {
         }
     }
 
+    @AfterEach
+    void tearDown() {
+        userDAO.close();
+    }
+
     @AfterAll
     void tearDownClass() {
         try {
@@ -67,6 +81,7 @@ class UserDAOImplTest {
         List<User> users = userDAO.findAll();
         assertEquals(1, users.size());
         assertEquals("Alex", users.get(0).getName());
+        assertEquals(users.get(0).getId(), user.getId());
     }
 
     @Test
@@ -103,4 +118,156 @@ class UserDAOImplTest {
         User fetchedUser = userDAO.findById(1);
         assertNull(fetchedUser, "Fetched user should be null after deletion.");
     }
+
+    @Test
+    void testPreparedStatementsAreReused() {
+        userDAO.createUser(new User(0, "Alex", "alex@example.com"));
+
+        userDAO.findById(1);
+        userDAO.findById(1);
+        userDAO.findById(1);
+
+        assertEquals(2, userDAO.statementCacheHits(), "Only the first lookup should prepare the statement.");
+    }
+
+    @Test
+    void testConcurrentLookupsOnTheSharedConnectionKeepTheirOwnParameters() throws Exception {
+        // Arrange
+        List<User> created = userDAO.createUsers(IntStream.range(0, 20)
+                .mapToObj(i -> new User(0, "User " + i, "user" + i + "@example.com"))
+                .toList());
+
+        // Act: Eight threads look up different users through the one connection
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<User>> lookups = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            int id = created.get(i % created.size()).getId();
+            lookups.add(executor.submit(() -> userDAO.findById(id)));
+        }
+
+        // Assert: Every lookup found the user it asked for
+        for (int i = 0; i < lookups.size(); i++) {
+            assertEquals(created.get(i % created.size()).getEmail(), lookups.get(i).get().getEmail());
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void testPooledLookupsUnderConcurrentLoad(@TempDir Path tempDir) throws Exception {
+        // Arrange: A file database behind a pool of four connections
+        try (DatabaseConnection pool = new DatabaseConnection("jdbc:sqlite:" + tempDir.resolve("users.db"), 4)) {
+            try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE users (id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT NOT NULL, email TEXT UNIQUE NOT NULL)");
+            }
+            UserDAOImpl pooledDAO = new UserDAOImpl(pool.getDataSource());
+            pooledDAO.createUser(new User(0, "Alex", "alex@example.com"));
+
+            // Act: Eight threads share the four connections
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            List<Future<User>> lookups = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                lookups.add(executor.submit(() -> pooledDAO.findById(1)));
+            }
+            for (Future<User> lookup : lookups) {
+                assertEquals("Alex", lookup.get().getName());
+            }
+            executor.shutdown();
+
+            // Assert: Connections were returned and statements came from the cache
+            assertEquals(0, pool.getPoolStats().active());
+            assertTrue(pool.getPoolStats().total() <= 4);
+            assertTrue(pooledDAO.statementCacheHits() >= 400 - 4);
+            assertTrue(pooledDAO.statementCacheConnections() <= 4);
+            pooledDAO.close();
+        }
+    }
+
+    @Test
+    void testStatementsOfClosedConnectionsAreDropped(@TempDir Path tempDir) throws Exception {
+        // Arrange: A data source without a pool, so every call opens a connection and closes it afterwards
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + tempDir.resolve("users.db"));
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE users (id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT NOT NULL, email TEXT UNIQUE NOT NULL)");
+        }
+        try (UserDAOImpl unpooledDAO = new UserDAOImpl(dataSource)) {
+            unpooledDAO.createUser(new User(0, "Alex", "alex@example.com"));
+
+            // Act
+            for (int i = 0; i < 50; i++) {
+                assertEquals("Alex", unpooledDAO.findById(1).getName());
+            }
+
+            // Assert: Only the statements of the last connection are still held
+            assertEquals(1, unpooledDAO.statementCacheConnections());
+            assertEquals(0, unpooledDAO.statementCacheHits());
+        }
+    }
+
+    @Test
+    void testCreateUsersReturnsGeneratedIds() {
+        // Arrange: More users than fit in one JDBC batch
+        List<User> users = IntStream.range(0, UserDAOImpl.BATCH_SIZE + 10)
+                .mapToObj(i -> new User(0, "User " + i, "user" + i + "@example.com"))
+                .toList();
+
+        // Act
+        List<User> created = userDAO.createUsers(users);
+
+        // Assert: Every user got the ID the database assigned to it
+        assertEquals(users.size(), created.size());
+        for (User user : created) {
+            User fetched = userDAO.findById(user.getId());
+            assertNotNull(fetched);
+            assertEquals(user.getEmail(), fetched.getEmail());
+        }
+    }
+
+    @Test
+    void testCreateUsersIsAllOrNothing() {
+        userDAO.createUser(new User(0, "Alex", "alex@example.com"));
+
+        // The second user violates the unique email constraint
+        List<User> users = List.of(new User(0, "Sam", "sam@example.com"), new User(0, "Alex Again", "alex@example.com"));
+        assertThrows(RuntimeException.class, () -> userDAO.createUsers(users));
+
+        assertEquals(1, userDAO.findAll().size(), "No user from the failed batch should be stored.");
+    }
+
+    @Test
+    void testFindByIdsKeepsRequestOrderAndSkipsUnknownIds() {
+        List<User> created = userDAO.createUsers(List.of(
+                new User(0, "A", "a@example.com"), new User(0, "B", "b@example.com"), new User(0, "C", "c@example.com")));
+
+        List<User> found = userDAO.findByIds(List.of(created.get(2).getId(), 999, created.get(0).getId(), created.get(2).getId()));
+
+        assertEquals(List.of("C", "A"), found.stream().map(User::getName).toList());
+    }
+
+    @Test
+    void testDeleteUsersReturnsDeletedCount() {
+        List<User> created = userDAO.createUsers(List.of(
+                new User(0, "A", "a@example.com"), new User(0, "B", "b@example.com"), new User(0, "C", "c@example.com")));
+
+        int deleted = userDAO.deleteUsers(List.of(created.get(0).getId(), created.get(1).getId(), 999));
+
+        assertEquals(2, deleted);
+        assertEquals(List.of("C"), userDAO.findAll().stream().map(User::getName).toList());
+    }
+
+    @Test
+    void testCreateUsersUsesDriverKeysOnH2() throws Exception {
+        // H2 reports one generated key per batched row rather than only the last one
+        try (Connection h2 = DriverManager.getConnection("jdbc:h2:mem:batch_keys")) {
+            try (Statement stmt = h2.createStatement()) {
+                stmt.execute("CREATE TABLE users (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255) NOT NULL, email VARCHAR(255) UNIQUE NOT NULL)");
+                stmt.execute("ALTER TABLE users ALTER COLUMN id RESTART WITH 100");
+            }
+            UserDAOImpl h2DAO = new UserDAOImpl(h2);
+
+            List<User> created = h2DAO.createUsers(List.of(new User(0, "A", "a@example.com"), new User(0, "B", "b@example.com")));
+
+            assertEquals(List.of(100, 101), created.stream().map(User::getId).toList());
+        }
+    }
 }
@@ -0,0 +1,77 @@
+package com.alexaras.finance_tracker.importer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvExpenseRowReaderTest {
+
+    @Test
+    void readsColumnsByHeaderName() throws IOException {
+        List<ParsedRow> rows = readAll("""
+                category,amount,spent_at,description
+                Food,12.50,2024-05-03,"Lunch, with ""friends""\"
+                Transport,3,2024-05-04T08:15:00,
+                """);
+
+        assertEquals(2, rows.size());
+        assertTrue(rows.get(0).isValid());
+        assertEquals(new BigDecimal("12.50"), rows.get(0).expense().getAmount());
+        assertEquals("Food", rows.get(0).expense().getCategory());
+        assertEquals("Lunch, with \"friends\"", rows.get(0).expense().getDescription());
+        assertEquals(LocalDateTime.of(2024, 5, 3, 0, 0), rows.get(0).expense().getSpentAt());
+        assertNull(rows.get(1).expense().getDescription());
+        assertEquals(LocalDateTime.of(2024, 5, 4, 8, 15), rows.get(1).expense().getSpentAt());
+    }
+
+    @Test
+    void quotedFieldsMaySpanLines() throws IOException {
+        List<ParsedRow> rows = readAll("amount,category,description\n5,Food,\"first line\nsecond line\"\n");
+
+        assertEquals(1, rows.size());
+        assertEquals("first line\nsecond line", rows.get(0).expense().getDescription());
+    }
+
+    @Test
+    void invalidRowsAreReportedAndReadingContinues() throws IOException {
+        List<ParsedRow> rows = readAll("""
+                amount,category
+                abc,Food
+                10,
+                7,Rent
+                1.005,Food
+                """);
+
+        assertEquals(4, rows.size());
+        assertEquals(new ParsedRow(1, null, "amount is not a number: abc"), rows.get(0));
+        assertEquals(new ParsedRow(2, null, "category is required"), rows.get(1));
+        assertTrue(rows.get(2).isValid());
+        assertEquals(3, rows.get(2).row());
+        assertEquals(new ParsedRow(4, null, "amount is not a whole number of cents: 1.005"), rows.get(3));
+    }
+
+    @Test
+    void missingRequiredColumnIsRejected() {
+        assertThrows(IOException.class, () -> readAll("amount,description\n1,Coffee\n"));
+    }
+
+    private static List<ParsedRow> readAll(String csv) throws IOException {
+        List<ParsedRow> rows = new ArrayList<>();
+        try (CsvExpenseRowReader reader = new CsvExpenseRowReader(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)))) {
+            ParsedRow row;
+            while ((row = reader.next()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
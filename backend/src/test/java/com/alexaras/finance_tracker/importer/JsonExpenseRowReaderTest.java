@@ -0,0 +1,59 @@
+package com.alexaras.finance_tracker.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonExpenseRowReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void readsTopLevelArray() throws IOException {
+        List<ParsedRow> rows = readAll("""
+                [
+                  {"amount": 0.10, "category": "Food", "description": "Gum"},
+                  {"amount": "25", "category": "Rent", "spentAt": "2024-05-01"}
+                ]
+                """);
+
+        assertEquals(2, rows.size());
+        assertEquals(new BigDecimal("0.10"), rows.get(0).expense().getAmount());
+        assertEquals("Gum", rows.get(0).expense().getDescription());
+        assertEquals("Rent", rows.get(1).expense().getCategory());
+    }
+
+    @Test
+    void readsNewlineDelimitedObjects() throws IOException {
+        List<ParsedRow> rows = readAll("""
+                {"amount": 1, "category": "Food"}
+                {"amount": 2}
+                "not an object"
+                """);
+
+        assertEquals(3, rows.size());
+        assertTrue(rows.get(0).isValid());
+        assertEquals(new ParsedRow(2, null, "category is required"), rows.get(1));
+        assertEquals(new ParsedRow(3, null, "expected a JSON object"), rows.get(2));
+    }
+
+    private List<ParsedRow> readAll(String json) throws IOException {
+        List<ParsedRow> rows = new ArrayList<>();
+        try (JsonExpenseRowReader reader = new JsonExpenseRowReader(objectMapper,
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)))) {
+            ParsedRow row;
+            while ((row = reader.next()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
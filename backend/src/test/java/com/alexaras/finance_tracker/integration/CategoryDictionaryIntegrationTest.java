@@ -0,0 +1,120 @@
+package com.alexaras.finance_tracker.integration;
+
+import com.alexaras.finance_tracker.category.CategoryDictionary;
+import com.alexaras.finance_tracker.dto.CategoryStats;
+import com.alexaras.finance_tracker.dto.ExpenseFilter;
+import com.alexaras.finance_tracker.dto.ExpenseSort;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.service.CategoryTotalsCache;
+import com.alexaras.finance_tracker.service.ExpenseSearchIndex;
+import com.alexaras.finance_tracker.service.ExpenseService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: categories are committed on their own connection
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class CategoryDictionaryIntegrationTest {
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private CategoryDictionary categoryDictionary;
+
+    @Autowired
+    private CategoryTotalsCache categoryTotalsCache;
+
+    @Autowired
+    private ExpenseSearchIndex expenseSearchIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        expenseRepository.deleteAll();
+        categoryTotalsCache.rebuild();
+        expenseSearchIndex.rebuild();
+    }
+
+    @Test
+    void testExpensesStoreTheCategoryId() {
+        // Arrange & Act
+        Expense lunch = expenseService.addExpense(new Expense(BigDecimal.valueOf(12), "Dictionary Food", "Lunch"));
+
+        // Assert
+        int id = categoryDictionary.find("Dictionary Food");
+        assertNotEquals(CategoryDictionary.UNKNOWN, id);
+        assertEquals(id, jdbcTemplate.queryForObject(
+                "SELECT category_id FROM expenses WHERE id = ?", Integer.class, lunch.getId()));
+        assertEquals("Dictionary Food", jdbcTemplate.queryForObject(
+                "SELECT name FROM categories WHERE id = ?", String.class, id));
+        assertEquals("Dictionary Food", expenseRepository.findCurrentById(lunch.getId()).orElseThrow().getCategory());
+    }
+
+    @Test
+    void testUpdatesToANewCategoryRegisterIt() {
+        // Arrange
+        Expense bus = expenseService.addExpense(new Expense(BigDecimal.valueOf(3), "Dictionary Transport", "Bus"));
+
+        // Act
+        expenseService.updateExpense(bus.getId(), new Expense(BigDecimal.valueOf(3), "Dictionary Commute", "Bus"));
+
+        // Assert
+        assertEquals("Dictionary Commute", expenseRepository.findCurrentById(bus.getId()).orElseThrow().getCategory());
+        assertEquals(List.of(bus.getId()), expenseRepository.findByCategory("Dictionary Commute").stream()
+                .map(Expense::getId)
+                .toList());
+    }
+
+    @Test
+    void testFilteringOnAnUnknownCategoryMatchesNothingAndAddsNothing() {
+        // Arrange
+        expenseService.addExpense(new Expense(BigDecimal.valueOf(5), "Dictionary Known", "Snack"));
+        int categories = categoryDictionary.size();
+        ExpenseFilter filter = new ExpenseFilter(List.of("Dictionary Known", "Dictionary Made Up"), null, null,
+                null, null, ExpenseSort.SPENT_AT, Sort.Direction.DESC);
+
+        // Act
+        List<Expense> known = expenseService.filterExpenses(filter, null, 10).items();
+        List<Expense> madeUp = expenseRepository.findByCategory("Dictionary Made Up");
+
+        // Assert
+        assertEquals(1, known.size());
+        assertTrue(madeUp.isEmpty());
+        assertEquals(categories, categoryDictionary.size());
+        assertEquals(CategoryDictionary.UNKNOWN, categoryDictionary.find("Dictionary Made Up"));
+    }
+
+    @Test
+    void testStatsAreSortedByNameWhateverTheIds() {
+        // Arrange: the later name sorts first
+        expenseService.addExpense(new Expense(BigDecimal.valueOf(10), "Dictionary Zoo", "Tickets"));
+        expenseService.addExpense(new Expense(BigDecimal.valueOf(20), "Dictionary Aquarium", "Tickets"));
+        assertTrue(categoryDictionary.find("Dictionary Zoo") < categoryDictionary.find("Dictionary Aquarium"));
+
+        // Act
+        List<CategoryStats> stats = expenseService.getCategoryStats(null, null);
+
+        // Assert
+        assertEquals(List.of("Dictionary Aquarium", "Dictionary Zoo"),
+                stats.stream().map(CategoryStats::category).toList());
+    }
+}
@@ -0,0 +1,129 @@
+package com.alexaras.finance_tracker.integration;
+
+import com.alexaras.finance_tracker.config.ExpenseColumnsHttpMessageConverter;
+import com.alexaras.finance_tracker.dto.ExpenseColumns;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.service.CategoryTotalsCache;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs a real server: compression happens in Tomcat, which MockMvc bypasses
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class ContentNegotiationIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private CategoryTotalsCache categoryTotalsCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private List<Expense> saved;
+
+    @BeforeEach
+    void setUp() {
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            expenses.add(new Expense(new BigDecimal("12.34").add(BigDecimal.valueOf(i)), i % 2 == 0 ? "Food" : "Transport",
+                    "Expense " + i, LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000)));
+        }
+        saved = expenseRepository.saveAll(expenses);
+    }
+
+    @AfterEach
+    void tearDown() {
+        expenseRepository.deleteAll();
+        categoryTotalsCache.rebuild();
+    }
+
+    @Test
+    void testJsonIsStillTheDefault() throws Exception {
+        HttpResponse<byte[]> response = get("*/*", null);
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("application/json"));
+    }
+
+    @Test
+    void testCborAndSmileDecodeToTheSameExpensesAsJson() throws Exception {
+        List<Expense> json = objectMapper.readValue(get("application/json", null).body(), new TypeReference<>() { });
+        List<Expense> cbor = objectMapper.copyWith(new CBORFactory())
+                .readValue(get("application/cbor", null).body(), new TypeReference<>() { });
+        List<Expense> smile = objectMapper.copyWith(new SmileFactory())
+                .readValue(get("application/x-jackson-smile", null).body(), new TypeReference<>() { });
+
+        assertEquals(json.toString(), cbor.toString());
+        assertEquals(json.toString(), smile.toString());
+    }
+
+    @Test
+    void testExpenseColumnsRoundTripExactly() throws Exception {
+        // Act
+        HttpResponse<byte[]> response = get(ExpenseColumnsHttpMessageConverter.MEDIA_TYPE_VALUE, null);
+        ExpenseColumns columns = objectMapper.copyWith(new CBORFactory()).readValue(response.body(), ExpenseColumns.class);
+
+        // Assert: amounts come back as cents, categories as a dictionary
+        assertEquals(200, response.statusCode());
+        assertEquals(2, columns.amountScale());
+        assertEquals(1234, columns.amount()[0]);
+        assertEquals(List.of("Food", "Transport"), columns.categories());
+        assertEquals(saved.toString(), columns.toExpenses().toString());
+    }
+
+    @Test
+    void testLargeResponsesAreGzipped() throws Exception {
+        // Act
+        HttpResponse<byte[]> response = get("application/json", "gzip");
+
+        // Assert
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+        byte[] body;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            body = in.readAllBytes();
+        }
+        assertTrue(response.body().length < body.length);
+        assertEquals(100, objectMapper.readTree(body).size());
+    }
+
+    private HttpResponse<byte[]> get(String accept, String acceptEncoding) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/expenses"))
+                .header("Accept", accept);
+        if (acceptEncoding != null) {
+            request.header("Accept-Encoding", acceptEncoding);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
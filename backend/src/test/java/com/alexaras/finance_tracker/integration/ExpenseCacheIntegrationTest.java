@@ -0,0 +1,169 @@
+package com.alexaras.finance_tracker.integration;
+
+import com.alexaras.finance_tracker.config.CacheConfig;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.service.CategoryTotalsCache;
+import com.alexaras.finance_tracker.service.ExpenseService;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the cache only sees writes once their transaction commits
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class ExpenseCacheIntegrationTest {
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CategoryTotalsCache categoryTotalsCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> cache;
+
+    @BeforeEach
+    void setUp() {
+        TransactionAwareCacheDecorator decorator =
+                (TransactionAwareCacheDecorator) cacheManager.getCache(ExpenseRepository.CACHE_NAME);
+        cache = ((CaffeineCache) decorator.getTargetCache()).getNativeCache();
+        cache.invalidateAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        expenseRepository.deleteAll();
+        categoryTotalsCache.rebuild();
+    }
+
+    @Test
+    void testRepeatedLookupsAreServedFromTheCache() {
+        // Arrange
+        Expense saved = expenseService.addExpense(new Expense(BigDecimal.valueOf(12), "Food", "Lunch"));
+        CacheStats before = cache.stats();
+
+        // Act
+        expenseService.getExpense(saved.getId());
+        expenseService.getExpense(saved.getId());
+        expenseService.getExpense(saved.getId());
+
+        // Assert: one load, then hits
+        CacheStats delta = cache.stats().minus(before);
+        assertEquals(1, delta.missCount());
+        assertEquals(2, delta.hitCount());
+    }
+
+    @Test
+    void testChangingAReturnedExpenseLeavesTheCachedOneAlone() {
+        // Arrange: the first read loads the expense into the cache, the second is served from it
+        Expense saved = expenseService.addExpense(new Expense(BigDecimal.valueOf(12), "Food", "Lunch"));
+        Expense loaded = expenseService.getExpense(saved.getId());
+        Expense hit = expenseService.getExpense(saved.getId());
+
+        // Act
+        loaded.setDescription("Changed by the first reader");
+        hit.setDescription("Changed by the second reader");
+
+        // Assert
+        assertEquals("Lunch", expenseService.getExpense(saved.getId()).getDescription());
+        assertEquals("Lunch", ((Expense) cache.getIfPresent(saved.getId())).getDescription());
+    }
+
+    @Test
+    void testUpdateAndDeleteEvictTheCachedExpense() {
+        // Arrange: load the expense into the cache
+        Expense saved = expenseService.addExpense(new Expense(BigDecimal.valueOf(12), "Food", "Lunch"));
+        expenseService.getExpense(saved.getId());
+
+        // Act & Assert: an update is visible on the next read
+        expenseService.updateExpense(saved.getId(), new Expense(BigDecimal.valueOf(30), "Transport", "Taxi"));
+        Expense reloaded = expenseService.getExpense(saved.getId());
+        assertEquals("Transport", reloaded.getCategory());
+        assertEquals(0, BigDecimal.valueOf(30).compareTo(reloaded.getAmount()));
+
+        // Act & Assert: a deleted expense is not served from the cache
+        expenseService.deleteExpense(saved.getId());
+        assertThrows(RuntimeException.class, () -> expenseService.getExpense(saved.getId()));
+    }
+
+    @Test
+    void testAReaderPuttingTheOldRowBackAfterAnUpdateIsIgnored() {
+        // Arrange: a reader loaded the row before the update committed
+        Expense saved = expenseService.addExpense(new Expense(BigDecimal.valueOf(12), "Food", "Lunch"));
+        Expense loadedBeforeTheUpdate = expenseRepository.findCurrentById(saved.getId()).orElseThrow();
+        expenseService.updateExpense(saved.getId(), new Expense(BigDecimal.valueOf(30), "Transport", "Taxi"));
+
+        // Act: and puts it into the cache after the update's eviction
+        cacheManager.getCache(ExpenseRepository.CACHE_NAME).put(saved.getId(), loadedBeforeTheUpdate);
+
+        // Assert
+        Expense reloaded = expenseService.getExpense(saved.getId());
+        assertEquals("Transport", reloaded.getCategory());
+        assertEquals(1L, reloaded.getVersion());
+    }
+
+    @Test
+    void testAReaderPuttingTheRowBackAfterADeleteIsIgnored() {
+        // Arrange: a reader loaded the row before the delete committed
+        Expense saved = expenseService.addExpense(new Expense(BigDecimal.valueOf(12), "Food", "Lunch"));
+        Expense loadedBeforeTheDelete = expenseRepository.findCurrentById(saved.getId()).orElseThrow();
+        expenseService.deleteExpense(saved.getId());
+
+        // Act: and puts it into the cache after the delete's eviction
+        cacheManager.getCache(ExpenseRepository.CACHE_NAME).put(saved.getId(), loadedBeforeTheDelete);
+
+        // Assert: the tombstone stays, and a lookup goes to the database
+        assertThrows(RuntimeException.class, () -> expenseService.getExpense(saved.getId()));
+        assertInstanceOf(CacheConfig.DeletedExpense.class, cache.getIfPresent(saved.getId()));
+    }
+
+    @Test
+    void testARolledBackWriteLeavesTheCategoryTotalsAlone() {
+        // Arrange
+        expenseService.addExpense(new Expense(BigDecimal.valueOf(12), "Food", "Lunch"));
+
+        // Act: the add joins a transaction that is then rolled back
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            expenseService.addExpense(new Expense(BigDecimal.valueOf(30), "Food", "Dinner"));
+            status.setRollbackOnly();
+        });
+
+        // Assert
+        assertEquals(1, categoryTotalsCache.getTotal("Food").count());
+        assertEquals(0, BigDecimal.valueOf(12).compareTo(categoryTotalsCache.getTotal("Food").total()));
+        assertTrue(categoryTotalsCache.verify());
+    }
+
+    @Test
+    void testMissingExpensesAreNotCached() {
+        // Act
+        assertThrows(RuntimeException.class, () -> expenseService.getExpense(Long.MAX_VALUE));
+
+        // Assert
+        assertNull(cache.getIfPresent(Long.MAX_VALUE));
+    }
+}
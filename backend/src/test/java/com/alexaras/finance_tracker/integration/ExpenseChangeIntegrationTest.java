@@ -0,0 +1,147 @@
+package com.alexaras.finance_tracker.integration;
+
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.service.CategoryTotalsCache;
+import com.alexaras.finance_tracker.service.ExpenseSearchIndex;
+import com.alexaras.finance_tracker.service.ExpenseService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs a real server: the stream has to reach the client event by event, which MockMvc cannot show
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = "finance-tracker.expenses.changes.buffer-size=4")
+public class ExpenseChangeIntegrationTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(20);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private CategoryTotalsCache categoryTotalsCache;
+
+    @Autowired
+    private ExpenseSearchIndex expenseSearchIndex;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @AfterEach
+    void tearDown() {
+        expenseRepository.deleteAll();
+        categoryTotalsCache.rebuild();
+        expenseSearchIndex.rebuild();
+    }
+
+    @Test
+    void testCommittedChangesAreStreamedAndCanBeResumed() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            String lastEventId;
+            try (Stream<String> lines = follow(null)) {
+                Iterator<String> stream = lines.iterator();
+
+                // Act
+                Expense coffee = expenseService.addExpense(new Expense(new BigDecimal("4.50"), "Food", "Coffee"));
+                expenseService.updateExpense(coffee.getId(), new Expense(new BigDecimal("5.00"), "Food", "Coffee"));
+
+                // Assert
+                Map<String, String> created = nextEvent(stream);
+                assertEquals("change", created.get("event"));
+                assertTrue(created.get("data").contains("\"type\":\"CREATED\""));
+                assertTrue(created.get("data").contains("\"expenseId\":" + coffee.getId()));
+                lastEventId = created.get("id");
+                assertTrue(nextEvent(stream).get("data").contains("\"type\":\"UPDATED\""));
+            }
+
+            // A client that reconnects with the id it last saw gets the change it missed
+            try (Stream<String> lines = follow(lastEventId)) {
+                Map<String, String> missed = nextEvent(lines.iterator());
+                assertEquals("change", missed.get("event"));
+                assertTrue(missed.get("data").contains("\"before\":{"));
+                assertTrue(missed.get("data").contains("5.0"));
+            }
+        });
+    }
+
+    @Test
+    void testClientsThatMissedTooMuchAreToldToResync() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            // Arrange: an id from before more changes than the buffer of four holds
+            String lastEventId;
+            try (Stream<String> lines = follow(null)) {
+                Iterator<String> stream = lines.iterator();
+                expenseService.addExpense(new Expense(new BigDecimal("1.00"), "Food", "First"));
+                lastEventId = nextEvent(stream).get("id");
+            }
+            for (int i = 0; i < 5; i++) {
+                expenseService.addExpense(new Expense(new BigDecimal("2.00"), "Food", "Later " + i));
+            }
+
+            // Act & Assert
+            try (Stream<String> lines = follow(lastEventId)) {
+                Map<String, String> resync = nextEvent(lines.iterator());
+                assertEquals("resync", resync.get("event"));
+                assertNotEquals(lastEventId, resync.get("id"));
+            }
+            // Ids from before a restart cannot be resumed from either
+            try (Stream<String> lines = follow("0-1")) {
+                assertEquals("resync", nextEvent(lines.iterator()).get("event"));
+            }
+        });
+    }
+
+    private Stream<String> follow(String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/expenses/changes"))
+                .header("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<Stream<String>> response = client.send(request.build(), HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+        return response.body();
+    }
+
+    // Reads the fields of the next event, skipping comments such as the keep-alives
+    private static Map<String, String> nextEvent(Iterator<String> lines) {
+        Map<String, String> fields = new HashMap<>();
+        while (lines.hasNext()) {
+            String line = lines.next();
+            if (line.isEmpty()) {
+                if (!fields.isEmpty()) {
+                    return fields;
+                }
+            } else if (!line.startsWith(":")) {
+                int colon = line.indexOf(':');
+                fields.merge(line.substring(0, colon), line.substring(colon + 1), (a, b) -> a + "\n" + b);
+            }
+        }
+        fail("The stream ended before the next event");
+        return fields;
+    }
+}
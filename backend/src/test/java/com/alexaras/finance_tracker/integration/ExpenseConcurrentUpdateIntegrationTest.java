@@ -0,0 +1,153 @@
+package com.alexaras.finance_tracker.integration;
+
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.service.CategoryTotalsCache;
+import com.alexaras.finance_tracker.service.ExpenseSearchIndex;
+import com.alexaras.finance_tracker.service.ExpenseService;
+import com.alexaras.finance_tracker.service.ExpenseVersionConflictException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers a handful of expenses with concurrent updates and checks that none is lost, either from
+ * the rows or from the in-memory category totals, and prints the throughput reached.
+ */
+// Not @Transactional: each update has to commit for the others to race against it
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class ExpenseConcurrentUpdateIntegrationTest {
+
+    private static final int THREADS = 8;
+    private static final int UPDATES_PER_THREAD = 100;
+    private static final int EXPENSES = 4;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private CategoryTotalsCache categoryTotalsCache;
+
+    @Autowired
+    private ExpenseSearchIndex expenseSearchIndex;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    void setUp() {
+        ids = new ArrayList<>();
+        for (int i = 0; i < EXPENSES; i++) {
+            ids.add(expenseService.addExpense(new Expense(BigDecimal.ZERO, "Food", "Shared " + i)).getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        expenseRepository.deleteAll();
+        categoryTotalsCache.rebuild();
+        expenseSearchIndex.rebuild();
+    }
+
+    @Test
+    void testVersionedIncrementsAreNeverLost() throws Exception {
+        // Arrange
+        AtomicInteger conflicts = new AtomicInteger();
+
+        // Act: every thread adds 1 to each expense in turn, rereading whenever it loses a race
+        long elapsed = run(thread -> {
+            for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                long id = ids.get((thread + i) % EXPENSES);
+                while (true) {
+                    Expense read = expenseService.getExpense(id);
+                    Expense changes = new Expense(read.getAmount().add(BigDecimal.ONE), read.getCategory(),
+                            read.getDescription());
+                    changes.setVersion(read.getVersion());
+                    try {
+                        expenseService.updateExpense(id, changes);
+                        break;
+                    } catch (ExpenseVersionConflictException e) {
+                        conflicts.incrementAndGet();
+                    }
+                }
+            }
+        });
+        report("versioned increments", elapsed, conflicts.get());
+
+        // Assert
+        int perExpense = THREADS * UPDATES_PER_THREAD / EXPENSES;
+        for (long id : ids) {
+            Expense expense = expenseRepository.findCurrentById(id).orElseThrow();
+            assertEquals(0, BigDecimal.valueOf(perExpense).compareTo(expense.getAmount()), "Lost an increment");
+            assertEquals(perExpense, expense.getVersion());
+        }
+        assertTrue(categoryTotalsCache.verify(), "The category totals missed an update");
+    }
+
+    @Test
+    void testUnversionedUpdatesKeepTheTotalsInStep() throws Exception {
+        // Act: last writer wins, but each update must still replace exactly the row it overwrote
+        long elapsed = run(thread -> {
+            for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                long id = ids.get((thread + i) % EXPENSES);
+                String category = (thread + i) % 3 == 0 ? "Food" : "Transport";
+                expenseService.updateExpense(id, new Expense(BigDecimal.valueOf(thread * 100 + i), category, null));
+            }
+        });
+        report("unversioned overwrites", elapsed, 0);
+
+        // Assert
+        for (long id : ids) {
+            assertEquals(THREADS * UPDATES_PER_THREAD / EXPENSES,
+                    expenseRepository.findCurrentById(id).orElseThrow().getVersion());
+        }
+        assertTrue(categoryTotalsCache.verify(), "The category totals missed an update");
+    }
+
+    private long run(Worker worker) throws Exception {
+        long started = System.nanoTime();
+        try (ExecutorService pool = Executors.newFixedThreadPool(THREADS)) {
+            List<Future<?>> running = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                running.add(pool.submit(() -> {
+                    worker.run(thread);
+                    return null;
+                }));
+            }
+            for (Future<?> future : running) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        }
+        return System.nanoTime() - started;
+    }
+
+    private static void report(String name, long elapsedNanos, int conflicts) {
+        int updates = THREADS * UPDATES_PER_THREAD;
+        System.out.printf("%-24s %8d updates %10.0f updates/s %8d conflicts%n",
+                name, updates, updates / (elapsedNanos / 1e9), conflicts);
+    }
+
+    private interface Worker {
+        void run(int thread);
+    }
+}
@@ -0,0 +1,159 @@
+package com.alexaras.finance_tracker.integration;
+
+import com.alexaras.finance_tracker.dto.ExpenseFilter;
+import com.alexaras.finance_tracker.dto.ExpenseFilterPage;
+import com.alexaras.finance_tracker.dto.ExpenseSort;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.service.CategoryTotalsCache;
+import com.alexaras.finance_tracker.service.ExpenseService;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.alexaras.finance_tracker.integration.ExpenseFilterIntegrationTest$RecordingInspector")
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class ExpenseFilterIntegrationTest {
+    private static final LocalDateTime MAY = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private CategoryTotalsCache categoryTotalsCache;
+
+    @Autowired
+    private DataSource dataSource;
+
+    // Records the SQL Hibernate sends, so the tests can ask H2 how it would run it
+    public static class RecordingInspector implements StatementInspector {
+        static final Queue<String> statements = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        List<Expense> expenses = new ArrayList<>();
+        for (int day = 0; day < 30; day++) {
+            expenses.add(new Expense(BigDecimal.valueOf(10 + day), "Food", "Lunch " + day, MAY.plusDays(day)));
+            expenses.add(new Expense(BigDecimal.valueOf(100 + day), "Rent", "Rent " + day, MAY.plusDays(day)));
+            expenses.add(new Expense(BigDecimal.valueOf(5), "Transport", "Bus " + day, MAY.plusDays(day)));
+        }
+        expenseRepository.saveAll(expenses);
+    }
+
+    @AfterEach
+    void tearDown() {
+        expenseRepository.deleteAll();
+        categoryTotalsCache.rebuild();
+    }
+
+    @Test
+    void testCriteriaCombine() {
+        // Arrange: Food and Rent from 10 to 19 May costing between 20 and 105
+        ExpenseFilter filter = new ExpenseFilter(List.of("Food", "Rent"), new BigDecimal("20"), new BigDecimal("105"),
+                LocalDate.of(2024, 5, 10), LocalDate.of(2024, 5, 19), ExpenseSort.AMOUNT, Sort.Direction.ASC);
+
+        // Act
+        ExpenseFilterPage page = expenseService.filterExpenses(filter, null, 100);
+
+        // Assert: Food costs 10 + day, so 11-19 May is 20-28; Rent costs over 105 on those days
+        List<BigDecimal> amounts = page.items().stream().map(Expense::getAmount).toList();
+        assertEquals(9, amounts.size());
+        assertEquals(0, new BigDecimal("20").compareTo(amounts.get(0)));
+        assertEquals(0, new BigDecimal("28").compareTo(amounts.get(8)));
+        assertFalse(page.hasMore());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void testKeysetPagesCoverTiesExactlyOnce() {
+        // Arrange: 30 Transport expenses that all cost the same
+        ExpenseFilter filter = new ExpenseFilter(List.of("Transport"), null, null, null, null,
+                ExpenseSort.AMOUNT, Sort.Direction.DESC);
+
+        // Act: read seven rows at a time
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        ExpenseFilterPage page;
+        do {
+            page = expenseService.filterExpenses(filter, cursor, 7);
+            page.items().forEach(expense -> seen.add(expense.getId()));
+            cursor = page.nextCursor();
+        } while (page.hasMore());
+
+        // Assert: ties are ordered by id, newest first, with none skipped or repeated
+        assertEquals(30, seen.size());
+        assertEquals(seen.stream().sorted((a, b) -> Long.compare(b, a)).toList(), seen);
+    }
+
+    @Test
+    void testEachFilterShapeUsesItsIndex() throws SQLException {
+        LocalDate from = LocalDate.of(2024, 5, 3);
+        LocalDate to = LocalDate.of(2024, 5, 20);
+        BigDecimal min = new BigDecimal("15");
+        BigDecimal max = new BigDecimal("120");
+
+        assertUsesIndex("IDX_EXPENSES_CATEGORY_SPENT_AT",
+                new ExpenseFilter(List.of("Food"), null, null, from, to, ExpenseSort.SPENT_AT, Sort.Direction.DESC), null);
+        assertUsesIndex("IDX_EXPENSES_CATEGORY_AMOUNT",
+                new ExpenseFilter(List.of("Food"), min, max, null, null, ExpenseSort.AMOUNT, Sort.Direction.ASC), null);
+        assertUsesIndex("IDX_EXPENSES_SPENT_AT",
+                new ExpenseFilter(null, null, null, from, to, ExpenseSort.SPENT_AT, Sort.Direction.DESC), null);
+        assertUsesIndex("IDX_EXPENSES_AMOUNT",
+                new ExpenseFilter(null, min, max, null, null, ExpenseSort.AMOUNT, Sort.Direction.ASC), null);
+        // Later pages add the keyset condition, which must still seek the index
+        assertUsesIndex("IDX_EXPENSES_SPENT_AT",
+                new ExpenseFilter(null, null, null, from, to, ExpenseSort.SPENT_AT, Sort.Direction.DESC),
+                MAY.plusDays(10) + "_1000");
+    }
+
+    private void assertUsesIndex(String index, ExpenseFilter filter, String after) throws SQLException {
+        RecordingInspector.statements.clear();
+        expenseService.filterExpenses(filter, after, 10);
+        String sql = RecordingInspector.statements.stream()
+                .filter(statement -> statement.contains("from expenses"))
+                .reduce((first, second) -> second)
+                .orElseThrow();
+
+        // H2 can explain a statement whose parameters are not bound yet
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql);
+             ResultSet plan = explain.executeQuery()) {
+            assertTrue(plan.next());
+            String text = plan.getString(1);
+            assertTrue(text.contains("PUBLIC." + index + ":"), () -> "Expected " + index + " in plan:\n" + text);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.alexaras.finance_tracker.integration;
+
+import com.alexaras.finance_tracker.category.CategoryDictionary;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.service.CategoryTotalsCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not @Transactional: every import chunk commits in its own transaction
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class ExpenseImportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private CategoryTotalsCache categoryTotalsCache;
+
+    @Autowired
+    private CategoryDictionary categoryDictionary;
+
+    @AfterEach
+    void tearDown() {
+        expenseRepository.deleteAll();
+        categoryTotalsCache.rebuild();
+    }
+
+    @Test
+    void testCsvImportInsertsValidRowsAndReportsInvalidOnes() throws Exception {
+        // Arrange: 250 valid rows and one bad one, written in batches of 20 and chunks of 100
+        StringBuilder csv = new StringBuilder("amount,category,description\n");
+        for (int i = 0; i < 250; i++) {
+            csv.append("1.00,Food,Row ").append(i).append('\n');
+        }
+        csv.append("oops,Food,Bad row\n");
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/expenses/import")
+                        .contentType("text/csv")
+                        .param("batchSize", "20")
+                        .param("chunkSize", "100")
+                        .content(csv.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsRead").value(251))
+                .andExpect(jsonPath("$.rowsImported").value(250))
+                .andExpect(jsonPath("$.rowsFailed").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(251))
+                .andExpect(jsonPath("$.errorsTruncated").value(false));
+
+        assertEquals(250, expenseRepository.count());
+        // Imported rows reach the in-memory totals too
+        assertEquals(0, new BigDecimal("250.00").compareTo(categoryTotalsCache.getTotal("Food").total()));
+    }
+
+    @Test
+    void testJsonImportIsolatesRowsRejectedByTheDatabase() throws Exception {
+        // Arrange: The second description is longer than the column allows, which fails its whole chunk
+        String tooLong = "x".repeat(300);
+        String json = """
+                [
+                  {"amount": 10, "category": "Rent", "description": "May"},
+                  {"amount": 11, "category": "Rent", "description": "%s"},
+                  {"amount": 12, "category": "Rent", "description": "June"}
+                ]
+                """.formatted(tooLong);
+
+        // Act & Assert: The good rows are retried individually and survive
+        mockMvc.perform(post("/api/v1/expenses/import")
+                        .contentType("application/json")
+                        .content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsImported").value(2))
+                .andExpect(jsonPath("$.rowsFailed").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(2));
+
+        assertEquals(2, expenseRepository.count());
+    }
+
+    @Test
+    void testRowsThatFailToParseDoNotAddCategories() throws Exception {
+        // Arrange: each chunk of two has one valid row; the bad rows bring categories of their own
+        String csv = """
+                amount,category,description
+                1.00,Groceries,First
+                oops,Misspelt groceries,Bad amount
+                2.00,Groceries,Second
+                ,Never seen,Missing amount
+                """;
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/expenses/import")
+                        .contentType("text/csv")
+                        .param("chunkSize", "2")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsImported").value(2))
+                .andExpect(jsonPath("$.rowsFailed").value(2));
+
+        assertNotEquals(CategoryDictionary.UNKNOWN, categoryDictionary.find("Groceries"));
+        assertEquals(CategoryDictionary.UNKNOWN, categoryDictionary.find("Misspelt groceries"));
+        assertEquals(CategoryDictionary.UNKNOWN, categoryDictionary.find("Never seen"));
+    }
+}
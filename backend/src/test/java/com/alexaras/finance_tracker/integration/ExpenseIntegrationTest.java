@@ -1,7 +1,12 @@
 package com.alexaras.finance_tracker.integration;
 
 import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.dto.BucketStats;
+import com.alexaras.finance_tracker.dto.CategoryStats;
+import com.alexaras.finance_tracker.dto.ExpensePage;
+import com.alexaras.finance_tracker.dto.TimeBucket;
 import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.service.ExpenseService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -10,9 +15,12 @@ import org.springframework.test.context.TestPropertySource;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -23,6 +31,9 @@ public class ExpenseIntegrationTest {
     @Autowired
     private ExpenseRepository expenseRepository;
 
+    @Autowired
+    private ExpenseService expenseService;
+
     @Test
     void testCreateAndRetrieveExpense() {
         // Arrange: Create a new expense
@@ -101,4 +112,83 @@ public class ExpenseIntegrationTest {
         assertEquals(0, expenses.size());
     }
 
+    @Test
+    void testKeysetPaginationWalksAllExpenses() {
+        // Arrange: Save five expenses
+        for (int i = 1; i <= 5; i++) {
+            expenseRepository.save(new Expense(BigDecimal.valueOf(i), "Food", "Item " + i));
+        }
+
+        // Act: Follow the cursor two rows at a time
+        List<String> descriptions = new ArrayList<>();
+        ExpensePage page = expenseService.getExpensePage(null, 2);
+        descriptions.addAll(page.items().stream().map(Expense::getDescription).toList());
+        while (page.hasMore()) {
+            page = expenseService.getExpensePage(page.nextCursor(), 2);
+            descriptions.addAll(page.items().stream().map(Expense::getDescription).toList());
+        }
+
+        // Assert: Every expense is seen exactly once, in insertion order
+        assertEquals(List.of("Item 1", "Item 2", "Item 3", "Item 4", "Item 5"), descriptions);
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void testStreamExpensesVisitsEveryRowInIdOrder() {
+        // Arrange
+        expenseRepository.save(new Expense(BigDecimal.valueOf(50), "Food", "Groceries"));
+        expenseRepository.save(new Expense(BigDecimal.valueOf(100), "Transport", "Bus ticket"));
+
+        // Act
+        List<String> descriptions = new ArrayList<>();
+        expenseService.streamExpenses(expense -> descriptions.add(expense.getDescription()));
+
+        // Assert
+        assertEquals(List.of("Groceries", "Bus ticket"), descriptions);
+    }
+
+    @Test
+    void testCategoryStatsAreAggregatedByTheDatabase() {
+        // Arrange
+        expenseRepository.save(new Expense(BigDecimal.valueOf(50), "Food", "Groceries", LocalDateTime.of(2024, 5, 3, 12, 0)));
+        expenseRepository.save(new Expense(BigDecimal.valueOf(25), "Food", "Lunch", LocalDateTime.of(2024, 5, 4, 12, 0)));
+        expenseRepository.save(new Expense(BigDecimal.valueOf(100), "Transport", "Train", LocalDateTime.of(2024, 6, 1, 8, 0)));
+
+        // Act
+        List<CategoryStats> all = expenseService.getCategoryStats(null, null);
+        List<CategoryStats> may = expenseService.getCategoryStats(LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31));
+
+        // Assert
+        assertEquals(2, all.size());
+        CategoryStats food = all.get(0);
+        assertEquals("Food", food.category());
+        assertEquals(2, food.count());
+        assertEquals(0, BigDecimal.valueOf(75).compareTo(food.total()));
+        assertEquals(0, BigDecimal.valueOf(25).compareTo(food.min()));
+        assertEquals(0, BigDecimal.valueOf(50).compareTo(food.max()));
+        assertEquals(0, new BigDecimal("37.50").compareTo(food.average()));
+        assertEquals(1, may.size());
+        assertEquals("Food", may.get(0).category());
+    }
+
+    @Test
+    void testTimelineGroupsExpensesIntoWeeks() {
+        // Arrange: 2024-05-06 is a Monday; the first two expenses share its week
+        expenseRepository.save(new Expense(BigDecimal.valueOf(10), "Food", "Coffee", LocalDateTime.of(2024, 5, 6, 9, 0)));
+        expenseRepository.save(new Expense(BigDecimal.valueOf(20), "Food", "Lunch", LocalDateTime.of(2024, 5, 12, 13, 0)));
+        expenseRepository.save(new Expense(BigDecimal.valueOf(30), "Food", "Dinner", LocalDateTime.of(2024, 5, 13, 19, 0)));
+        expenseRepository.save(new Expense(BigDecimal.valueOf(99), "Transport", "Taxi", LocalDateTime.of(2024, 5, 7, 9, 0)));
+
+        // Act
+        List<BucketStats> weeks = expenseService.getTimeline(TimeBucket.WEEK, "Food", null, null);
+
+        // Assert
+        assertEquals(2, weeks.size());
+        assertEquals(LocalDate.of(2024, 5, 6), weeks.get(0).bucketStart());
+        assertEquals(2, weeks.get(0).count());
+        assertEquals(0, BigDecimal.valueOf(30).compareTo(weeks.get(0).total()));
+        assertEquals(LocalDate.of(2024, 5, 13), weeks.get(1).bucketStart());
+        assertEquals(1, weeks.get(1).count());
+    }
+
 }
@@ -0,0 +1,106 @@
+package com.alexaras.finance_tracker.integration;
+
+import com.alexaras.finance_tracker.FinanceTrackerApplication;
+import com.alexaras.finance_tracker.dao.UserDAO;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.model.User;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.service.CategoryTotalsCache;
+import com.alexaras.finance_tracker.service.ExpenseJournalService;
+import com.alexaras.finance_tracker.service.ExpenseService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writes users and expenses with the journal on, stops the application and starts a fresh one on a
+ * new in-memory database, which must come back with the same users and expenses.
+ */
+public class ExpenseJournalIntegrationTest {
+    private static final LocalDateTime MAY = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @TempDir
+    Path journalDirectory;
+
+    @Test
+    void testExpensesSurviveARestart() {
+        // Arrange
+        List<Expense> written;
+        User owner = new User(0, "Alex", "alex@example.com");
+        try (ConfigurableApplicationContext context = start("journal_before")) {
+            ExpenseService expenseService = context.getBean(ExpenseService.class);
+            UserDAO userDAO = context.getBean(UserDAO.class);
+            userDAO.createUser(owner);
+            User leaving = new User(0, "Sam", "sam@example.com");
+            userDAO.createUser(leaving);
+            expenseService.addUserExpense(leaving.getId(), new Expense(new BigDecimal("3.00"), "Rent", "Orphaned", MAY));
+            userDAO.deleteUser(leaving.getId());
+            userDAO.updateUser(new User(owner.getId(), "Alex Updated", "alex@example.com"));
+            expenseService.addUserExpense(owner.getId(), new Expense(new BigDecimal("7.00"), "Rent", "Owned", MAY));
+            Expense lunch = expenseService.addExpense(new Expense(new BigDecimal("12.50"), "Food", "Lunch", MAY));
+            Expense taxi = expenseService.addExpense(new Expense(new BigDecimal("30.00"), "Transport", "Taxi", MAY));
+            Expense refunded = expenseService.addExpense(new Expense(new BigDecimal("9.99"), "Food", null, MAY));
+            expenseService.updateExpense(lunch.getId(), new Expense(new BigDecimal("14.00"), "Food", "Lunch", MAY));
+            expenseService.deleteExpense(refunded.getId());
+            // Compacts, since a single record is enough here; the taxi update lands after the snapshot
+            context.getBean(ExpenseJournalService.class).snapshotIfDue();
+            expenseService.updateExpense(taxi.getId(), new Expense(new BigDecimal("32.00"), "Transport", "Taxi", MAY));
+            written = sorted(context.getBean(ExpenseRepository.class).findAll());
+        }
+
+        // Act
+        try (ConfigurableApplicationContext context = start("journal_after")) {
+            ExpenseRepository repository = context.getBean(ExpenseRepository.class);
+            List<Expense> restored = sorted(repository.findAll());
+            Expense added = context.getBean(ExpenseService.class)
+                    .addExpense(new Expense(new BigDecimal("5.00"), "Food", "After the restart", MAY));
+            UserDAO userDAO = context.getBean(UserDAO.class);
+            User joined = new User(0, "Kim", "kim@example.com");
+            userDAO.createUser(joined);
+
+            // Assert
+            assertEquals(4, restored.size());
+            for (int i = 0; i < written.size(); i++) {
+                if ("Orphaned".equals(written.get(i).getDescription())) {
+                    // Its owner was deleted, so the id may go to someone else
+                    assertNull(restored.get(i).getUserId());
+                    written.get(i).setUserId(null);
+                }
+                assertEquals(written.get(i).toString(), restored.get(i).toString());
+            }
+            assertTrue(added.getId() > written.get(written.size() - 1).getId(), "A restored id was handed out again");
+            assertEquals(List.of(owner.getId(), joined.getId()), userDAO.findAll().stream().map(User::getId).sorted().toList());
+            assertEquals("Alex Updated", userDAO.findById(owner.getId()).getName());
+            assertTrue(joined.getId() > owner.getId(), "A journaled user's id was handed out again");
+            assertTrue(context.getBean(CategoryTotalsCache.class).verify());
+            assertEquals(0, new BigDecimal("14.00").compareTo(
+                    context.getBean(CategoryTotalsCache.class).getTotal("Food").total().subtract(added.getAmount())));
+        }
+    }
+
+    private ConfigurableApplicationContext start(String database) {
+        // As command-line arguments, so they override application.properties; builder properties would not
+        return new SpringApplicationBuilder(FinanceTrackerApplication.class).run(
+                "--server.port=0",
+                "--finance-tracker.storage.backend=h2",
+                "--finance-tracker.storage.location=" + database,
+                "--finance-tracker.expenses.journal.enabled=true",
+                "--finance-tracker.expenses.journal.directory=" + journalDirectory,
+                "--finance-tracker.expenses.journal.snapshot-after=1",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.security=WARN");
+    }
+
+    private static List<Expense> sorted(List<Expense> expenses) {
+        return expenses.stream().sorted(Comparator.comparing(Expense::getId)).toList();
+    }
+}
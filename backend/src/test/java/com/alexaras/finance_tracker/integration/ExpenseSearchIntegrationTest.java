@@ -0,0 +1,83 @@
+package com.alexaras.finance_tracker.integration;
+
+import com.alexaras.finance_tracker.dto.ExpenseSearchResult;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.service.CategoryTotalsCache;
+import com.alexaras.finance_tracker.service.ExpenseSearchIndex;
+import com.alexaras.finance_tracker.service.ExpenseService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the index only sees writes once their transaction commits
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class ExpenseSearchIntegrationTest {
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private ExpenseSearchIndex expenseSearchIndex;
+
+    @Autowired
+    private CategoryTotalsCache categoryTotalsCache;
+
+    @AfterEach
+    void tearDown() {
+        expenseRepository.deleteAll();
+        categoryTotalsCache.rebuild();
+        expenseSearchIndex.rebuild();
+    }
+
+    @Test
+    void testWritesThroughTheServiceAreSearchable() {
+        // Arrange
+        Expense coffee = expenseService.addExpense(new Expense(BigDecimal.valueOf(4), "Food", "Morning coffee"));
+        Expense taxi = expenseService.addExpense(new Expense(BigDecimal.valueOf(30), "Transport", "Taxi home"));
+
+        // Act & Assert: additions are found by prefix
+        assertEquals(List.of(coffee.getId()), ids(expenseSearchIndex.search("morn cof", 10)));
+
+        // Act & Assert: updates replace the old words
+        expenseService.updateExpense(taxi.getId(), new Expense(BigDecimal.valueOf(30), "Transport", "Late bus"));
+        assertEquals(List.of(), ids(expenseSearchIndex.search("taxi", 10)));
+        assertEquals(List.of(taxi.getId()), ids(expenseSearchIndex.search("bus", 10)));
+
+        // Act & Assert: deletions are no longer found
+        expenseService.deleteExpense(coffee.getId());
+        assertEquals(List.of(), ids(expenseSearchIndex.search("coffee", 10)));
+    }
+
+    @Test
+    void testRebuildReadsTheRepository() {
+        // Arrange: rows written behind the index's back
+        Expense rent = expenseRepository.save(new Expense(BigDecimal.valueOf(900), "Housing", "June rent"));
+        assertEquals(List.of(), ids(expenseSearchIndex.search("rent", 10)));
+
+        // Act
+        expenseSearchIndex.rebuild();
+
+        // Assert
+        List<ExpenseSearchResult> results = expenseSearchIndex.search("rent", 10);
+        assertEquals(List.of(rent.getId()), ids(results));
+        assertEquals("June rent", results.get(0).expense().getDescription());
+    }
+
+    private static List<Long> ids(List<ExpenseSearchResult> results) {
+        return results.stream().map(result -> result.expense().getId()).toList();
+    }
+}
@@ -0,0 +1,101 @@
+package com.alexaras.finance_tracker.integration;
+
+import com.alexaras.finance_tracker.dao.UserDAO;
+import com.alexaras.finance_tracker.dto.CategoryTotal;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.model.User;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.service.CategoryTotalsCache;
+import com.alexaras.finance_tracker.service.ExpenseService;
+import com.alexaras.finance_tracker.service.ExpenseVersions;
+import com.alexaras.finance_tracker.service.UserCategoryTotalsCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * The version behind the ETags must not go up before the in-memory totals hold the write, or a
+ * reader could pair the new ETag with the old totals and have them revalidated until the next write.
+ */
+// Not @Transactional: the listeners only run once the write has committed
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class ExpenseVersionsIntegrationTest {
+
+    @SpyBean
+    private ExpenseVersions expenseVersions;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private UserDAO userDAO;
+
+    @Autowired
+    private CategoryTotalsCache categoryTotalsCache;
+
+    @Autowired
+    private UserCategoryTotalsCache userCategoryTotalsCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User owner;
+    // What the totals held each time the version went up
+    private final List<Long> categoryCountsAtBump = new CopyOnWriteArrayList<>();
+    private final List<Long> userCountsAtBump = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        owner = new User(0, "Alex", "alex@expense-versions.test");
+        userDAO.createUser(owner);
+        doAnswer(invocation -> {
+            categoryCountsAtBump.add(categoryTotalsCache.getTotal("Food").count());
+            userCountsAtBump.add(userCategoryTotalsCache.getTotals(owner.getId()).stream()
+                    .mapToLong(CategoryTotal::count).sum());
+            return invocation.callRealMethod();
+        }).when(expenseVersions).onExpenseChanged(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        expenseRepository.deleteAll();
+        userDAO.deleteUser(owner.getId());
+        categoryTotalsCache.rebuild();
+        userCategoryTotalsCache.invalidateAll();
+    }
+
+    @Test
+    void testTheVersionOnlyGoesUpOnceTheTotalsHoldTheWrite() {
+        // Arrange: the owner's totals are cached from before the writes
+        assertEquals(List.of(), userCategoryTotalsCache.getTotals(owner.getId()));
+
+        // Act: one write outside a transaction and one committed inside one
+        expenseService.addUserExpense(owner.getId(), new Expense(BigDecimal.ONE, "Food", "Coffee"));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                expenseService.addUserExpense(owner.getId(), new Expense(BigDecimal.TEN, "Food", "Lunch")));
+
+        // Assert
+        assertEquals(List.of(1L, 2L), categoryCountsAtBump);
+        assertEquals(List.of(1L, 2L), userCountsAtBump);
+    }
+}
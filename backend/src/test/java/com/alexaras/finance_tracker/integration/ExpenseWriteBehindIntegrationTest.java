@@ -0,0 +1,112 @@
+package com.alexaras.finance_tracker.integration;
+
+import com.alexaras.finance_tracker.dto.CategoryTotal;
+import com.alexaras.finance_tracker.dto.ExpenseSearchResult;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.service.CategoryTotalsCache;
+import com.alexaras.finance_tracker.service.ExpenseSearchIndex;
+import com.alexaras.finance_tracker.service.ExpenseService;
+import com.alexaras.finance_tracker.service.ExpenseWriteBehindQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: expenses are written by the flusher thread in its own transactions
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "finance-tracker.expenses.write-behind.enabled=true",
+        "finance-tracker.expenses.write-behind.durability=ACCEPTED"
+})
+public class ExpenseWriteBehindIntegrationTest {
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private ExpenseWriteBehindQueue writeBehindQueue;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private ExpenseSearchIndex expenseSearchIndex;
+
+    @Autowired
+    private CategoryTotalsCache categoryTotalsCache;
+
+    @AfterEach
+    void tearDown() {
+        expenseRepository.deleteAll();
+        categoryTotalsCache.rebuild();
+        expenseSearchIndex.rebuild();
+    }
+
+    @Test
+    void testProvisionalIdResolvesBeforeAndAfterTheFlush() throws InterruptedException {
+        // Act
+        Expense accepted = expenseService.addExpense(new Expense(BigDecimal.valueOf(12), "Books", "Paperback novel"));
+
+        // Assert: the provisional id reads back whether or not the flusher got to it yet
+        assertTrue(accepted.getId() < 0);
+        assertEquals("Paperback novel", expenseService.getExpense(accepted.getId()).getDescription());
+
+        Long savedId = awaitFlushed(accepted.getId());
+        Expense saved = expenseService.getExpense(accepted.getId());
+        assertEquals(savedId, saved.getId());
+        assertEquals(0, new BigDecimal("12").compareTo(saved.getAmount()));
+        // Stored at the database's precision, but still the time it was accepted
+        assertEquals(accepted.getSpentAt().truncatedTo(ChronoUnit.MILLIS), saved.getSpentAt().truncatedTo(ChronoUnit.MILLIS));
+
+        // Assert: listeners heard about the saved expense under its real id
+        assertEquals(new CategoryTotal("Books", 1, new BigDecimal("12.00")), categoryTotalsCache.getTotal("Books"));
+        assertEquals(List.of(savedId),
+                expenseSearchIndex.search("novel", 10).stream().map(ExpenseSearchResult::expense).map(Expense::getId).toList());
+    }
+
+    @Test
+    void testConcurrentWritersAreAllSaved() throws Exception {
+        // Arrange
+        int writers = 200;
+        List<Future<Expense>> accepted = new ArrayList<>();
+
+        // Act
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            for (int i = 0; i < writers; i++) {
+                BigDecimal amount = BigDecimal.valueOf(i + 1);
+                accepted.add(executor.submit(() -> expenseService.addExpense(new Expense(amount, "Load", "Writer"))));
+            }
+        }
+        for (Future<Expense> expense : accepted) {
+            awaitFlushed(expense.get().getId());
+        }
+
+        // Assert
+        assertEquals(writers, expenseRepository.count());
+        assertEquals(new CategoryTotal("Load", writers, new BigDecimal("20100.00")), categoryTotalsCache.getTotal("Load"));
+    }
+
+    private Long awaitFlushed(long provisionalId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        Long savedId;
+        while ((savedId = writeBehindQueue.getFlushedId(provisionalId)) == null) {
+            assertTrue(System.currentTimeMillis() < deadline, "Expense " + provisionalId + " was not flushed");
+            Thread.sleep(10);
+        }
+        return savedId;
+    }
+}
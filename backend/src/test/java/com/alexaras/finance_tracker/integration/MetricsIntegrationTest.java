@@ -0,0 +1,82 @@
+package com.alexaras.finance_tracker.integration;
+
+import com.alexaras.finance_tracker.dao.UserDAO;
+import com.alexaras.finance_tracker.model.User;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.service.CategoryTotalsCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Metrics export is switched off in tests unless asked for
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private CategoryTotalsCache categoryTotalsCache;
+
+    @Autowired
+    private UserDAO userDAO;
+
+    @AfterEach
+    void tearDown() {
+        expenseRepository.deleteAll();
+        categoryTotalsCache.rebuild();
+    }
+
+    @Test
+    void testPrometheusEndpointExportsControllerServiceAndDaoTimers() throws Exception {
+        // Arrange: exercise each layer once
+        mockMvc.perform(post("/api/v1/expenses")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\":12.50,\"category\":\"Food\",\"description\":\"Lunch\"}"))
+                .andExpect(status().isOk());
+        userDAO.createUsers(List.of(new User(0, "Alice", "alice@example.com")));
+        userDAO.findAll();
+
+        // Act & Assert: the endpoint is reachable without logging in
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString("finance_tracker_service_seconds_bucket{class=\"com.alexaras.finance_tracker.service.ExpenseService\"")))
+                .andExpect(content().string(containsString("finance_tracker_dao_seconds_bucket{dao=\"user\"")))
+                .andExpect(content().string(containsString("finance_tracker_dao_rows_total{dao=\"user\",operation=\"written\"}")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds_bucket{pool=\"finance-tracker\"")))
+                .andExpect(content().string(containsString("hibernate_entities_inserts_total")));
+    }
+
+    @Test
+    void testPrometheusEndpointExportsTheUserCacheAlongsideTheSpringCaches() throws Exception {
+        // Act & Assert: Prometheus drops a meter whose tag keys differ from the others of the same name
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("cache_gets_total{cache=\"expenses\"")))
+                .andExpect(content().string(containsString("cache_gets_total{cache=\"users\"")))
+                .andExpect(content().string(containsString("cache_size{cache=\"users\"")));
+    }
+}
@@ -0,0 +1,227 @@
+package com.alexaras.finance_tracker.integration;
+
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.reactive.ReactiveExpenseHandler;
+import com.alexaras.finance_tracker.reactive.ReactiveHttpServer;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.service.CategoryTotalsCache;
+import com.alexaras.finance_tracker.service.ExpenseService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the reactive API writes through its own connections
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class ReactiveExpenseIntegrationTest {
+
+    @Autowired
+    private ReactiveHttpServer reactiveHttpServer;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private CategoryTotalsCache categoryTotalsCache;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private String baseUrl;
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + reactiveHttpServer.getPort() + ReactiveExpenseHandler.BASE_PATH;
+        client = WebTestClient.bindToServer().baseUrl(baseUrl).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        expenseRepository.deleteAll();
+        categoryTotalsCache.rebuild();
+    }
+
+    @Test
+    void testExpensesCreatedReactivelyAreVisibleToTheBlockingApi() {
+        // Act
+        Expense created = client.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Expense(BigDecimal.valueOf(12.5), "Food", "Lunch"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Expense.class)
+                .returnResult().getResponseBody();
+
+        // Assert: same table, and the same events reach the in-memory totals
+        assertNotNull(created.getId());
+        assertNotNull(created.getSpentAt());
+        assertEquals("Lunch", expenseService.getExpense(created.getId()).getDescription());
+        assertEquals(1, categoryTotalsCache.getTotal("Food").count());
+    }
+
+    @Test
+    void testListsStreamAsNdjsonOrJsonArrays() {
+        // Arrange
+        expenseService.addExpense(new Expense(BigDecimal.valueOf(10), "Food", "First"));
+        expenseService.addExpense(new Expense(BigDecimal.valueOf(20), "Food", "Second"));
+
+        // Act & Assert
+        List<Expense> streamed = client.get()
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Expense.class)
+                .getResponseBody()
+                .collectList()
+                .block(Duration.ofSeconds(10));
+        assertEquals(List.of("First", "Second"), streamed.stream().map(Expense::getDescription).toList());
+
+        client.get()
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[1].description").isEqualTo("Second");
+    }
+
+    @Test
+    void testPageFollowsTheCursor() {
+        // Arrange
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(expenseService.addExpense(new Expense(BigDecimal.ONE, "Food", "Expense " + i)).getId());
+        }
+
+        // Act & Assert
+        client.get()
+                .uri(uri -> uri.path("/page").queryParam("after", ids.get(1)).queryParam("limit", 2).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].id").isEqualTo(ids.get(2))
+                .jsonPath("$[1].id").isEqualTo(ids.get(3));
+    }
+
+    @Test
+    void testUpdateEvictsTheBlockingApisCache() {
+        // Arrange: read through the blocking API so the expense is cached
+        Expense saved = expenseService.addExpense(new Expense(BigDecimal.valueOf(12), "Food", "Lunch"));
+        expenseService.getExpense(saved.getId());
+
+        // Act
+        client.put()
+                .uri("/{id}", saved.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Expense(BigDecimal.valueOf(30), "Transport", "Taxi"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.category").isEqualTo("Transport");
+
+        // Assert
+        assertEquals("Transport", expenseService.getExpense(saved.getId()).getCategory());
+        assertEquals(0, categoryTotalsCache.getTotal("Food").count());
+        assertEquals(1, categoryTotalsCache.getTotal("Transport").count());
+    }
+
+    @Test
+    void testALateReaderCannotCacheARowDeletedReactively() {
+        // Arrange: a blocking reader loaded the row before the reactive delete committed
+        Expense saved = expenseService.addExpense(new Expense(BigDecimal.valueOf(12), "Food", "Lunch"));
+        Expense loadedBeforeTheDelete = expenseRepository.findCurrentById(saved.getId()).orElseThrow();
+        client.delete().uri("/{id}", saved.getId()).exchange().expectStatus().isNoContent();
+
+        // Act: and puts it into the cache afterwards
+        cacheManager.getCache(ExpenseRepository.CACHE_NAME).put(saved.getId(), loadedBeforeTheDelete);
+
+        // Assert
+        assertThrows(RuntimeException.class, () -> expenseService.getExpense(saved.getId()));
+    }
+
+    @Test
+    void testDeleteAndMissingExpenses() {
+        // Arrange
+        Expense saved = expenseService.addExpense(new Expense(BigDecimal.valueOf(12), "Food", "Lunch"));
+
+        // Act & Assert
+        client.delete().uri("/{id}", saved.getId()).exchange().expectStatus().isNoContent();
+        client.get().uri("/{id}", saved.getId()).exchange().expectStatus().isNotFound();
+        client.delete().uri("/{id}", saved.getId()).exchange().expectStatus().isNotFound();
+        client.put().uri("/{id}", saved.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Expense(BigDecimal.ONE, "Food", "Gone"))
+                .exchange()
+                .expectStatus().isNotFound();
+        assertFalse(expenseRepository.existsById(saved.getId()));
+    }
+
+    @Test
+    void testIdsDoNotCollideWithHibernate() {
+        // Act: interleave inserts through both APIs across several id blocks
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 120; i++) {
+            ids.add(expenseService.addExpense(new Expense(BigDecimal.ONE, "Food", "Blocking " + i)).getId());
+            ids.add(client.post()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(new Expense(BigDecimal.ONE, "Food", "Reactive " + i))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(Expense.class)
+                    .returnResult().getResponseBody().getId());
+        }
+
+        // Assert
+        assertEquals(240, ids.size());
+        assertEquals(240, expenseRepository.count());
+    }
+
+    @Test
+    void testManyConcurrentStreamsShareTheEventLoop() {
+        // Arrange
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            expenses.add(new Expense(BigDecimal.ONE, "Food", "Expense " + i));
+        }
+        expenseRepository.saveAll(expenses);
+        WebClient webClient = WebClient.create(baseUrl);
+
+        // Act: far more open streams than event-loop threads
+        List<Long> counts = Flux.range(0, 200)
+                .flatMap(i -> webClient.get()
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .retrieve()
+                        .bodyToFlux(Expense.class)
+                        .count(), 200)
+                .collectList()
+                .block(Duration.ofSeconds(60));
+
+        // Assert
+        assertEquals(200, counts.size());
+        assertTrue(counts.stream().allMatch(count -> count == 200));
+    }
+}
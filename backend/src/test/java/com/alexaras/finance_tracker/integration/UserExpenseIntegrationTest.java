@@ -0,0 +1,138 @@
+package com.alexaras.finance_tracker.integration;
+
+import com.alexaras.finance_tracker.dao.UserDAO;
+import com.alexaras.finance_tracker.dto.CategoryTotal;
+import com.alexaras.finance_tracker.dto.ExpensePage;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.model.User;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.service.CategoryTotalsCache;
+import com.alexaras.finance_tracker.service.ExpenseSearchIndex;
+import com.alexaras.finance_tracker.service.ExpenseService;
+import com.alexaras.finance_tracker.service.UserCategoryTotalsCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the per-user caches only see writes once their transaction commits
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class UserExpenseIntegrationTest {
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private UserDAO userDAO;
+
+    @Autowired
+    private UserCategoryTotalsCache userCategoryTotalsCache;
+
+    @Autowired
+    private CategoryTotalsCache categoryTotalsCache;
+
+    @Autowired
+    private ExpenseSearchIndex expenseSearchIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int alex;
+    private int sam;
+
+    @BeforeEach
+    void setUp() {
+        List<User> users = userDAO.createUsers(List.of(
+                new User(0, "Alex", "alex@user-expenses.test"),
+                new User(0, "Sam", "sam@user-expenses.test")));
+        alex = users.get(0).getId();
+        sam = users.get(1).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userDAO.deleteUsers(List.of(alex, sam));
+        expenseRepository.deleteAll();
+        categoryTotalsCache.rebuild();
+        expenseSearchIndex.rebuild();
+        userCategoryTotalsCache.invalidateAll();
+    }
+
+    @Test
+    void testUsersOnlySeeTheirOwnExpenses() {
+        // Arrange
+        Expense lunch = expenseService.addUserExpense(alex, new Expense(BigDecimal.valueOf(12), "Food", "Lunch"));
+        Expense taxi = expenseService.addUserExpense(sam, new Expense(BigDecimal.valueOf(30), "Transport", "Taxi"));
+        expenseService.addExpense(new Expense(BigDecimal.valueOf(5), "Food", "Unowned"));
+
+        // Act
+        ExpensePage alexPage = expenseService.getUserExpensePage(alex, null, 10);
+
+        // Assert
+        assertEquals(List.of(lunch.getId()), alexPage.items().stream().map(Expense::getId).toList());
+        assertEquals(alex, expenseService.getUserExpense(alex, lunch.getId()).getUserId());
+        assertThrows(RuntimeException.class, () -> expenseService.getUserExpense(alex, taxi.getId()));
+        assertThrows(RuntimeException.class, () -> expenseService.deleteUserExpense(alex, taxi.getId()));
+        assertTrue(expenseRepository.existsById(taxi.getId()));
+    }
+
+    @Test
+    void testUpdatesKeepTheOwner() {
+        Expense lunch = expenseService.addUserExpense(alex, new Expense(BigDecimal.valueOf(12), "Food", "Lunch"));
+
+        Expense updated = expenseService.updateUserExpense(alex, lunch.getId(),
+                new Expense(BigDecimal.valueOf(15), "Food", "Late lunch"));
+
+        assertEquals(alex, updated.getUserId());
+        assertEquals(alex, expenseRepository.findById(lunch.getId()).orElseThrow().getUserId());
+    }
+
+    @Test
+    void testExpensesCannotBelongToUnknownUsers() {
+        assertThrows(RuntimeException.class,
+                () -> expenseService.addUserExpense(-1, new Expense(BigDecimal.ONE, "Food", null)));
+        assertEquals(0, expenseRepository.count());
+    }
+
+    @Test
+    void testUserTotalsFollowCommittedWrites() {
+        // Arrange
+        expenseService.addUserExpense(alex, new Expense(new BigDecimal("12.50"), "Food", "Lunch"));
+        assertEquals(List.of(new CategoryTotal("Food", 1, new BigDecimal("12.50"))),
+                userCategoryTotalsCache.getTotals(alex));
+
+        // Act
+        Expense dinner = expenseService.addUserExpense(alex, new Expense(new BigDecimal("20.00"), "Food", "Dinner"));
+        expenseService.addUserExpense(sam, new Expense(new BigDecimal("99.00"), "Food", "Groceries"));
+
+        // Assert
+        assertEquals(List.of(new CategoryTotal("Food", 2, new BigDecimal("32.50"))),
+                userCategoryTotalsCache.getTotals(alex));
+        expenseService.deleteUserExpense(alex, dinner.getId());
+        assertEquals(List.of(new CategoryTotal("Food", 1, new BigDecimal("12.50"))),
+                userCategoryTotalsCache.getTotals(alex));
+    }
+
+    @Test
+    void testUserPagesAreReadThroughTheUserIndex() {
+        String plan = jdbcTemplate.queryForList(
+                        "EXPLAIN SELECT id FROM expenses WHERE user_id = ? AND id > ? ORDER BY id LIMIT 10", alex, 0)
+                .toString();
+
+        assertTrue(plan.toLowerCase().contains("idx_expenses_user_id"), plan);
+    }
+}
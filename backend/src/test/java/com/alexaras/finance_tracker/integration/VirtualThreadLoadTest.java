@@ -0,0 +1,125 @@
+package com.alexaras.finance_tracker.integration;
+
+import com.alexaras.finance_tracker.FinanceTrackerApplication;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the same burst of requests against the application with platform and with virtual request
+ * threads, and prints throughput and p99 latency for each. Excluded from the normal build; run it
+ * with {@code mvn test -Pload-test}.
+ * <p>
+ * Tomcat is held to a small pool so the burst saturates it, as it would under production traffic.
+ */
+@Tag("load")
+public class VirtualThreadLoadTest {
+
+    private static final int CLIENTS = 200;
+    private static final int REQUESTS_PER_CLIENT = 20;
+    private static final int TOMCAT_THREADS = 20;
+
+    @Test
+    void testVirtualThreadsAgainstPlatformThreads() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        System.out.printf("%-10s %12s %12s %12s%n", "threads", "requests/s", "p50 ms", "p99 ms");
+        for (Result result : List.of(platform, virtual)) {
+            System.out.printf("%-10s %12.0f %12.1f %12.1f%n",
+                    result.mode, result.throughput(), result.percentile(50), result.percentile(99));
+        }
+
+        assertEquals(0, platform.failures, "Requests failed with platform threads");
+        assertEquals(0, virtual.failures, "Requests failed with virtual threads");
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        // As command-line arguments, so they override application.properties; builder properties would not.
+        // Each mode gets its own in-memory database, so neither run sees rows left by an earlier one
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FinanceTrackerApplication.class).run(
+                "--server.port=0",
+                "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--finance-tracker.storage.backend=h2",
+                "--finance-tracker.storage.location=load_" + mode,
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.security=WARN")) {
+            ExpenseRepository repository = context.getBean(ExpenseRepository.class);
+            List<Expense> expenses = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                expenses.add(new Expense(BigDecimal.valueOf(i % 100 + 1), "Category " + (i % 10), "Expense " + i));
+            }
+            repository.saveAll(expenses);
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            return burst(mode, URI.create("http://localhost:" + port + "/api/v1/expenses/page?limit=50"));
+        }
+    }
+
+    // Every client runs on its own virtual thread, so the client side is never the bottleneck
+    private Result burst(String mode, URI uri) throws Exception {
+        long[] latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        long started = System.nanoTime();
+
+        try (HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+            List<Future<?>> running = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                running.add(clients.submit(() -> {
+                    for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                        long start = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[next.getAndIncrement()] = System.nanoTime() - start;
+                        if (response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : running) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+        }
+        return new Result(mode, latencies, System.nanoTime() - started, failures.get());
+    }
+
+    private record Result(String mode, long[] latencies, long elapsedNanos, int failures) {
+
+        double throughput() {
+            return latencies.length / (elapsedNanos / 1e9);
+        }
+
+        double percentile(double percentile) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
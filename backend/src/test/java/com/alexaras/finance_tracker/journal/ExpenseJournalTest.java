@@ -0,0 +1,251 @@
+package com.alexaras.finance_tracker.journal;
+
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpenseJournalTest {
+    private static final LocalDateTime MAY = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_000_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReplayAfterReopeningReturnsTheLatestVersions() throws IOException {
+        // Arrange
+        try (ExpenseJournal journal = ExpenseJournal.open(directory, 4, false)) {
+            journal.put(expense(1, 0, "12.50", "Food", "Lunch", 7));
+            journal.put(expense(2, 0, "30.00", "Transport", null, null));
+            journal.put(expense(1, 1, "13.75", "Food", "Lunch with dessert", 7));
+            journal.put(expense(3, 0, "4.20", "Food", "Coffee", null));
+            journal.delete(3, 0);
+        }
+
+        // Act
+        List<Expense> replayed = replay();
+
+        // Assert
+        assertEquals(2, replayed.size());
+        Expense lunch = replayed.get(0);
+        assertEquals(1L, lunch.getId());
+        assertEquals(1L, lunch.getVersion());
+        assertEquals(new BigDecimal("13.75"), lunch.getAmount());
+        assertEquals("Food", lunch.getCategory());
+        assertEquals("Lunch with dessert", lunch.getDescription());
+        assertEquals(MAY, lunch.getSpentAt());
+        assertEquals(7, lunch.getUserId());
+        Expense taxi = replayed.get(1);
+        assertEquals("Transport", taxi.getCategory());
+        assertNull(taxi.getDescription());
+        assertNull(taxi.getUserId());
+    }
+
+    @Test
+    void testChangesRecordedOutOfOrderReplayToTheLatestVersion() throws IOException {
+        // Arrange: the listener for version 2 ran before the one for version 1
+        try (ExpenseJournal journal = ExpenseJournal.open(directory, 4, false)) {
+            journal.put(expense(1, 0, "1.00", "Food", "First", null));
+            journal.put(expense(1, 2, "3.00", "Food", "Third", null));
+            journal.put(expense(1, 1, "2.00", "Food", "Second", null));
+            // And an update that lost the race with a delete
+            journal.put(expense(2, 0, "5.00", "Food", "Deleted", null));
+            journal.delete(2, 1);
+            journal.put(expense(2, 1, "6.00", "Food", "Deleted", null));
+        }
+
+        // Act
+        List<Expense> replayed = replay();
+
+        // Assert
+        assertEquals(1, replayed.size());
+        assertEquals("Third", replayed.get(0).getDescription());
+    }
+
+    @Test
+    void testUsersReplayInTheOrderTheyWereRecordedAndSurviveASnapshot() throws IOException {
+        // Arrange
+        try (ExpenseJournal journal = ExpenseJournal.open(directory, 4, false)) {
+            journal.putUser(new User(1, "Alex", "alex@example.com"));
+            journal.putUser(new User(2, "Sam", "sam@example.com"));
+            journal.putUser(new User(3, "Kim", "kim@example.com"));
+            journal.updateUser(new User(1, "Alex Updated", "alex_updated@example.com"));
+            journal.deleteUser(2);
+            // An update that matched no row must not bring the user back
+            journal.updateUser(new User(2, "Sam", "sam@example.com"));
+            journal.put(expense(1, 0, "1.00", "Food", "Owned", 1));
+
+            // Act: the update stands in for Alex's creation from here on
+            journal.snapshot();
+        }
+        List<User> users = new ArrayList<>();
+        try (ExpenseJournal journal = ExpenseJournal.open(directory, 4, false)) {
+            journal.replayUsers(users::add);
+        }
+
+        // Assert
+        assertEquals(List.of(1, 3), users.stream().map(User::getId).toList());
+        assertEquals("Alex Updated", users.get(0).getName());
+        assertEquals("alex_updated@example.com", users.get(0).getEmail());
+        assertEquals("Kim", users.get(1).getName());
+        assertEquals(1, replay().get(0).getUserId());
+    }
+
+    @Test
+    void testTornRecordEndsReplayAndIsOverwritten() throws IOException {
+        // Arrange
+        try (ExpenseJournal journal = ExpenseJournal.open(directory, 4, false)) {
+            journal.put(expense(1, 0, "1.00", "Food", "Kept", null));
+            journal.put(expense(2, 0, "2.00", "Food", "Torn", null));
+        }
+        // The last record (after the header, the category and the first expense) loses its tail
+        corrupt(logFile(), 3 * ExpenseJournal.RECORD_SIZE + 40);
+
+        // Act
+        List<Expense> replayed;
+        try (ExpenseJournal journal = ExpenseJournal.open(directory, 4, false)) {
+            replayed = new ArrayList<>();
+            journal.replay(replayed::add);
+            journal.put(expense(3, 0, "3.00", "Food", "Written after recovery", null));
+        }
+
+        // Assert
+        assertEquals(List.of("Kept"), replayed.stream().map(Expense::getDescription).toList());
+        assertEquals(List.of("Kept", "Written after recovery"),
+                replay().stream().map(Expense::getDescription).toList());
+    }
+
+    @Test
+    void testSnapshotCompactsAndKeepsEveryExpense() throws IOException {
+        // Arrange: far more records than the initial mapping holds, so the files have to grow
+        try (ExpenseJournal journal = ExpenseJournal.open(directory, 4, false)) {
+            for (long id = 1; id <= 100; id++) {
+                for (long version = 0; version < 5; version++) {
+                    journal.put(expense(id, version, id + "." + version, "Category " + id % 3, "Expense " + id, null));
+                }
+            }
+            for (long id = 1; id <= 100; id += 2) {
+                journal.delete(id, 4);
+            }
+            long before = journal.records();
+
+            // Act
+            journal.snapshot();
+            long compacted = journal.records();
+            journal.put(expense(200, 0, "9.99", "Category 1", "After the snapshot", null));
+            journal.snapshot();
+
+            // Assert: three categories, fifty expenses and the fifty deletes, which the second snapshot
+            // drops; then the one expense appended in between
+            assertTrue(compacted < before);
+            assertEquals(103, compacted);
+            assertEquals(54, journal.records());
+            assertEquals(0, journal.appendedSinceSnapshot());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count(), "The old generations were not deleted");
+        }
+        List<Expense> replayed = replay();
+        assertEquals(51, replayed.size());
+        assertEquals(2L, replayed.get(0).getId());
+        assertEquals(new BigDecimal("2.40"), replayed.get(0).getAmount());
+        assertEquals("Category 2", replayed.get(0).getCategory());
+        assertEquals("After the snapshot", replayed.get(50).getDescription());
+    }
+
+    @Test
+    void testAnUpdateRecordedDuringASnapshotAfterItsDeleteStaysDeleted() throws IOException {
+        try (ExpenseJournal journal = ExpenseJournal.open(directory, 4, false)) {
+            // Arrange
+            journal.put(expense(1, 0, "1.00", "Food", "Kept", null));
+            journal.put(expense(2, 0, "5.00", "Food", "Deleted", null));
+            journal.delete(2, 1);
+
+            // Act: the update to version 1 that lost the race with the delete is recorded mid-snapshot
+            journal.snapshot(() -> journal.put(expense(2, 1, "6.00", "Food", "Deleted", null)));
+
+            // Assert
+            assertEquals(List.of(1L), replayedIds(journal));
+            journal.snapshot();
+            assertEquals(List.of(1L), replayedIds(journal));
+        }
+        assertEquals(1, replay().size());
+    }
+
+    @Test
+    void testAnInterruptedSnapshotIsIgnored() throws IOException {
+        // Arrange
+        try (ExpenseJournal journal = ExpenseJournal.open(directory, 4, false)) {
+            journal.put(expense(1, 0, "1.00", "Food", "Kept", null));
+        }
+        // A later generation whose header was never marked ready
+        Files.write(directory.resolve("expenses-0000000000000002.journal"), new byte[ExpenseJournal.RECORD_SIZE * 4]);
+
+        // Act
+        List<Expense> replayed = replay();
+
+        // Assert
+        assertEquals(1, replayed.size());
+        assertFalse(Files.exists(directory.resolve("expenses-0000000000000002.journal")));
+    }
+
+    @Test
+    void testSyncedAppendsReplay() throws IOException {
+        // Arrange
+        try (ExpenseJournal journal = ExpenseJournal.open(directory, 4, true)) {
+            journal.put(expense(1, 0, "1.00", "Food", "Synced", null));
+        }
+
+        // Act & Assert
+        assertEquals("Synced", replay().get(0).getDescription());
+    }
+
+    private List<Expense> replay() throws IOException {
+        List<Expense> replayed = new ArrayList<>();
+        try (ExpenseJournal journal = ExpenseJournal.open(directory, 4, false)) {
+            journal.replay(replayed::add);
+        }
+        return replayed;
+    }
+
+    private static List<Long> replayedIds(ExpenseJournal journal) {
+        List<Long> ids = new ArrayList<>();
+        journal.replay(expense -> ids.add(expense.getId()));
+        return ids;
+    }
+
+    private Path logFile() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".journal")).findFirst().orElseThrow();
+        }
+    }
+
+    private static void corrupt(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3, 4}), position);
+        }
+    }
+
+    private static Expense expense(long id, long version, String amount, String category, String description,
+                                   Integer userId) {
+        Expense expense = new Expense(new BigDecimal(amount), category, description, MAY);
+        expense.setId(id);
+        expense.setVersion(version);
+        expense.setUserId(userId);
+        return expense;
+    }
+}
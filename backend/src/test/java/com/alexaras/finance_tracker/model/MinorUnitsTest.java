@@ -0,0 +1,55 @@
+package com.alexaras.finance_tracker.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinorUnitsTest {
+
+    @Test
+    void parseReadsPlainDecimalsAsCents() {
+        assertEquals(1250, MinorUnits.parse("12.5"));
+        assertEquals(-1250, MinorUnits.parse("-12.50"));
+        assertEquals(300, MinorUnits.parse("+3"));
+        assertEquals(10, MinorUnits.parse("0.10"));
+        assertEquals(700, MinorUnits.parse("7."));
+        assertEquals(1200, MinorUnits.parse("12.000"));
+        assertEquals(Long.MIN_VALUE, MinorUnits.parse("-92233720368547758.08"));
+    }
+
+    @Test
+    void parseFallsBackToBigDecimalForOtherNotations() {
+        assertEquals(100_000, MinorUnits.parse("1e3"));
+        assertThrows(NumberFormatException.class, () -> MinorUnits.parse("abc"));
+        assertThrows(NumberFormatException.class, () -> MinorUnits.parse("-"));
+        assertThrows(NumberFormatException.class, () -> MinorUnits.parse("."));
+    }
+
+    @Test
+    void parseRejectsAmountsThatWouldBeRoundedOrOverflow() {
+        assertThrows(ArithmeticException.class, () -> MinorUnits.parse("1.005"));
+        assertThrows(ArithmeticException.class, () -> MinorUnits.parse("92233720368547758.08"));
+        assertThrows(ArithmeticException.class, () -> MinorUnits.parse("1e20"));
+    }
+
+    @Test
+    void conversionToAndFromBigDecimalIsExact() {
+        assertEquals(1999, MinorUnits.of(new BigDecimal("19.99")));
+        assertEquals(new BigDecimal("19.99"), MinorUnits.toAmount(1999));
+        assertEquals(12345, MinorUnits.of(new BigDecimal("12.345"), 3));
+        assertThrows(ArithmeticException.class, () -> MinorUnits.of(new BigDecimal("12.345")));
+        assertThrows(ArithmeticException.class, () -> MinorUnits.of(new BigDecimal("1e30")));
+    }
+
+    @Test
+    void arithmeticThrowsInsteadOfOverflowing() {
+        assertEquals(30, MinorUnits.sum(new long[]{10, 20}));
+        assertEquals(1500, MinorUnits.rescale(150, 2, 3));
+        assertThrows(ArithmeticException.class, () -> MinorUnits.add(Long.MAX_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> MinorUnits.sum(new long[]{Long.MAX_VALUE, 1}));
+        assertThrows(ArithmeticException.class, () -> MinorUnits.rescale(Long.MAX_VALUE / 5, 2, 3));
+        assertThrows(ArithmeticException.class, () -> MinorUnits.rescale(150, 3, 2));
+    }
+}
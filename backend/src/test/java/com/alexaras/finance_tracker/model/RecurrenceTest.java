@@ -0,0 +1,54 @@
+package com.alexaras.finance_tracker.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurrenceTest {
+
+    @Test
+    void weeklyCountsEverySeventhDayFromTheStart() {
+        LocalDate start = LocalDate.of(2024, 1, 3); // A Wednesday
+
+        // January 2024 has Wednesdays on the 3rd, 10th, 17th, 24th and 31st
+        assertEquals(5, Recurrence.WEEKLY.occurrences(start, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)));
+        assertEquals(3, Recurrence.WEEKLY.occurrences(start, LocalDate.of(2024, 1, 11), LocalDate.of(2024, 1, 31)));
+        assertEquals(1, Recurrence.WEEKLY.occurrences(start, LocalDate.of(2024, 1, 10), LocalDate.of(2024, 1, 10)));
+        assertEquals(0, Recurrence.WEEKLY.occurrences(start, LocalDate.of(2024, 1, 11), LocalDate.of(2024, 1, 16)));
+        assertEquals(0, Recurrence.WEEKLY.occurrences(start, LocalDate.of(2023, 12, 1), LocalDate.of(2023, 12, 31)));
+    }
+
+    @Test
+    void monthlyKeepsTheDayOfMonthAndClampsToShortMonths() {
+        LocalDate start = LocalDate.of(2024, 1, 31);
+
+        // Due on Feb 29 in a leap year, then on the 31st again where the month has one
+        assertEquals(1, Recurrence.MONTHLY.occurrences(start, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29)));
+        assertEquals(1, Recurrence.MONTHLY.occurrences(start, LocalDate.of(2024, 3, 31), LocalDate.of(2024, 3, 31)));
+        assertEquals(0, Recurrence.MONTHLY.occurrences(start, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 30)));
+        assertEquals(12, Recurrence.MONTHLY.occurrences(start, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)));
+    }
+
+    @Test
+    void quarterlyAndYearlySkipTheMonthsBetween() {
+        LocalDate start = LocalDate.of(2024, 2, 15);
+
+        assertEquals(0, Recurrence.QUARTERLY.occurrences(start, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 4, 30)));
+        assertEquals(1, Recurrence.QUARTERLY.occurrences(start, LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31)));
+        assertEquals(4, Recurrence.QUARTERLY.occurrences(start, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)));
+        assertEquals(1, Recurrence.YEARLY.occurrences(start, LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 28)));
+        assertEquals(0, Recurrence.YEARLY.occurrences(start, LocalDate.of(2025, 3, 1), LocalDate.of(2026, 1, 31)));
+    }
+
+    @Test
+    void recurringExpensesStopAtTheirEndDate() {
+        RecurringExpense gym = new RecurringExpense(new BigDecimal("30.00"), "Health", "Gym",
+                Recurrence.MONTHLY, LocalDate.of(2024, 1, 5));
+        gym.setEndDate(LocalDate.of(2024, 3, 4));
+
+        assertEquals(2, gym.occurrences(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)));
+    }
+}
@@ -0,0 +1,87 @@
+package com.alexaras.finance_tracker.projection;
+
+import com.alexaras.finance_tracker.dto.CategoryProjection;
+import com.alexaras.finance_tracker.dto.UserProjection;
+import com.alexaras.finance_tracker.model.Budget;
+import com.alexaras.finance_tracker.model.Recurrence;
+import com.alexaras.finance_tracker.model.RecurringExpense;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectionEngineTest {
+
+    private static final LocalDate AS_OF = LocalDate.of(2024, 3, 20);
+
+    @Test
+    void projectAddsRecurringExpensesStillDueToWhatWasSpent() {
+        // Arrange: rent on the 1st has been paid this month; a weekly lunch falls on Wednesdays
+        RecurringExpense rent = new RecurringExpense(new BigDecimal("1000.00"), "Housing", "Rent",
+                Recurrence.MONTHLY, LocalDate.of(2024, 1, 1));
+        RecurringExpense lunch = new RecurringExpense(new BigDecimal("12.50"), "Food", "Team lunch",
+                Recurrence.WEEKLY, LocalDate.of(2024, 3, 6));
+        ProjectionEngine.Plan plan = new ProjectionEngine.Plan(7, List.of(rent, lunch),
+                List.of(new Budget(7, "Food", new BigDecimal("100.00"))));
+        Map<String, long[]> spent = Map.of("Food", new long[]{8000, 0}, "Housing", new long[]{100000, 0});
+
+        // Act
+        UserProjection projection = ProjectionEngine.project(plan, AS_OF, 2, (userId, category) -> spent.get(category));
+
+        // Assert: March has lunches left on the 20th and 27th, April has four and the rent
+        assertEquals(List.of(
+                line("2024-03", "Food", "100.00", "80.00", "25.00", "105.00", "-5.00"),
+                line("2024-03", "Housing", null, "1000.00", "0.00", "1000.00", null),
+                line("2024-04", "Food", "100.00", "0.00", "50.00", "50.00", "50.00"),
+                line("2024-04", "Housing", null, "0.00", "1000.00", "1000.00", null)), projection.categories());
+        assertTrue(projection.isOverBudget());
+    }
+
+    @Test
+    void projectAllMatchesProjectingEachUserInTurn() {
+        // Arrange: enough users to be split across many tasks
+        Random random = new Random(42);
+        String[] categories = {"Food", "Housing", "Transport", "Health"};
+        List<ProjectionEngine.Plan> plans = new ArrayList<>();
+        for (int userId = 1; userId <= ProjectionEngine.USERS_PER_TASK * 10 + 3; userId++) {
+            List<RecurringExpense> recurring = new ArrayList<>();
+            for (int i = random.nextInt(4); i > 0; i--) {
+                recurring.add(new RecurringExpense(BigDecimal.valueOf(random.nextInt(10_000), 2),
+                        categories[random.nextInt(categories.length)], null,
+                        Recurrence.values()[random.nextInt(Recurrence.values().length)],
+                        AS_OF.minusDays(random.nextInt(400))));
+            }
+            List<Budget> budgets = random.nextBoolean()
+                    ? List.of(new Budget(userId, categories[random.nextInt(categories.length)], BigDecimal.valueOf(500)))
+                    : List.of();
+            plans.add(new ProjectionEngine.Plan(userId, recurring, budgets));
+        }
+        ProjectionEngine.Actuals actuals = (userId, category) -> new long[]{userId % 7 * 1000L + category.length(), 0, 0};
+
+        // Act
+        List<UserProjection> parallel = new ProjectionEngine(4).projectAll(plans, AS_OF, 3, actuals);
+
+        // Assert
+        assertEquals(plans.size(), parallel.size());
+        for (int i = 0; i < plans.size(); i++) {
+            assertEquals(ProjectionEngine.project(plans.get(i), AS_OF, 3, actuals), parallel.get(i));
+        }
+    }
+
+    private static CategoryProjection line(String month, String category, String budget, String actual,
+                                           String recurring, String projected, String remaining) {
+        return new CategoryProjection(YearMonth.parse(month), category, amount(budget), amount(actual),
+                amount(recurring), amount(projected), amount(remaining));
+    }
+
+    private static BigDecimal amount(String text) {
+        return text == null ? null : new BigDecimal(text);
+    }
+}
@@ -0,0 +1,98 @@
+package com.alexaras.finance_tracker.reactive;
+
+import com.alexaras.finance_tracker.dao.UserDAO;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.model.User;
+import com.alexaras.finance_tracker.service.ExpenseVersionConflictException;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReactiveExpenseServiceTest {
+
+    private final ReactiveExpenseRepository repository = Mockito.mock(ReactiveExpenseRepository.class);
+    private final UserDAO userDAO = Mockito.mock(UserDAO.class);
+    private final ApplicationEventPublisher eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+    private final ReactiveExpenseService expenseService = new ReactiveExpenseService(repository, userDAO,
+            eventPublisher, Mockito.mock(CacheManager.class));
+
+    @Test
+    void addExpenseRejectsAnUnknownOwner() {
+        // Arrange
+        Expense expense = new Expense(BigDecimal.TEN, "Food", "Lunch");
+        expense.setUserId(7);
+        when(userDAO.findById(7)).thenReturn(null);
+
+        // Act & Assert
+        RuntimeException e = assertThrows(RuntimeException.class, () -> expenseService.addExpense(expense).block());
+        assertEquals("User not found with id: 7", e.getMessage());
+        verify(repository, never()).insert(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void addExpenseChecksTheOwnerBeforeInserting() {
+        // Arrange
+        Expense expense = new Expense(BigDecimal.TEN, "Food", "Lunch");
+        expense.setUserId(7);
+        when(userDAO.findById(7)).thenReturn(new User(7, "Alex", "alex@example.com"));
+        when(repository.insert(expense)).thenReturn(Mono.just(expense));
+
+        // Act
+        Expense saved = expenseService.addExpense(expense).block();
+
+        // Assert
+        assertSame(expense, saved);
+        verify(eventPublisher).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void updateExpenseReadsAgainBeforeReportingAConflict() {
+        // Arrange: the first read is behind the version the client saw
+        Expense stale = expense(3L);
+        Expense current = expense(4L);
+        when(repository.findById(1L)).thenReturn(Mono.just(stale), Mono.just(current));
+        when(repository.update(any())).thenAnswer(invocation -> {
+            Expense updated = new Expense(invocation.<Expense>getArgument(0));
+            updated.setVersion(updated.getVersion() + 1);
+            return Mono.just(updated);
+        });
+        Expense changes = new Expense(BigDecimal.TEN, "Transport", "Taxi");
+        changes.setVersion(4L);
+
+        // Act
+        Expense saved = expenseService.updateExpense(1L, changes).block();
+
+        // Assert
+        assertEquals(5L, saved.getVersion());
+        assertEquals("Transport", saved.getCategory());
+        verify(repository, times(2)).findById(1L);
+    }
+
+    @Test
+    void updateExpenseReportsAConflictThatSurvivesTheSecondRead() {
+        // Arrange
+        when(repository.findById(1L)).thenReturn(Mono.just(expense(5L)));
+        Expense changes = new Expense(BigDecimal.TEN, "Transport", "Taxi");
+        changes.setVersion(4L);
+
+        // Act & Assert
+        assertThrows(ExpenseVersionConflictException.class, () -> expenseService.updateExpense(1L, changes).block());
+        verify(repository, times(2)).findById(1L);
+        verify(repository, never()).update(any());
+    }
+
+    private static Expense expense(long version) {
+        Expense expense = new Expense(BigDecimal.ONE, "Food", "Lunch");
+        expense.setId(1L);
+        expense.setVersion(version);
+        return expense;
+    }
+}
@@ -0,0 +1,118 @@
+package com.alexaras.finance_tracker.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+
+    private final InvertedIndex index = new InvertedIndex();
+
+    @Test
+    void tokenizeFoldsCaseAndAccents() {
+        assertEquals(List.of("cafe", "creme", "brulee", "2"), InvertedIndex.tokenize("Café: Crème-Brûlée, 2"));
+        assertEquals(List.of(), InvertedIndex.tokenize(" ,.; "));
+    }
+
+    @Test
+    void everyQueryWordMustMatch() {
+        // Arrange
+        index.add(1, "Food", "Morning coffee");
+        index.add(2, "Food", "Lunch");
+        index.add(3, "Transport", "Coffee on the train");
+
+        // Act & Assert
+        assertEquals(List.of(3L, 1L), ids(index.search("coffee", 10)));
+        assertEquals(List.of(1L), ids(index.search("food coffee", 10)));
+        assertEquals(List.of(), ids(index.search("food taxi", 10)));
+    }
+
+    @Test
+    void wordsMatchAsPrefixesBelowExactMatches() {
+        // Arrange
+        index.add(1, "Food", "Coffeehouse breakfast");
+        index.add(2, "Food", "Coffee");
+
+        // Act
+        List<InvertedIndex.Hit> hits = index.search("coffee", 10);
+
+        // Assert: both match, the whole word first
+        assertEquals(List.of(2L, 1L), ids(hits));
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+        assertEquals(List.of(2L, 1L), ids(index.search("cof", 10)));
+        // A single letter is too short to expand
+        assertEquals(List.of(), ids(index.search("c", 10)));
+    }
+
+    @Test
+    void categoryMatchesOutweighDescriptionMatches() {
+        index.add(1, "Food", "Taxi to the restaurant");
+        index.add(2, "Taxi", "Airport");
+
+        assertEquals(List.of(2L, 1L), ids(index.search("taxi", 10)));
+    }
+
+    @Test
+    void limitKeepsTheBestHitsNewestFirst() {
+        for (long id = 1; id <= 50; id++) {
+            index.add(id, "Food", "Lunch");
+        }
+
+        assertEquals(List.of(50L, 49L, 48L), ids(index.search("lunch", 3)));
+    }
+
+    @Test
+    void removedDocumentsNoLongerMatch() {
+        // Arrange
+        index.add(1, "Food", "Coffee");
+        index.add(2, "Food", "Tea");
+
+        // Act: remove one and re-index the other under a new description
+        index.remove(1, "Food", "Coffee");
+        index.remove(2, "Food", "Tea");
+        index.add(2, "Food", "Green tea");
+
+        // Assert
+        assertEquals(List.of(), ids(index.search("coffee", 10)));
+        assertEquals(List.of(2L), ids(index.search("green", 10)));
+        assertEquals(1, index.documentCount());
+        assertEquals(3, index.tokenCount());
+    }
+
+    @Test
+    void postingsBehaveLikeAMapUnderRandomChanges() {
+        // Arrange
+        Postings postings = new Postings();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // Act: a long random mix of puts and removes over a small id range forces collisions
+        for (int i = 0; i < 100_000; i++) {
+            long id = 1 + random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id) != null, postings.remove(id));
+            } else {
+                int weight = 1 + random.nextInt(5);
+                assertEquals(expected.put(id, weight) == null, postings.put(id, weight));
+            }
+        }
+
+        // Assert
+        assertEquals(expected.size(), postings.size());
+        for (long id = 1; id <= 2_000; id++) {
+            assertEquals(expected.getOrDefault(id, 0), postings.get(id));
+        }
+        Map<Long, Integer> visited = new HashMap<>();
+        postings.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+
+    private static List<Long> ids(List<InvertedIndex.Hit> hits) {
+        return hits.stream().map(InvertedIndex.Hit::id).toList();
+    }
+}
@@ -0,0 +1,71 @@
+package com.alexaras.finance_tracker.service;
+
+import com.alexaras.finance_tracker.dto.CategoryStats;
+import com.alexaras.finance_tracker.dto.CategoryTotal;
+import com.alexaras.finance_tracker.event.ExpenseChangedEvent;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CategoryTotalsCacheTest {
+
+    private final ExpenseRepository expenseRepository = Mockito.mock(ExpenseRepository.class);
+    private final CategoryTotalsCache cache = new CategoryTotalsCache(expenseRepository);
+
+    @BeforeEach
+    void setUp() {
+        // Arrange: The database starts with one Food expense
+        when(expenseRepository.aggregateByCategory(null, null)).thenReturn(List.of(
+                new CategoryStats("Food", 1L, new BigDecimal("10.00"), new BigDecimal("10.00"), new BigDecimal("10.00"))));
+        cache.load();
+    }
+
+    @Test
+    void loadReadsTotalsFromTheDatabase() {
+        assertEquals(List.of(new CategoryTotal("Food", 1, new BigDecimal("10.00"))), cache.getTotals());
+    }
+
+    @Test
+    void updatesApplyTheOldToNewDelta() {
+        // Act: Add a Transport expense, then move the Food expense to Transport with a new amount
+        cache.onExpenseChanged(ExpenseChangedEvent.created(expense(2L, "5.25", "Transport")));
+        cache.onExpenseChanged(ExpenseChangedEvent.updated(expense(1L, "10.00", "Food"), expense(1L, "7.50", "Transport")));
+
+        // Assert: Food is emptied and Transport holds both expenses
+        assertEquals(List.of(new CategoryTotal("Transport", 2, new BigDecimal("12.75"))), cache.getTotals());
+        assertEquals(0, cache.getTotal("Food").count());
+    }
+
+    @Test
+    void deletesSubtractFromTheTotal() {
+        cache.onExpenseChanged(ExpenseChangedEvent.deleted(expense(1L, "10.00", "Food")));
+
+        assertTrue(cache.getTotals().isEmpty());
+    }
+
+    @Test
+    void verifyRebuildsWhenTotalsDrift() {
+        // Arrange: A write the cache never heard about
+        when(expenseRepository.aggregateByCategory(null, null)).thenReturn(List.of(
+                new CategoryStats("Food", 2L, new BigDecimal("30.00"), new BigDecimal("10.00"), new BigDecimal("20.00"))));
+
+        // Act & Assert: The first check detects the drift and rebuilds, the second finds it consistent
+        assertFalse(cache.verify());
+        assertEquals(new CategoryTotal("Food", 2, new BigDecimal("30.00")), cache.getTotal("Food"));
+        assertTrue(cache.verify());
+    }
+
+    private static Expense expense(Long id, String amount, String category) {
+        Expense expense = new Expense(new BigDecimal(amount), category, null);
+        expense.setId(id);
+        return expense;
+    }
+}
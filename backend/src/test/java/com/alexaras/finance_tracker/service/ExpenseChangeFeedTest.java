@@ -0,0 +1,90 @@
+package com.alexaras.finance_tracker.service;
+
+import com.alexaras.finance_tracker.dto.ExpenseChange;
+import com.alexaras.finance_tracker.event.ExpenseChangedEvent;
+import com.alexaras.finance_tracker.model.Expense;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpenseChangeFeedTest {
+
+    private final ExpenseChangeFeed feed = new ExpenseChangeFeed(4);
+
+    @Test
+    void changesAreNumberedInCommitOrder() throws InterruptedException {
+        // Arrange
+        Expense coffee = expense(1L, "4.00");
+        feed.onExpenseChanged(ExpenseChangedEvent.created(coffee));
+        feed.onExpenseChanged(ExpenseChangedEvent.updated(coffee, expense(1L, "4.50")));
+        feed.onExpenseChanged(ExpenseChangedEvent.deleted(expense(1L, "4.50")));
+
+        // Act
+        ExpenseChangeFeed.Batch batch = feed.read(1, 10, Duration.ZERO);
+
+        // Assert
+        assertFalse(batch.resync());
+        assertEquals(List.of(2L, 3L), batch.changes().stream().map(ExpenseChange::offset).toList());
+        assertEquals(List.of(ExpenseChangedEvent.Type.UPDATED, ExpenseChangedEvent.Type.DELETED),
+                batch.changes().stream().map(ExpenseChange::type).toList());
+        assertEquals(new BigDecimal("4.00"), batch.changes().get(0).before().getAmount());
+        assertNull(batch.changes().get(1).after());
+        assertEquals(3, feed.head());
+    }
+
+    @Test
+    void readersThatFellBehindTheBufferMustResync() throws InterruptedException {
+        // Arrange: six changes through a buffer of four keeps 3 to 6
+        for (long id = 1; id <= 6; id++) {
+            feed.onExpenseChanged(ExpenseChangedEvent.created(expense(id, "1.00")));
+        }
+
+        // Act & Assert
+        assertEquals(List.of(3L, 4L), offsets(feed.read(2, 2, Duration.ZERO)));
+        ExpenseChangeFeed.Batch lost = feed.read(1, 10, Duration.ZERO);
+        assertTrue(lost.resync());
+        assertEquals(6, lost.head());
+        assertTrue(feed.read(7, 10, Duration.ZERO).resync());
+    }
+
+    @Test
+    void readWaitsForTheNextChange() throws Exception {
+        // An idle feed answers with an empty batch once the wait is over
+        assertEquals(List.of(), offsets(feed.read(0, 10, Duration.ofMillis(20))));
+
+        CompletableFuture<ExpenseChangeFeed.Batch> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return feed.read(0, 10, Duration.ofSeconds(10));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        feed.onExpenseChanged(ExpenseChangedEvent.created(expense(1L, "1.00")));
+
+        assertEquals(List.of(1L), offsets(waiting.get(5, TimeUnit.SECONDS)));
+    }
+
+    @Test
+    void eventIdsFromAnotherRunAreNotAccepted() {
+        assertEquals(42, feed.parseEventId(feed.eventId(42)));
+        assertEquals(-1, feed.parseEventId("0-42"));
+        assertEquals(-1, feed.parseEventId("42"));
+        assertEquals(-1, feed.parseEventId(feed.eventId(0) + "x"));
+    }
+
+    private static List<Long> offsets(ExpenseChangeFeed.Batch batch) {
+        return batch.changes().stream().map(ExpenseChange::offset).toList();
+    }
+
+    private static Expense expense(Long id, String amount) {
+        Expense expense = new Expense(new BigDecimal(amount), "Food", "Coffee");
+        expense.setId(id);
+        return expense;
+    }
+}
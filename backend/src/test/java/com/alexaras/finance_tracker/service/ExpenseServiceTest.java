@@ -1,30 +1,53 @@
 package com.alexaras.finance_tracker.service;
 
+import com.alexaras.finance_tracker.category.CategoryDictionary;
+import com.alexaras.finance_tracker.dao.UserDAO;
+import com.alexaras.finance_tracker.dto.BucketStats;
+import com.alexaras.finance_tracker.dto.CategoryStats;
+import com.alexaras.finance_tracker.dto.ExpensePage;
+import com.alexaras.finance_tracker.dto.TimeBucket;
+import com.alexaras.finance_tracker.event.ExpenseChangedEvent;
 import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.model.User;
 import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class ExpenseServiceTest {
 
     private final ExpenseRepository expenseRepository = Mockito.mock(ExpenseRepository.class);
-    private final ExpenseService expenseService = new ExpenseService(expenseRepository);
+    private final EntityManager entityManager = Mockito.mock(EntityManager.class);
+    private final ApplicationEventPublisher eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+    private final ExpenseWriteBehindQueue writeBehindQueue = Mockito.mock(ExpenseWriteBehindQueue.class);
+    private final UserDAO userDAO = Mockito.mock(UserDAO.class);
+    private final CategoryDictionary categoryDictionary = Mockito.mock(CategoryDictionary.class);
+    private final ExpenseService expenseService = new ExpenseService(expenseRepository, entityManager, eventPublisher,
+            writeBehindQueue, userDAO, categoryDictionary, Mockito.mock(CacheManager.class));
 
     @Test
     void updateExpense() {
         // Arrange: Mock the repository to simulate an existing expense
         Expense existingExpense = new Expense(BigDecimal.valueOf(50), "Food", "Groceries");
         existingExpense.setId(1L); // Explicitly set the ID
+        existingExpense.setVersion(3L);
         when(expenseRepository.findById(1L)).thenReturn(Optional.of(existingExpense));
 
-        // Mock the save behavior
-        when(expenseRepository.save(any(Expense.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        // Mock the conditional update succeeding
+        when(expenseRepository.updateIfVersion(eq(1L), eq(3L), any(), any(), any(), any())).thenReturn(1);
 
         // New data for the update
         Expense updatedExpense = new Expense(BigDecimal.valueOf(100), "Entertainment", "Cinema");
@@ -37,8 +60,310 @@ class ExpenseServiceTest {
         assertEquals("Entertainment", result.getCategory());
         assertEquals("Cinema", result.getDescription());
 
-        // Verify that the repository's save method was called with the updated expense
-        verify(expenseRepository, times(1)).save(existingExpense);
+        assertEquals(4L, result.getVersion());
+
+        // Verify that the single-statement update was issued for the version that was read
+        verify(expenseRepository, times(1)).updateIfVersion(eq(1L), eq(3L), eq(BigDecimal.valueOf(100)),
+                eq("Entertainment"), eq("Cinema"), any());
+        verify(expenseRepository, never()).save(any(Expense.class));
+        // The bulk update bypasses the entity listener, so the new category is registered beforehand
+        verify(categoryDictionary).register("Entertainment");
+
+        // The loaded instance may be shared through the cache, so it must not be modified in place
+        assertEquals("Food", existingExpense.getCategory());
+
+        // Verify that listeners see both the old and the new values
+        ArgumentCaptor<ExpenseChangedEvent> event = ArgumentCaptor.forClass(ExpenseChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(ExpenseChangedEvent.Type.UPDATED, event.getValue().type());
+        assertEquals(BigDecimal.valueOf(50), event.getValue().before().getAmount());
+        assertEquals("Food", event.getValue().before().getCategory());
+        assertEquals(BigDecimal.valueOf(100), event.getValue().after().getAmount());
+    }
+
+    @Test
+    void updateExpenseRetriesAgainstTheCurrentRowWhenAnotherWriteGotIn() {
+        // Arrange: the cached copy is at version 3, but the row has moved on to 4
+        when(expenseRepository.findById(1L)).thenReturn(Optional.of(expense(1L, 3L, "Food")));
+        when(expenseRepository.findCurrentById(1L)).thenReturn(Optional.of(expense(1L, 4L, "Transport")));
+        when(expenseRepository.updateIfVersion(eq(1L), eq(3L), any(), any(), any(), any())).thenReturn(0);
+        when(expenseRepository.updateIfVersion(eq(1L), eq(4L), any(), any(), any(), any())).thenReturn(1);
+
+        // Act
+        Expense result = expenseService.updateExpense(1L, new Expense(BigDecimal.ONE, "Entertainment", null));
+
+        // Assert: the event replaces what the row actually held
+        assertEquals(5L, result.getVersion());
+        ArgumentCaptor<ExpenseChangedEvent> event = ArgumentCaptor.forClass(ExpenseChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals("Transport", event.getValue().before().getCategory());
+    }
+
+    @Test
+    void updateExpenseWithAVersionOnlyOverwritesThatVersion() {
+        // Arrange: the client read version 4, which only a stale cache entry hides
+        when(expenseRepository.findById(1L)).thenReturn(Optional.of(expense(1L, 3L, "Food")));
+        when(expenseRepository.findCurrentById(1L)).thenReturn(Optional.of(expense(1L, 4L, "Food")));
+        when(expenseRepository.updateIfVersion(eq(1L), eq(4L), any(), any(), any(), any())).thenReturn(1);
+        Expense changes = new Expense(BigDecimal.ONE, "Food", null);
+        changes.setVersion(4L);
+
+        // Act & Assert
+        assertEquals(5L, expenseService.updateExpense(1L, changes).getVersion());
+
+        changes.setVersion(2L);
+        ExpenseVersionConflictException conflict = assertThrows(ExpenseVersionConflictException.class,
+                () -> expenseService.updateExpense(1L, changes));
+        assertEquals(4L, conflict.getCurrentVersion());
+        verify(expenseRepository, never()).updateIfVersion(eq(1L), eq(2L), any(), any(), any(), any());
+        verify(expenseRepository, never()).updateIfVersion(eq(1L), eq(3L), any(), any(), any(), any());
+    }
+
+    @Test
+    void deleteExpensePublishesDeletedEvent() {
+        // Arrange
+        Expense existingExpense = new Expense(BigDecimal.valueOf(50), "Food", "Groceries");
+        existingExpense.setId(1L);
+        existingExpense.setVersion(2L);
+        when(expenseRepository.findById(1L)).thenReturn(Optional.of(existingExpense));
+        when(expenseRepository.deleteIfVersion(1L, 2L)).thenReturn(1);
+
+        // Act
+        expenseService.deleteExpense(1L);
+
+        // Assert
+        verify(expenseRepository, times(1)).deleteIfVersion(1L, 2L);
+        verify(expenseRepository, never()).deleteById(any());
+        ArgumentCaptor<ExpenseChangedEvent> event = ArgumentCaptor.forClass(ExpenseChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(ExpenseChangedEvent.Type.DELETED, event.getValue().type());
+        assertEquals(1L, event.getValue().expenseId());
+    }
+
+    @Test
+    void deleteExpenseRetriesAgainstTheCurrentRowWhenAnotherWriteGotIn() {
+        // Arrange: the cached copy is at version 3, but an update moved the row on to 4
+        when(expenseRepository.findById(1L)).thenReturn(Optional.of(expense(1L, 3L, "Food")));
+        when(expenseRepository.findCurrentById(1L)).thenReturn(Optional.of(expense(1L, 4L, "Transport")));
+        when(expenseRepository.deleteIfVersion(1L, 3L)).thenReturn(0);
+        when(expenseRepository.deleteIfVersion(1L, 4L)).thenReturn(1);
+
+        // Act
+        expenseService.deleteExpense(1L);
+
+        // Assert: the event removes what the row actually held
+        ArgumentCaptor<ExpenseChangedEvent> event = ArgumentCaptor.forClass(ExpenseChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals("Transport", event.getValue().before().getCategory());
+    }
+
+    @Test
+    void deleteExpenseThatAnotherDeleteRemovedPublishesNothing() {
+        // Arrange: the row was deleted between the read and the DELETE
+        when(expenseRepository.findById(1L)).thenReturn(Optional.of(expense(1L, 3L, "Food")));
+        when(expenseRepository.findCurrentById(1L)).thenReturn(Optional.empty());
+        when(expenseRepository.deleteIfVersion(1L, 3L)).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> expenseService.deleteExpense(1L));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void deleteMissingExpenseThrows() {
+        when(expenseRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertThrows(RuntimeException.class, () -> expenseService.deleteExpense(2L));
+        verify(expenseRepository, never()).deleteIfVersion(anyLong(), any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void addExpenseRegistersItsCategoryBeforeSaving() {
+        // Arrange
+        when(expenseRepository.save(any(Expense.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        expenseService.addExpense(new Expense(BigDecimal.TEN, "Travel", "Train"));
+
+        // Assert: not left to the entity listener, which runs while the save holds a connection
+        InOrder order = inOrder(categoryDictionary, expenseRepository);
+        order.verify(categoryDictionary).register("Travel");
+        order.verify(expenseRepository).save(any(Expense.class));
+    }
+
+    @Test
+    void addExpenseGoesThroughTheWriteBehindQueueWhenEnabled() {
+        // Arrange
+        Expense queued = new Expense(BigDecimal.valueOf(5), "Food", "Tea");
+        queued.setId(-1L);
+        when(writeBehindQueue.isEnabled()).thenReturn(true);
+        when(writeBehindQueue.submit(any(Expense.class))).thenReturn(queued);
+
+        // Act & Assert: the queue saves and publishes, not the service
+        assertEquals(-1L, expenseService.addExpense(new Expense(BigDecimal.valueOf(5), "Food", "Tea")).getId());
+        verify(expenseRepository, never()).save(any(Expense.class));
+        verifyNoInteractions(eventPublisher);
     }
 
+    @Test
+    void getExpenseResolvesProvisionalIds() {
+        // Arrange: -1 is still queued, -2 was saved as 7
+        Expense queued = new Expense(BigDecimal.valueOf(5), "Food", "Tea");
+        queued.setId(-1L);
+        Expense saved = new Expense(BigDecimal.valueOf(8), "Food", "Cake");
+        saved.setId(7L);
+        // A mocked Long would default to 0, which reads as "saved as 0"
+        when(writeBehindQueue.getFlushedId(anyLong())).thenReturn(null);
+        when(writeBehindQueue.getQueued(-1L)).thenReturn(queued);
+        when(writeBehindQueue.getFlushedId(-2L)).thenReturn(7L);
+        when(expenseRepository.findById(7L)).thenReturn(Optional.of(saved));
+
+        // Act & Assert
+        assertSame(queued, expenseService.getExpense(-1L));
+        assertSame(saved, expenseService.getExpense(-2L));
+        assertThrows(RuntimeException.class, () -> expenseService.getExpense(-3L));
+    }
+
+    @Test
+    void updateAndDeleteResolveProvisionalIdsAndRefuseQueuedExpenses() {
+        // Arrange: -1 is still queued, -2 was saved as 7
+        when(writeBehindQueue.getFlushedId(anyLong())).thenReturn(null);
+        when(writeBehindQueue.getQueued(-1L)).thenReturn(new Expense(BigDecimal.ONE, "Food", "Tea"));
+        when(writeBehindQueue.getFlushedId(-2L)).thenReturn(7L);
+        when(expenseRepository.findById(7L)).thenReturn(Optional.of(expense(7L, 0L, "Food")));
+        when(expenseRepository.updateIfVersion(eq(7L), eq(0L), any(), any(), any(), any())).thenReturn(1);
+
+        // Act & Assert
+        assertEquals(7L, expenseService.updateExpense(-2L, new Expense(BigDecimal.ONE, "Food", null)).getId());
+        assertThrows(ExpenseStillQueuedException.class,
+                () -> expenseService.updateExpense(-1L, new Expense(BigDecimal.ONE, "Food", null)));
+        assertThrows(ExpenseStillQueuedException.class, () -> expenseService.deleteExpense(-1L));
+        verify(expenseRepository, never()).findById(-1L);
+        verify(expenseRepository, never()).findById(-2L);
+    }
+
+    @Test
+    void getExpensePageReportsNextCursorWhenMoreRowsExist() {
+        // Arrange: The repository returns one row more than the requested page size
+        Expense first = new Expense(BigDecimal.valueOf(10), "Food", "Coffee");
+        first.setId(5L);
+        Expense second = new Expense(BigDecimal.valueOf(20), "Food", "Lunch");
+        second.setId(7L);
+        Expense third = new Expense(BigDecimal.valueOf(30), "Transport", "Taxi");
+        third.setId(9L);
+        when(expenseRepository.findByIdGreaterThanOrderByIdAsc(4L, Limit.of(3)))
+                .thenReturn(List.of(first, second, third));
+
+        // Act
+        ExpensePage page = expenseService.getExpensePage(4L, 2);
+
+        // Assert: Only the requested rows are returned and the cursor points at the last one
+        assertEquals(List.of(first, second), page.items());
+        assertTrue(page.hasMore());
+        assertEquals(7L, page.nextCursor());
+    }
+
+    @Test
+    void getExpensePageOnLastPageHasNoCursor() {
+        Expense only = new Expense(BigDecimal.valueOf(10), "Food", "Coffee");
+        only.setId(1L);
+        when(expenseRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3))).thenReturn(List.of(only));
+
+        ExpensePage page = expenseService.getExpensePage(null, 2);
+
+        assertEquals(1, page.items().size());
+        assertFalse(page.hasMore());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void getTimelineRollsDaysUpIntoMonths() {
+        // Arrange: Three days of totals spread over two months
+        when(expenseRepository.aggregateByDay(null, null, null)).thenReturn(List.of(
+                new BucketStats(LocalDate.of(2024, 5, 3), 2L, BigDecimal.valueOf(30), BigDecimal.valueOf(10), BigDecimal.valueOf(20)),
+                new BucketStats(LocalDate.of(2024, 5, 20), 1L, BigDecimal.valueOf(5), BigDecimal.valueOf(5), BigDecimal.valueOf(5)),
+                new BucketStats(LocalDate.of(2024, 6, 1), 1L, BigDecimal.valueOf(40), BigDecimal.valueOf(40), BigDecimal.valueOf(40))));
+
+        // Act
+        List<BucketStats> months = expenseService.getTimeline(TimeBucket.MONTH, null, null, null);
+
+        // Assert: May combines two days, June stands alone
+        assertEquals(2, months.size());
+        BucketStats may = months.get(0);
+        assertEquals(LocalDate.of(2024, 5, 1), may.bucketStart());
+        assertEquals(3, may.count());
+        assertEquals(BigDecimal.valueOf(35), may.total());
+        assertEquals(BigDecimal.valueOf(5), may.min());
+        assertEquals(BigDecimal.valueOf(20), may.max());
+        assertEquals(new BigDecimal("11.67"), may.average());
+        assertEquals(LocalDate.of(2024, 6, 1), months.get(1).bucketStart());
+    }
+
+    @Test
+    void getCategoryStatsSortsByNameRatherThanByCategoryId() {
+        // Arrange: the database returns groups in category id order
+        when(expenseRepository.aggregateByCategory(null, null)).thenReturn(List.of(
+                new CategoryStats("Transport", 1L, BigDecimal.TEN, BigDecimal.TEN, BigDecimal.TEN),
+                new CategoryStats("Food", 2L, BigDecimal.TEN, BigDecimal.ONE, BigDecimal.valueOf(9))));
+
+        // Act
+        List<CategoryStats> stats = expenseService.getCategoryStats(null, null);
+
+        // Assert
+        assertEquals(List.of("Food", "Transport"), stats.stream().map(CategoryStats::category).toList());
+    }
+
+    @Test
+    void addUserExpenseSetsTheOwnerOfAnExistingUser() {
+        // Arrange
+        when(userDAO.findById(3)).thenReturn(new User(3, "Alex", "alex@example.com"));
+        when(expenseRepository.save(any(Expense.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Expense saved = expenseService.addUserExpense(3, new Expense(BigDecimal.TEN, "Food", "Lunch"));
+
+        // Assert
+        assertEquals(3, saved.getUserId());
+        assertThrows(RuntimeException.class,
+                () -> expenseService.addUserExpense(4, new Expense(BigDecimal.TEN, "Food", "Lunch")));
+        verify(expenseRepository, times(1)).save(any(Expense.class));
+    }
+
+    @Test
+    void anotherUsersExpenseIsNotFound() {
+        // Arrange
+        Expense expense = new Expense(BigDecimal.TEN, "Food", "Lunch");
+        expense.setId(1L);
+        expense.setUserId(3);
+        when(expenseRepository.findById(1L)).thenReturn(Optional.of(expense));
+
+        // Act & Assert
+        assertSame(expense, expenseService.getUserExpense(3, 1L));
+        RuntimeException notFound = assertThrows(RuntimeException.class, () -> expenseService.getUserExpense(4, 1L));
+        assertEquals("Expense not found with id: 1", notFound.getMessage());
+        assertThrows(RuntimeException.class, () -> expenseService.deleteUserExpense(4, 1L));
+        verify(expenseRepository, never()).deleteIfVersion(any(), any());
+    }
+
+    @Test
+    void getUserExpensePageOnlyQueriesTheUsersRows() {
+        Expense only = new Expense(BigDecimal.valueOf(10), "Food", "Coffee");
+        only.setId(12L);
+        only.setUserId(3);
+        when(expenseRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(3, 0L, Limit.of(3))).thenReturn(List.of(only));
+
+        ExpensePage page = expenseService.getUserExpensePage(3, null, 2);
+
+        assertEquals(List.of(only), page.items());
+        assertFalse(page.hasMore());
+        verify(expenseRepository, never()).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
+
+    private static Expense expense(Long id, Long version, String category) {
+        Expense expense = new Expense(BigDecimal.TEN, category, null);
+        expense.setId(id);
+        expense.setVersion(version);
+        return expense;
+    }
 }
@@ -0,0 +1,177 @@
+package com.alexaras.finance_tracker.service;
+
+import com.alexaras.finance_tracker.event.ExpenseChangedEvent;
+import com.alexaras.finance_tracker.model.Expense;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ExpenseWriteBehindQueueTest {
+
+    private final EntityManager entityManager = Mockito.mock(EntityManager.class);
+    private final PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+    private final ApplicationEventPublisher eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+    private final AtomicLong ids = new AtomicLong();
+    private ExpenseWriteBehindQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    void acceptedExpensesGetProvisionalIdsUntilFlushed() {
+        // Arrange
+        persistAssignsIds();
+        queue = start(ExpenseWriteBehindQueue.Durability.ACCEPTED, 100);
+
+        // Act
+        Expense tea = queue.submit(new Expense(BigDecimal.valueOf(3), "Food", "Tea"));
+        Expense bus = queue.submit(new Expense(BigDecimal.valueOf(2), "Transport", "Bus"));
+        queue.stop();
+
+        // Assert: provisional ids are negative and map to the ids the expenses were saved under
+        assertTrue(tea.getId() < 0);
+        assertTrue(bus.getId() < 0);
+        assertNotNull(tea.getSpentAt());
+        assertEquals(List.of(queue.getFlushedId(tea.getId()), queue.getFlushedId(bus.getId())), createdIds());
+        assertNull(queue.getQueued(tea.getId()));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void committedExpensesAreReturnedSaved() {
+        persistAssignsIds();
+        queue = start(ExpenseWriteBehindQueue.Durability.COMMITTED, 100);
+
+        Expense saved = queue.submit(new Expense(BigDecimal.valueOf(3), "Food", "Tea"));
+
+        assertTrue(saved.getId() > 0);
+        assertEquals(List.of(saved.getId()), createdIds());
+    }
+
+    @Test
+    void fullQueueRejectsNewExpensesAndStopDrainsTheRest() throws InterruptedException {
+        // Arrange: the flusher takes the first expense and then hangs in the database
+        CountDownLatch persisting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            persisting.countDown();
+            release.await();
+            invocation.getArgument(0, Expense.class).setId(ids.incrementAndGet());
+            return null;
+        }).when(entityManager).persist(any(Expense.class));
+        queue = start(ExpenseWriteBehindQueue.Durability.ACCEPTED, 2);
+        Expense first = queue.submit(new Expense(BigDecimal.ONE, "Food", "First"));
+        assertTrue(persisting.await(5, TimeUnit.SECONDS));
+
+        // Act: two more fill the queue, a third does not fit
+        Expense second = queue.submit(new Expense(BigDecimal.ONE, "Food", "Second"));
+        queue.submit(new Expense(BigDecimal.ONE, "Food", "Third"));
+        assertThrows(WriteBehindQueueFullException.class,
+                () -> queue.submit(new Expense(BigDecimal.ONE, "Food", "Fourth")));
+        assertEquals("Second", queue.getQueued(second.getId()).getDescription());
+
+        Thread stopping = Thread.ofPlatform().start(queue::stop);
+        release.countDown();
+        stopping.join(TimeUnit.SECONDS.toMillis(5));
+
+        // Assert: everything accepted was written before stop returned, and nothing more is accepted
+        assertFalse(stopping.isAlive());
+        assertEquals(3, createdIds().size());
+        assertNotNull(queue.getFlushedId(first.getId()));
+        assertThrows(IllegalStateException.class, () -> queue.submit(new Expense(BigDecimal.ONE, "Food", "Late")));
+    }
+
+    @Test
+    void rejectedExpenseDoesNotSinkItsBatch() {
+        // Arrange: the database refuses one of the expenses
+        doAnswer(invocation -> {
+            Expense expense = invocation.getArgument(0);
+            if ("Bad".equals(expense.getDescription())) {
+                throw new PersistenceException("constraint violated");
+            }
+            expense.setId(ids.incrementAndGet());
+            return null;
+        }).when(entityManager).persist(any(Expense.class));
+        queue = start(ExpenseWriteBehindQueue.Durability.ACCEPTED, 100);
+
+        // Act
+        Expense good = queue.submit(new Expense(BigDecimal.ONE, "Food", "Good"));
+        Expense bad = queue.submit(new Expense(BigDecimal.ONE, "Food", "Bad"));
+        queue.stop();
+
+        // Assert: only the good expense was saved and announced
+        assertEquals(List.of(queue.getFlushedId(good.getId())), createdIds());
+        assertNull(queue.getFlushedId(bad.getId()));
+        assertNull(queue.getQueued(bad.getId()));
+    }
+
+    @Test
+    void failingListenerDoesNotWriteTheBatchAgain() {
+        // Arrange
+        persistAssignsIds();
+        doThrow(new IllegalStateException("listener failed")).when(eventPublisher).publishEvent(any(Object.class));
+        queue = start(ExpenseWriteBehindQueue.Durability.COMMITTED, 100);
+
+        // Act
+        Expense saved = queue.submit(new Expense(BigDecimal.ONE, "Food", "Tea"));
+
+        // Assert: persisted once, and the caller still sees it saved
+        assertEquals(1L, saved.getId());
+        verify(entityManager, times(1)).persist(any(Expense.class));
+    }
+
+    @Test
+    void committedCallerSeesTheDatabaseError() {
+        doThrow(new PersistenceException("constraint violated")).when(entityManager).persist(any(Expense.class));
+        queue = start(ExpenseWriteBehindQueue.Durability.COMMITTED, 100);
+
+        PersistenceException e = assertThrows(PersistenceException.class,
+                () -> queue.submit(new Expense(BigDecimal.ONE, "Food", "Bad")));
+        assertEquals("constraint violated", e.getMessage());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    private ExpenseWriteBehindQueue start(ExpenseWriteBehindQueue.Durability durability, int capacity) {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(entityManager.unwrap(Session.class)).thenReturn(Mockito.mock(Session.class));
+        ExpenseWriteBehindQueue started = new ExpenseWriteBehindQueue(entityManager, transactionManager,
+                eventPublisher, true, durability, capacity, 100);
+        started.start();
+        return started;
+    }
+
+    // The database assigns the next id
+    private void persistAssignsIds() {
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Expense.class).setId(ids.incrementAndGet());
+            return null;
+        }).when(entityManager).persist(any(Expense.class));
+    }
+
+    private List<Long> createdIds() {
+        ArgumentCaptor<ExpenseChangedEvent> events = ArgumentCaptor.forClass(ExpenseChangedEvent.class);
+        verify(eventPublisher, atLeast(0)).publishEvent(events.capture());
+        events.getAllValues().forEach(event -> assertEquals(ExpenseChangedEvent.Type.CREATED, event.type()));
+        return events.getAllValues().stream().map(ExpenseChangedEvent::expenseId).toList();
+    }
+}
@@ -0,0 +1,153 @@
+package com.alexaras.finance_tracker.service;
+
+import com.alexaras.finance_tracker.dao.UserDAO;
+import com.alexaras.finance_tracker.dto.CategoryProjection;
+import com.alexaras.finance_tracker.dto.ProjectionBatchReport;
+import com.alexaras.finance_tracker.dto.UserCategoryDayTotal;
+import com.alexaras.finance_tracker.dto.UserProjection;
+import com.alexaras.finance_tracker.event.ExpenseChangedEvent;
+import com.alexaras.finance_tracker.model.Budget;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.model.Recurrence;
+import com.alexaras.finance_tracker.model.RecurringExpense;
+import com.alexaras.finance_tracker.model.User;
+import com.alexaras.finance_tracker.repository.BudgetRepository;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.repository.RecurringExpenseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProjectionServiceTest {
+
+    private final RecurringExpenseRepository recurringExpenseRepository = Mockito.mock(RecurringExpenseRepository.class);
+    private final BudgetRepository budgetRepository = Mockito.mock(BudgetRepository.class);
+    private final ExpenseRepository expenseRepository = Mockito.mock(ExpenseRepository.class);
+    private final UserDAO userDAO = Mockito.mock(UserDAO.class);
+    private final ExpenseVersions expenseVersions = new ExpenseVersions();
+    private final ProjectionService projectionService = new ProjectionService(recurringExpenseRepository,
+            budgetRepository, expenseRepository, expenseVersions, userDAO, 2, 3, 1000);
+
+    @BeforeEach
+    void defineUser() {
+        when(userDAO.findById(1)).thenReturn(new User(1, "Alex", "alex@example.com"));
+        when(recurringExpenseRepository.findByUserIdOrderById(1)).thenReturn(List.of(
+                new RecurringExpense(new BigDecimal("9.99"), "Entertainment", "Streaming",
+                        Recurrence.MONTHLY, LocalDate.now().withDayOfMonth(1).minusMonths(1))));
+        when(budgetRepository.findByUserIdOrderByCategory(1)).thenReturn(List.of(
+                new Budget(1, "Food", new BigDecimal("300.00"))));
+        when(expenseRepository.aggregateByCategoryAndDayForUser(eq(1), any(), any())).thenReturn(List.of());
+    }
+
+    @Test
+    void projectionIsReusedWhileTheUsersExpensesDoNotChange() {
+        // Arrange
+        UserProjection first = projectionService.getProjection(1, 2);
+
+        // Act: another user's write, and one to an expense without an owner
+        expenseVersions.onExpenseChanged(ExpenseChangedEvent.created(expense(2, "Food")));
+        expenseVersions.onExpenseChanged(ExpenseChangedEvent.created(expense(null, "Food")));
+        UserProjection second = projectionService.getProjection(1, 2);
+
+        // Assert
+        assertSame(first, second);
+        verify(expenseRepository, times(1)).aggregateByCategoryAndDayForUser(eq(1), any(), any());
+        verify(recurringExpenseRepository, times(1)).findByUserIdOrderById(1);
+    }
+
+    @Test
+    void aWriteToOneOfTheUsersExpensesRecomputesTheProjection() {
+        // Arrange
+        projectionService.getProjection(1, 2);
+        LocalDate today = LocalDate.now();
+        when(expenseRepository.aggregateByCategoryAndDayForUser(eq(1), any(), any())).thenReturn(List.of(
+                new UserCategoryDayTotal(1, "Food", today.withDayOfMonth(1), new BigDecimal("40.00")),
+                new UserCategoryDayTotal(1, "Food", today, new BigDecimal("2.50")),
+                new UserCategoryDayTotal(1, "Food", today.plusMonths(1), new BigDecimal("7.00"))));
+
+        // Act
+        expenseVersions.onExpenseChanged(ExpenseChangedEvent.created(expense(1, "Food")));
+        UserProjection projection = projectionService.getProjection(1, 2);
+
+        // Assert: days are summed into their month
+        List<CategoryProjection> food = projection.categories().stream()
+                .filter(line -> line.category().equals("Food"))
+                .toList();
+        assertEquals(new BigDecimal("42.50"), food.get(0).actual());
+        assertEquals(new BigDecimal("7.00"), food.get(1).actual());
+        verify(expenseRepository, times(2)).aggregateByCategoryAndDayForUser(eq(1), any(), any());
+    }
+
+    @Test
+    void changingABudgetRecomputesTheProjection() {
+        // Arrange
+        UserProjection first = projectionService.getProjection(1, 2);
+        Budget food = new Budget(1, "Food", new BigDecimal("300.00"));
+        when(budgetRepository.findByUserIdAndCategory(1, "Food")).thenReturn(Optional.of(food));
+        when(budgetRepository.save(any(Budget.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(budgetRepository.findByUserIdOrderByCategory(1)).thenReturn(List.of(food));
+
+        // Act
+        projectionService.setBudget(1, "Food", new BigDecimal("150.00"));
+        UserProjection second = projectionService.getProjection(1, 2);
+
+        // Assert
+        assertNotSame(first, second);
+        assertEquals(new BigDecimal("150.00"), second.categories().get(1).budget());
+        verify(recurringExpenseRepository, times(2)).findByUserIdOrderById(1);
+    }
+
+    @Test
+    void amountsMustBeWholeCents() {
+        RecurringExpense recurring = new RecurringExpense(new BigDecimal("1.005"), "Food", null,
+                Recurrence.WEEKLY, null);
+
+        assertThrows(IllegalArgumentException.class, () -> projectionService.addRecurringExpense(1, recurring));
+        assertThrows(IllegalArgumentException.class,
+                () -> projectionService.setBudget(1, "Food", new BigDecimal("-1.00")));
+        verify(recurringExpenseRepository, never()).save(any());
+        verify(budgetRepository, never()).save(any());
+    }
+
+    @Test
+    void projectAllUsersReadsSpendingOnceAndKeepsTheResults() {
+        // Arrange: two users, each with spending of their own
+        RecurringExpense rent = new RecurringExpense(new BigDecimal("800.00"), "Housing", "Rent",
+                Recurrence.MONTHLY, LocalDate.now().withDayOfMonth(1));
+        rent.setUserId(2);
+        when(recurringExpenseRepository.findAll()).thenReturn(List.of(rent));
+        when(budgetRepository.findAll()).thenReturn(List.of(new Budget(1, "Food", new BigDecimal("300.00"))));
+        when(expenseRepository.aggregateByUserCategoryAndDay(any(), any())).thenReturn(List.of(
+                new UserCategoryDayTotal(1, "Food", LocalDate.now(), new BigDecimal("320.00")),
+                new UserCategoryDayTotal(2, "Food", LocalDate.now(), new BigDecimal("5.00"))));
+
+        // Act
+        ProjectionBatchReport report = projectionService.projectAllUsers();
+        UserProjection projection = projectionService.getProjection(1, 3);
+
+        // Assert: the request is answered from the batch
+        assertEquals(2, report.users());
+        assertEquals(2, report.categories());
+        assertEquals(1, report.usersOverBudget());
+        assertEquals(List.of("Food", "Food", "Food"),
+                projection.categories().stream().map(CategoryProjection::category).toList());
+        assertEquals(new BigDecimal("320.00"), projection.categories().get(0).actual());
+        verify(expenseRepository, times(1)).aggregateByUserCategoryAndDay(any(), any());
+        verify(expenseRepository, never()).aggregateByCategoryAndDayForUser(anyInt(), any(), any());
+    }
+
+    private static Expense expense(Integer userId, String category) {
+        Expense expense = new Expense(BigDecimal.TEN, category, null);
+        expense.setId(1L);
+        expense.setUserId(userId);
+        return expense;
+    }
+}
@@ -0,0 +1,74 @@
+package com.alexaras.finance_tracker.service;
+
+import com.alexaras.finance_tracker.dto.CategoryStats;
+import com.alexaras.finance_tracker.dto.CategoryTotal;
+import com.alexaras.finance_tracker.event.ExpenseChangedEvent;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserCategoryTotalsCacheTest {
+
+    private final ExpenseRepository expenseRepository = Mockito.mock(ExpenseRepository.class);
+    private final UserCategoryTotalsCache cache = new UserCategoryTotalsCache(expenseRepository, 100);
+
+    @Test
+    void totalsAreLoadedOncePerUser() {
+        // Arrange
+        when(expenseRepository.aggregateByCategoryForUser(1, null, null)).thenReturn(List.of(
+                new CategoryStats("Food", 2L, new BigDecimal("12.50"), new BigDecimal("2.50"), new BigDecimal("10.00"))));
+
+        // Act
+        List<CategoryTotal> first = cache.getTotals(1);
+        List<CategoryTotal> second = cache.getTotals(1);
+
+        // Assert
+        assertEquals(List.of(new CategoryTotal("Food", 2, new BigDecimal("12.50"))), first);
+        assertSame(first, second);
+        verify(expenseRepository, times(1)).aggregateByCategoryForUser(1, null, null);
+    }
+
+    @Test
+    void aWriteOnlyReloadsItsOwner() {
+        // Arrange
+        when(expenseRepository.aggregateByCategoryForUser(anyInt(), isNull(), isNull())).thenReturn(List.of());
+        cache.getTotals(1);
+        cache.getTotals(2);
+
+        // Act: user 1's expense moves to user 2, and an expense without an owner is added
+        cache.onExpenseChanged(ExpenseChangedEvent.updated(expense(1), expense(2)));
+        cache.onExpenseChanged(ExpenseChangedEvent.created(expense(null)));
+        cache.getTotals(1);
+        cache.getTotals(2);
+        cache.getTotals(1);
+
+        // Assert
+        verify(expenseRepository, times(2)).aggregateByCategoryForUser(1, null, null);
+        verify(expenseRepository, times(2)).aggregateByCategoryForUser(2, null, null);
+    }
+
+    @Test
+    void otherUsersWritesKeepTheTotals() {
+        when(expenseRepository.aggregateByCategoryForUser(anyInt(), isNull(), isNull())).thenReturn(List.of());
+        cache.getTotals(1);
+
+        cache.onExpenseChanged(ExpenseChangedEvent.deleted(expense(3)));
+        cache.getTotals(1);
+
+        verify(expenseRepository, times(1)).aggregateByCategoryForUser(1, null, null);
+    }
+
+    private static Expense expense(Integer userId) {
+        Expense expense = new Expense(BigDecimal.TEN, "Food", null);
+        expense.setId(1L);
+        expense.setUserId(userId);
+        return expense;
+    }
+}
@@ -0,0 +1,27 @@
+package com.alexaras.finance_tracker.storage;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.Map;
+
+class H2FileStorageConformanceTest extends StorageBackendConformanceTest {
+
+    @DynamicPropertySource
+    static void storage(DynamicPropertyRegistry registry) {
+        registry.add("finance-tracker.storage.backend", () -> "h2-file");
+        registry.add("finance-tracker.storage.location",
+                () -> createTempDirectory().resolve("finance-tracker").toString());
+    }
+
+    @Override
+    String backend() {
+        return "h2-file";
+    }
+
+    @Override
+    Map<String, String> expectedSettings() {
+        return Map.of("SELECT SETTING_VALUE FROM INFORMATION_SCHEMA.SETTINGS WHERE SETTING_NAME = 'CACHE_SIZE'",
+                "65536");
+    }
+}
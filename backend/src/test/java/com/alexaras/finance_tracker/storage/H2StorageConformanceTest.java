@@ -0,0 +1,27 @@
+package com.alexaras.finance_tracker.storage;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.Map;
+
+class H2StorageConformanceTest extends StorageBackendConformanceTest {
+
+    @DynamicPropertySource
+    static void storage(DynamicPropertyRegistry registry) {
+        registry.add("finance-tracker.storage.backend", () -> "h2");
+        // Not testdb: the other tests' cached contexts keep that database open
+        registry.add("finance-tracker.storage.location", () -> "conformance");
+    }
+
+    @Override
+    String backend() {
+        return "h2";
+    }
+
+    @Override
+    Map<String, String> expectedSettings() {
+        // An in-memory database is passed no settings
+        return Map.of();
+    }
+}
@@ -0,0 +1,34 @@
+package com.alexaras.finance_tracker.storage;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.Map;
+
+class SqliteStorageConformanceTest extends StorageBackendConformanceTest {
+
+    @DynamicPropertySource
+    static void storage(DynamicPropertyRegistry registry) {
+        registry.add("finance-tracker.storage.backend", () -> "sqlite");
+        registry.add("finance-tracker.storage.location",
+                () -> createTempDirectory().resolve("finance_tracker.db").toString());
+        // The reactive API reaches the database through R2DBC, which only has an H2 driver here
+        registry.add("finance-tracker.reactive.enabled", () -> "false");
+    }
+
+    @Override
+    String backend() {
+        return "sqlite";
+    }
+
+    @Override
+    Map<String, String> expectedSettings() {
+        // As application.properties sets them; SQLite reports NORMAL as 1 and a size in KiB as negative
+        return Map.of(
+                "PRAGMA journal_mode", "wal",
+                "PRAGMA synchronous", "1",
+                "PRAGMA cache_size", "-65536",
+                "PRAGMA mmap_size", "268435456",
+                "PRAGMA busy_timeout", "5000");
+    }
+}
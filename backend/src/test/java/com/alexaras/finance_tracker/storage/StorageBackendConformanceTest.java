@@ -0,0 +1,443 @@
+package com.alexaras.finance_tracker.storage;
+
+import com.alexaras.finance_tracker.dao.UserDAO;
+import com.alexaras.finance_tracker.dto.BucketStats;
+import com.alexaras.finance_tracker.dto.CategoryStats;
+import com.alexaras.finance_tracker.dto.ExpenseFilter;
+import com.alexaras.finance_tracker.dto.ExpenseFilterPage;
+import com.alexaras.finance_tracker.dto.ExpensePage;
+import com.alexaras.finance_tracker.dto.ExpenseSort;
+import com.alexaras.finance_tracker.dto.ImportReport;
+import com.alexaras.finance_tracker.dto.TimeBucket;
+import com.alexaras.finance_tracker.importer.CsvExpenseRowReader;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.model.User;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.service.CategoryTotalsCache;
+import com.alexaras.finance_tracker.service.ExpenseImportService;
+import com.alexaras.finance_tracker.service.ExpenseSearchIndex;
+import com.alexaras.finance_tracker.service.ExpenseService;
+import com.alexaras.finance_tracker.service.ExpenseVersionConflictException;
+import com.alexaras.finance_tracker.service.UserCategoryTotalsCache;
+import jakarta.persistence.EntityManagerFactory;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The behaviour every {@link StorageBackend} has to show, run once per backend by the subclasses, which
+ * pick the backend through {@code @DynamicPropertySource}. Ends with a small timed workload that prints
+ * rows per second for each backend, to compare them rather than to assert on.
+ */
+// Not @Transactional: the caches only see writes once their transaction commits
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+// Each backend gets its own context, closed afterwards so file databases are released
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+abstract class StorageBackendConformanceTest {
+    private static final LocalDateTime MAY = LocalDateTime.of(2024, 5, 1, 12, 0);
+    private static final int TIMED_ROWS = 2000;
+    private static final int PAGE_SIZE = 100;
+    private static final int IMPORT_ROWS = 1200;
+    private static final int WRITER_THREADS = 8;
+    private static final int WRITES_PER_THREAD = 25;
+    private static final int PINNING_CALLERS = 32;
+
+    @Autowired
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserDAO userDAO;
+
+    @Autowired
+    private ExpenseService expenseService;
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private ExpenseImportService expenseImportService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CategoryTotalsCache categoryTotalsCache;
+
+    @Autowired
+    private ExpenseSearchIndex expenseSearchIndex;
+
+    @Autowired
+    private UserCategoryTotalsCache userCategoryTotalsCache;
+
+    private final List<Integer> userIds = new ArrayList<>();
+
+    /**
+     * The backend name the subclass configured, checked against the bean Spring actually built.
+     */
+    abstract String backend();
+
+    /**
+     * Queries returning one value each, mapped to the value the backend's default configuration should
+     * give on every pooled connection.
+     */
+    abstract Map<String, String> expectedSettings();
+
+    static Path createTempDirectory() {
+        try {
+            return Files.createTempDirectory("finance-tracker-storage");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create a directory for the database", e);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        userDAO.deleteUsers(userIds);
+        expenseRepository.deleteAll();
+        categoryTotalsCache.rebuild();
+        expenseSearchIndex.rebuild();
+        userCategoryTotalsCache.invalidateAll();
+    }
+
+    @Test
+    void testTheConfiguredBackendIsInUse() {
+        assertEquals(backend(), storageBackend.name());
+    }
+
+    @Test
+    void testPooledConnectionsCarryTheConfiguredSettings() throws SQLException {
+        // Two at once, so the pool has to hand out one that no other test has warmed up
+        try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+            for (Connection connection : List.of(first, second)) {
+                for (Map.Entry<String, String> setting : expectedSettings().entrySet()) {
+                    try (Statement stmt = connection.createStatement();
+                         ResultSet rs = stmt.executeQuery(setting.getKey())) {
+                        assertTrue(rs.next(), setting.getKey());
+                        assertEquals(setting.getValue(), rs.getString(1), setting.getKey());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testUsersRoundTrip() {
+        // Arrange
+        List<User> created = createUsers(
+                new User(0, "Alex", "alex@storage.test"),
+                new User(0, "Sam", "sam@storage.test"));
+
+        // Act
+        User alex = created.get(0);
+        alex.setName("Alexandra");
+        userDAO.updateUser(alex);
+
+        // Assert: the batch insert hands back the generated ids in order
+        assertNotEquals(created.get(0).getId(), created.get(1).getId());
+        assertEquals("Alexandra", userDAO.findById(alex.getId()).getName());
+        assertEquals(2, userDAO.findByIds(userIds).size());
+        assertEquals(1, userDAO.deleteUsers(List.of(created.get(1).getId())));
+        assertNull(userDAO.findById(created.get(1).getId()));
+    }
+
+    @Test
+    void testExpenseVersionsAndConflicts() {
+        // Arrange
+        Expense coffee = expenseService.addExpense(new Expense(new BigDecimal("4.50"), "Food", "Coffee", MAY));
+        assertEquals(0L, coffee.getVersion());
+
+        // Act
+        Expense updated = expenseService.updateExpense(coffee.getId(),
+                new Expense(new BigDecimal("5.00"), "Food", "Coffee", MAY));
+        Expense stale = new Expense(new BigDecimal("6.00"), "Food", "Coffee", MAY);
+        stale.setVersion(coffee.getVersion());
+
+        // Assert
+        assertEquals(1L, updated.getVersion());
+        ExpenseVersionConflictException conflict = assertThrows(ExpenseVersionConflictException.class,
+                () -> expenseService.updateExpense(coffee.getId(), stale));
+        assertEquals(1L, conflict.getCurrentVersion());
+        Expense stored = expenseRepository.findCurrentById(coffee.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("5.00").compareTo(stored.getAmount()));
+        assertEquals(MAY, stored.getSpentAt());
+
+        expenseService.deleteExpense(coffee.getId());
+        assertTrue(expenseRepository.findCurrentById(coffee.getId()).isEmpty());
+    }
+
+    @Test
+    void testDeletedIdsAreNotReused() {
+        // Arrange
+        Expense newest = expenseService.addExpense(new Expense(new BigDecimal("4.50"), "Food", "Coffee", MAY));
+        expenseService.deleteExpense(newest.getId());
+
+        // Act
+        Expense next = expenseService.addExpense(new Expense(new BigDecimal("3.00"), "Food", "Tea", MAY));
+
+        // Assert
+        assertTrue(next.getId() > newest.getId());
+    }
+
+    @Test
+    void testAggregatesAndTimeline() {
+        // Arrange: amounts with exact binary fractions, since SQLite sums them as floating point
+        expenseService.addExpense(new Expense(new BigDecimal("12.50"), "Food", "Lunch", MAY));
+        expenseService.addExpense(new Expense(new BigDecimal("7.25"), "Food", "Snack", MAY.plusHours(3)));
+        expenseService.addExpense(new Expense(new BigDecimal("30.00"), "Transport", "Taxi", MAY.plusDays(1)));
+        expenseService.addExpense(new Expense(new BigDecimal("99.00"), "Food", "Last month", MAY.minusDays(2)));
+
+        // Act
+        List<CategoryStats> stats = expenseService.getCategoryStats(MAY.toLocalDate(), null);
+        List<BucketStats> timeline = expenseService.getTimeline(TimeBucket.DAY, "Food", MAY.toLocalDate(), null);
+
+        // Assert
+        assertEquals(2, stats.size());
+        CategoryStats food = stats.get(0);
+        assertEquals("Food", food.category());
+        assertEquals(2, food.count());
+        assertEquals(0, new BigDecimal("19.75").compareTo(food.total()));
+        assertEquals(0, new BigDecimal("7.25").compareTo(food.min()));
+        assertEquals(0, new BigDecimal("12.50").compareTo(food.max()));
+        assertEquals(1, stats.get(1).count());
+
+        BucketStats may = timeline.stream()
+                .filter(bucket -> bucket.count() > 0)
+                .findFirst()
+                .orElseThrow();
+        assertEquals(MAY.toLocalDate(), may.bucketStart());
+        assertEquals(2, may.count());
+        assertEquals(0, new BigDecimal("19.75").compareTo(may.total()));
+        assertTrue(categoryTotalsCache.verify());
+    }
+
+    @Test
+    void testPagesAndFiltersAcrossUsers() {
+        // Arrange
+        int alex = createUsers(new User(0, "Alex", "alex@pages.test")).get(0).getId();
+        for (int i = 0; i < 25; i++) {
+            Expense expense = new Expense(BigDecimal.valueOf(i + 1), i % 2 == 0 ? "Food" : "Transport",
+                    "Expense " + i, MAY.plusDays(i));
+            if (i % 5 == 0) {
+                expenseService.addUserExpense(alex, expense);
+            } else {
+                expenseService.addExpense(expense);
+            }
+        }
+
+        // Act
+        List<Expense> walked = new ArrayList<>();
+        ExpensePage page = expenseService.getExpensePage(null, 10);
+        walked.addAll(page.items());
+        while (page.hasMore()) {
+            page = expenseService.getExpensePage(page.nextCursor(), 10);
+            walked.addAll(page.items());
+        }
+        ExpensePage alexPage = expenseService.getUserExpensePage(alex, null, 10);
+        ExpenseFilter filter = new ExpenseFilter(List.of("Food"), BigDecimal.valueOf(5), null,
+                MAY.toLocalDate(), null, ExpenseSort.AMOUNT, Sort.Direction.ASC);
+        ExpenseFilterPage first = expenseService.filterExpenses(filter, null, 4);
+        ExpenseFilterPage second = expenseService.filterExpenses(filter, first.nextCursor(), 4);
+
+        // Assert
+        assertEquals(25, walked.size());
+        assertEquals(5, alexPage.items().size());
+        assertFalse(alexPage.hasMore());
+        assertTrue(first.hasMore());
+        List<BigDecimal> amounts = new ArrayList<>();
+        first.items().forEach(expense -> amounts.add(expense.getAmount()));
+        second.items().forEach(expense -> amounts.add(expense.getAmount()));
+        // Food is every even i, so amounts 5, 7, ..., 25 once the minimum of 5 applies
+        assertEquals(8, amounts.size());
+        for (int i = 0; i < amounts.size(); i++) {
+            assertEquals(0, BigDecimal.valueOf(5 + 2L * i).compareTo(amounts.get(i)));
+        }
+    }
+
+    @Test
+    void testImportWritesEachChunkInOneTransaction() throws IOException {
+        // Arrange: more rows than one JDBC batch, and more ids than one allocation block
+        StringBuilder csv = new StringBuilder("amount,category,description,spentAt\n");
+        for (int i = 0; i < IMPORT_ROWS; i++) {
+            csv.append(i % 100 + 1).append(",Category ").append(i % 10).append(",Imported ").append(i)
+                    .append(',').append(MAY.plusMinutes(i)).append('\n');
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long transactionsBefore = statistics.getSuccessfulTransactionCount();
+
+        // Act
+        ImportReport report = expenseImportService.importExpenses(
+                new CsvExpenseRowReader(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8))),
+                500, 5000);
+
+        // Assert: a chunk that failed would have been retried as one transaction per row
+        assertEquals(IMPORT_ROWS, report.rowsImported());
+        assertEquals(0, report.rowsFailed());
+        assertTrue(statistics.getSuccessfulTransactionCount() - transactionsBefore < 10,
+                "the chunk fell back to row-by-row inserts");
+        assertEquals(IMPORT_ROWS, expenseRepository.count());
+        assertTrue(categoryTotalsCache.verify());
+    }
+
+    @Test
+    void testConcurrentWritersAllCommit() throws Exception {
+        // Act: several threads each adding expenses, then updating and deleting some of their own
+        ExecutorService writers = Executors.newFixedThreadPool(WRITER_THREADS);
+        List<Future<List<Long>>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < WRITER_THREADS; t++) {
+                String category = "Writer " + t;
+                results.add(writers.submit(() -> {
+                    List<Long> ids = new ArrayList<>();
+                    for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                        ids.add(expenseService.addExpense(
+                                new Expense(BigDecimal.ONE, category, "Write " + i, MAY.plusMinutes(i))).getId());
+                    }
+                    for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                        if (i % 5 == 0) {
+                            expenseService.deleteExpense(ids.get(i));
+                        } else {
+                            expenseService.updateExpense(ids.get(i),
+                                    new Expense(BigDecimal.TEN, category, "Write " + i, MAY.plusMinutes(i)));
+                        }
+                    }
+                    return ids;
+                }));
+            }
+            for (Future<List<Long>> result : results) {
+                result.get();
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+
+        // Assert
+        long kept = WRITER_THREADS * (WRITES_PER_THREAD - WRITES_PER_THREAD / 5);
+        assertEquals(kept, expenseRepository.count());
+        assertEquals(kept, expenseRepository.findAll().stream()
+                .filter(expense -> expense.getVersion() == 1L && BigDecimal.TEN.compareTo(expense.getAmount()) == 0)
+                .count());
+        assertTrue(categoryTotalsCache.verify());
+    }
+
+    @Test
+    void testDaoCallsOnVirtualThreadsAreNotPinned(@TempDir Path tempDir) throws Exception {
+        // JFR only reports a virtual thread that parks while pinned. Time spent inside a driver's native
+        // code also holds the carrier but raises no event, see SqliteStorageBackend
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+
+            // Act: more virtual threads than pooled connections, so some have to wait for one
+            try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<Integer>> calls = new ArrayList<>();
+                for (int t = 0; t < PINNING_CALLERS; t++) {
+                    int caller = t;
+                    calls.add(callers.submit(() -> {
+                        User user = userDAO.createUsers(List.of(
+                                new User(0, "Caller " + caller, "caller" + caller + "@storage.test"))).get(0);
+                        user.setName("Caller " + caller + " renamed");
+                        userDAO.updateUser(user);
+                        userDAO.findByIds(List.of(user.getId()));
+                        Expense expense = expenseService.addExpense(
+                                new Expense(BigDecimal.ONE, "Pinning", "Call " + caller, MAY));
+                        expenseService.updateExpense(expense.getId(),
+                                new Expense(BigDecimal.TEN, "Pinning", "Call " + caller, MAY));
+                        expenseService.getExpense(expense.getId());
+                        expenseService.deleteExpense(expense.getId());
+                        return user.getId();
+                    }));
+                }
+                for (Future<Integer> call : calls) {
+                    userIds.add(call.get());
+                }
+            }
+
+            // Assert
+            recording.stop();
+            Path file = tempDir.resolve("pinned.jfr");
+            recording.dump(file);
+            assertEquals(List.of(), RecordingFile.readAllEvents(file),
+                    "A DAO call parked a virtual thread while pinned to its carrier");
+        }
+    }
+
+    @Test
+    void testTimedWorkload() {
+        // Arrange
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < TIMED_ROWS; i++) {
+            expenses.add(new Expense(BigDecimal.valueOf(i % 100 + 1), "Category " + (i % 10), "Expense " + i,
+                    MAY.plusMinutes(i * 7L)));
+        }
+
+        // Act
+        long started = System.nanoTime();
+        expenseRepository.saveAll(expenses);
+        long inserted = System.nanoTime();
+        int read = 0;
+        ExpensePage page = expenseService.getExpensePage(null, PAGE_SIZE);
+        read += page.items().size();
+        while (page.hasMore()) {
+            page = expenseService.getExpensePage(page.nextCursor(), PAGE_SIZE);
+            read += page.items().size();
+        }
+        long paged = System.nanoTime();
+        List<CategoryStats> stats = expenseService.getCategoryStats(null, null);
+        long aggregated = System.nanoTime();
+
+        // Assert
+        assertEquals(TIMED_ROWS, read);
+        assertEquals(10, stats.size());
+        assertEquals(TIMED_ROWS, stats.stream().mapToLong(CategoryStats::count).sum());
+        System.out.printf("%-8s %10.0f inserts/s %10.0f paged rows/s %10.0f aggregated rows/s%n", backend(),
+                rate(started, inserted), rate(inserted, paged), rate(paged, aggregated));
+    }
+
+    private List<User> createUsers(User... users) {
+        List<User> created = userDAO.createUsers(List.of(users));
+        created.forEach(user -> userIds.add(user.getId()));
+        return created;
+    }
+
+    private static double rate(long from, long to) {
+        return TIMED_ROWS / ((to - from) / 1e9);
+    }
+}
@@ -0,0 +1,82 @@
+package com.alexaras.finance_tracker.benchmarks;
+
+import com.alexaras.finance_tracker.FinanceTrackerApplication;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The application started against one benchmark database and seeded with expenses.
+ */
+final class ApplicationState {
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    final ConfigurableApplicationContext context;
+    final List<Long> expenseIds;
+    private final Backend.Database database;
+
+    private ApplicationState(ConfigurableApplicationContext context, List<Long> expenseIds, Backend.Database database) {
+        this.context = context;
+        this.expenseIds = expenseIds;
+        this.database = database;
+    }
+
+    static ApplicationState start(Backend backend, int expenses) {
+        return start(backend, expenses, Map.of());
+    }
+
+    /**
+     * @param settings application properties for the benchmark, applied over the database's own
+     */
+    static ApplicationState start(Backend backend, int expenses, Map<String, Object> settings) {
+        return start(backend.newDatabase(), expenses, settings);
+    }
+
+    /**
+     * Starts the application against an existing database, such as a file one that {@link #stop()} left behind.
+     */
+    static ApplicationState start(Backend.Database database, int expenses, Map<String, Object> settings) {
+        Map<String, Object> properties = new HashMap<>(database.springProperties());
+        properties.putAll(settings);
+        properties.put("server.port", "0");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.org.springframework.security", "WARN");
+
+        // As command-line arguments, so they override application.properties; builder properties would not
+        String[] arguments = properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(FinanceTrackerApplication.class)
+                .run(arguments);
+
+        ExpenseRepository repository = context.getBean(ExpenseRepository.class);
+        List<Expense> rows = Datasets.expenses(expenses);
+        for (int from = 0; from < rows.size(); from += SEED_BATCH_SIZE) {
+            repository.saveAll(rows.subList(from, Math.min(from + SEED_BATCH_SIZE, rows.size())));
+        }
+        List<Long> ids = rows.stream().map(Expense::getId).toList();
+        return new ApplicationState(context, ids, database);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Stops the application but keeps the database, so a file database can be started against again.
+     */
+    void stop() {
+        context.close();
+    }
+
+    void close() {
+        stop();
+        database.delete();
+    }
+}
@@ -0,0 +1,82 @@
+package com.alexaras.finance_tracker.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Databases the benchmarks run against. Each call to {@link #newDatabase()} gives a fresh, empty
+ * database so trials don't see each other's rows.
+ */
+public enum Backend {
+    H2 {
+        @Override
+        Database newDatabase() {
+            String name = "bench_" + System.nanoTime();
+            return new Database("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", null,
+                    "CREATE TABLE users (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255) NOT NULL, email VARCHAR(255) UNIQUE NOT NULL)",
+                    Map.of(
+                            "finance-tracker.storage.backend", "h2",
+                            "finance-tracker.storage.location", name));
+        }
+    },
+    H2_FILE {
+        @Override
+        Database newDatabase() {
+            Path directory = createTempDirectory();
+            Path file = directory.resolve("finance-tracker");
+            return new Database("jdbc:h2:file:" + file, directory,
+                    "CREATE TABLE users (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255) NOT NULL, email VARCHAR(255) UNIQUE NOT NULL)",
+                    Map.of(
+                            "finance-tracker.storage.backend", "h2-file",
+                            "finance-tracker.storage.location", file.toString()));
+        }
+    },
+    SQLITE {
+        @Override
+        Database newDatabase() {
+            Path directory = createTempDirectory();
+            Path file = directory.resolve("finance_tracker.db");
+            return new Database("jdbc:sqlite:" + file, directory,
+                    "CREATE TABLE users (id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT NOT NULL, email TEXT UNIQUE NOT NULL)",
+                    Map.of(
+                            "finance-tracker.storage.backend", "sqlite",
+                            "finance-tracker.storage.location", file.toString(),
+                            // The reactive API reads the same table through R2DBC, which only has an H2 driver here
+                            "finance-tracker.reactive.enabled", "false"));
+        }
+    };
+
+    abstract Database newDatabase();
+
+    static Path createTempDirectory() {
+        try {
+            return Files.createTempDirectory("finance-tracker-bench");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create a temporary directory", e);
+        }
+    }
+
+    /**
+     * @param directory where a file database lives, deleted by {@link #delete()}; null for in-memory databases
+     * @param springProperties storage settings for starting the application against this database
+     */
+    record Database(String url, Path directory, String usersTableDdl, Map<String, Object> springProperties) {
+
+        void delete() {
+            if (directory != null) {
+                deleteDirectory(directory);
+            }
+        }
+    }
+
+    static void deleteDirectory(Path directory) {
+        try (var files = Files.walk(directory)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete " + directory, e);
+        }
+    }
+}
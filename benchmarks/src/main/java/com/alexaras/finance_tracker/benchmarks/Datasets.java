@@ -0,0 +1,35 @@
+package com.alexaras.finance_tracker.benchmarks;
+
+import com.alexaras.finance_tracker.model.Expense;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic test data, so runs on different machines or commits benchmark the same rows.
+ */
+final class Datasets {
+    static final String[] CATEGORIES = {"Food", "Transport", "Rent", "Entertainment", "Utilities", "Health", "Travel", "Other"};
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private Datasets() {
+    }
+
+    static Expense expense(int i) {
+        return new Expense(
+                BigDecimal.valueOf(100 + (i * 37L) % 10_000, 2),
+                CATEGORIES[i % CATEGORIES.length],
+                "Expense " + i,
+                START.plusMinutes(i * 17L));
+    }
+
+    static List<Expense> expenses(int count) {
+        List<Expense> expenses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            expenses.add(expense(i));
+        }
+        return expenses;
+    }
+}
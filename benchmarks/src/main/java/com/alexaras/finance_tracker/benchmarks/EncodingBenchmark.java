@@ -0,0 +1,91 @@
+package com.alexaras.finance_tracker.benchmarks;
+
+import com.alexaras.finance_tracker.dto.ExpenseColumns;
+import com.alexaras.finance_tracker.model.Expense;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CPU time and bytes on the wire for each response format of {@code GET /api/v1/expenses}. Besides
+ * the time per operation, the results carry two secondary metrics: {@code bytes}, the encoded size,
+ * and {@code gzipBytes}, the size after the gzip compression the server applies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncodingBenchmark {
+
+    public enum Format {
+        JSON, SMILE, CBOR, EXPENSE_COLUMNS
+    }
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    @Param({"JSON", "SMILE", "CBOR", "EXPENSE_COLUMNS"})
+    public Format format;
+
+    private ObjectMapper mapper;
+    private List<Expense> expenses;
+    private int encodedBytes;
+    private int gzipBytes;
+
+    @Setup(Level.Trial)
+    public void createExpenses() throws IOException {
+        // Same mappers the application registers for each media type
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        mapper = switch (format) {
+            case JSON -> json;
+            case SMILE -> json.copyWith(new SmileFactory());
+            case CBOR, EXPENSE_COLUMNS -> json.copyWith(new CBORFactory());
+        };
+        expenses = Datasets.expenses(size);
+        for (int i = 0; i < expenses.size(); i++) {
+            expenses.get(i).setId((long) i + 1);
+            expenses.get(i).setVersion(0L);
+        }
+
+        byte[] encoded = writeBody();
+        encodedBytes = encoded.length;
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(encoded);
+        }
+        gzipBytes = compressed.size();
+    }
+
+    // Sizes are fixed per trial; reporting them per iteration puts them in the JSON results
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Sizes {
+        public long bytes;
+        public long gzipBytes;
+    }
+
+    @Benchmark
+    public byte[] encode(Sizes sizes) throws IOException {
+        sizes.bytes = encodedBytes;
+        sizes.gzipBytes = gzipBytes;
+        return writeBody();
+    }
+
+    private byte[] writeBody() throws IOException {
+        Object body = format == Format.EXPENSE_COLUMNS ? ExpenseColumns.from(expenses) : expenses;
+        return mapper.writeValueAsBytes(body);
+    }
+}
@@ -0,0 +1,117 @@
+package com.alexaras.finance_tracker.benchmarks;
+
+import com.alexaras.finance_tracker.dto.ExpenseFilter;
+import com.alexaras.finance_tracker.dto.ExpenseFilterPage;
+import com.alexaras.finance_tracker.dto.ExpenseSort;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.service.ExpenseService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The filtered listing of {@code GET /api/v1/expenses/filter} for one category over one month,
+ * against the same rows without the composite indexes and against filtering everything in memory,
+ * which is what clients had to do before.
+ * <p>
+ * {@code indexedQuery} and {@code unindexedQuery} run the same SQL against the indexed table and an
+ * index-free copy of it, so the gap between them is what the index is worth. The setup fails the
+ * trial if the database does not plan the indexed query through an index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpenseFilterBenchmark {
+    private static final String QUERY = "SELECT id, amount, category, description, spent_at FROM %s "
+            + "WHERE category = ? AND spent_at >= ? AND spent_at < ? ORDER BY spent_at DESC, id DESC LIMIT 100";
+
+    @Param({"H2", "SQLITE"})
+    public Backend backend;
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    private ApplicationState application;
+    private ExpenseService expenseService;
+    private JdbcTemplate jdbcTemplate;
+    private LocalDate from;
+    private LocalDate to;
+    private int calls;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        application = ApplicationState.start(backend, size);
+        expenseService = application.bean(ExpenseService.class);
+        jdbcTemplate = application.bean(JdbcTemplate.class);
+        jdbcTemplate.execute("CREATE TABLE expenses_unindexed AS SELECT * FROM expenses");
+
+        // The last month of the seeded rows
+        LocalDateTime last = Datasets.expense(size - 1).getSpentAt();
+        from = last.toLocalDate().minusMonths(1);
+        to = last.toLocalDate();
+
+        String plan = jdbcTemplate.queryForList(
+                        (backend == Backend.SQLITE ? "EXPLAIN QUERY PLAN " : "EXPLAIN ") + QUERY.formatted("expenses"),
+                        arguments(nextCategory()))
+                .toString();
+        if (!plan.toLowerCase().contains("idx_expenses_category_spent_at")) {
+            throw new IllegalStateException("The filter query does not use its index:\n" + plan);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        application.close();
+    }
+
+    @Benchmark
+    public ExpenseFilterPage filterExpenses() {
+        ExpenseFilter filter = new ExpenseFilter(List.of(nextCategory()), null, null, from, to,
+                ExpenseSort.SPENT_AT, Sort.Direction.DESC);
+        return expenseService.filterExpenses(filter, null, 100);
+    }
+
+    @Benchmark
+    public List<Long> indexedQuery() {
+        return jdbcTemplate.query(QUERY.formatted("expenses"), (row, i) -> row.getLong("id"), arguments(nextCategory()));
+    }
+
+    @Benchmark
+    public List<Long> unindexedQuery() {
+        return jdbcTemplate.query(QUERY.formatted("expenses_unindexed"), (row, i) -> row.getLong("id"),
+                arguments(nextCategory()));
+    }
+
+    @Benchmark
+    public List<Expense> filterInMemory() {
+        String category = nextCategory();
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        return expenseService.getAllExpenses().stream()
+                .filter(expense -> expense.getCategory().equals(category))
+                .filter(expense -> !expense.getSpentAt().isBefore(start) && expense.getSpentAt().isBefore(end))
+                .sorted(Comparator.comparing(Expense::getSpentAt).thenComparing(Expense::getId).reversed())
+                .limit(100)
+                .toList();
+    }
+
+    // Changing the category on every call keeps H2 from answering a repeated query from its last result
+    private String nextCategory() {
+        return Datasets.CATEGORIES[calls++ % Datasets.CATEGORIES.length];
+    }
+
+    // Bound as Timestamps, the way Hibernate writes spent_at; SQLite compares other encodings as text
+    private Object[] arguments(String category) {
+        return new Object[]{category, Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.plusDays(1).atStartOfDay())};
+    }
+}
@@ -0,0 +1,88 @@
+package com.alexaras.finance_tracker.benchmarks;
+
+import com.alexaras.finance_tracker.journal.ExpenseJournal;
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.service.ExpenseService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of recording a new expense: through ExpenseService on in-memory H2 without and with the journal,
+ * and appending to the journal alone. The SYNC variants force every append to disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpenseJournalBenchmark {
+
+    @Param({"JPA", "JPA_JOURNAL", "JPA_JOURNAL_SYNC", "JOURNAL", "JOURNAL_SYNC"})
+    public String path;
+
+    private Path directory;
+    private ApplicationState application;
+    private ExpenseService expenseService;
+    private ExpenseRepository expenseRepository;
+    private ExpenseJournal journal;
+    private final List<Long> added = new ArrayList<>();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        directory = Backend.createTempDirectory();
+        boolean sync = path.endsWith("_SYNC");
+        if (path.startsWith("JPA")) {
+            application = ApplicationState.start(Backend.H2, 0, Map.of(
+                    "finance-tracker.expenses.journal.enabled", path.startsWith("JPA_JOURNAL"),
+                    "finance-tracker.expenses.journal.directory", directory,
+                    "finance-tracker.expenses.journal.sync", sync));
+            expenseService = application.bean(ExpenseService.class);
+            expenseRepository = application.bean(ExpenseRepository.class);
+        } else {
+            journal = ExpenseJournal.open(directory, 1 << 16, sync);
+        }
+    }
+
+    // Keep the table empty, as in ExpenseServiceBenchmark; the journal keeps what it recorded
+    @TearDown(Level.Iteration)
+    public void removeAddedExpenses() {
+        if (expenseRepository != null) {
+            expenseRepository.deleteAllByIdInBatch(added);
+        }
+        added.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        if (application != null) {
+            application.close();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+        Backend.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public Expense addExpense() {
+        Expense expense = Datasets.expense(next++);
+        if (journal != null) {
+            expense.setId((long) next);
+            expense.setVersion(0L);
+            journal.put(expense);
+            return expense;
+        }
+        Expense saved = expenseService.addExpense(expense);
+        added.add(saved.getId());
+        return saved;
+    }
+}
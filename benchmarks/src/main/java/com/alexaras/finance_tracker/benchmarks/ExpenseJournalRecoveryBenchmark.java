@@ -0,0 +1,93 @@
+package com.alexaras.finance_tracker.benchmarks;
+
+import com.alexaras.finance_tracker.journal.ExpenseJournal;
+import com.alexaras.finance_tracker.model.Expense;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time to get a set of expenses back after a restart: replaying the journal alone, starting the
+ * application on in-memory H2 restored from the journal, and starting it on an H2 file that already
+ * holds the rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExpenseJournalRecoveryBenchmark {
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    private Path journalDirectory;
+    private Backend.Database h2File;
+    private ApplicationState started;
+    // Whether the started application runs on a throwaway in-memory database rather than the H2 file
+    private boolean inMemory;
+
+    @Setup(Level.Trial)
+    public void prepare() throws IOException {
+        journalDirectory = Backend.createTempDirectory();
+        try (ExpenseJournal journal = ExpenseJournal.open(journalDirectory, size, false)) {
+            for (int i = 0; i < size; i++) {
+                Expense expense = Datasets.expense(i);
+                expense.setId(i + 1L);
+                expense.setVersion(0L);
+                journal.put(expense);
+            }
+        }
+        h2File = Backend.H2_FILE.newDatabase();
+        ApplicationState.start(h2File, size, Map.of()).stop();
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopApplication() {
+        if (started == null) {
+            return;
+        }
+        if (inMemory) {
+            started.close();
+        } else {
+            started.stop();
+        }
+        started = null;
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() {
+        Backend.deleteDirectory(journalDirectory);
+        h2File.delete();
+    }
+
+    @Benchmark
+    public long replayJournal() throws IOException {
+        LongAdder replayed = new LongAdder();
+        try (ExpenseJournal journal = ExpenseJournal.open(journalDirectory, size, false)) {
+            journal.replay(expense -> replayed.increment());
+        }
+        return replayed.sum();
+    }
+
+    @Benchmark
+    public ApplicationState startFromJournal() {
+        started = ApplicationState.start(Backend.H2, 0, Map.of(
+                "finance-tracker.expenses.journal.enabled", true,
+                "finance-tracker.expenses.journal.directory", journalDirectory));
+        inMemory = true;
+        return started;
+    }
+
+    @Benchmark
+    public ApplicationState startFromH2File() {
+        started = ApplicationState.start(h2File, 0, Map.of());
+        inMemory = false;
+        return started;
+    }
+}
@@ -0,0 +1,45 @@
+package com.alexaras.finance_tracker.benchmarks;
+
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpenseRepositoryBenchmark {
+
+    @Param({"H2", "SQLITE"})
+    public Backend backend;
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private ApplicationState application;
+    private ExpenseRepository expenseRepository;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        application = ApplicationState.start(backend, size);
+        expenseRepository = application.bean(ExpenseRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        application.close();
+    }
+
+    // Each category holds about 1/8 of the rows
+    @Benchmark
+    public List<Expense> findByCategory() {
+        String category = Datasets.CATEGORIES[ThreadLocalRandom.current().nextInt(Datasets.CATEGORIES.length)];
+        return expenseRepository.findByCategory(category);
+    }
+}
@@ -0,0 +1,73 @@
+package com.alexaras.finance_tracker.benchmarks;
+
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.service.ExpenseService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpenseServiceBenchmark {
+
+    @Param({"H2", "SQLITE"})
+    public Backend backend;
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private ApplicationState application;
+    private ExpenseService expenseService;
+    private ExpenseRepository expenseRepository;
+    private final List<Long> added = new ArrayList<>();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        application = ApplicationState.start(backend, size);
+        expenseService = application.bean(ExpenseService.class);
+        expenseRepository = application.bean(ExpenseRepository.class);
+    }
+
+    // Keep the table at the configured size, so later iterations measure the same dataset
+    @TearDown(Level.Iteration)
+    public void removeAddedExpenses() {
+        expenseRepository.deleteAllByIdInBatch(added);
+        added.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        application.close();
+    }
+
+    @Benchmark
+    public List<Expense> getAllExpenses() {
+        return expenseService.getAllExpenses();
+    }
+
+    @Benchmark
+    public Expense addExpense() {
+        Expense saved = expenseService.addExpense(Datasets.expense(next++));
+        added.add(saved.getId());
+        return saved;
+    }
+
+    @Benchmark
+    public Expense updateExpense() {
+        List<Long> ids = application.expenseIds;
+        long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        Expense changes = Datasets.expense(next++);
+        changes.setAmount(changes.getAmount().add(BigDecimal.ONE));
+        return expenseService.updateExpense(id, changes);
+    }
+}
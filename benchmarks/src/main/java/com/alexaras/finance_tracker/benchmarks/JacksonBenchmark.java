@@ -0,0 +1,43 @@
+package com.alexaras.finance_tracker.benchmarks;
+
+import com.alexaras.finance_tracker.model.Expense;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JacksonBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<Expense> expenses;
+
+    @Setup(Level.Trial)
+    public void createExpenses() {
+        // Same defaults Spring Boot applies to the mapper that writes API responses
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        expenses = Datasets.expenses(size);
+        for (int i = 0; i < expenses.size(); i++) {
+            expenses.get(i).setId((long) i + 1);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeExpenses() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(expenses);
+    }
+}
@@ -0,0 +1,89 @@
+package com.alexaras.finance_tracker.benchmarks;
+
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.model.MinorUnits;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code BigDecimal} amounts against long cents ({@link MinorUnits}) for the work the aggregation and
+ * import paths do: summing amounts per category and parsing amount text. Run with {@code -prof gc}
+ * to see the allocation per operation next to the time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private String[] categories;
+    private int[] categoryIndexes;
+    private BigDecimal[] amounts;
+    private long[] cents;
+    private String[] amountTexts;
+
+    @Setup(Level.Trial)
+    public void createAmounts() {
+        List<Expense> expenses = Datasets.expenses(size);
+        categories = new String[size];
+        categoryIndexes = new int[size];
+        amounts = new BigDecimal[size];
+        cents = new long[size];
+        amountTexts = new String[size];
+        for (int i = 0; i < size; i++) {
+            Expense expense = expenses.get(i);
+            categories[i] = expense.getCategory();
+            categoryIndexes[i] = i % Datasets.CATEGORIES.length;
+            amounts[i] = expense.getAmount();
+            cents[i] = MinorUnits.of(expense.getAmount());
+            amountTexts[i] = expense.getAmount().toPlainString();
+        }
+    }
+
+    @Benchmark
+    public Map<String, BigDecimal> sumByCategoryBigDecimal() {
+        Map<String, BigDecimal> totals = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            totals.merge(categories[i], amounts[i], BigDecimal::add);
+        }
+        return totals;
+    }
+
+    @Benchmark
+    public long[] sumByCategoryMinorUnits() {
+        // Categories are dictionary indexes here, as in the columnar encoding
+        long[] totals = new long[Datasets.CATEGORIES.length];
+        for (int i = 0; i < size; i++) {
+            totals[categoryIndexes[i]] = MinorUnits.add(totals[categoryIndexes[i]], cents[i]);
+        }
+        return totals;
+    }
+
+    @Benchmark
+    public BigDecimal parseBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (String text : amountTexts) {
+            total = total.add(new BigDecimal(text));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long parseMinorUnits() {
+        long total = 0;
+        for (String text : amountTexts) {
+            total = MinorUnits.add(total, MinorUnits.parse(text));
+        }
+        return total;
+    }
+}
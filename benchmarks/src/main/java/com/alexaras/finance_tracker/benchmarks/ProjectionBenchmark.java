@@ -0,0 +1,73 @@
+package com.alexaras.finance_tracker.benchmarks;
+
+import com.alexaras.finance_tracker.dto.UserProjection;
+import com.alexaras.finance_tracker.model.Budget;
+import com.alexaras.finance_tracker.model.Recurrence;
+import com.alexaras.finance_tracker.model.RecurringExpense;
+import com.alexaras.finance_tracker.projection.ProjectionEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The nightly projection batch for many users: {@code parallel} on the engine's fork-join pool with
+ * one thread per processor, {@code sequential} projecting one user after another. Actual spending is
+ * served from memory, as the batch reads it in one query before projecting anyone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+    private static final int MONTHS = 3;
+
+    @Param({"10000", "50000"})
+    public int users;
+
+    private final LocalDate asOf = LocalDate.of(2024, 3, 20);
+    private final ProjectionEngine engine = new ProjectionEngine(Runtime.getRuntime().availableProcessors());
+    private final ProjectionEngine.Actuals actuals =
+            (userId, category) -> new long[]{userId % 100 * 1_000L + category.length(), 0, 0};
+    private List<ProjectionEngine.Plan> plans;
+
+    @Setup(Level.Trial)
+    public void definePlans() {
+        Random random = new Random(42);
+        Recurrence[] recurrences = Recurrence.values();
+        plans = new ArrayList<>(users);
+        for (int userId = 1; userId <= users; userId++) {
+            List<RecurringExpense> recurring = new ArrayList<>();
+            for (int i = 1 + random.nextInt(5); i > 0; i--) {
+                recurring.add(new RecurringExpense(BigDecimal.valueOf(100 + random.nextInt(100_000), 2),
+                        Datasets.CATEGORIES[random.nextInt(Datasets.CATEGORIES.length)], null,
+                        recurrences[random.nextInt(recurrences.length)], asOf.minusDays(random.nextInt(730))));
+            }
+            List<Budget> budgets = new ArrayList<>();
+            for (int i = random.nextInt(4); i > 0; i--) {
+                budgets.add(new Budget(userId, Datasets.CATEGORIES[i], BigDecimal.valueOf(200 + random.nextInt(1_000))));
+            }
+            plans.add(new ProjectionEngine.Plan(userId, recurring, budgets));
+        }
+    }
+
+    @Benchmark
+    public List<UserProjection> parallel() {
+        return engine.projectAll(plans, asOf, MONTHS, actuals);
+    }
+
+    @Benchmark
+    public List<UserProjection> sequential() {
+        List<UserProjection> projections = new ArrayList<>(plans.size());
+        for (ProjectionEngine.Plan plan : plans) {
+            projections.add(ProjectionEngine.project(plan, asOf, MONTHS, actuals));
+        }
+        return projections;
+    }
+}
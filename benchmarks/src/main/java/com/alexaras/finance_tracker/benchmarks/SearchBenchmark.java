@@ -0,0 +1,74 @@
+package com.alexaras.finance_tracker.benchmarks;
+
+import com.alexaras.finance_tracker.search.InvertedIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency of the in-memory search index behind {@code GET /api/v1/expenses/search}. The
+ * descriptions draw from a vocabulary of syllable words with a skewed distribution. A long word
+ * matches few other tokens; a short word is also the start of many longer ones, so like a typed
+ * prefix it expands to the most postings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    private static final String[] SYLLABLES = {"ca", "fe", "lu", "mo", "ti", "ra", "ne", "so", "pi", "de", "ko", "ba"};
+    private static final int VOCABULARY_SIZE = 5_000;
+
+    public enum Query {
+        LONG_WORD, SHORT_WORD, PREFIX, TWO_WORDS
+    }
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"LONG_WORD", "SHORT_WORD", "PREFIX", "TWO_WORDS"})
+    public Query query;
+
+    private InvertedIndex index;
+    private String text;
+
+    @Setup(Level.Trial)
+    public void buildIndex() {
+        Random random = new Random(42);
+        String[] vocabulary = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < vocabulary.length; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int syllables = 2 + random.nextInt(3); syllables > 0; syllables--) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            vocabulary[i] = word.toString();
+        }
+
+        index = new InvertedIndex();
+        for (int id = 1; id <= size; id++) {
+            StringBuilder description = new StringBuilder();
+            for (int words = 2 + random.nextInt(3); words > 0; words--) {
+                // Nested draws skew towards low indexes, roughly like word frequencies in real text
+                description.append(vocabulary[random.nextInt(random.nextInt(VOCABULARY_SIZE) + 1)]).append(' ');
+            }
+            index.add(id, Datasets.CATEGORIES[id % Datasets.CATEGORIES.length], description.toString());
+        }
+
+        // With the fixed seed these are "mocapine", "neti", "ral" and "mocapine soba"
+        text = switch (query) {
+            case LONG_WORD -> vocabulary[0];
+            case SHORT_WORD -> vocabulary[VOCABULARY_SIZE - 1];
+            case PREFIX -> vocabulary[1].substring(0, 3);
+            case TWO_WORDS -> vocabulary[0] + " " + vocabulary[10];
+        };
+    }
+
+    @Benchmark
+    public List<InvertedIndex.Hit> search() {
+        return index.search(text, 20);
+    }
+}
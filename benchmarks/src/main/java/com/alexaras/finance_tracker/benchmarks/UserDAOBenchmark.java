@@ -0,0 +1,84 @@
+package com.alexaras.finance_tracker.benchmarks;
+
+import com.alexaras.finance_tracker.DatabaseConnection;
+import com.alexaras.finance_tracker.dao.impl.UserDAOImpl;
+import com.alexaras.finance_tracker.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDAOBenchmark {
+
+    @Param({"H2", "SQLITE"})
+    public Backend backend;
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private Backend.Database database;
+    private DatabaseConnection connection;
+    private UserDAOImpl userDAO;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createDatabase() throws SQLException {
+        database = backend.newDatabase();
+        connection = new DatabaseConnection(database.url());
+        try (Connection conn = connection.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute(database.usersTableDdl());
+        }
+        userDAO = new UserDAOImpl(connection.getDataSource());
+
+        List<User> users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            users.add(new User(0, "User " + i, "user" + i + "@example.com"));
+        }
+        userDAO.createUsers(users);
+        next = size;
+    }
+
+    // Keep the table at the configured size, so later iterations measure the same dataset
+    @TearDown(Level.Iteration)
+    public void removeAddedUsers() throws SQLException {
+        try (Connection conn = connection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("DELETE FROM users WHERE id > ?")) {
+            stmt.setInt(1, size);
+            stmt.executeUpdate();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void dropDatabase() {
+        connection.close();
+        database.delete();
+    }
+
+    @Benchmark
+    public User findById() {
+        return userDAO.findById(1 + ThreadLocalRandom.current().nextInt(size));
+    }
+
+    @Benchmark
+    public List<User> findAll() {
+        return userDAO.findAll();
+    }
+
+    @Benchmark
+    public void createUser() {
+        int i = next++;
+        userDAO.createUser(new User(0, "User " + i, "user" + i + "@example.com"));
+    }
+}
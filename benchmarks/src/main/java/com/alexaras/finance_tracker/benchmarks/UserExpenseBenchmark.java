@@ -0,0 +1,72 @@
+package com.alexaras.finance_tracker.benchmarks;
+
+import com.alexaras.finance_tracker.dto.CategoryStats;
+import com.alexaras.finance_tracker.dto.ExpensePage;
+import com.alexaras.finance_tracker.service.ExpenseService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user reads against the same table holding every user's expenses. With the {@code user_id}
+ * indexes the per-user page and category statistics read one user's rows, so their cost should stay
+ * flat as {@code size} grows at a fixed number of expenses per user; {@code allCategoryStats} is the
+ * same aggregate over everyone, for comparison. H2 answers that repeated query from its result cache
+ * while nothing changes, so the comparison only means something on SQLite.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserExpenseBenchmark {
+    private static final int EXPENSES_PER_USER = 100;
+
+    @Param({"H2", "SQLITE"})
+    public Backend backend;
+
+    @Param({"10000", "100000"})
+    public int size;
+
+    private ApplicationState application;
+    private ExpenseService expenseService;
+    private int users;
+    private int calls;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        application = ApplicationState.start(backend, size);
+        expenseService = application.bean(ExpenseService.class);
+        users = size / EXPENSES_PER_USER;
+        // Owners are not checked on this path, so the users need not exist in the user store
+        application.bean(JdbcTemplate.class).update("UPDATE expenses SET user_id = MOD(id, ?) + 1", users);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        application.close();
+    }
+
+    @Benchmark
+    public ExpensePage userPage() {
+        return expenseService.getUserExpensePage(nextUser(), null, 50);
+    }
+
+    @Benchmark
+    public List<CategoryStats> userCategoryStats() {
+        return expenseService.getUserCategoryStats(nextUser(), null, null);
+    }
+
+    @Benchmark
+    public List<CategoryStats> allCategoryStats() {
+        return expenseService.getCategoryStats(null, null);
+    }
+
+    // A different user on every call, so no database answers from the previous result
+    private int nextUser() {
+        return calls++ % users + 1;
+    }
+}
@@ -0,0 +1,106 @@
+package com.alexaras.finance_tracker.benchmarks;
+
+import com.alexaras.finance_tracker.model.Expense;
+import com.alexaras.finance_tracker.repository.ExpenseRepository;
+import com.alexaras.finance_tracker.service.ExpenseService;
+import com.alexaras.finance_tracker.service.ExpenseWriteBehindQueue;
+import com.alexaras.finance_tracker.service.WriteBehindQueueFullException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput of {@link ExpenseService#addExpense} from many concurrent callers, with one commit per
+ * expense ({@code SYNCHRONOUS}) against the write-behind queue in either durability mode. With
+ * {@code COMMITTED} callers still wait for their expense to be saved, but share commits; with
+ * {@code ACCEPTED} they only wait for a place in the queue. Once the queue is full, rejected calls
+ * count towards the score too, so compare the {@code accepted} counter: how many expenses per
+ * millisecond actually got in, which is bounded by how fast the flusher empties the queue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class WriteBehindBenchmark {
+
+    public enum WriteMode {
+        SYNCHRONOUS, COMMITTED, ACCEPTED
+    }
+
+    // SQLite runs too (-p backend=SQLITE); its synchronous writers take turns at the one write lock,
+    // which the single flusher thread holds once per batch
+    @Param({"H2"})
+    public Backend backend;
+
+    @Param({"SYNCHRONOUS", "COMMITTED", "ACCEPTED"})
+    public WriteMode mode;
+
+    private ApplicationState application;
+    private ExpenseService expenseService;
+    private ExpenseWriteBehindQueue writeBehindQueue;
+    private ExpenseRepository expenseRepository;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        Map<String, Object> settings = mode == WriteMode.SYNCHRONOUS
+                ? Map.of()
+                : Map.of("finance-tracker.expenses.write-behind.enabled", "true",
+                        "finance-tracker.expenses.write-behind.durability", mode.name());
+        application = ApplicationState.start(backend, 0, settings);
+        expenseService = application.bean(ExpenseService.class);
+        writeBehindQueue = application.bean(ExpenseWriteBehindQueue.class);
+        expenseRepository = application.bean(ExpenseRepository.class);
+    }
+
+    // Let the flusher catch up and empty the table, so every iteration starts from the same state
+    @TearDown(Level.Iteration)
+    public void drainAndClear() throws InterruptedException {
+        while (writeBehindQueue.size() > 0) {
+            Thread.sleep(10);
+        }
+        expenseRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        application.close();
+    }
+
+    @Benchmark
+    public Expense addExpense(Outcomes outcomes) throws InterruptedException {
+        try {
+            Expense expense = expenseService.addExpense(Datasets.expense(next.getAndIncrement()));
+            outcomes.accepted++;
+            return expense;
+        } catch (WriteBehindQueueFullException full) {
+            // Back off like a client honouring Retry-After would, if much sooner, rather than spinning
+            // and taking the CPU the flusher needs to empty the queue
+            outcomes.rejected++;
+            Thread.sleep(1);
+            return null;
+        }
+    }
+
+    /**
+     * Reported next to the score as their own rates: accepted is the sustained rate of new expenses,
+     * rejected how often the queue was full.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcomes {
+        public long accepted;
+        public long rejected;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            accepted = 0;
+            rejected = 0;
+        }
+    }
+}